@@ -1,8 +1,17 @@
 import config.Config;
+import config.ResourcePreloader;
+import config.ResourceTiming;
+import seg.CoreDictionary;
+import seg.DagSegmenter;
 
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 
 /**
  * @Author lizhen
@@ -19,6 +28,41 @@ public class ToolsPackage {
      */
     private ToolsPackage(){}
 
+    /**
+     * 创建使用共享核心词典的分词器，词典在第一次调用时加载
+     *
+     * @return 分词器，词典加载失败时返回null
+     */
+    public static DagSegmenter newSegmenter() {
+        CoreDictionary dictionary = CONFIG.getCoreDictionary();
+        return dictionary == null ? null : new DagSegmenter(dictionary);
+    }
+
+    /**
+     * 并行加载 CONFIG 中注册的全部资源：预读映射页面、校验CRC32、加载并进行JIT预热，适合在服务就绪前调用
+     *
+     * @param executor 执行加载任务的线程池
+     * @return 每个资源的耗时和结果
+     */
+    public static List<ResourceTiming> preload(Executor executor) {
+        return ResourcePreloader.preload(CONFIG, executor);
+    }
+
+    /**
+     * 使用临时线程池预加载，线程数为资源数与CPU核数的较小值
+     *
+     * @return 每个资源的耗时和结果
+     */
+    public static List<ResourceTiming> preload() {
+        int threads = Math.min(CONFIG.registeredResources().size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        try {
+            return preload(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 
 
 
@@ -0,0 +1,159 @@
+package collection.filter;
+
+import common.io.ByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 分块布隆过滤器。<br>
+ * 位数组分成512位（64字节，一个缓存行）的块，每个键先选一块，k个位都落在这一块内，
+ * 因此一次查询只访问一个缓存行（Java数组不保证按缓存行对齐，最坏两个），代价是误判率比普通布隆过滤器略高。
+ * 每个键10位时误判率约1%，16位时约0.1%。<br>
+ * 构建后只读时可以多线程共享；put 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日8:30 下午
+ */
+@Slf4j
+public class BlockedBloomFilter implements IFilter {
+
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+    private static final int MAGIC = 0x42424C46; // BBLF
+    private static final int WORDS_PER_BLOCK = 8;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private int size;
+
+    /**
+     * @param expectedKeys 预计的键数
+     * @param bitsPerKey   每个键占用的位数，越大误判率越低
+     */
+    public BlockedBloomFilter(int expectedKeys, int bitsPerKey) {
+        long bits = Math.max((long) expectedKeys * Math.max(bitsPerKey, 1), 512);
+        this.blocks = (int) Math.min((bits + 511) / 512, Integer.MAX_VALUE / WORDS_PER_BLOCK);
+        this.words = new long[blocks * WORDS_PER_BLOCK];
+        this.hashes = Math.max(1, Math.min((int) Math.round(Math.log(2) * bitsPerKey), 16));
+    }
+
+    private BlockedBloomFilter(long[] words, int hashes, int size) {
+        this.words = words;
+        this.blocks = words.length / WORDS_PER_BLOCK;
+        this.hashes = hashes;
+        this.size = size;
+    }
+
+    /**
+     * 由键构建，例如构建trie树时使用的有序词表
+     */
+    public static BlockedBloomFilter build(Iterable<? extends CharSequence> keys, int expectedKeys, int bitsPerKey) {
+        BlockedBloomFilter filter = new BlockedBloomFilter(expectedKeys, bitsPerKey);
+        for (CharSequence key : keys) filter.put(key);
+        return filter;
+    }
+
+    /**
+     * 用哈希的高32位选块（乘法取高位，不要求块数为2的幂），低32位与另一段混合后做双重哈希选块内的位
+     */
+    private int blockOf(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    private boolean put(long hash) {
+        int base = blockOf(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 17) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & 511;
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+        return true;
+    }
+
+    private boolean mightContain(long hash) {
+        int base = blockOf(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 17) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & 511;
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean put(char[] key, int offset, int length) {
+        return put(FilterHash.hash(key, offset, length));
+    }
+
+    @Override
+    public boolean put(CharSequence key) {
+        return put(FilterHash.hash(key));
+    }
+
+    @Override
+    public boolean mightContain(char[] key, int offset, int length) {
+        return mightContain(FilterHash.hash(key, offset, length));
+    }
+
+    @Override
+    public boolean mightContain(CharSequence key) {
+        return mightContain(FilterHash.hash(key));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * words.length;
+    }
+
+    /**
+     * @return 按当前的键数估算的误判率（按普通布隆过滤器计算，分块后实际略高）
+     */
+    public double expectedFalsePositiveRate() {
+        double bitsPerKey = 64.0 * words.length / Math.max(size, 1);
+        return Math.pow(1 - Math.exp(-hashes / bitsPerKey), hashes);
+    }
+
+    @Override
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(hashes);
+            out.writeInt(size);
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+        } catch (IOException e) {
+            errorLog.error("save", "保存布隆过滤器失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 save 的输出
+     *
+     * @return 过滤器，格式不符时返回null
+     */
+    public static BlockedBloomFilter load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是布隆过滤器的数据");
+            return null;
+        }
+        int hashes = byteArray.nextInt();
+        int size = byteArray.nextInt();
+        long[] words = new long[byteArray.nextInt()];
+        for (int i = 0; i < words.length; i++) words[i] = byteArray.nextLong();
+        return new BlockedBloomFilter(words, hashes, size);
+    }
+}
@@ -0,0 +1,256 @@
+package collection.filter;
+
+import common.io.ByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * 布谷鸟过滤器，支持删除。<br>
+ * 每个桶4个16位指纹，恰好放在一个long里；键的指纹只可能在两个候选桶中（i2 = i1 ^ hash(指纹)），
+ * 查询最多读两个long，并用SWAR一次比较4个指纹。装载率可达95%，误判率约 8 / 65536 ≈ 0.012%。<br>
+ * 两个候选桶都满时随机踢出一个指纹到它的另一个桶，超过 MAX_KICKS 次仍失败时，最后被踢出的指纹暂存在 victim 中
+ * （查询时同样检查，不会漏判），过滤器视为已满，之后的 put 都返回false。
+ * 构建后只读时可以多线程共享；put、remove 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日8:45 下午
+ */
+@Slf4j
+public class CuckooFilter implements IFilter {
+
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+    private static final int MAGIC = 0x43554B46; // CUKF
+    private static final int MAX_KICKS = 500;
+    private static final long LANES_LOW = 0x0001000100010001L;
+    private static final long LANES_HIGH = 0x8000800080008000L;
+
+    private final long[] buckets;
+    private final int mask;
+    private int size;
+    // 踢出失败时暂存的指纹及其所在的桶，victimFingerprint 为0表示没有
+    private int victimFingerprint;
+    private int victimBucket;
+    private final Random random = new Random(0x5EED);
+
+    /**
+     * @param expectedKeys 预计的键数，按95%的装载率分配桶
+     */
+    public CuckooFilter(int expectedKeys) {
+        long needed = (long) (Math.max(expectedKeys, 1) / 0.95 / 4) + 1;
+        int capacity = Integer.highestOneBit((int) Math.min(Math.max(needed, 2), 1 << 30) * 2 - 1);
+        this.buckets = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private CuckooFilter(long[] buckets, int size, int victimFingerprint, int victimBucket) {
+        this.buckets = buckets;
+        this.mask = buckets.length - 1;
+        this.size = size;
+        this.victimFingerprint = victimFingerprint;
+        this.victimBucket = victimBucket;
+    }
+
+    /**
+     * 由键构建，例如构建trie树时使用的有序词表
+     *
+     * @return 过滤器，装不下时返回null
+     */
+    public static CuckooFilter build(Iterable<? extends CharSequence> keys, int expectedKeys) {
+        CuckooFilter filter = new CuckooFilter(expectedKeys);
+        for (CharSequence key : keys) {
+            if (!filter.put(key)) {
+                log.error("布谷鸟过滤器已满，预计键数{}偏小", expectedKeys);
+                return null;
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * @return 16位指纹，0表示空槽，因此不取0
+     */
+    private static int fingerprint(long hash) {
+        int fingerprint = (int) (hash >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private int alternate(int bucket, int fingerprint) {
+        return (bucket ^ (int) FilterHash.mix(fingerprint)) & mask;
+    }
+
+    /**
+     * @return 桶中是否有该指纹
+     */
+    private static boolean contains(long bucket, int fingerprint) {
+        long x = bucket ^ (fingerprint * LANES_LOW);
+        return ((x - LANES_LOW) & ~x & LANES_HIGH) != 0;
+    }
+
+    /**
+     * 放入空槽
+     *
+     * @return 是否有空槽
+     */
+    private boolean insert(int bucket, int fingerprint) {
+        long value = buckets[bucket];
+        for (int slot = 0; slot < 4; slot++) {
+            int shift = slot * 16;
+            if (((value >>> shift) & 0xFFFF) == 0) {
+                buckets[bucket] = value | ((long) fingerprint << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean put(long hash) {
+        if (victimFingerprint != 0) return false;
+        int fingerprint = fingerprint(hash);
+        int i1 = (int) hash & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (insert(i1, fingerprint) || insert(i2, fingerprint)) {
+            size++;
+            return true;
+        }
+        int bucket = random.nextBoolean() ? i1 : i2;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int shift = random.nextInt(4) * 16;
+            int victim = (int) ((buckets[bucket] >>> shift) & 0xFFFF);
+            buckets[bucket] = (buckets[bucket] & ~(0xFFFFL << shift)) | ((long) fingerprint << shift);
+            fingerprint = victim;
+            bucket = alternate(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                size++;
+                return true;
+            }
+        }
+        // 新键已经放入，只是最后被踢出的指纹没有位置
+        victimFingerprint = fingerprint;
+        victimBucket = bucket;
+        size++;
+        return true;
+    }
+
+    private boolean mightContain(long hash) {
+        int fingerprint = fingerprint(hash);
+        int i1 = (int) hash & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (contains(buckets[i1], fingerprint) || contains(buckets[i2], fingerprint)) return true;
+        return victimFingerprint == fingerprint && (victimBucket == i1 || victimBucket == i2);
+    }
+
+    private boolean remove(long hash) {
+        int fingerprint = fingerprint(hash);
+        int i1 = (int) hash & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (victimFingerprint == fingerprint && (victimBucket == i1 || victimBucket == i2)) {
+            victimFingerprint = 0;
+            size--;
+            return true;
+        }
+        if (removeFrom(i1, fingerprint) || removeFrom(i2, fingerprint)) {
+            size--;
+            // 腾出了位置，尝试放回暂存的指纹
+            if (victimFingerprint != 0 && insert(victimBucket, victimFingerprint)) victimFingerprint = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean removeFrom(int bucket, int fingerprint) {
+        long value = buckets[bucket];
+        for (int slot = 0; slot < 4; slot++) {
+            int shift = slot * 16;
+            if (((value >>> shift) & 0xFFFF) == fingerprint) {
+                buckets[bucket] = value & ~(0xFFFFL << shift);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean put(char[] key, int offset, int length) {
+        return put(FilterHash.hash(key, offset, length));
+    }
+
+    @Override
+    public boolean put(CharSequence key) {
+        return put(FilterHash.hash(key));
+    }
+
+    @Override
+    public boolean mightContain(char[] key, int offset, int length) {
+        return mightContain(FilterHash.hash(key, offset, length));
+    }
+
+    @Override
+    public boolean mightContain(CharSequence key) {
+        return mightContain(FilterHash.hash(key));
+    }
+
+    /**
+     * 删除一个键，只能删除确实加入过的键，否则可能误删其他键的指纹
+     *
+     * @return 是否找到并删除
+     */
+    public boolean remove(CharSequence key) {
+        return remove(FilterHash.hash(key));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return 8L * buckets.length;
+    }
+
+    /**
+     * @return 装载率
+     */
+    public double loadFactor() {
+        return size / (4.0 * buckets.length);
+    }
+
+    @Override
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(victimFingerprint);
+            out.writeInt(victimBucket);
+            out.writeInt(buckets.length);
+            for (long bucket : buckets) out.writeLong(bucket);
+        } catch (IOException e) {
+            errorLog.error("save", "保存布谷鸟过滤器失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 save 的输出
+     *
+     * @return 过滤器，格式不符时返回null
+     */
+    public static CuckooFilter load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是布谷鸟过滤器的数据");
+            return null;
+        }
+        int size = byteArray.nextInt();
+        int victimFingerprint = byteArray.nextInt();
+        int victimBucket = byteArray.nextInt();
+        long[] buckets = new long[byteArray.nextInt()];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = byteArray.nextLong();
+        return new CuckooFilter(buckets, size, victimFingerprint, victimBucket);
+    }
+}
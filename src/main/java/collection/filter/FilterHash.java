@@ -0,0 +1,40 @@
+package collection.filter;
+
+/**
+ * 过滤器、概要结构使用的64位哈希，char[] 片段与字符串的结果一致
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日8:20 下午
+ */
+public class FilterHash {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    public static long hash(char[] chars, int offset, int length) {
+        long h = length;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h + chars[i]) * MULTIPLIER;
+        }
+        return mix(h);
+    }
+
+    public static long hash(CharSequence text) {
+        long h = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            h = (h + text.charAt(i)) * MULTIPLIER;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3 的 fmix64
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,35 @@
+package collection.filter;
+
+import java.io.DataOutputStream;
+
+/**
+ * 近似集合接口：mightContain 返回false时键一定不存在，返回true时键可能存在（有一定的误判率）。<br>
+ * 放在词典、trie树之前，未命中的查询只需访问一两个缓存行就能返回
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日8:20 下午
+ */
+public interface IFilter {
+    /**
+     * @return 是否加入成功，过滤器已满时返回false
+     */
+    boolean put(char[] key, int offset, int length);
+
+    boolean put(CharSequence key);
+
+    boolean mightContain(char[] key, int offset, int length);
+
+    boolean mightContain(CharSequence key);
+
+    /**
+     * @return 加入的键数
+     */
+    int size();
+
+    /**
+     * @return 占用的字节数
+     */
+    long memoryUsage();
+
+    boolean save(DataOutputStream out);
+}
@@ -0,0 +1,290 @@
+package collection.primitive;
+
+import java.util.Arrays;
+
+/**
+ * 字符池：把大量短字符串（词典词、语料词语）连续存放在大块的 char[] 中，用long句柄引用，
+ * 百万级的键只对应少量大数组，而不是百万个String对象，显著降低对象头开销和GC扫描压力。<br>
+ * 句柄 = (全局偏移 &lt;&lt; 24) | 长度，单个字符串最长 4M 个字符，且不会跨块存放。
+ * intern 对相同内容返回相同句柄，因此池内的句柄可以直接用 == 判断相等；equals、hash、compare 则按内容计算，
+ * 也适用于 append 加入的非去重内容。非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日10:10 上午
+ */
+public class CharPool {
+
+    /**
+     * 不存在的句柄
+     */
+    public static final long NOT_FOUND = -1L;
+
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+    private static final int SLAB_BITS = 22;
+    /**
+     * 每块 4M 个字符（8MB）
+     */
+    private static final int SLAB_SIZE = 1 << SLAB_BITS;
+
+    private char[][] slabs = new char[4][];
+    private int slabCount;
+    private int slabPosition;   // 当前块的已用长度
+    private long totalChars;
+
+    // 去重用的开放寻址表，0 表示空槽，存放 handle + 1
+    private long[] table;
+    private int[] tableHashes;
+    private int mask;
+    private int size;
+
+    public CharPool() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize 预计的去重字符串数量
+     */
+    public CharPool(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        table = new long[capacity];
+        tableHashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 去重地加入字符片段
+     *
+     * @return 句柄，相同内容总是返回相同句柄
+     */
+    public long intern(char[] chars, int offset, int length) {
+        int h = hash(chars, offset, length);
+        int i = h & mask;
+        for (long slot; (slot = table[i]) != 0; i = (i + 1) & mask) {
+            if (tableHashes[i] == h && equals(slot - 1, chars, offset, length)) return slot - 1;
+        }
+        long handle = append(chars, offset, length);
+        table[i] = handle + 1;
+        tableHashes[i] = h;
+        if (++size * 2 > table.length) rehash();
+        return handle;
+    }
+
+    public long intern(String text) {
+        return intern(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * 查询已去重加入的字符片段
+     *
+     * @return 句柄，不存在时返回 NOT_FOUND
+     */
+    public long get(char[] chars, int offset, int length) {
+        int h = hash(chars, offset, length);
+        for (int i = h & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (tableHashes[i] == h && equals(table[i] - 1, chars, offset, length)) return table[i] - 1;
+        }
+        return NOT_FOUND;
+    }
+
+    public long get(String text) {
+        return get(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * 不去重地追加字符片段
+     *
+     * @return 句柄
+     */
+    public long append(char[] chars, int offset, int length) {
+        if (length > SLAB_SIZE) {
+            throw new IllegalArgumentException("字符串过长：" + length);
+        }
+        if (slabCount == 0) {
+            newSlab();
+        }
+        if (slabPosition + length > slabs[slabCount - 1].length) {
+            char[] slab = slabs[slabCount - 1];
+            if (slabPosition + length <= SLAB_SIZE) {
+                // 块按需从小到大增长，避免小词典也占用8MB；增长不改变块号和块内偏移，已有句柄仍然有效
+                slabs[slabCount - 1] = Arrays.copyOf(slab, Math.min(SLAB_SIZE, Math.max(slab.length * 2, slabPosition + length)));
+            } else {
+                newSlab();
+                if (length > slabs[slabCount - 1].length) slabs[slabCount - 1] = new char[length];
+            }
+        }
+        System.arraycopy(chars, offset, slabs[slabCount - 1], slabPosition, length);
+        long globalOffset = ((long) (slabCount - 1) << SLAB_BITS) + slabPosition;
+        slabPosition += length;
+        totalChars += length;
+        return (globalOffset << LENGTH_BITS) | length;
+    }
+
+    private void newSlab() {
+        if (slabCount == slabs.length) slabs = Arrays.copyOf(slabs, slabs.length * 2);
+        slabs[slabCount++] = new char[65536];
+        slabPosition = 0;
+    }
+
+    private void rehash() {
+        long[] newTable = new long[table.length * 2];
+        int[] newHashes = new int[table.length * 2];
+        int newMask = newTable.length - 1;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == 0) continue;
+            int j = tableHashes[i] & newMask;
+            while (newTable[j] != 0) j = (j + 1) & newMask;
+            newTable[j] = table[i];
+            newHashes[j] = tableHashes[i];
+        }
+        table = newTable;
+        tableHashes = newHashes;
+        mask = newMask;
+    }
+
+    public static int length(long handle) {
+        return (int) (handle & MAX_LENGTH);
+    }
+
+    private static long globalOffset(long handle) {
+        return handle >>> LENGTH_BITS;
+    }
+
+    private char[] slab(long handle) {
+        return slabs[(int) (globalOffset(handle) >>> SLAB_BITS)];
+    }
+
+    private static int slabOffset(long handle) {
+        return (int) (globalOffset(handle) & (SLAB_SIZE - 1));
+    }
+
+    public char charAt(long handle, int index) {
+        return slab(handle)[slabOffset(handle) + index];
+    }
+
+    /**
+     * 复制到目标数组
+     */
+    public void getChars(long handle, char[] dst, int dstOffset) {
+        System.arraycopy(slab(handle), slabOffset(handle), dst, dstOffset, length(handle));
+    }
+
+    /**
+     * @return 字符串形式，会创建新的String
+     */
+    public String toString(long handle) {
+        return new String(slab(handle), slabOffset(handle), length(handle));
+    }
+
+    /**
+     * 按内容计算哈希，与 CharSpanIntMap.hash 一致
+     */
+    public int hash(long handle) {
+        return hash(slab(handle), slabOffset(handle), length(handle));
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        return CharSpanIntMap.hash(chars, offset, length);
+    }
+
+    /**
+     * 按内容比较两个句柄
+     */
+    public boolean equals(long a, long b) {
+        if (a == b) return true;
+        int length = length(a);
+        return length == length(b) && equals(b, slab(a), slabOffset(a), length);
+    }
+
+    /**
+     * 句柄的内容是否等于字符片段
+     */
+    public boolean equals(long handle, char[] chars, int offset, int length) {
+        if (length(handle) != length) return false;
+        char[] slab = slab(handle);
+        int begin = slabOffset(handle);
+        for (int i = 0; i < length; i++) {
+            if (slab[begin + i] != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 按字典序（char值）比较，与 String.compareTo 的结果符号一致
+     */
+    public int compare(long a, long b) {
+        if (a == b) return 0;
+        char[] slabA = slab(a), slabB = slab(b);
+        int offsetA = slabOffset(a), offsetB = slabOffset(b);
+        int lengthA = length(a), lengthB = length(b);
+        int n = Math.min(lengthA, lengthB);
+        for (int i = 0; i < n; i++) {
+            int c = slabA[offsetA + i] - slabB[offsetB + i];
+            if (c != 0) return c;
+        }
+        return lengthA - lengthB;
+    }
+
+    /**
+     * 按字典序原地排序句柄，用于构建trie树等需要有序键的场景
+     */
+    public void sort(long[] handles, int from, int to) {
+        // 插入排序处理小区间，其余三路快排，不需要装箱
+        while (to - from > 16) {
+            long pivot = handles[(from + to) >>> 1];
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                int c = compare(handles[i], pivot);
+                if (c < 0) swap(handles, lt++, i++);
+                else if (c > 0) swap(handles, i, gt--);
+                else i++;
+            }
+            // 先递归较小的一侧，控制栈深度
+            if (lt - from < to - gt - 1) {
+                sort(handles, from, lt);
+                from = gt + 1;
+            } else {
+                sort(handles, gt + 1, to);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            long handle = handles[i];
+            int j = i - 1;
+            while (j >= from && compare(handles[j], handle) > 0) {
+                handles[j + 1] = handles[j];
+                j--;
+            }
+            handles[j + 1] = handle;
+        }
+    }
+
+    private static void swap(long[] array, int i, int j) {
+        long t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    /**
+     * @return 去重的字符串数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 已存放的字符总数
+     */
+    public long totalChars() {
+        return totalChars;
+    }
+
+    /**
+     * @return 估计占用的字节数（字符块 + 去重表）
+     */
+    public long memoryUsage() {
+        long bytes = 0;
+        for (int i = 0; i < slabCount; i++) bytes += 16 + 2L * slabs[i].length;
+        return bytes + 12L * table.length;
+    }
+}
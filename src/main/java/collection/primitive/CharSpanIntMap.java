@@ -0,0 +1,193 @@
+package collection.primitive;
+
+import java.util.Arrays;
+
+/**
+ * 字符片段到连续整数id的映射（开放寻址，线性探测）。<br>
+ * 键的字符复制到内部的字符池中，id按插入顺序从0开始分配，因此可以用 int[] 按id保存计数等数据；
+ * 查询时直接使用 char[] 片段，不需要创建String。非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日5:40 下午
+ */
+public class CharSpanIntMap {
+
+    private char[] pool;
+    private int poolSize;
+    private int[] keyOffsets;   // 第id个键为 pool[keyOffsets[id], keyOffsets[id + 1])
+    private int[] hashes;       // 每个id的哈希值，扩容时不必重新计算
+    private int size;
+
+    private int[] table;        // 存放 id + 1，0 表示空槽
+    private int mask;
+
+    public CharSpanIntMap() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize 预计的键数量
+     */
+    public CharSpanIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+        keyOffsets = new int[Math.max(expectedSize, 8) + 1];
+        hashes = new int[Math.max(expectedSize, 8)];
+        pool = new char[Math.max(expectedSize, 8) * 4];
+    }
+
+    /**
+     * 计算字符片段的哈希值
+     */
+    public static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 计算字符串的哈希值，与 hash(char[], int, int) 一致
+     */
+    public static int hash(CharSequence text) {
+        int h = 0;
+        for (int i = 0; i < text.length(); i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 查询字符片段的id
+     *
+     * @return id，不存在时返回-1
+     */
+    public int get(char[] chars, int offset, int length) {
+        int h = hash(chars, offset, length);
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == 0) return -1;
+            int id = slot - 1;
+            if (hashes[id] == h && keyEquals(id, chars, offset, length)) return id;
+        }
+    }
+
+    /**
+     * 查询字符串的id
+     *
+     * @return id，不存在时返回-1
+     */
+    public int get(CharSequence text) {
+        int h = hash(text);
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == 0) return -1;
+            int id = slot - 1;
+            if (hashes[id] == h && keyEquals(id, text)) return id;
+        }
+    }
+
+    /**
+     * 查询字符片段的id，不存在时插入并分配新id
+     *
+     * @return id
+     */
+    public int put(char[] chars, int offset, int length) {
+        int h = hash(chars, offset, length);
+        int i = h & mask;
+        for (; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == 0) break;
+            int id = slot - 1;
+            if (hashes[id] == h && keyEquals(id, chars, offset, length)) return id;
+        }
+        int id = size;
+        if (id + 1 == keyOffsets.length) {
+            keyOffsets = Arrays.copyOf(keyOffsets, keyOffsets.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        System.arraycopy(chars, offset, pool, poolSize, length);
+        poolSize += length;
+        keyOffsets[id + 1] = poolSize;
+        hashes[id] = h;
+        table[i] = id + 1;
+        size++;
+        if (size * 2 > table.length) rehash();
+        return id;
+    }
+
+    /**
+     * 查询字符串的id，不存在时插入并分配新id
+     *
+     * @return id
+     */
+    public int put(String text) {
+        return put(text.toCharArray(), 0, text.length());
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int newMask = newTable.length - 1;
+        for (int id = 0; id < size; id++) {
+            int i = hashes[id] & newMask;
+            while (newTable[i] != 0) i = (i + 1) & newMask;
+            newTable[i] = id + 1;
+        }
+        table = newTable;
+        mask = newMask;
+    }
+
+    private boolean keyEquals(int id, char[] chars, int offset, int length) {
+        int begin = keyOffsets[id];
+        if (keyOffsets[id + 1] - begin != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (pool[begin + i] != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private boolean keyEquals(int id, CharSequence text) {
+        int begin = keyOffsets[id];
+        int length = text.length();
+        if (keyOffsets[id + 1] - begin != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (pool[begin + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return 键的数量，id的取值范围为 [0, size)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 内部字符池，只读
+     */
+    public char[] pool() {
+        return pool;
+    }
+
+    public int keyOffset(int id) {
+        return keyOffsets[id];
+    }
+
+    public int keyLength(int id) {
+        return keyOffsets[id + 1] - keyOffsets[id];
+    }
+
+    /**
+     * @param id 键的id
+     * @return 键的字符串形式，会创建新的String
+     */
+    public String key(int id) {
+        return new String(pool, keyOffsets[id], keyLength(id));
+    }
+}
@@ -0,0 +1,133 @@
+package collection.primitive;
+
+import java.util.Arrays;
+
+/**
+ * long到int的哈希表（开放寻址，线性探测），用于避免 HashMap&lt;Long, Integer&gt; 的装箱开销。<br>
+ * 键不能为 Long.MIN_VALUE（用作空槽标记）。遍历时按槽位下标访问：
+ * <pre>
+ * for (int i = 0; i &lt; map.capacity(); i++)
+ *     if (map.isUsed(i)) use(map.keyAt(i), map.valueAt(i));
+ * </pre>
+ * 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日5:55 下午
+ */
+public class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize 预计的键数量
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private int slotOf(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return 键对应的值，不存在时返回0
+     */
+    public int get(long key) {
+        int i = slotOf(key);
+        return keys[i] == EMPTY ? 0 : values[i];
+    }
+
+    public boolean containsKey(long key) {
+        return keys[slotOf(key)] != EMPTY;
+    }
+
+    public void put(long key, int value) {
+        int i = slotOf(key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) rehash();
+        } else {
+            values[i] = value;
+        }
+    }
+
+    /**
+     * 累加计数
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 累加后的值
+     */
+    public int addTo(long key, int delta) {
+        int i = slotOf(key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = delta;
+            if (++size * 2 > keys.length) rehash();
+            return delta;
+        }
+        return values[i] += delta;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slotOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 槽位数量，遍历时使用
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isUsed(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+}
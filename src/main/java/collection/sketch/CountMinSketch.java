@@ -0,0 +1,159 @@
+package collection.sketch;
+
+import collection.filter.FilterHash;
+import common.io.ByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Count-Min Sketch：用 depth 行、每行 width 个计数器估计每个键的出现次数，估计值不会偏小。<br>
+ * 以概率 1 - delta 保证误差不超过 epsilon * 总次数，其中 width = e / epsilon、depth = ln(1 / delta)。
+ * 每行的位置由键的64位哈希做双重哈希得到，参数相同的两个实例可以逐格相加合并。非线程安全，多线程时各用一个再合并。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:50 下午
+ */
+@Slf4j
+public class CountMinSketch {
+
+    private static final int MAGIC = 0x434D534B; // CMSK
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final long[] table;
+    private long totalCount;
+
+    /**
+     * @param width 每行的计数器数，会向上取2的幂
+     * @param depth 行数
+     */
+    public CountMinSketch(int width, int depth) {
+        this.width = Integer.highestOneBit(Math.max(width, 2) * 2 - 1);
+        this.depth = Math.max(depth, 1);
+        this.mask = this.width - 1;
+        this.table = new long[this.width * this.depth];
+    }
+
+    /**
+     * 按误差要求创建
+     *
+     * @param epsilon 相对误差（相对于总次数）
+     * @param delta   误差超出的概率
+     */
+    public static CountMinSketch withError(double epsilon, double delta) {
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    private CountMinSketch(int width, int depth, long[] table, long totalCount) {
+        this.width = width;
+        this.depth = depth;
+        this.mask = width - 1;
+        this.table = table;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * 按哈希值计数，哈希值由 FilterHash 计算
+     */
+    public void add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            table[row * width + ((h1 + row * h2) & mask)] += count;
+        }
+        totalCount += count;
+    }
+
+    public void add(char[] key, int offset, int length, long count) {
+        add(FilterHash.hash(key, offset, length), count);
+    }
+
+    public void add(CharSequence key, long count) {
+        add(FilterHash.hash(key), count);
+    }
+
+    /**
+     * @return 估计的次数，不小于真实值
+     */
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + ((h1 + row * h2) & mask)]);
+        }
+        return min;
+    }
+
+    public long estimate(char[] key, int offset, int length) {
+        return estimate(FilterHash.hash(key, offset, length));
+    }
+
+    public long estimate(CharSequence key) {
+        return estimate(FilterHash.hash(key));
+    }
+
+    /**
+     * 合并另一个参数相同的实例
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Count-Min Sketch的参数不同，无法合并");
+        }
+        for (int i = 0; i < table.length; i++) table[i] += other.table[i];
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * @return 全部计数之和
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(depth);
+            out.writeLong(totalCount);
+            for (long count : table) out.writeLong(count);
+        } catch (IOException e) {
+            errorLog.error("save", "保存Count-Min Sketch失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 save 的输出
+     *
+     * @return 实例，格式不符时返回null
+     */
+    public static CountMinSketch load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是Count-Min Sketch的数据");
+            return null;
+        }
+        int width = byteArray.nextInt();
+        int depth = byteArray.nextInt();
+        long totalCount = byteArray.nextLong();
+        long[] table = new long[width * depth];
+        for (int i = 0; i < table.length; i++) table[i] = byteArray.nextLong();
+        return new CountMinSketch(width, depth, table, totalCount);
+    }
+}
@@ -0,0 +1,127 @@
+package collection.sketch;
+
+import collection.filter.FilterHash;
+import common.io.ByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * HyperLogLog 基数估计：2^precision 个寄存器，每个记录落入它的哈希值中最长的前导零个数加一。<br>
+ * 标准误差约 1.04 / sqrt(2^precision)，precision 为14时约0.8%，只占16KB；基数较小时改用线性计数。
+ * 使用64位哈希，不需要大基数修正。逐个寄存器取最大值即可合并。非线程安全，多线程时各用一个再合并。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日10:00 下午
+ */
+@Slf4j
+public class HyperLogLog {
+
+    private static final int MAGIC = 0x484C4C47; // HLLG
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(14);
+    }
+
+    /**
+     * @param precision 寄存器数的对数，4~18
+     */
+    public HyperLogLog(int precision) {
+        this.precision = Math.max(4, Math.min(precision, 18));
+        this.registers = new byte[1 << this.precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * 按哈希值加入，哈希值由 FilterHash 计算
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // 剩余的位左移到高位，末尾补1保证前导零个数有上限
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    public void add(char[] key, int offset, int length) {
+        add(FilterHash.hash(key, offset, length));
+    }
+
+    public void add(CharSequence key) {
+        add(FilterHash.hash(key));
+    }
+
+    /**
+     * @return 估计的不同键的个数
+     */
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 合并另一个精度相同的实例
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("HyperLogLog的精度不同，无法合并");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(precision);
+            out.write(registers);
+        } catch (IOException e) {
+            errorLog.error("save", "保存HyperLogLog失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 save 的输出
+     *
+     * @return 实例，格式不符时返回null
+     */
+    public static HyperLogLog load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是HyperLogLog的数据");
+            return null;
+        }
+        int precision = byteArray.nextInt();
+        byte[] registers = new byte[1 << precision];
+        for (int i = 0; i < registers.length; i++) registers[i] = byteArray.nextByte();
+        return new HyperLogLog(precision, registers);
+    }
+}
@@ -0,0 +1,321 @@
+package collection.sketch;
+
+import collection.filter.FilterHash;
+import common.cache.TextKey;
+import common.io.ByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项统计：最多跟踪 capacity 个键，满了以后新键替换计数最小的键，并继承它的计数作为误差上界。<br>
+ * 出现次数超过 总次数 / capacity 的键一定在其中；每个键的计数不小于真实值，count - error 不大于真实值。
+ * 计数最小的键用小顶堆维护，每次更新 O(log capacity)。查询用可复用的 TextKey 探针，命中时不创建String；
+ * 键的哈希取自 FilterHash，调用方已算好64位哈希时可以直接传入，不再重复计算。<br>
+ * 按 Agarwal 等人的方法合并：两边的计数相加，某一边没有该键时按那一边的最小计数补上（那一边未满时按0），再保留最大的 capacity 个。
+ * 非线程安全，多线程时各用一个再合并。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日10:10 下午
+ */
+@Slf4j
+public class SpaceSaving {
+
+    private static final int MAGIC = 0x53505356; // SPSV
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
+    /**
+     * 一个被跟踪的键
+     */
+    public static class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return 计数，不小于真实次数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 计数可能多算的上界
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return 真实次数的下界
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count + "±" + error;
+        }
+    }
+
+    private static class Counter {
+        TextKey key;
+        long count;
+        long error;
+        int heapIndex;
+    }
+
+    private final int capacity;
+    private final Map<TextKey, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+    private long totalCount;
+    private final TextKey probe = new TextKey();
+
+    /**
+     * @param capacity 跟踪的键数
+     */
+    public SpaceSaving(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.counters = new HashMap<TextKey, Counter>(this.capacity * 2);
+        this.heap = new Counter[this.capacity];
+    }
+
+    public void offer(CharSequence key, long count) {
+        String text = key.toString();
+        offer(text.toCharArray(), 0, text.length(), count);
+    }
+
+    public void offer(char[] key, int offset, int length, long count) {
+        offer(key, offset, length, FilterHash.hash(key, offset, length), count);
+    }
+
+    /**
+     * @param hash FilterHash.hash(key, offset, length)
+     */
+    public void offer(char[] key, int offset, int length, long hash, long count) {
+        totalCount += count;
+        int keyHash = keyHash(hash);
+        Counter counter = counters.get(probe.set(key, offset, length, keyHash));
+        if (counter != null) {
+            counter.count += count;
+            siftDown(counter.heapIndex);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter();
+            counter.key = TextKey.copyOf(key, offset, length, keyHash);
+            counter.count = count;
+            counter.heapIndex = size;
+            heap[size++] = counter;
+            counters.put(counter.key, counter);
+            siftUp(counter.heapIndex);
+            return;
+        }
+        // 替换计数最小的键
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = TextKey.copyOf(key, offset, length, keyHash);
+        counter.error = counter.count;
+        counter.count += count;
+        counters.put(counter.key, counter);
+        siftDown(0);
+    }
+
+    private static int keyHash(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static TextKey keyOf(String text) {
+        return TextKey.copyOf(text.toCharArray(), 0, text.length(), keyHash(FilterHash.hash(text)));
+    }
+
+    private void siftUp(int i) {
+        Counter counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) break;
+            heap[i] = heap[parent];
+            heap[i].heapIndex = i;
+            i = parent;
+        }
+        heap[i] = counter;
+        counter.heapIndex = i;
+    }
+
+    private void siftDown(int i) {
+        Counter counter = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) child++;
+            if (counter.count <= heap[child].count) break;
+            heap[i] = heap[child];
+            heap[i].heapIndex = i;
+            i = child;
+        }
+        heap[i] = counter;
+        counter.heapIndex = i;
+    }
+
+    /**
+     * @return 键的计数，未被跟踪时返回0
+     */
+    public long estimate(CharSequence key) {
+        Counter counter = counters.get(keyOf(key.toString()));
+        return counter == null ? 0 : counter.count;
+    }
+
+    /**
+     * @return 计数最小的键的计数，未满时为0。未被跟踪的键的真实次数不超过它
+     */
+    public long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    /**
+     * @param k 个数
+     * @return 计数最大的k个键，按计数从高到低排列
+     */
+    public List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++) entries.add(new Entry(heap[i].key.toString(), heap[i].count, heap[i].error));
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.count != b.count ? (a.count > b.count ? -1 : 1) : a.key.compareTo(b.key);
+            }
+        });
+        return entries.subList(0, Math.min(k, entries.size()));
+    }
+
+    /**
+     * 合并另一个实例，合并后的容量为本实例的容量
+     */
+    public void merge(SpaceSaving other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        Map<TextKey, Counter> merged = new HashMap<TextKey, Counter>((size + other.size) * 2);
+        for (int i = 0; i < size; i++) {
+            Counter counter = heap[i];
+            counter.count += otherMin;
+            counter.error += otherMin;
+            merged.put(counter.key, counter);
+        }
+        for (int i = 0; i < other.size; i++) {
+            Counter source = other.heap[i];
+            Counter counter = merged.get(source.key);
+            if (counter == null) {
+                counter = new Counter();
+                counter.key = source.key;
+                counter.count = source.count + thisMin;
+                counter.error = source.error + thisMin;
+                merged.put(counter.key, counter);
+            } else {
+                // 之前按缺失补的 otherMin 换成真实计数
+                counter.count += source.count - otherMin;
+                counter.error += source.error - otherMin;
+            }
+        }
+        Counter[] all = merged.values().toArray(new Counter[merged.size()]);
+        Arrays.sort(all, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter a, Counter b) {
+                return a.count != b.count ? (a.count > b.count ? -1 : 1) : 0;
+            }
+        });
+        counters.clear();
+        size = 0;
+        for (int i = 0; i < all.length && i < capacity; i++) {
+            heap[size] = all[i];
+            all[i].heapIndex = size++;
+            counters.put(all[i].key, all[i]);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) siftDown(i);
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * @return 跟踪的键数
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 全部计数之和
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(capacity);
+            out.writeLong(totalCount);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                ByteUtils.writeString(out, heap[i].key.toString());
+                out.writeLong(heap[i].count);
+                out.writeLong(heap[i].error);
+            }
+        } catch (IOException e) {
+            errorLog.error("save", "保存Space-Saving失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读取 save 的输出
+     *
+     * @return 实例，格式不符时返回null
+     */
+    public static SpaceSaving load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是Space-Saving的数据");
+            return null;
+        }
+        SpaceSaving sketch = new SpaceSaving(byteArray.nextInt());
+        sketch.totalCount = byteArray.nextLong();
+        int size = byteArray.nextInt();
+        for (int i = 0; i < size; i++) {
+            Counter counter = new Counter();
+            counter.key = keyOf(byteArray.nextString());
+            counter.count = byteArray.nextLong();
+            counter.error = byteArray.nextLong();
+            counter.heapIndex = i;
+            sketch.heap[i] = counter;
+            sketch.counters.put(counter.key, counter);
+        }
+        sketch.size = size;
+        return sketch;
+    }
+}
@@ -0,0 +1,351 @@
+package collection.table;
+
+import collection.filter.BlockedBloomFilter;
+import common.cache.CacheStats;
+import common.cache.TinyLfuCache;
+import common.cache.Weigher;
+import common.io.ByteArray;
+import common.io.MappedByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只读的有序键值表（类似SSTable），由 SortedTableBuilder 生成。文件格式：
+ * <pre>
+ * 数据块*   每块：项数varint，每项：与前一键相同的前缀长度、后缀长度、后缀各字符、值长度（均为varint），值的字节
+ * 块索引    块数int，每块：最后一个键、偏移long、长度int
+ * 布隆过滤器 是否存在boolean，BlockedBloomFilter
+ * 文件尾    索引偏移long、项数long、MAGIC int
+ * </pre>
+ * 打开时只把块索引和布隆过滤器读入堆内，数据区按块边界分成不超过1GB的若干段做内存映射，因此文件可以超过2GB。
+ * 查询时先用布隆过滤器排除不存在的键，再二分块索引定位到一块，解码后的块放在 TinyLfuCache 中，热点块不必重复解码。<br>
+ * 线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日1:10 上午
+ */
+@Slf4j
+public class SortedTable {
+
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+    private static final int REGION_BYTES = 1 << 30;
+
+    /**
+     * 遍历时的回调
+     */
+    public interface EntryHandler {
+        /**
+         * @return 是否继续遍历
+         */
+        boolean onEntry(String key, byte[] value);
+    }
+
+    /**
+     * 解码后的块，值不复制，只记录在映射段中的位置
+     */
+    private static class Block {
+        final String[] keys;
+        final int[] valueOffsets;
+        final int[] valueLengths;
+        final int weight;
+
+        Block(String[] keys, int[] valueOffsets, int[] valueLengths, int weight) {
+            this.keys = keys;
+            this.valueOffsets = valueOffsets;
+            this.valueLengths = valueLengths;
+            this.weight = weight;
+        }
+    }
+
+    private final String path;
+    private final String[] lastKeys;
+    private final MappedByteBuffer[] regions;
+    private final int[] blockRegions;
+    private final int[] blockOffsets;
+    private final long entryCount;
+    private final BlockedBloomFilter bloomFilter;
+    private final TinyLfuCache<Integer, Block> cache;
+
+    private SortedTable(String path, String[] lastKeys, MappedByteBuffer[] regions, int[] blockRegions, int[] blockOffsets,
+                        long entryCount, BlockedBloomFilter bloomFilter, long cacheBytes) {
+        this.path = path;
+        this.lastKeys = lastKeys;
+        this.regions = regions;
+        this.blockRegions = blockRegions;
+        this.blockOffsets = blockOffsets;
+        this.entryCount = entryCount;
+        this.bloomFilter = bloomFilter;
+        this.cache = cacheBytes <= 0 ? null : new TinyLfuCache<Integer, Block>(cacheBytes, 0, 16, new Weigher<Integer, Block>() {
+            @Override
+            public int weigh(Integer key, Block block) {
+                return block.weight;
+            }
+        });
+    }
+
+    /**
+     * 打开有序表，块缓存为32MB
+     *
+     * @return 有序表，文件不存在或格式错误时返回null
+     */
+    public static SortedTable open(String path) {
+        return open(path, 32L << 20);
+    }
+
+    /**
+     * 打开有序表
+     *
+     * @param cacheBytes 块缓存的字节数，0表示不缓存
+     * @return 有序表，文件不存在或格式错误时返回null
+     */
+    public static SortedTable open(String path, long cacheBytes) {
+        return open(path, cacheBytes, REGION_BYTES);
+    }
+
+    static SortedTable open(String path, long cacheBytes, int regionBytes) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(path, "r");
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size < SortedTableBuilder.FOOTER_BYTES) {
+                log.error("{}不是有序表文件", path);
+                return null;
+            }
+            ByteBuffer footer = read(channel, size - SortedTableBuilder.FOOTER_BYTES, SortedTableBuilder.FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            long entryCount = footer.getLong();
+            if (footer.getInt() != SortedTableBuilder.MAGIC || indexOffset < 0 || indexOffset > size - SortedTableBuilder.FOOTER_BYTES) {
+                log.error("{}不是有序表文件", path);
+                return null;
+            }
+            ByteBuffer meta = read(channel, indexOffset, (int) (size - SortedTableBuilder.FOOTER_BYTES - indexOffset));
+            ByteArray byteArray = new ByteArray(meta.array());
+            int blockCount = byteArray.nextInt();
+            String[] lastKeys = new String[blockCount];
+            long[] offsets = new long[blockCount + 1];
+            for (int i = 0; i < blockCount; i++) {
+                lastKeys[i] = byteArray.nextString();
+                offsets[i] = byteArray.nextLong();
+                byteArray.nextInt();
+            }
+            offsets[blockCount] = indexOffset;
+            BlockedBloomFilter bloomFilter = byteArray.nextByte() != 0 ? BlockedBloomFilter.load(byteArray) : null;
+
+            // 按块边界切分映射段，一块超过段大小时单独成段
+            List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+            int[] blockRegions = new int[blockCount];
+            int[] blockOffsets = new int[blockCount];
+            for (int i = 0; i < blockCount; ) {
+                long start = offsets[i];
+                int j = i + 1;
+                while (j < blockCount && offsets[j + 1] - start <= regionBytes) j++;
+                for (int b = i; b < j; b++) {
+                    blockRegions[b] = regions.size();
+                    blockOffsets[b] = (int) (offsets[b] - start);
+                }
+                regions.add(channel.map(FileChannel.MapMode.READ_ONLY, start, offsets[j] - start));
+                i = j;
+            }
+            log.info("打开有序表{}，{}项，{}块，{}个映射段", path, entryCount, blockCount, regions.size());
+            return new SortedTable(path, lastKeys, regions.toArray(new MappedByteBuffer[regions.size()]), blockRegions,
+                    blockOffsets, entryCount, bloomFilter, cacheBytes);
+        } catch (IOException e) {
+            errorLog.error(path, "打开有序表{}失败", path, e);
+            return null;
+        } finally {
+            // 映射建立后关闭文件不影响映射的有效性
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("文件不完整");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return 值，不存在时返回null
+     */
+    public byte[] get(String key) {
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) return null;
+        int b = findBlock(key);
+        if (b < 0) return null;
+        Block block = block(b);
+        int i = binarySearch(block.keys, key);
+        return i < 0 ? null : value(b, block, i);
+    }
+
+    /**
+     * @return 按UTF-8解码的值，不存在时返回null
+     */
+    public String getString(String key) {
+        byte[] value = get(key);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    public boolean containsKey(String key) {
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) return false;
+        int b = findBlock(key);
+        return b >= 0 && binarySearch(block(b).keys, key) >= 0;
+    }
+
+    /**
+     * 按键的顺序遍历以prefix开头的所有项
+     *
+     * @param prefix  前缀，空串表示遍历全表
+     * @param handler 回调，返回false时停止
+     * @return 遍历的项数
+     */
+    public int scan(String prefix, EntryHandler handler) {
+        int count = 0;
+        for (int b = findBlock(prefix); b >= 0 && b < lastKeys.length; b++) {
+            Block block = block(b);
+            int i = binarySearch(block.keys, prefix);
+            if (i < 0) i = -i - 1;
+            for (; i < block.keys.length; i++) {
+                if (!block.keys[i].startsWith(prefix)) return count;
+                count++;
+                if (!handler.onEntry(block.keys[i], value(b, block, i))) return count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param limit 最多返回的个数
+     * @return 以prefix开头的键，按字典序
+     */
+    public List<String> keysWithPrefix(String prefix, final int limit) {
+        final List<String> keys = new ArrayList<String>();
+        if (limit <= 0) return keys;
+        scan(prefix, new EntryHandler() {
+            @Override
+            public boolean onEntry(String key, byte[] value) {
+                keys.add(key);
+                return keys.size() < limit;
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * @return 最后一个键不小于key的块，即可能包含key的块，不存在时返回-1
+     */
+    private int findBlock(String key) {
+        int low = 0;
+        int high = lastKeys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lastKeys[mid].compareTo(key) < 0) low = mid + 1;
+            else high = mid - 1;
+        }
+        return low < lastKeys.length ? low : -1;
+    }
+
+    private static int binarySearch(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = keys[mid].compareTo(key);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private Block block(int b) {
+        if (cache == null) return decode(b);
+        Integer key = b;
+        Block block = cache.get(key);
+        if (block == null) {
+            block = decode(b);
+            cache.put(key, block);
+        }
+        return block;
+    }
+
+    /**
+     * 解码一块，还原前缀压缩的键。每次使用新的 MappedByteArray 视图，读取不改变共享缓冲区的状态
+     */
+    private Block decode(int b) {
+        MappedByteArray byteArray = new MappedByteArray(regions[blockRegions[b]]);
+        byteArray.skip(blockOffsets[b]);
+        int count = byteArray.nextVarInt();
+        String[] keys = new String[count];
+        int[] valueOffsets = new int[count];
+        int[] valueLengths = new int[count];
+        char[] chars = new char[64];
+        int weight = 64 + 12 * count;
+        String previous = "";
+        for (int i = 0; i < count; i++) {
+            int shared = byteArray.nextVarInt();
+            int length = shared + byteArray.nextVarInt();
+            if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+            previous.getChars(0, shared, chars, 0);
+            for (int j = shared; j < length; j++) chars[j] = (char) byteArray.nextVarInt();
+            previous = keys[i] = new String(chars, 0, length);
+            valueLengths[i] = byteArray.nextVarInt();
+            valueOffsets[i] = byteArray.getOffset();
+            byteArray.skip(valueLengths[i]);
+            // String对象、char[]和引用的大致开销
+            weight += 2 * length + 56;
+        }
+        return new Block(keys, valueOffsets, valueLengths, weight);
+    }
+
+    private byte[] value(int b, Block block, int i) {
+        ByteBuffer buffer = regions[blockRegions[b]].duplicate();
+        buffer.position(block.valueOffsets[i]);
+        byte[] value = new byte[block.valueLengths[i]];
+        buffer.get(value);
+        return value;
+    }
+
+    /**
+     * @return 项数
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    public int blockCount() {
+        return lastKeys.length;
+    }
+
+    public int regionCount() {
+        return regions.length;
+    }
+
+    /**
+     * @return 块缓存的统计，没有缓存时返回null
+     */
+    public CacheStats cacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        return "SortedTable{" + path + ", " + entryCount + "项, " + lastKeys.length + "块}";
+    }
+}
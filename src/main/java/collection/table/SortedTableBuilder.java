@@ -0,0 +1,156 @@
+package collection.table;
+
+import collection.filter.BlockedBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SortedTable 的构建器，键必须按 String.compareTo 严格递增地加入（与 DoubleArrayTrie 的要求相同），
+ * 例如先用 ExternalSorter 排序。<br>
+ * 数据按块写出，块内每个键只保存与前一个键不同的后缀（前缀压缩），块写满 blockSize 字节后开始新块；
+ * 内存中只保留当前块和每块的最后一个键。用法：
+ * <pre>
+ * SortedTableBuilder builder = new SortedTableBuilder(path, 4096, expectedKeys, 10);
+ * for (...) builder.add(key, value);
+ * builder.finish();
+ * </pre>
+ * 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日0:40 上午
+ */
+@Slf4j
+public class SortedTableBuilder {
+
+    static final int MAGIC = 0x53535442; // SSTB
+    static final int FOOTER_BYTES = 8 + 8 + 4;
+
+    private final String path;
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final BlockedBloomFilter bloomFilter;
+
+    private byte[] block = new byte[8192];
+    private int blockBytes;
+    private int blockEntries;
+    private long offset;
+    private long entryCount;
+    private String lastKey;
+    private final List<String> lastKeys = new ArrayList<String>();
+    private long[] blockOffsets = new long[1024];
+    private int[] blockLengths = new int[1024];
+
+    /**
+     * @param path         输出文件
+     * @param blockSize    块的目标字节数，常用4096
+     * @param expectedKeys 预计的键数，用于确定布隆过滤器的大小
+     * @param bitsPerKey   布隆过滤器每个键的位数，0表示不建布隆过滤器
+     */
+    public SortedTableBuilder(String path, int blockSize, int expectedKeys, int bitsPerKey) throws IOException {
+        this.path = path;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+        this.blockSize = Math.max(blockSize, 64);
+        this.bloomFilter = bitsPerKey > 0 ? new BlockedBloomFilter(expectedKeys, bitsPerKey) : null;
+    }
+
+    public void add(String key, String value) throws IOException {
+        add(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 加入一项
+     *
+     * @throws IllegalArgumentException 键没有严格递增
+     */
+    public void add(String key, byte[] value) throws IOException {
+        int shared = 0;
+        if (lastKey != null) {
+            if (key.compareTo(lastKey) <= 0) throw new IllegalArgumentException("键未按字典序严格递增：" + key);
+            if (blockEntries > 0) {
+                int max = Math.min(key.length(), lastKey.length());
+                while (shared < max && key.charAt(shared) == lastKey.charAt(shared)) shared++;
+            }
+        }
+        int suffix = key.length() - shared;
+        ensure(10 + 10 + 3 * suffix + 10 + value.length);
+        blockBytes = ByteUtils.writeVarLong(block, blockBytes, shared);
+        blockBytes = ByteUtils.writeVarLong(block, blockBytes, suffix);
+        for (int i = shared; i < key.length(); i++) blockBytes = ByteUtils.writeVarLong(block, blockBytes, key.charAt(i));
+        blockBytes = ByteUtils.writeVarLong(block, blockBytes, value.length);
+        System.arraycopy(value, 0, block, blockBytes, value.length);
+        blockBytes += value.length;
+        blockEntries++;
+        entryCount++;
+        lastKey = key;
+        if (bloomFilter != null) bloomFilter.put(key);
+        if (blockBytes >= blockSize) flushBlock();
+    }
+
+    private void ensure(int extra) {
+        if (blockBytes + extra > block.length) block = Arrays.copyOf(block, Math.max(block.length * 2, blockBytes + extra));
+    }
+
+    /**
+     * 写出当前块：项数 + 各项
+     */
+    private void flushBlock() throws IOException {
+        if (blockEntries == 0) return;
+        int blockCount = lastKeys.size();
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+            blockLengths = Arrays.copyOf(blockLengths, blockCount * 2);
+        }
+        byte[] header = new byte[10];
+        int headerBytes = ByteUtils.writeVarLong(header, 0, blockEntries);
+        out.write(header, 0, headerBytes);
+        out.write(block, 0, blockBytes);
+        lastKeys.add(lastKey);
+        blockOffsets[blockCount] = offset;
+        blockLengths[blockCount] = headerBytes + blockBytes;
+        offset += headerBytes + blockBytes;
+        blockBytes = 0;
+        blockEntries = 0;
+    }
+
+    /**
+     * 写出最后一块、块索引、布隆过滤器和文件尾，并关闭文件
+     *
+     * @return 是否成功
+     */
+    public boolean finish() {
+        try {
+            flushBlock();
+            long indexOffset = offset;
+            out.writeInt(lastKeys.size());
+            for (int i = 0; i < lastKeys.size(); i++) {
+                ByteUtils.writeString(out, lastKeys.get(i));
+                out.writeLong(blockOffsets[i]);
+                out.writeInt(blockLengths[i]);
+            }
+            out.writeBoolean(bloomFilter != null);
+            if (bloomFilter != null && !bloomFilter.save(out)) throw new IOException("保存布隆过滤器失败");
+            out.writeLong(indexOffset);
+            out.writeLong(entryCount);
+            out.writeInt(MAGIC);
+            out.close();
+            log.info("构建有序表{}完成，{}项，{}块，数据{}字节", path, entryCount, lastKeys.size(), indexOffset);
+            return true;
+        } catch (IOException e) {
+            log.error("构建有序表{}失败", path, e);
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package collection.trie;
+
+import common.io.ByteArray;
+import common.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 双数组trie树。<br>
+ * 键按字典序构建，每个键对应一个下标（即在有序键中的序号），值保存在与下标对应的数组中，
+ * 因此查询既可以返回值，也可以只返回int下标，后者不涉及任何对象分配。<br>
+ * 状态转移：p = base[s] + c + 1，check[p] == base[s] 时转移成功；base[p] &lt; 0 表示词尾，下标为 -base[p] - 1。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日5:00 下午
+ */
+@Slf4j
+public class DoubleArrayTrie<V> implements ITrie<V> {
+
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
+    private int[] base;
+    private int[] check;
+    private int size;      // base与check的有效长度
+    private V[] values;
+    private int keySize;
+
+    // 以下字段只在构建时使用
+    private List<String> keys;
+    private boolean[] used;
+    private int allocSize;
+    private int nextCheckPos;
+
+    /**
+     * 构建时的节点
+     */
+    private static class Node {
+        int code;
+        int depth;
+        int left;
+        int right;
+    }
+
+    /**
+     * 由有序的键值对构建trie树
+     *
+     * @param keyValueMap 键值对
+     * @return 0 表示成功
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int build(TreeMap<String, V> keyValueMap) {
+        List<String> keyList = new ArrayList<String>(keyValueMap.size());
+        V[] valueArray = (V[]) new Object[keyValueMap.size()];
+        int i = 0;
+        for (Map.Entry<String, V> entry : keyValueMap.entrySet()) {
+            keyList.add(entry.getKey());
+            valueArray[i++] = entry.getValue();
+        }
+        return build(keyList, valueArray);
+    }
+
+    /**
+     * 由有序的键构建trie树
+     *
+     * @param sortedKeys 按字典序排列、不重复的键
+     * @param values     与键一一对应的值，可以为null，此时只能查询下标
+     * @return 0 表示成功
+     */
+    public int build(List<String> sortedKeys, V[] values) {
+        this.keys = sortedKeys;
+        this.keySize = sortedKeys.size();
+        this.values = values;
+        base = check = null;
+        used = null;
+        size = 0;
+        allocSize = 0;
+        resize(65536 * 2);
+        base[0] = 1;
+        nextCheckPos = 0;
+
+        Node root = new Node();
+        root.left = 0;
+        root.right = keySize;
+        root.depth = 0;
+        List<Node> siblings = new ArrayList<Node>();
+        fetch(root, siblings);
+        if (!siblings.isEmpty()) base[0] = insert(siblings);
+
+        keys = null;
+        used = null;
+        shrink();
+        return 0;
+    }
+
+    private void resize(int newSize) {
+        base = base == null ? new int[newSize] : Arrays.copyOf(base, newSize);
+        check = check == null ? new int[newSize] : Arrays.copyOf(check, newSize);
+        used = used == null ? new boolean[newSize] : Arrays.copyOf(used, newSize);
+        allocSize = newSize;
+    }
+
+    private void shrink() {
+        base = Arrays.copyOf(base, size + 65536 + 1);
+        check = Arrays.copyOf(check, size + 65536 + 1);
+        allocSize = base.length;
+    }
+
+    /**
+     * 获取parent的全部子节点
+     *
+     * @return 子节点数量
+     */
+    private int fetch(Node parent, List<Node> siblings) {
+        int prev = 0;
+        for (int i = parent.left; i < parent.right; i++) {
+            String key = keys.get(i);
+            if (key.length() < parent.depth) continue;
+            int cur = 0;
+            if (key.length() != parent.depth) cur = key.charAt(parent.depth) + 1;
+            if (prev > cur) throw new IllegalArgumentException("键未按字典序排列：" + key);
+            if (cur != prev || siblings.isEmpty()) {
+                Node node = new Node();
+                node.depth = parent.depth + 1;
+                node.code = cur;
+                node.left = i;
+                if (!siblings.isEmpty()) siblings.get(siblings.size() - 1).right = i;
+                siblings.add(node);
+            }
+            prev = cur;
+        }
+        if (!siblings.isEmpty()) siblings.get(siblings.size() - 1).right = parent.right;
+        return siblings.size();
+    }
+
+    /**
+     * 为一组兄弟节点寻找合适的base，并递归插入它们的子节点
+     *
+     * @return base
+     */
+    private int insert(List<Node> siblings) {
+        int first = siblings.get(0).code;
+        int last = siblings.get(siblings.size() - 1).code;
+        int begin;
+        int pos = Math.max(first + 1, nextCheckPos) - 1;
+        int nonZero = 0;
+        boolean firstFree = true;
+        if (allocSize <= pos) resize(pos + 1);
+
+        outer:
+        while (true) {
+            pos++;
+            if (allocSize <= pos) resize(pos + 1);
+            if (check[pos] != 0) {
+                nonZero++;
+                continue;
+            } else if (firstFree) {
+                nextCheckPos = pos;
+                firstFree = false;
+            }
+            begin = pos - first;
+            if (allocSize <= begin + last) {
+                resize(Math.max(begin + last + 1, (int) (allocSize * 1.5)));
+            }
+            if (used[begin]) continue;
+            for (int i = 1; i < siblings.size(); i++) {
+                if (check[begin + siblings.get(i).code] != 0) continue outer;
+            }
+            break;
+        }
+        // 空闲位置很少时跳过这一段，加快后续查找
+        if (1.0 * nonZero / (pos - nextCheckPos + 1) >= 0.95) nextCheckPos = pos;
+        used[begin] = true;
+        size = Math.max(size, begin + last + 1);
+
+        for (Node node : siblings) {
+            check[begin + node.code] = begin;
+        }
+        for (Node node : siblings) {
+            List<Node> children = new ArrayList<Node>();
+            if (fetch(node, children) == 0) {
+                base[begin + node.code] = -node.left - 1;
+            } else {
+                // 递归插入可能扩容，须先求值再写入新的base数组
+                int childBase = insert(children);
+                base[begin + node.code] = childBase;
+            }
+        }
+        return begin;
+    }
+
+    /**
+     * 精确查询键的下标
+     *
+     * @param key    字符数组
+     * @param offset 起始下标
+     * @param length 长度
+     * @return 键的下标，不存在时返回-1
+     */
+    public int exactMatchSearch(char[] key, int offset, int length) {
+        if (base == null) return -1;
+        int b = base[0];
+        int p;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            p = b + key[i] + 1;
+            if (p >= check.length || b != check[p]) {
+                if (Metrics.ENABLED) recordLookup(-1, i - offset);
+                return -1;
+            }
+            b = base[p];
+        }
+        p = b;
+        int index = -1;
+        if (p >= 0 && p < check.length && b == check[p] && base[p] < 0) index = -base[p] - 1;
+        if (Metrics.ENABLED) recordLookup(index, length);
+        return index;
+    }
+
+    /**
+     * 精确查询键的下标
+     *
+     * @param key 键
+     * @return 键的下标，不存在时返回-1
+     */
+    public int exactMatchSearch(String key) {
+        if (base == null) return -1;
+        int b = base[0];
+        int p;
+        for (int i = 0; i < key.length(); i++) {
+            p = b + key.charAt(i) + 1;
+            if (p >= check.length || b != check[p]) {
+                if (Metrics.ENABLED) recordLookup(-1, i);
+                return -1;
+            }
+            b = base[p];
+        }
+        p = b;
+        int index = -1;
+        if (p >= 0 && p < check.length && b == check[p] && base[p] < 0) index = -base[p] - 1;
+        if (Metrics.ENABLED) recordLookup(index, key.length());
+        return index;
+    }
+
+    /**
+     * 按字节精确查询，只用于由字节串构建的trie树（每个char为一个0-255的字节，见 Utf8Trie）
+     *
+     * @param key    字节数组
+     * @param offset 起始下标
+     * @param length 长度
+     * @return 键的下标，不存在时返回-1
+     */
+    public int exactMatchSearch(byte[] key, int offset, int length) {
+        if (base == null) return -1;
+        int b = base[0];
+        int p;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            p = b + (key[i] & 0xFF) + 1;
+            if (p >= check.length || b != check[p]) {
+                if (Metrics.ENABLED) recordLookup(-1, i - offset);
+                return -1;
+            }
+            b = base[p];
+        }
+        p = b;
+        int index = -1;
+        if (p >= 0 && p < check.length && b == check[p] && base[p] < 0) index = -base[p] - 1;
+        if (Metrics.ENABLED) recordLookup(index, length);
+        return index;
+    }
+
+    /**
+     * 按字节前缀查询，只用于由字节串构建的trie树，参数与 commonPrefixSearch(char[], int, int, int[], int[]) 相同，长度以字节计
+     */
+    public int commonPrefixSearch(byte[] text, int offset, int maxLength, int[] lengths, int[] indices) {
+        if (base == null) return 0;
+        int count = 0;
+        int b = base[0];
+        int p;
+        int n;
+        for (int i = offset, end = offset + maxLength; ; i++) {
+            p = b;
+            n = base[p];
+            if (b == check[p] && n < 0) {
+                if (count < lengths.length) {
+                    lengths[count] = i - offset;
+                    if (indices != null) indices[count] = -n - 1;
+                }
+                count++;
+            }
+            if (i >= end) {
+                if (Metrics.ENABLED) recordLookup(count - 1, i - offset);
+                break;
+            }
+            p = b + (text[i] & 0xFF) + 1;
+            if (p >= check.length || b != check[p]) {
+                if (Metrics.ENABLED) recordLookup(count - 1, i - offset);
+                break;
+            }
+            b = base[p];
+        }
+        return Math.min(count, lengths.length);
+    }
+
+    /**
+     * 记录一次查询的指标
+     *
+     * @param index 查询结果，负数表示未命中
+     * @param depth 状态转移的次数
+     */
+    private static void recordLookup(int index, int depth) {
+        Metrics.TRIE_LOOKUPS.increment();
+        if (index >= 0) Metrics.TRIE_HITS.increment();
+        else Metrics.TRIE_MISSES.increment();
+        Metrics.TRIE_PROBE_DEPTH.record(depth);
+    }
+
+    /**
+     * 前缀查询：找出text[offset, offset + maxLength)的所有前缀中，属于trie树的键
+     *
+     * @param text      文本
+     * @param offset    起始下标
+     * @param maxLength 最长查询长度
+     * @param lengths   输出，命中的键的长度，从短到长
+     * @param indices   输出，命中的键的下标，可以为null
+     * @return 命中的数量，超过 lengths 的容量时只输出前 lengths.length 个
+     */
+    public int commonPrefixSearch(char[] text, int offset, int maxLength, int[] lengths, int[] indices) {
+        if (base == null) return 0;
+        int count = 0;
+        int b = base[0];
+        int p;
+        int n;
+        for (int i = offset, end = offset + maxLength; ; i++) {
+            p = b;
+            n = base[p];
+            if (b == check[p] && n < 0) {
+                if (count < lengths.length) {
+                    lengths[count] = i - offset;
+                    if (indices != null) indices[count] = -n - 1;
+                }
+                count++;
+            }
+            if (i >= end) {
+                if (Metrics.ENABLED) recordLookup(count - 1, i - offset);
+                break;
+            }
+            p = b + text[i] + 1;
+            if (p >= check.length || b != check[p]) {
+                if (Metrics.ENABLED) recordLookup(count - 1, i - offset);
+                break;
+            }
+            b = base[p];
+        }
+        return Math.min(count, lengths.length);
+    }
+
+    @Override
+    public boolean save(DataOutputStream out) {
+        try {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(base[i]);
+                out.writeInt(check[i]);
+            }
+            out.writeInt(keySize);
+        } catch (IOException e) {
+            errorLog.error("save", "保存双数组trie树失败:{}", e.getMessage(), e);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean load(ByteArray byteArray, V[] value) {
+        if (byteArray == null) return false;
+        size = byteArray.nextInt();
+        base = new int[size + 65536 + 1];
+        check = new int[size + 65536 + 1];
+        for (int i = 0; i < size; i++) {
+            base[i] = byteArray.nextInt();
+            check[i] = byteArray.nextInt();
+        }
+        keySize = byteArray.nextInt();
+        values = value;
+        allocSize = base.length;
+        return true;
+    }
+
+    @Override
+    public V get(char[] key) {
+        int index = exactMatchSearch(key, 0, key.length);
+        return index < 0 || values == null ? null : values[index];
+    }
+
+    @Override
+    public V get(String key) {
+        int index = exactMatchSearch(key);
+        return index < 0 || values == null ? null : values[index];
+    }
+
+    /**
+     * 根据下标获取值
+     *
+     * @param index 键的下标
+     * @return 值
+     */
+    public V getValue(int index) {
+        return values == null ? null : values[index];
+    }
+
+    @Override
+    public V[] getValueArray(V[] a) {
+        if (values == null) return a;
+        if (a.length < keySize) a = Arrays.copyOf(a, keySize);
+        System.arraycopy(values, 0, a, 0, keySize);
+        return a;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return exactMatchSearch(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keySize;
+    }
+}
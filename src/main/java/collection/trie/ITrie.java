@@ -1,5 +1,7 @@
 package collection.trie;
 
+import common.io.ByteArray;
+
 import java.io.DataOutputStream;
 import java.util.TreeMap;
 
@@ -8,13 +10,13 @@ import java.util.TreeMap;
  * @Author lizhen
  * @Date 2021年11月15日1:19 下午
  */
-//public interface ITrie <V>{
-//    int build(TreeMap<String, V> keyValueMap);
-//    boolean save(DataOutputStream out);
-//    boolean load(ByteArray byteArray, V[] value);
-//    V get(char[] key);
-//    V get(String key);
-//    V[] getValueArray(V[] a);
-//    boolean containsKey(String key);
-//    int size();
-//}
+public interface ITrie <V>{
+    int build(TreeMap<String, V> keyValueMap);
+    boolean save(DataOutputStream out);
+    boolean load(ByteArray byteArray, V[] value);
+    V get(char[] key);
+    V get(String key);
+    V[] getValueArray(V[] a);
+    boolean containsKey(String key);
+    int size();
+}
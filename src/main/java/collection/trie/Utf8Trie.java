@@ -0,0 +1,144 @@
+package collection.trie;
+
+import common.io.ByteArray;
+import common.io.Utf8Span;
+
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 以UTF-8字节为转移单位的trie树，可以直接在读入的字节（如 Utf8LineReader 给出的行）上匹配词典，不必解码成String。<br>
+ * 内部是一棵由字节串构建的 DoubleArrayTrie，字母表只有256个，数组比按char构建的更紧凑；代价是一个汉字需要3次转移。
+ * 键的下标按UTF-8字节序（即码点序）排列，与 DoubleArrayTrie 的UTF-16序只在增补平面字符上不同。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日2:50 上午
+ */
+public class Utf8Trie<V> implements ITrie<V> {
+
+    private final DoubleArrayTrie<V> trie = new DoubleArrayTrie<V>();
+
+    /**
+     * @return 键的UTF-8字节，每个字节作为一个char
+     */
+    private static String byteString(String key) {
+        return new String(key.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int build(TreeMap<String, V> keyValueMap) {
+        final String[] keys = new String[keyValueMap.size()];
+        Object[] values = new Object[keys.length];
+        Integer[] order = new Integer[keys.length];
+        int i = 0;
+        for (Map.Entry<String, V> entry : keyValueMap.entrySet()) {
+            keys[i] = byteString(entry.getKey());
+            values[i] = entry.getValue();
+            order[i] = i;
+            i++;
+        }
+        // TreeMap按UTF-16排序，含增补平面字符时与字节序不同，需要重排
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return keys[a].compareTo(keys[b]);
+            }
+        });
+        List<String> sortedKeys = new ArrayList<String>(keys.length);
+        V[] sortedValues = (V[]) new Object[keys.length];
+        for (i = 0; i < order.length; i++) {
+            sortedKeys.add(keys[order[i]]);
+            sortedValues[i] = (V) values[order[i]];
+        }
+        return trie.build(sortedKeys, sortedValues);
+    }
+
+    /**
+     * @return 键的下标，不存在时返回-1
+     */
+    public int exactMatchSearch(byte[] key, int offset, int length) {
+        return trie.exactMatchSearch(key, offset, length);
+    }
+
+    public int exactMatchSearch(Utf8Span key) {
+        return trie.exactMatchSearch(key.bytes(), key.offset(), key.length());
+    }
+
+    /**
+     * 前缀查询：找出text[offset, offset + maxLength)的所有前缀中，属于trie树的键
+     *
+     * @param lengths 输出，命中的键的字节数，从短到长
+     * @param indices 输出，命中的键的下标，可以为null
+     * @return 命中的数量
+     */
+    public int commonPrefixSearch(byte[] text, int offset, int maxLength, int[] lengths, int[] indices) {
+        return trie.commonPrefixSearch(text, offset, maxLength, lengths, indices);
+    }
+
+    /**
+     * 前缀查询：找出片段中从第from字节开始的所有前缀中，属于trie树的键
+     */
+    public int commonPrefixSearch(Utf8Span text, int from, int[] lengths, int[] indices) {
+        return trie.commonPrefixSearch(text.bytes(), text.offset() + from, text.length() - from, lengths, indices);
+    }
+
+    public V get(Utf8Span key) {
+        return getValue(exactMatchSearch(key));
+    }
+
+    /**
+     * 根据下标获取值
+     */
+    public V getValue(int index) {
+        return index < 0 ? null : trie.getValue(index);
+    }
+
+    public boolean containsKey(Utf8Span key) {
+        return exactMatchSearch(key) >= 0;
+    }
+
+    @Override
+    public boolean save(DataOutputStream out) {
+        return trie.save(out);
+    }
+
+    @Override
+    public boolean load(ByteArray byteArray, V[] value) {
+        return trie.load(byteArray, value);
+    }
+
+    @Override
+    public V get(char[] key) {
+        return get(new String(key));
+    }
+
+    @Override
+    public V get(String key) {
+        return getValue(exactMatchSearch(Utf8Span.of(key)));
+    }
+
+    /**
+     * @return 按字节序排列的值
+     */
+    @Override
+    public V[] getValueArray(V[] a) {
+        return trie.getValueArray(a);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return containsKey(Utf8Span.of(key));
+    }
+
+    @Override
+    public int size() {
+        return trie.size();
+    }
+}
@@ -0,0 +1,55 @@
+package common.cache;
+
+/**
+ * 缓存计数的快照
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:10 上午
+ */
+public class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+
+    CacheStats(long hits, long misses, long evictions, long expirations) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return 因容量不足被淘汰的数量
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return 因过期被移除的数量
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : 1.0 * hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.4f evictions=%d expirations=%d",
+                hits, misses, hitRate(), evictions, expirations);
+    }
+}
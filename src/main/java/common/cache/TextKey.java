@@ -0,0 +1,125 @@
+package common.cache;
+
+/**
+ * 以字符片段为键：按内容计算哈希、比较相等，不必为了查缓存而创建String。<br>
+ * 放入缓存的键必须是不可变的（of、copyOf 创建）；set 只用于查询时复用同一个探针对象，
+ * 探针直接引用调用方的数组，不能作为键放入缓存。<br>
+ * 默认按字符计算哈希；调用方已有哈希值时可以直接传入，同一个 Map 中的键必须使用同一种哈希。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:15 上午
+ */
+public final class TextKey {
+
+    private char[] chars;
+    private int offset;
+    private int length;
+    private int hash;
+
+    private TextKey(char[] chars, int offset, int length) {
+        set(chars, offset, length);
+    }
+
+    private TextKey(char[] chars, int offset, int length, int hash) {
+        set(chars, offset, length, hash);
+    }
+
+    /**
+     * 创建查询用的探针
+     */
+    public TextKey() {
+        this(new char[0], 0, 0);
+    }
+
+    public static TextKey of(String text) {
+        return new TextKey(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * 复制字符片段，创建可以放入缓存的键
+     */
+    public static TextKey copyOf(char[] chars, int offset, int length) {
+        char[] copy = new char[length];
+        System.arraycopy(chars, offset, copy, 0, length);
+        return new TextKey(copy, 0, length);
+    }
+
+    /**
+     * 复制字符片段，使用调用方算好的哈希值
+     */
+    public static TextKey copyOf(char[] chars, int offset, int length, int hash) {
+        char[] copy = new char[length];
+        System.arraycopy(chars, offset, copy, 0, length);
+        return new TextKey(copy, 0, length, hash);
+    }
+
+    /**
+     * 复制当前内容，用于把探针转为可放入缓存的键
+     */
+    public TextKey copy() {
+        return copyOf(chars, offset, length, hash);
+    }
+
+    /**
+     * 探针指向新的字符片段，不复制
+     *
+     * @return this
+     */
+    public TextKey set(char[] chars, int offset, int length) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        this.hash = h;
+        return this;
+    }
+
+    /**
+     * 探针指向新的字符片段，使用调用方算好的哈希值，不复制
+     *
+     * @return this
+     */
+    public TextKey set(char[] chars, int offset, int length, int hash) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return 估计占用的字节数：对象头、字段和字符数组
+     */
+    public int weight() {
+        return 48 + 2 * length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TextKey)) return false;
+        TextKey other = (TextKey) o;
+        if (other.hash != hash || other.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != other.chars[other.offset + i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+}
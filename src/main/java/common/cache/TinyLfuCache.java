@@ -0,0 +1,440 @@
+package common.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按字节限制大小的并发缓存，淘汰策略为 W-TinyLFU：
+ * <ul>
+ *     <li>新写入的项先进入占容量1%的窗口（LRU），窗口溢出的项进入主区的试用段；</li>
+ *     <li>主区（SLRU）分为试用段和占80%的保护段，试用段中再次被访问的项晋升到保护段；</li>
+ *     <li>主区满时，窗口来的候选与试用段末尾的牺牲者比较 FrequencySketch 估计的访问频率，频率低的一方被淘汰，
+ *     因此偶发的一次性查询不会把热点挤出缓存。</li>
+ * </ul>
+ * 键按哈希高位分到多个段，每段一把锁，各自维护哈希表、队列、频率统计和计数，没有全局锁。
+ * 写入超过 expireAfterWriteMillis 的项在读取时视为不存在并移除，也可以调用 cleanUp 主动清理。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:20 上午
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    /**
+     * 缓存未命中时的加载方式
+     */
+    public interface Loader<K, V> {
+        /**
+         * @return 值，返回null时不缓存
+         */
+        V load(K key);
+    }
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final long maximumWeight;
+    private final long expireAfterWriteNanos;
+    private final Weigher<? super K, ? super V> weigher;
+
+    /**
+     * @param maximumWeight          最大字节数
+     * @param expireAfterWriteMillis 写入后的有效期，0表示不过期
+     * @param segmentCount           段数，取不小于它的2的幂
+     * @param weigher                计算每一项的字节数
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(long maximumWeight, long expireAfterWriteMillis, int segmentCount, Weigher<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) throw new IllegalArgumentException("maximumWeight必须为正数：" + maximumWeight);
+        int count = Integer.highestOneBit(Math.max(segmentCount, 1) * 2 - 1);
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWriteNanos = expireAfterWriteMillis * 1000000L;
+        this.weigher = weigher;
+        long segmentWeight = Math.max(maximumWeight / count, 1);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<K, V>(segmentWeight);
+        }
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+    }
+
+    /**
+     * @return 值，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).get(key, hash, expireAfterWriteNanos);
+    }
+
+    /**
+     * 获取值，未命中时调用loader加载并写入。加载在锁外进行，并发的相同请求可能各自加载一次
+     */
+    public V get(K key, Loader<K, V> loader) {
+        V value = get(key);
+        if (value != null) return value;
+        value = loader.load(key);
+        if (value != null) put(key, value);
+        return value;
+    }
+
+    public void put(K key, V value) {
+        int hash = spread(key.hashCode());
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) throw new IllegalArgumentException("weight不能为负数：" + weight);
+        segmentFor(hash).put(key, value, hash, weight);
+    }
+
+    public void invalidate(K key) {
+        int hash = spread(key.hashCode());
+        segmentFor(hash).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) segment.clear();
+    }
+
+    /**
+     * 移除所有过期项
+     */
+    public void cleanUp() {
+        if (expireAfterWriteNanos <= 0) return;
+        for (Segment<K, V> segment : segments) segment.removeExpired(expireAfterWriteNanos);
+    }
+
+    /**
+     * @return 项数
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) size += segment.size();
+        return size;
+    }
+
+    /**
+     * @return 当前占用的字节数
+     */
+    public long weightedSize() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) weight += segment.weight();
+        return weight;
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @return 各段计数之和
+     */
+    public CacheStats stats() {
+        long hits = 0, misses = 0, evictions = 0, expirations = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+                expirations += segment.expirations;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return new CacheStats(hits, misses, evictions, expirations);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        int hash;
+        int weight;
+        long writeTime;
+        byte queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 双向链表，head为最近使用，tail为最久未使用
+     */
+    private static final class AccessQueue<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        void addFirst(Node<K, V> node) {
+            node.prev = null;
+            node.next = head;
+            if (head != null) head.prev = node;
+            else tail = node;
+            head = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev != null) node.prev.next = node.next;
+            else head = node.next;
+            if (node.next != null) node.next.prev = node.prev;
+            else tail = node.prev;
+            node.prev = node.next = null;
+        }
+
+        void moveToFirst(Node<K, V> node) {
+            if (head == node) return;
+            remove(node);
+            addFirst(node);
+        }
+
+        void clear() {
+            head = tail = null;
+        }
+    }
+
+    private static final class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        final HashMap<K, Node<K, V>> map = new HashMap<K, Node<K, V>>();
+        final FrequencySketch sketch = new FrequencySketch();
+        final AccessQueue<K, V> window = new AccessQueue<K, V>();
+        final AccessQueue<K, V> probation = new AccessQueue<K, V>();
+        final AccessQueue<K, V> protectedQueue = new AccessQueue<K, V>();
+        final long maximumWeight;
+        final long windowMaximum;
+        final long protectedMaximum;
+        long windowWeight;
+        long probationWeight;
+        long protectedWeight;
+
+        long hits;
+        long misses;
+        long evictions;
+        long expirations;
+
+        Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            this.windowMaximum = Math.max(maximumWeight / 100, 1);
+            this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+            sketch.ensureCapacity(16);
+        }
+
+        V get(K key, int hash, long expireNanos) {
+            lock();
+            try {
+                sketch.increment(hash);
+                Node<K, V> node = map.get(key);
+                if (node == null) {
+                    misses++;
+                    return null;
+                }
+                if (expireNanos > 0 && System.nanoTime() - node.writeTime > expireNanos) {
+                    removeNode(node);
+                    expirations++;
+                    misses++;
+                    return null;
+                }
+                hits++;
+                onAccess(node);
+                return node.value;
+            } finally {
+                unlock();
+            }
+        }
+
+        void put(K key, V value, int hash, int weight) {
+            lock();
+            try {
+                Node<K, V> node = map.get(key);
+                if (node != null) {
+                    addWeight(node.queue, weight - node.weight);
+                    node.value = value;
+                    node.weight = weight;
+                    node.writeTime = System.nanoTime();
+                    onAccess(node);
+                } else {
+                    node = new Node<K, V>(key);
+                    node.value = value;
+                    node.hash = hash;
+                    node.weight = weight;
+                    node.writeTime = System.nanoTime();
+                    node.queue = WINDOW;
+                    map.put(key, node);
+                    sketch.ensureCapacity(map.size());
+                    sketch.increment(hash);
+                    window.addFirst(node);
+                    windowWeight += weight;
+                }
+                evict();
+            } finally {
+                unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock();
+            try {
+                Node<K, V> node = map.get(key);
+                if (node != null) removeNode(node);
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                map.clear();
+                window.clear();
+                probation.clear();
+                protectedQueue.clear();
+                windowWeight = probationWeight = protectedWeight = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        void removeExpired(long expireNanos) {
+            lock();
+            try {
+                long now = System.nanoTime();
+                Iterator<Map.Entry<K, Node<K, V>>> iterator = map.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Node<K, V> node = iterator.next().getValue();
+                    if (now - node.writeTime > expireNanos) {
+                        iterator.remove();
+                        unlink(node);
+                        expirations++;
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        int size() {
+            lock();
+            try {
+                return map.size();
+            } finally {
+                unlock();
+            }
+        }
+
+        long weight() {
+            lock();
+            try {
+                return windowWeight + probationWeight + protectedWeight;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void onAccess(Node<K, V> node) {
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToFirst(node);
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    probationWeight -= node.weight;
+                    node.queue = PROTECTED;
+                    protectedQueue.addFirst(node);
+                    protectedWeight += node.weight;
+                    // 保护段溢出的项降回试用段
+                    while (protectedWeight > protectedMaximum && protectedQueue.tail != node) {
+                        Node<K, V> demoted = protectedQueue.tail;
+                        protectedQueue.remove(demoted);
+                        protectedWeight -= demoted.weight;
+                        demoted.queue = PROBATION;
+                        probation.addFirst(demoted);
+                        probationWeight += demoted.weight;
+                    }
+                    break;
+                default:
+                    protectedQueue.moveToFirst(node);
+            }
+        }
+
+        private void addWeight(byte queue, long delta) {
+            if (queue == WINDOW) windowWeight += delta;
+            else if (queue == PROBATION) probationWeight += delta;
+            else protectedWeight += delta;
+        }
+
+        /**
+         * 窗口溢出的项移入试用段；总量超限时，候选与牺牲者按频率淘汰
+         */
+        private void evict() {
+            Node<K, V> candidate = null;
+            while (windowWeight > windowMaximum && window.tail != null) {
+                Node<K, V> node = window.tail;
+                window.remove(node);
+                windowWeight -= node.weight;
+                node.queue = PROBATION;
+                probation.addFirst(node);
+                probationWeight += node.weight;
+                // 最先移入的候选离队尾最近，之后的候选沿 prev 方向排列
+                if (candidate == null) candidate = node;
+            }
+            while (windowWeight + probationWeight + protectedWeight > maximumWeight) {
+                Node<K, V> victim = probation.tail;
+                if (victim == null) {
+                    victim = protectedQueue.tail != null ? protectedQueue.tail : window.tail;
+                    if (victim == null) break;
+                    evictNode(victim);
+                    continue;
+                }
+                if (candidate == null || candidate == victim) {
+                    if (candidate == victim) candidate = candidate.prev;
+                    evictNode(victim);
+                } else if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    evictNode(victim);
+                } else {
+                    Node<K, V> next = candidate.prev;
+                    evictNode(candidate);
+                    candidate = next;
+                }
+            }
+        }
+
+        private void evictNode(Node<K, V> node) {
+            removeNode(node);
+            evictions++;
+        }
+
+        private void removeNode(Node<K, V> node) {
+            map.remove(node.key);
+            unlink(node);
+        }
+
+        private void unlink(Node<K, V> node) {
+            switch (node.queue) {
+                case WINDOW:
+                    window.remove(node);
+                    windowWeight -= node.weight;
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    probationWeight -= node.weight;
+                    break;
+                default:
+                    protectedQueue.remove(node);
+                    protectedWeight -= node.weight;
+            }
+        }
+    }
+}
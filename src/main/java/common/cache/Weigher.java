@@ -0,0 +1,14 @@
+package common.cache;
+
+/**
+ * 计算缓存项占用的字节数，用于按字节限制缓存大小
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:05 上午
+ */
+public interface Weigher<K, V> {
+    /**
+     * @return 估计的字节数，必须非负
+     */
+    int weigh(K key, V value);
+}
@@ -1,10 +1,13 @@
 package common.io;
 
+import utils.ByteUtils;
+
 /**
  * @Author lizhen
  * @Date 2021年11月02日1:37 下午
  *
  * 对字节数组进行封装，提供方便的读取操作
+ * 读取顺序与 DataOutputStream 的写入顺序一致（高位在前）
  */
 public class ByteArray {
 
@@ -33,5 +36,151 @@ public class ByteArray {
         return new ByteArray(bytes);
     }
 
+    /**
+     * 读取一个int，对应 DataOutputStream.writeInt
+     *
+     * @return int
+     */
+    public int nextInt()
+    {
+        int result = ByteUtils.bytesHighFirstToInt(bytes, offset);
+        offset += 4;
+        return result;
+    }
+
+    /**
+     * 读取一个long，对应 DataOutputStream.writeLong
+     *
+     * @return long
+     */
+    public long nextLong()
+    {
+        long high = nextInt();
+        long low = nextInt();
+        return (high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 读取一个char，对应 DataOutputStream.writeChar
+     *
+     * @return char
+     */
+    public char nextChar()
+    {
+        char result = ByteUtils.bytesHighFirstToChar(bytes, offset);
+        offset += 2;
+        return result;
+    }
+
+    /**
+     * 读取一个short，对应 DataOutputStream.writeShort
+     *
+     * @return short
+     */
+    public short nextShort()
+    {
+        return (short) nextChar();
+    }
 
+    /**
+     * 读取一个float，对应 DataOutputStream.writeFloat
+     *
+     * @return float
+     */
+    public float nextFloat()
+    {
+        float result = ByteUtils.bytesHighFirstToFloat(bytes, offset);
+        offset += 4;
+        return result;
+    }
+
+    /**
+     * 读取一个double，对应 DataOutputStream.writeDouble
+     *
+     * @return double
+     */
+    public double nextDouble()
+    {
+        double result = ByteUtils.bytesHighFirstToDouble(bytes, offset);
+        offset += 8;
+        return result;
+    }
+
+    /**
+     * 读取一个字节
+     *
+     * @return byte
+     */
+    public byte nextByte()
+    {
+        return bytes[offset++];
+    }
+
+    /**
+     * 读取一个变长编码的非负long，对应 ByteUtils.writeVarLong
+     *
+     * @return long
+     */
+    public long nextVarLong()
+    {
+        long result = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            byte b = nextByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+    }
+
+    /**
+     * 读取一个变长编码的非负int，对应 ByteUtils.writeVarLong
+     *
+     * @return int
+     */
+    public int nextVarInt()
+    {
+        return (int) nextVarLong();
+    }
+
+    /**
+     * 读取一个字符串，格式为 int长度 + 逐个char
+     *
+     * @return 字符串
+     */
+    public String nextString()
+    {
+        int length = nextInt();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+        {
+            chars[i] = nextChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return 是否还有未读取的字节
+     */
+    public boolean hasMore()
+    {
+        return offset < bytes.length;
+    }
+
+    /**
+     * @return 下一个字节的位置
+     */
+    public int getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * 跳过若干字节
+     *
+     * @param n 跳过的字节数
+     */
+    public void skip(int n)
+    {
+        offset += n;
+    }
 }
@@ -0,0 +1,415 @@
+package common.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 外部排序：按行排序超过内存的文本文件。<br>
+ * <ul>
+ *     <li>生成有序段：调用线程按内存预算读取一批行，交给线程池排序并写入临时文件，同时继续读取下一批；
+ *     同时存在的批次不超过 threads + 1 个，每批约占 memoryBytes / (threads + 1)，总内存受预算限制；</li>
+ *     <li>归并：用败者树对各段做k路归并，每取出一行只需 log(k) 次比较；段数超过 fanIn 时先分组归并成更大的段；</li>
+ *     <li>临时段可以用GZIP压缩，用CPU换磁盘空间和IO；</li>
+ *     <li>三种模式：ALL 保留全部行，UNIQUE 去重，COUNT 去重并统计次数（输出“行\t次数”），
+ *     后两种在生成段时就先合并，段更小。</li>
+ * </ul>
+ * 默认按 String.compareTo（即字符的UTF-16编码）排序，与 TreeMap、DoubleArrayTrie 要求的顺序一致。
+ * 一个实例同一时间只能执行一次排序。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日7:20 下午
+ */
+@Slf4j
+public class ExternalSorter {
+
+    public enum Mode {
+        /**
+         * 保留全部行
+         */
+        ALL,
+        /**
+         * 相同的行只保留一行
+         */
+        UNIQUE,
+        /**
+         * 相同的行只保留一行，并在行后加上制表符和出现次数
+         */
+        COUNT
+    }
+
+    private static final Comparator<String> NATURAL = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            return a.compareTo(b);
+        }
+    };
+
+    private final long memoryBytes;
+    private final int threads;
+    private Mode mode = Mode.ALL;
+    private boolean compress;
+    private int fanIn = 128;
+    private Comparator<String> comparator = NATURAL;
+    private File tempDirectory;
+
+    /**
+     * 内存预算为最大堆的1/4，使用全部CPU核心
+     */
+    public ExternalSorter() {
+        this(Runtime.getRuntime().maxMemory() / 4, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param memoryBytes 生成有序段时的内存预算（字节）
+     * @param threads     排序线程数
+     */
+    public ExternalSorter(long memoryBytes, int threads) {
+        this.memoryBytes = Math.max(memoryBytes, 1 << 16);
+        this.threads = Math.max(threads, 1);
+    }
+
+    public ExternalSorter setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * 临时段是否用GZIP压缩
+     */
+    public ExternalSorter setCompress(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    /**
+     * 一次最多归并的段数，至少为2
+     */
+    public ExternalSorter setFanIn(int fanIn) {
+        this.fanIn = Math.max(fanIn, 2);
+        return this;
+    }
+
+    public ExternalSorter setComparator(Comparator<String> comparator) {
+        this.comparator = comparator;
+        return this;
+    }
+
+    /**
+     * 临时段所在的目录，默认为系统临时目录
+     */
+    public ExternalSorter setTempDirectory(File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * 排序文件
+     *
+     * @param inputPath  输入文件，UTF-8
+     * @param outputPath 输出文件，UTF-8
+     * @return 输出的行数，失败时返回-1
+     */
+    public long sort(String inputPath, String outputPath) {
+        LineIterator lines = IOUtil.readLineIterator(inputPath);
+        try {
+            return sort(lines, outputPath);
+        } finally {
+            lines.close();
+        }
+    }
+
+    /**
+     * 排序
+     *
+     * @param lines      输入的行，null会被跳过
+     * @param outputPath 输出文件，UTF-8
+     * @return 输出的行数，失败时返回-1
+     */
+    public long sort(Iterator<String> lines, String outputPath) {
+        long start = System.currentTimeMillis();
+        List<File> runs = new ArrayList<File>();
+        try {
+            createRuns(lines, runs);
+            int passes = 0;
+            while (runs.size() > fanIn) {
+                List<File> merged = new ArrayList<File>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<File> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    File run = newRun();
+                    merged.add(run);
+                    merge(group, openRun(run));
+                    for (File file : group) file.delete();
+                }
+                runs = merged;
+                passes++;
+            }
+            OutputStream out = new FileOutputStream(outputPath);
+            long count = merge(runs, out);
+            log.info("排序完成，输出{}行到{}，{}轮中间归并，耗时{}ms", count, outputPath, passes, System.currentTimeMillis() - start);
+            return count;
+        } catch (Exception e) {
+            log.error("排序到{}失败", outputPath, e);
+            return -1;
+        } finally {
+            for (File run : runs) run.delete();
+        }
+    }
+
+    /**
+     * 按内存预算分批读取，在线程池中排序并写成有序段
+     */
+    private void createRuns(Iterator<String> lines, List<File> runs) throws Exception {
+        long batchBytes = memoryBytes / (threads + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Semaphore permits = new Semaphore(threads);
+        List<Future<File>> futures = new ArrayList<Future<File>>();
+        try {
+            while (lines.hasNext()) {
+                final List<String> batch = new ArrayList<String>();
+                long bytes = 0;
+                while (bytes < batchBytes && lines.hasNext()) {
+                    String line = lines.next();
+                    if (line == null) continue;
+                    batch.add(line);
+                    // String对象、char[]和引用的大致开销
+                    bytes += 2L * line.length() + 64;
+                }
+                if (batch.isEmpty()) break;
+                permits.acquire();
+                futures.add(executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        try {
+                            return writeRun(batch);
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }));
+            }
+            for (Future<File> future : futures) runs.add(future.get());
+        } catch (Exception e) {
+            for (Future<File> future : futures) {
+                if (future.isDone() && !future.isCancelled()) {
+                    try {
+                        future.get().delete();
+                    } catch (Exception ignored) {
+                    }
+                }
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private File writeRun(List<String> batch) throws IOException {
+        String[] lines = batch.toArray(new String[batch.size()]);
+        batch.clear();
+        Arrays.sort(lines, comparator);
+        File run = newRun();
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(openRun(run), StandardCharsets.UTF_8), 1 << 16);
+        try {
+            for (int i = 0; i < lines.length; ) {
+                int j = i + 1;
+                if (mode != Mode.ALL) {
+                    while (j < lines.length && comparator.compare(lines[i], lines[j]) == 0) j++;
+                }
+                write(writer, lines[i], j - i);
+                if (mode == Mode.ALL) {
+                    i++;
+                } else {
+                    i = j;
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        return run;
+    }
+
+    private File newRun() throws IOException {
+        return File.createTempFile("sort", compress ? ".run.gz" : ".run", tempDirectory);
+    }
+
+    private OutputStream openRun(File run) throws IOException {
+        OutputStream out = new FileOutputStream(run);
+        return compress ? new GZIPOutputStream(out, 1 << 16) : out;
+    }
+
+    private InputStream readRun(File run) throws IOException {
+        InputStream in = new FileInputStream(run);
+        return compress ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    /**
+     * 写一行。COUNT 模式下，临时段和最终输出都带次数
+     */
+    private void write(BufferedWriter writer, String line, long count) throws IOException {
+        writer.write(line);
+        if (mode == Mode.COUNT) {
+            writer.write('\t');
+            writer.write(Long.toString(count));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * k路归并
+     *
+     * @return 输出的行数
+     */
+    private long merge(List<File> runs, OutputStream out) throws IOException {
+        RunReader[] readers = new RunReader[runs.size()];
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        long written = 0;
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RunReader(new BufferedReader(new InputStreamReader(readRun(runs.get(i)), StandardCharsets.UTF_8), 1 << 16));
+            }
+            LoserTree tree = new LoserTree(readers, comparator);
+            String previous = null;
+            long count = 0;
+            for (int winner; (winner = tree.winner()) >= 0; ) {
+                RunReader reader = readers[winner];
+                if (mode != Mode.ALL && previous != null && comparator.compare(previous, reader.line) == 0) {
+                    count += reader.count;
+                } else {
+                    if (previous != null) {
+                        write(writer, previous, count);
+                        written++;
+                    }
+                    previous = reader.line;
+                    count = reader.count;
+                }
+                reader.advance();
+                tree.adjust(winner);
+            }
+            if (previous != null) {
+                write(writer, previous, count);
+                written++;
+            }
+        } finally {
+            writer.close();
+            for (RunReader reader : readers) {
+                if (reader != null) reader.close();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 有序段的读取器，COUNT 模式下解析行尾的次数
+     */
+    private class RunReader {
+        private final BufferedReader reader;
+        String line;
+        long count;
+
+        RunReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            advance();
+        }
+
+        void advance() throws IOException {
+            line = reader.readLine();
+            count = 1;
+            if (line != null && mode == Mode.COUNT) {
+                int tab = line.lastIndexOf('\t');
+                count = Long.parseLong(line.substring(tab + 1));
+                line = line.substring(0, tab);
+            }
+        }
+
+        boolean exhausted() {
+            return line == null;
+        }
+
+        void close() {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 败者树：tree[0] 为当前最小的段，tree[1..k) 为各内部节点上比赛的败者。
+     * 某段取出一行后只需沿着从叶子到根的路径重赛一次
+     */
+    private static class LoserTree {
+        private final RunReader[] readers;
+        private final Comparator<String> comparator;
+        private final int[] tree;
+        private final int k;
+
+        LoserTree(RunReader[] readers, Comparator<String> comparator) {
+            this.readers = readers;
+            this.comparator = comparator;
+            this.k = readers.length;
+            this.tree = new int[Math.max(k, 1)];
+            // -1 表示比所有段都小的虚拟段，逐个调整后被全部替换
+            Arrays.fill(tree, -1);
+            for (int i = k - 1; i >= 0; i--) adjust(i);
+        }
+
+        /**
+         * @return 最小的段，全部读完时返回-1
+         */
+        int winner() {
+            int winner = tree[0];
+            return k == 0 || readers[winner].exhausted() ? -1 : winner;
+        }
+
+        /**
+         * 段s的当前行改变后重赛
+         */
+        void adjust(int s) {
+            for (int t = (s + k) >>> 1; t > 0; t >>>= 1) {
+                if (beats(tree[t], s)) {
+                    int loser = s;
+                    s = tree[t];
+                    tree[t] = loser;
+                }
+            }
+            tree[0] = s;
+        }
+
+        /**
+         * @return a是否排在b之前，相同时序号小的在前，保证稳定
+         */
+        private boolean beats(int a, int b) {
+            if (a == -1) return true;
+            if (b == -1) return false;
+            RunReader x = readers[a];
+            RunReader y = readers[b];
+            if (x.exhausted()) return false;
+            if (y.exhausted()) return true;
+            int c = comparator.compare(x.line, y.line);
+            return c < 0 || (c == 0 && a < b);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package common.io;
 
+import common.metrics.CountingInputStream;
+import common.metrics.Metrics;
 import lombok.extern.slf4j.Slf4j;
-import utils.TextUtils;
+import utils.ThrottledLogger;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 
@@ -16,6 +21,11 @@ import java.util.*;
  */
 @Slf4j
 public class IOUtil {
+    /**
+     * 按文件路径去重、限流的错误日志，避免大量文件缺失时刷屏
+     */
+    static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
     /**
      * 检查本地文件是否存在
      *
@@ -41,7 +51,7 @@ public class IOUtil {
             fc.write(ByteBuffer.wrap(content.getBytes()));
             fc.close();
         } catch (Exception e) {
-            log.error("IOUtil saveText 到" + path + "失败" + TextUtils.exceptionToString(e));
+            errorLog.error(path, "IOUtil saveText 到{}失败", path, e);
 
             return false;
         }
@@ -65,7 +75,7 @@ public class IOUtil {
             oos.writeObject(object);
             oos.close();
         } catch (IOException e) {
-            log.error("在保存对象" + object + "到" + path + "时发生异常" + TextUtils.exceptionToString(e));
+            errorLog.error(path, "在保存对象到{}时发生异常", path, e);
             return false;
         }
 
@@ -106,7 +116,7 @@ public class IOUtil {
             ois.close();
             return o;
         } catch (Exception e) {
-            log.error("在从" + path + "读取对象时发生异常" + TextUtils.exceptionToString(e));
+            errorLog.error(path, "在从{}读取对象时发生异常", path, e);
         }
 
         return null;
@@ -121,13 +131,15 @@ public class IOUtil {
      */
     public static byte[] readBytes(String path) {
         if (!isFileExisted(path)) {
-            log.error("文件不存在:" + path);
+            errorLog.error(path, "文件不存在:{}", path);
             return null;
         }
         try {
-            return readBytesFromFileInputStream(new FileInputStream(path));
+            byte[] bytes = readBytesFromFileInputStream(new FileInputStream(path));
+            if (Metrics.ENABLED) Metrics.IO_BYTES_READ.add(bytes.length);
+            return bytes;
         } catch (IOException e) {
-            log.error(TextUtils.exceptionToString(e));
+            errorLog.error(path, "读取{}失败", path, e);
         }
         return null;
     }
@@ -140,7 +152,7 @@ public class IOUtil {
      */
     public static String readText(String path) {
         if (!isFileExisted(path)) {
-            log.error("文件不存在:" + path);
+            errorLog.error(path, "文件不存在:{}", path);
             return null;
         }
 
@@ -149,12 +161,13 @@ public class IOUtil {
             byte[] fileContent = new byte[is.available()];
             int read = readBytesFromInputStream(is, fileContent);
             is.close();
+            if (Metrics.ENABLED) Metrics.IO_BYTES_READ.add(read);
             // 处理 UTF-8 BOM
             if (read >= 3 && fileContent[0] == -17 && fileContent[1] == -69 && fileContent[2] == -65)
                 return new String(fileContent, 3, fileContent.length - 3, StandardCharsets.UTF_8);
             return new String(fileContent, StandardCharsets.UTF_8);
         } catch (IOException e) {
-            log.error(TextUtils.exceptionToString(e));
+            errorLog.error(path, "读取{}失败", path, e);
         }
         return null;
 
@@ -268,7 +281,7 @@ public class IOUtil {
      */
     public static LinkedList<String> readLineList(String path) {
         if (!isFileExisted(path)) {
-            log.error("文件不存在:" + path);
+            errorLog.error(path, "文件不存在:{}", path);
             return null;
         }
         LinkedList<String> result = new LinkedList<String>();
@@ -305,7 +318,7 @@ public class IOUtil {
             }
             bw.close();
         } catch (Exception e) {
-            log.error("加载" + path + "失败，" + TextUtils.exceptionToString(e));
+            errorLog.error(path, "加载{}失败", path, e);
         }
 
         return result;
@@ -315,6 +328,16 @@ public class IOUtil {
         return new LineIterator(path);
     }
 
+    /**
+     * 按行读取UTF-8文件但不解码，每行以 Utf8Span 给出，适合只做词典匹配或计数的批处理
+     *
+     * @param path 文件路径
+     * @return 行读取器，文件不存在时第一次调用 next 即返回false
+     */
+    public static Utf8LineReader readUtf8LineReader(String path) {
+        return new Utf8LineReader(path);
+    }
+
     /**
      * 去除文件第一行中的UTF8 BOM<br>
      * 这是Java的bug，且官方不会修复。参考 https://stackoverflow.com/questions/4897876/reading-utf-8-bom-marker
@@ -437,6 +460,24 @@ public class IOUtil {
         return new File(path).delete();
     }
 
+    /**
+     * 用写好的临时文件替换目标文件。临时文件应与目标在同一目录，文件系统支持时为原子重命名，
+     * 其他进程要么看到旧文件，要么看到完整的新文件，不会读到写了一半的内容
+     *
+     * @param source 临时文件路径
+     * @param target 目标文件路径
+     * @throws IOException 重命名失败
+     */
+    public static void replaceFile(String source, String target) throws IOException {
+        File from = new File(source);
+        File to = new File(target);
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * 创建一个BufferedWriter,以输出内容
      *
@@ -469,107 +510,9 @@ public class IOUtil {
      * @throws UnsupportedEncodingException
      */
     public static BufferedReader newBufferedReader(String path) throws IOException {
-        return new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8));
-    }
-
-}
-
-
-/**
- * 方便读取按行读取大文件
- */
-@Slf4j
-class LineIterator implements Iterator<String>, Iterable<String> {
-    BufferedReader bw;
-    String line;
-
-    /**
-     * 构造器
-     *
-     * @param bw 缓冲字符读取器
-     */
-    public LineIterator(BufferedReader bw) {
-        this.bw = bw;
-        try {
-            line = bw.readLine();
-            line = IOUtil.removeUTF8BOM(line);
-        } catch (IOException e) {
-            log.error("在读取过程中发生错误" + TextUtils.exceptionToString(e));
-            bw = null;
-        }
-    }
-
-    public LineIterator(String path) {
-        try {
-            bw = new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8));
-            line = bw.readLine();
-            line = IOUtil.removeUTF8BOM(line);
-        } catch (FileNotFoundException e) {
-            log.error("文件" + path + "不存在，接下来的调用会返回null\n" + TextUtils.exceptionToString(e));
-            bw = null;
-        } catch (IOException e) {
-            log.error("在读取过程中发生错误" + TextUtils.exceptionToString(e));
-            bw = null;
-        }
-    }
-
-    public void close() {
-        if (bw == null) return;
-        try {
-            bw.close();
-            bw = null;
-        } catch (IOException e) {
-            log.error("关闭文件失败" + TextUtils.exceptionToString(e));
-        }
-    }
-
-    @Override
-    public boolean hasNext() {
-        if (bw == null) return false;
-        if (line == null) {
-            try {
-                bw.close();
-                bw = null;
-            } catch (IOException e) {
-                log.error("关闭文件失败" + TextUtils.exceptionToString(e));
-            }
-            return false;
-        }
-
-        return true;
-    }
-
-    @Override
-    public String next() {
-        String preLine = line;
-        try {
-            if (bw != null) {
-                line = bw.readLine();
-                if (line == null && bw != null) {
-                    try {
-                        bw.close();
-                        bw = null;
-                    } catch (IOException e) {
-                        log.error("关闭文件失败" + TextUtils.exceptionToString(e));
-                    }
-                }
-            } else {
-                line = null;
-            }
-        } catch (IOException e) {
-            log.error("在读取过程中发生错误" + TextUtils.exceptionToString(e));
-        }
-        return preLine;
-    }
-
-    @Override
-    public void remove() {
-        throw new UnsupportedOperationException("只读，不可写！");
-    }
-
-    @Override
-    public Iterator<String> iterator() {
-        return this;
+        InputStream is = new FileInputStream(path);
+        if (Metrics.ENABLED) is = new CountingInputStream(is, Metrics.IO_BYTES_READ);
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
     }
 
 }
@@ -0,0 +1,528 @@
+package common.io;
+
+import common.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 文本文件的行偏移索引，保存在同目录的 文件名 + SUFFIX 中，用于按行号随机读取大文件，不必从头扫描。<br>
+ * 构建：文件按64MB分段并行扫描，每次比较8个字节找换行符；每段独立编码，按顺序写出，同时在内存中的段数有上限。<br>
+ * 索引格式：行号连续的每 BLOCK_LINES 行为一块，块表记录每块的首行号、首行偏移和块数据的位置（常驻内存，
+ * 每块24字节），块数据是块内相邻行偏移之差的变长编码（通常每行1~2字节），查询时用 FileChannel 按位置读取一块。<br>
+ * 行以 \n 分隔，读取时去掉行尾的 \r；文件末尾的换行不产生空行，与 BufferedReader 一致。
+ * 读取方法只使用按位置读取，可以多线程共用一个实例。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日6:00 下午
+ */
+@Slf4j
+public class LineIndex implements Closeable {
+
+    public static final String SUFFIX = ".lidx";
+
+    private static final int MAGIC = 0x4C494458; // LIDX
+    private static final int BLOCK_LINES = 128;
+    private static final long CHUNK_BYTES = 64L << 20;
+    private static final int READ_BUFFER = 1 << 20;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final String path;
+    private final FileChannel text;
+    private final FileChannel index;
+    private final long textLength;
+    private final long lines;
+    private final long[] blockFirstLines;
+    private final long[] blockOffsets;
+    private final long[] blockPositions; // 块数据在索引文件中的位置，最后一项为数据末尾
+
+    private LineIndex(String path, FileChannel text, FileChannel index, long textLength, long lines,
+                      long[] blockFirstLines, long[] blockOffsets, long[] blockPositions) {
+        this.path = path;
+        this.text = text;
+        this.index = index;
+        this.textLength = textLength;
+        this.lines = lines;
+        this.blockFirstLines = blockFirstLines;
+        this.blockOffsets = blockOffsets;
+        this.blockPositions = blockPositions;
+    }
+
+    /**
+     * 构建索引，使用全部CPU核心
+     *
+     * @param path 文本文件路径
+     * @return 是否成功
+     */
+    public static boolean build(String path) {
+        return build(path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param path    文本文件路径
+     * @param threads 扫描线程数
+     * @return 是否成功
+     */
+    public static boolean build(String path, int threads) {
+        return build(path, threads, CHUNK_BYTES);
+    }
+
+    /**
+     * @param chunkBytes 每段的字节数
+     */
+    static boolean build(final String path, int threads, long chunkBytes) {
+        long start = System.currentTimeMillis();
+        File file = new File(path);
+        final long length = file.length();
+        long lastModified = file.lastModified();
+        threads = Math.max(threads, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        String indexPath = path + SUFFIX;
+        // 先写临时文件，计数回填后再重命名为索引，构建中途退出或并发的 open 都不会看到不完整的索引
+        String tempPath = indexPath + ".tmp";
+        File dataFile = new File(indexPath + ".data.tmp");
+        RandomAccessFile raf = null;
+        DataOutputStream out = null;
+        OutputStream dataOut = null;
+        try {
+            raf = new RandomAccessFile(path, "r");
+            final FileChannel channel = raf.getChannel();
+            // 块表写入索引文件，块数据先写入临时文件，最后追加到块表之后；行数和块数扫描完才知道，最后回填
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempPath), 1 << 16));
+            dataOut = new BufferedOutputStream(new FileOutputStream(dataFile), 1 << 16);
+            out.writeInt(MAGIC);
+            out.writeLong(length);
+            out.writeLong(lastModified);
+            out.writeLong(0);
+            out.writeInt(0);
+            // 同时在内存中的段不超过 2 * threads 个，按顺序取出结果写出后再提交后面的段
+            LinkedList<Future<Chunk>> pending = new LinkedList<Future<Chunk>>();
+            long from = 0;
+            long lineCount = 0;
+            int blockCount = 0;
+            long dataPosition = 0;
+            while (from < length || !pending.isEmpty()) {
+                while (from < length && pending.size() < 2 * threads) {
+                    final long begin = from;
+                    final long end = Math.min(from + chunkBytes, length);
+                    pending.add(executor.submit(new Callable<Chunk>() {
+                        @Override
+                        public Chunk call() throws IOException {
+                            return scan(channel, begin, end, length);
+                        }
+                    }));
+                    from = end;
+                }
+                Chunk chunk = pending.removeFirst().get();
+                for (int i = 0; i < chunk.blockCount; i++) {
+                    out.writeLong(lineCount + chunk.blockLines[i]);
+                    out.writeLong(chunk.blockOffsets[i]);
+                    out.writeLong(dataPosition + chunk.blockData[i]);
+                }
+                dataOut.write(chunk.data, 0, chunk.dataSize);
+                lineCount += chunk.lineCount;
+                blockCount += chunk.blockCount;
+                dataPosition += chunk.dataSize;
+            }
+            out.writeLong(dataPosition);
+            dataOut.close();
+            dataOut = null;
+            InputStream dataIn = new FileInputStream(dataFile);
+            try {
+                byte[] buffer = new byte[1 << 16];
+                for (int read; (read = dataIn.read(buffer)) > 0; ) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                dataIn.close();
+            }
+            out.close();
+            out = null;
+            RandomAccessFile header = new RandomAccessFile(tempPath, "rw");
+            try {
+                header.seek(4 + 8 + 8);
+                header.writeLong(lineCount);
+                header.writeInt(blockCount);
+            } finally {
+                header.close();
+            }
+            IOUtil.replaceFile(tempPath, indexPath);
+            log.info("构建{}的行索引完成，{}行，{}块，耗时{}ms", path, lineCount, blockCount, System.currentTimeMillis() - start);
+            return true;
+        } catch (Exception e) {
+            IOUtil.errorLog.error(path, "构建{}的行索引失败", path, e);
+            return false;
+        } finally {
+            executor.shutdownNow();
+            closeQuietly(out);
+            closeQuietly(dataOut);
+            closeQuietly(raf);
+            dataFile.delete();
+            new File(tempPath).delete();
+        }
+    }
+
+    /**
+     * 扫描 [begin, end) 中的换行符，记录起点在此范围内的行
+     */
+    private static Chunk scan(FileChannel channel, long begin, long end, long length) throws IOException {
+        Chunk chunk = new Chunk();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        if (begin == 0) {
+            chunk.add(0);
+        } else {
+            ByteBuffer previous = ByteBuffer.allocate(1);
+            channel.read(previous, begin - 1);
+            if (previous.get(0) == '\n') chunk.add(begin);
+        }
+        for (long position = begin; position < end; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = readFully(channel, buffer, position);
+            if (read == 0) throw new IOException("文件在扫描过程中被截断");
+            if (Metrics.ENABLED) Metrics.IO_BYTES_READ.add(read);
+            byte[] bytes = buffer.array();
+            int i = 0;
+            // 每次检查8个字节是否含有换行符，有时再逐字节确认
+            for (int words = read & ~7; i < words; i += 8) {
+                long word = buffer.getLong(i) ^ NEWLINES;
+                if (((word - LOW_BITS) & ~word & HIGH_BITS) == 0) continue;
+                for (int j = i; j < i + 8; j++) {
+                    if (bytes[j] == '\n') addNext(chunk, position + j, end, length);
+                }
+            }
+            for (; i < read; i++) {
+                if (bytes[i] == '\n') addNext(chunk, position + i, end, length);
+            }
+            position += read;
+        }
+        return chunk;
+    }
+
+    /**
+     * 换行符之后的位置是下一行的起点，落在本段之外的由下一段记录
+     */
+    private static void addNext(Chunk chunk, long newline, long end, long length) {
+        long next = newline + 1;
+        if (next < end && next < length) chunk.add(next);
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 一段文件的行起点，按块做差分变长编码
+     */
+    private static class Chunk {
+        long lineCount;
+        int blockCount;
+        long[] blockLines = new long[64];   // 块首行在段内的行号
+        long[] blockOffsets = new long[64];
+        long[] blockData = new long[64];    // 块数据在段内的位置
+        byte[] data = new byte[1024];
+        int dataSize;
+        long previous;
+        int inBlock;
+
+        void add(long offset) {
+            if (lineCount == 0 || inBlock == BLOCK_LINES) {
+                if (blockCount == blockLines.length) {
+                    blockLines = Arrays.copyOf(blockLines, blockCount * 2);
+                    blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+                    blockData = Arrays.copyOf(blockData, blockCount * 2);
+                }
+                blockLines[blockCount] = lineCount;
+                blockOffsets[blockCount] = offset;
+                blockData[blockCount] = dataSize;
+                blockCount++;
+                inBlock = 0;
+            } else {
+                if (dataSize + 10 > data.length) data = Arrays.copyOf(data, data.length * 2);
+                dataSize = ByteUtils.writeVarLong(data, dataSize, offset - previous);
+            }
+            previous = offset;
+            inBlock++;
+            lineCount++;
+        }
+    }
+
+    /**
+     * 打开文本文件及其索引
+     *
+     * @param path 文本文件路径
+     * @return 索引，索引不存在、与文本的长度或修改时间不一致时返回null
+     */
+    public static LineIndex open(String path) {
+        File file = new File(path);
+        String indexPath = path + SUFFIX;
+        if (!file.isFile() || !new File(indexPath).isFile()) return null;
+        DataInputStream in = null;
+        RandomAccessFile textFile = null;
+        RandomAccessFile indexFile = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexPath), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                log.error("{}不是行索引文件", indexPath);
+                return null;
+            }
+            long length = in.readLong();
+            long lastModified = in.readLong();
+            if (length != file.length() || lastModified != file.lastModified()) {
+                log.warn("{}在构建行索引后被修改过，需要重新构建", path);
+                return null;
+            }
+            long lines = in.readLong();
+            int blockCount = in.readInt();
+            long[] blockFirstLines = new long[blockCount];
+            long[] blockOffsets = new long[blockCount];
+            long[] blockPositions = new long[blockCount + 1];
+            long dataStart = 4 + 8 + 8 + 8 + 4 + 24L * blockCount + 8;
+            for (int i = 0; i < blockCount; i++) {
+                blockFirstLines[i] = in.readLong();
+                blockOffsets[i] = in.readLong();
+                blockPositions[i] = dataStart + in.readLong();
+            }
+            blockPositions[blockCount] = dataStart + in.readLong();
+            textFile = new RandomAccessFile(path, "r");
+            indexFile = new RandomAccessFile(indexPath, "r");
+            return new LineIndex(path, textFile.getChannel(), indexFile.getChannel(), length, lines,
+                    blockFirstLines, blockOffsets, blockPositions);
+        } catch (IOException e) {
+            IOUtil.errorLog.error(indexPath, "读取行索引{}失败", indexPath, e);
+            closeQuietly(textFile);
+            closeQuietly(indexFile);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 打开文本文件及其索引，索引不存在或已过期时先构建
+     */
+    public static LineIndex openOrBuild(String path) {
+        LineIndex index = open(path);
+        if (index != null) return index;
+        if (!new File(path).isFile() || !build(path)) return null;
+        return open(path);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * @return 行数
+     */
+    public long lineCount() {
+        return lines;
+    }
+
+    /**
+     * 行的起始字节偏移
+     *
+     * @param line 行号，从0开始；等于行数时返回文件长度
+     * @return 偏移，行号越界时返回-1
+     */
+    public long offset(long line) {
+        if (line < 0 || line > lines) return -1;
+        if (line == lines) return textLength;
+        int block = blockOf(line);
+        long offset = blockOffsets[block];
+        int skip = (int) (line - blockFirstLines[block]);
+        if (skip == 0) return offset;
+        ByteArray data = readBlock(block);
+        if (data == null) return -1;
+        for (int i = 0; i < skip; i++) offset += data.nextVarLong();
+        return offset;
+    }
+
+    /**
+     * 二分查找行所在的块
+     */
+    private int blockOf(long line) {
+        int block = Arrays.binarySearch(blockFirstLines, line);
+        return block >= 0 ? block : -block - 2;
+    }
+
+    private ByteArray readBlock(int block) {
+        long position = blockPositions[block];
+        ByteBuffer buffer = ByteBuffer.allocate((int) (blockPositions[block + 1] - position));
+        try {
+            readFully(index, buffer, position);
+        } catch (IOException e) {
+            IOUtil.errorLog.error(path, "读取{}的行索引失败", path, e);
+            return null;
+        }
+        return new ByteArray(buffer.array());
+    }
+
+    /**
+     * 读取一行
+     *
+     * @param line 行号，从0开始
+     * @return 行内容，不含换行符；行号越界或读取失败时返回null
+     */
+    public String line(long line) {
+        if (line < 0 || line >= lines) return null;
+        List<String> result = lines(line, line + 1);
+        return result == null || result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * 读取 [from, to) 行，一次按位置读取全部字节，适合较小的范围；大范围用 iterator
+     *
+     * @return 各行内容，读取失败时返回null
+     */
+    public List<String> lines(long from, long to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, lines);
+        List<String> result = new ArrayList<String>();
+        if (from >= to) return result;
+        long begin = offset(from);
+        long end = offset(to);
+        if (begin < 0 || end < 0) return null;
+        if (end - begin > Integer.MAX_VALUE) throw new IllegalArgumentException("范围超过2GB，请使用iterator");
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - begin));
+        try {
+            int read = readFully(text, buffer, begin);
+            if (Metrics.ENABLED) Metrics.IO_BYTES_READ.add(read);
+        } catch (IOException e) {
+            IOUtil.errorLog.error(path, "读取{}失败", path, e);
+            return null;
+        }
+        byte[] bytes = buffer.array();
+        int lineStart = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i == bytes.length ? lineStart < i : bytes[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') lineEnd--;
+                String line = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                result.add(begin == 0 && lineStart == 0 ? IOUtil.removeUTF8BOM(line) : line);
+                lineStart = i + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 逐行读取 [from, to) 行，用于按行号范围处理大文件
+     *
+     * @return 行迭代器，用完后需要 close
+     */
+    public LineIterator iterator(long from, long to) {
+        from = Math.max(from, 0);
+        to = Math.max(Math.min(to, lines), from);
+        InputStream in = new RangeInputStream(text, offset(from), offset(to));
+        return new LineIterator(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16), path);
+    }
+
+    /**
+     * 按行数均分为 shards 份，读取第 shard 份
+     *
+     * @param shard  分片序号，从0开始
+     * @param shards 分片数
+     * @return 行迭代器，用完后需要 close
+     */
+    public LineIterator shard(int shard, int shards) {
+        long from = lines * shard / shards;
+        long to = lines * (shard + 1) / shards;
+        return iterator(from, to);
+    }
+
+    /**
+     * 随机抽取若干行（可能重复），按行号顺序读取以减少磁盘寻道
+     *
+     * @param count  行数
+     * @param random 随机数生成器
+     * @return 抽取的行，按行号排列
+     */
+    public List<String> sample(int count, Random random) {
+        List<String> result = new ArrayList<String>(count);
+        if (lines == 0) return result;
+        long[] selected = new long[count];
+        for (int i = 0; i < count; i++) selected[i] = (long) (random.nextDouble() * lines);
+        Arrays.sort(selected);
+        for (long line : selected) result.add(line(line));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(text);
+        closeQuietly(index);
+    }
+
+    /**
+     * 用按位置读取实现的输入流，读取文件的 [position, end)，不影响通道的当前位置
+     */
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) return -1;
+            len = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read <= 0) return -1;
+            if (Metrics.ENABLED) Metrics.IO_BYTES_READ.add(read);
+            position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package common.io;
+
+import common.metrics.CountingInputStream;
+import common.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * 方便读取按行读取大文件
+ */
+@Slf4j
+public class LineIterator implements Iterator<String>, Iterable<String> {
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+    BufferedReader bw;
+    String line;
+    /**
+     * 数据来源，用于日志和按来源限流，一个来源反复出错不会压制其他来源的错误
+     */
+    private final String source;
+
+    /**
+     * 构造器
+     *
+     * @param bw 缓冲字符读取器
+     */
+    public LineIterator(BufferedReader bw) {
+        this(bw, "reader@" + Integer.toHexString(System.identityHashCode(bw)));
+    }
+
+    /**
+     * 构造器
+     *
+     * @param bw     缓冲字符读取器
+     * @param source 数据来源，如文件路径
+     */
+    public LineIterator(BufferedReader bw, String source) {
+        this.bw = bw;
+        this.source = source;
+        try {
+            line = bw.readLine();
+            line = IOUtil.removeUTF8BOM(line);
+        } catch (IOException e) {
+            errorLog.error(source, "读取{}时发生错误", source, e);
+            this.bw = null;
+        }
+    }
+
+    public LineIterator(String path) {
+        this.source = path;
+        try {
+            InputStream is = new FileInputStream(path);
+            if (Metrics.ENABLED) is = new CountingInputStream(is, Metrics.IO_BYTES_READ);
+            bw = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            line = bw.readLine();
+            line = IOUtil.removeUTF8BOM(line);
+        } catch (FileNotFoundException e) {
+            errorLog.error(path, "文件{}不存在，接下来的调用会返回null", path, e);
+            bw = null;
+        } catch (IOException e) {
+            errorLog.error(source, "读取{}时发生错误", source, e);
+            bw = null;
+        }
+    }
+
+    public void close() {
+        if (bw == null) return;
+        try {
+            bw.close();
+            bw = null;
+        } catch (IOException e) {
+            errorLog.error(source, "关闭{}失败", source, e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (bw == null) return false;
+        if (line == null) {
+            try {
+                bw.close();
+                bw = null;
+            } catch (IOException e) {
+                errorLog.error(source, "关闭{}失败", source, e);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String next() {
+        String preLine = line;
+        if (Metrics.ENABLED && preLine != null) Metrics.IO_LINES_READ.increment();
+        try {
+            if (bw != null) {
+                line = bw.readLine();
+                if (line == null && bw != null) {
+                    try {
+                        bw.close();
+                        bw = null;
+                    } catch (IOException e) {
+                        errorLog.error(source, "关闭{}失败", source, e);
+                    }
+                }
+            } else {
+                line = null;
+            }
+        } catch (IOException e) {
+            errorLog.error(source, "读取{}时发生错误", source, e);
+        }
+        return preLine;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("只读，不可写！");
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return this;
+    }
+
+}
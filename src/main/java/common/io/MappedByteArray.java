@@ -0,0 +1,120 @@
+package common.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于内存映射文件的 ByteArray，读取方式与 ByteArray 完全一致（高位在前），
+ * 但不需要把整个文件读入堆内存，加载大词典、模型时由操作系统按需换页，多个进程还能共享页缓存。<br>
+ * 单个文件不能超过2GB。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日10:50 下午
+ */
+@Slf4j
+public class MappedByteArray extends ByteArray {
+
+    private final MappedByteBuffer buffer;
+
+    public MappedByteArray(MappedByteBuffer buffer) {
+        super(null);
+        this.buffer = buffer;
+    }
+
+    /**
+     * 以只读方式映射文件
+     *
+     * @param path 文件路径
+     * @return 映射后的字节数组，文件不存在或映射失败时返回null
+     */
+    public static MappedByteArray map(String path) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(path, "r");
+            FileChannel channel = file.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                log.error("文件{}超过2GB，无法映射", path);
+                return null;
+            }
+            return new MappedByteArray(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            IOUtil.errorLog.error(path, "映射文件{}失败", path, e);
+            return null;
+        } finally {
+            // 映射建立后关闭文件不影响映射的有效性
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 底层的映射缓冲区
+     */
+    public MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return 文件长度
+     */
+    public int length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public int nextInt() {
+        return buffer.getInt(advance(4));
+    }
+
+    @Override
+    public long nextLong() {
+        return buffer.getLong(advance(8));
+    }
+
+    @Override
+    public char nextChar() {
+        return buffer.getChar(advance(2));
+    }
+
+    @Override
+    public short nextShort() {
+        return buffer.getShort(advance(2));
+    }
+
+    @Override
+    public float nextFloat() {
+        return buffer.getFloat(advance(4));
+    }
+
+    @Override
+    public double nextDouble() {
+        return buffer.getDouble(advance(8));
+    }
+
+    @Override
+    public byte nextByte() {
+        return buffer.get(advance(1));
+    }
+
+    @Override
+    public boolean hasMore() {
+        return offset < buffer.limit();
+    }
+
+    /**
+     * @return 当前位置，并将位置后移n个字节
+     */
+    private int advance(int n) {
+        int position = offset;
+        offset += n;
+        return position;
+    }
+}
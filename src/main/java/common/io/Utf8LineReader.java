@@ -0,0 +1,151 @@
+package common.io;
+
+import common.metrics.CountingInputStream;
+import common.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import utils.ThrottledLogger;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 按行读取UTF-8文件，不解码：每一行以 Utf8Span 的形式指向内部缓冲区，省去 LineIterator 的解码、UTF-16扩展和String分配。
+ * 用法：
+ * <pre>
+ * Utf8LineReader reader = IOUtil.readUtf8LineReader(path);
+ * Utf8Span line = new Utf8Span();
+ * while (reader.next(line)) { ... }
+ * reader.close();
+ * </pre>
+ * 行片段只在下一次调用 next 之前有效，需要保存时用 Utf8Span.copy。行尾的 \n 或 \r\n 被去掉，文件开头的BOM被跳过。
+ * 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日3:10 上午
+ */
+@Slf4j
+public class Utf8LineReader {
+
+    private static final ThrottledLogger errorLog = new ThrottledLogger(log);
+
+    private InputStream in;
+    private byte[] buffer;
+    private int start;
+    private int limit;
+    private boolean first = true;
+    private long lineNumber;
+
+    public Utf8LineReader(InputStream in) {
+        this(in, 1 << 20);
+    }
+
+    /**
+     * @param bufferSize 初始缓冲区大小，遇到更长的行时自动扩大
+     */
+    public Utf8LineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    public Utf8LineReader(String path) {
+        this(new byte[1 << 20]);
+        try {
+            InputStream is = new FileInputStream(path);
+            if (Metrics.ENABLED) is = new CountingInputStream(is, Metrics.IO_BYTES_READ);
+            in = is;
+        } catch (FileNotFoundException e) {
+            errorLog.error(path, "文件{}不存在，接下来的调用会返回false", path, e);
+        }
+    }
+
+    private Utf8LineReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 读取下一行
+     *
+     * @param line 输出，指向这一行
+     * @return 是否读到了一行，文件结束或出错时返回false并关闭文件
+     */
+    public boolean next(Utf8Span line) {
+        int scan = start;
+        while (true) {
+            for (int i = scan; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    int end = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+                    line.set(buffer, start, end - start);
+                    start = i + 1;
+                    lineNumber++;
+                    return true;
+                }
+            }
+            scan = limit;
+            int read = fill();
+            if (read < 0) {
+                if (start == limit) return false;
+                int end = buffer[limit - 1] == '\r' ? limit - 1 : limit;
+                line.set(buffer, start, end - start);
+                start = limit;
+                lineNumber++;
+                return true;
+            }
+            scan = Math.max(scan - read, start);
+        }
+    }
+
+    /**
+     * 把未读完的部分移到缓冲区开头并读入更多字节
+     *
+     * @return 已有内容向前移动的字节数，没有更多字节时返回-1
+     */
+    private int fill() {
+        if (in == null) return -1;
+        int moved = start;
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            start = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                close();
+                return -1;
+            }
+            limit += n;
+            if (first && lineNumber == 0 && limit >= 3) {
+                first = false;
+                // UTF-8 BOM：EF BB BF
+                if (buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) start = 3;
+            }
+        } catch (IOException e) {
+            errorLog.error("read", "在读取过程中发生错误:{}", e.getMessage(), e);
+            close();
+            return -1;
+        }
+        return moved;
+    }
+
+    /**
+     * @return 已读取的行数
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    public void close() {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException e) {
+            errorLog.error("close", "关闭文件失败:{}", e.getMessage(), e);
+        }
+        in = null;
+    }
+}
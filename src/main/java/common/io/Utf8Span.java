@@ -0,0 +1,166 @@
+package common.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字节数组中的一段UTF-8文本，相当于不解码的String。<br>
+ * 只是一个视图，不复制字节，可以用 set 反复指向新的位置，批处理时整个循环里只需一个实例；
+ * 需要长期保存时用 copy 或 toString。与String的区别：
+ * <ul>
+ *     <li>下标和长度都以字节计，一个汉字占3字节；</li>
+ *     <li>compareTo 按无符号字节比较，即按码点排序，与 String.compareTo 只在增补平面字符上不同。</li>
+ * </ul>
+ * 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日2:10 上午
+ */
+public class Utf8Span implements Comparable<Utf8Span> {
+
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    public Utf8Span() {
+        this(new byte[0], 0, 0);
+    }
+
+    public Utf8Span(byte[] bytes, int offset, int length) {
+        set(bytes, offset, length);
+    }
+
+    /**
+     * @return 字符串按UTF-8编码后的片段
+     */
+    public static Utf8Span of(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return new Utf8Span(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 指向新的位置
+     *
+     * @return this
+     */
+    public Utf8Span set(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * @return 底层字节数组
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return 字节数
+     */
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @param i 相对于片段开头的下标
+     * @return 第i个字节
+     */
+    public byte byteAt(int i) {
+        return bytes[offset + i];
+    }
+
+    /**
+     * @return 第[start, end)字节组成的片段，与本片段共享字节数组
+     */
+    public Utf8Span subSpan(int start, int end) {
+        return new Utf8Span(bytes, offset + start, end - start);
+    }
+
+    /**
+     * @return 第一次出现字节b的相对下标，没有时返回-1
+     */
+    public int indexOf(byte b, int from) {
+        for (int i = offset + from, end = offset + length; i < end; i++) {
+            if (bytes[i] == b) return i - offset;
+        }
+        return -1;
+    }
+
+    public boolean startsWith(Utf8Span prefix) {
+        if (prefix.length > length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix.bytes[prefix.offset + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return 字符（码点）数，按非后续字节计数，无需解码
+     */
+    public int charCount() {
+        int count = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if ((bytes[i] & 0xC0) != 0x80) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return 复制字节后的片段，不再依赖原数组
+     */
+    public Utf8Span copy() {
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, offset, copy, 0, length);
+        return new Utf8Span(copy, 0, length);
+    }
+
+    @Override
+    public int compareTo(Utf8Span o) {
+        int n = Math.min(length, o.length);
+        for (int i = 0; i < n; i++) {
+            int c = (bytes[offset + i] & 0xFF) - (o.bytes[o.offset + i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return length - o.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Utf8Span)) return false;
+        Utf8Span other = (Utf8Span) o;
+        if (length != other.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 随内容变化，片段用作HashMap的键时应先 copy
+     */
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) h = 31 * h + bytes[i];
+        return h;
+    }
+
+    /**
+     * @return 解码后的字符串
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package common.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 把读取的字节数累加到计数器的输入流
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:30 上午
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final StripedCounter counter;
+
+    public CountingInputStream(InputStream in, StripedCounter counter) {
+        super(in);
+        this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) counter.increment();
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) counter.add(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        counter.add(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,11 @@
+package common.metrics;
+
+/**
+ * 读取时才计算的指标，如缓存命中率
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:10 上午
+ */
+public interface Gauge {
+    Number value();
+}
@@ -0,0 +1,152 @@
+package common.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 库内的指标注册中心，默认关闭，启动时加 -Dohmytools.metrics=true 开启。<br>
+ * ENABLED 是 static final 常量，埋点统一写成 {@code if (Metrics.ENABLED) ...}，关闭时JIT会把整段代码消除，没有运行时开销。
+ * 指标按名称注册，snapshot 导出为有序的 Map，registerMBean 把同样的内容以JMX属性暴露。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:15 上午
+ */
+@Slf4j
+public class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("ohmytools.metrics");
+
+    public static final String MBEAN_NAME = "ohmytools:type=Metrics";
+
+    // 必须在下面的指标常量之前初始化
+    private static final ConcurrentMap<String, Object> REGISTRY = new ConcurrentHashMap<String, Object>();
+    private static final long START_MILLIS = System.currentTimeMillis();
+
+    // IOUtil、LineIterator
+    public static final StripedCounter IO_BYTES_READ = counter("io.bytes.read");
+    public static final StripedCounter IO_LINES_READ = counter("io.lines.read");
+    // DoubleArrayTrie
+    public static final StripedCounter TRIE_LOOKUPS = counter("trie.lookups");
+    public static final StripedCounter TRIE_HITS = counter("trie.hits");
+    public static final StripedCounter TRIE_MISSES = counter("trie.misses");
+    public static final LatencyHistogram TRIE_PROBE_DEPTH = histogram("trie.probe.depth");
+    // DagSegmenter
+    public static final StripedCounter SEG_CHARS = counter("seg.chars");
+    public static final LatencyHistogram SEG_LATENCY = histogram("seg.latency.ns");
+    // Config.getShared 按资源注册：resource.load.ms.名称、resource.load.failures.名称
+
+    /**
+     * 工具类，不需要生成实例
+     */
+    private Metrics() {
+    }
+
+    /**
+     * 获取或注册计数器
+     */
+    public static StripedCounter counter(String name) {
+        Object metric = REGISTRY.get(name);
+        if (metric == null) {
+            StripedCounter counter = new StripedCounter();
+            metric = REGISTRY.putIfAbsent(name, counter);
+            if (metric == null) return counter;
+        }
+        return (StripedCounter) metric;
+    }
+
+    /**
+     * 获取或注册直方图
+     */
+    public static LatencyHistogram histogram(String name) {
+        Object metric = REGISTRY.get(name);
+        if (metric == null) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            metric = REGISTRY.putIfAbsent(name, histogram);
+            if (metric == null) return histogram;
+        }
+        return (LatencyHistogram) metric;
+    }
+
+    /**
+     * 注册读数，同名的读数会被替换
+     */
+    public static void gauge(String name, Gauge gauge) {
+        REGISTRY.put(name, gauge);
+    }
+
+    public static void remove(String name) {
+        REGISTRY.remove(name);
+    }
+
+    /**
+     * 导出全部指标：
+     * <ul>
+     *     <li>计数器：名称 -&gt; 总和，名称.rate -&gt; 开始统计以来的每秒平均值；</li>
+     *     <li>直方图：名称.count / mean / p50 / p90 / p99 / max；</li>
+     *     <li>读数：名称 -&gt; 当前值。</li>
+     * </ul>
+     *
+     * @return 按名称排序的指标
+     */
+    public static SortedMap<String, Number> snapshot() {
+        SortedMap<String, Number> snapshot = new TreeMap<String, Number>();
+        double seconds = Math.max(System.currentTimeMillis() - START_MILLIS, 1) / 1000.0;
+        for (Map.Entry<String, Object> entry : REGISTRY.entrySet()) {
+            String name = entry.getKey();
+            Object metric = entry.getValue();
+            if (metric instanceof StripedCounter) {
+                long sum = ((StripedCounter) metric).sum();
+                snapshot.put(name, sum);
+                snapshot.put(name + ".rate", sum / seconds);
+            } else if (metric instanceof LatencyHistogram) {
+                LatencyHistogram histogram = (LatencyHistogram) metric;
+                snapshot.put(name + ".count", histogram.count());
+                snapshot.put(name + ".mean", histogram.mean());
+                snapshot.put(name + ".p50", histogram.percentile(0.5));
+                snapshot.put(name + ".p90", histogram.percentile(0.9));
+                snapshot.put(name + ".p99", histogram.percentile(0.99));
+                snapshot.put(name + ".max", histogram.max());
+            } else {
+                Number value = ((Gauge) metric).value();
+                if (value != null) snapshot.put(name, value);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 清零全部计数器和直方图
+     */
+    public static void reset() {
+        for (Object metric : REGISTRY.values()) {
+            if (metric instanceof StripedCounter) ((StripedCounter) metric).reset();
+            else if (metric instanceof LatencyHistogram) ((LatencyHistogram) metric).reset();
+        }
+    }
+
+    /**
+     * 以 MBEAN_NAME 注册到平台MBeanServer，重复注册会被忽略
+     *
+     * @return 是否已注册
+     */
+    public static boolean registerMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), name);
+            }
+            return true;
+        } catch (JMException e) {
+            log.error("注册MBean {}失败", MBEAN_NAME, e);
+            return false;
+        }
+    }
+}
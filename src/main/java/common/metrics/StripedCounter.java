@@ -0,0 +1,55 @@
+package common.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器：按线程把累加分散到多个计数槽，求和时再汇总，多线程高频累加时几乎没有CAS冲突。<br>
+ * 相邻槽位间隔一个缓存行（8个long），避免伪共享。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:00 上午
+ */
+public class StripedCounter {
+
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    public StripedCounter() {
+        int stripes = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 1) * 2 - 1) << 1;
+        cells = new AtomicLongArray(stripes * PADDING);
+        mask = stripes - 1;
+    }
+
+    private int cell() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return (h & mask) * PADDING;
+    }
+
+    public void add(long delta) {
+        cells.getAndAdd(cell(), delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return 当前总和，并发累加时为近似值
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+}
@@ -1,10 +1,369 @@
 package config;
 
+import common.cache.CacheStats;
+import common.cache.TinyLfuCache;
+import common.cache.Weigher;
+import common.io.IOUtil;
+import common.io.MappedByteArray;
+import common.metrics.Gauge;
+import common.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import model.hmm.HmmPosTagger;
+import seg.CoreDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
 /**
- * 库的全局配置，比如词典的路径，模型的路径
+ * 库的全局配置，比如词典的路径，模型的路径；同时也是资源的注册中心：
+ * <ul>
+ *     <li>路径的优先级：系统属性（-Dohmytools.xxx=...） &gt; classpath 下的 ohmytools.properties &gt; 默认值；</li>
+ *     <li>词典、模型在第一次使用时才加载；</li>
+ *     <li>文本资源旁边的 .bin 缓存比文本新时，直接以内存映射的方式读取缓存，否则解析文本并重新生成缓存；</li>
+ *     <li>已加载的资源按 (类型, 路径) 在进程内共享，多个分词器使用同一份词典，并发的首次访问只会加载一次。</li>
+ * </ul>
  * @Author lizhen
  * @Date 2021年10月27日8:41 上午
  */
+@Slf4j
 public class Config {
 
+    /**
+     * classpath 下的配置文件
+     */
+    public static final String PROPERTIES_FILE = "ohmytools.properties";
+    /**
+     * 核心词典路径，文本格式见 CoreDictionary
+     */
+    public static final String CORE_DICTIONARY_PATH = "ohmytools.dictionary.core";
+    /**
+     * HMM词性标注模型路径，二进制格式见 HmmPosTagger.save
+     */
+    public static final String HMM_MODEL_PATH = "ohmytools.model.hmm";
+    /**
+     * 二进制缓存文件的后缀
+     */
+    public static final String CACHE_SUFFIX = ".bin";
+    /**
+     * 资源文件校验和配置项的后缀，如 ohmytools.dictionary.core.crc32=1a2b3c4d（十六进制），预加载时校验
+     */
+    public static final String CHECKSUM_SUFFIX = ".crc32";
+    /**
+     * 缓存配置项的前缀：ohmytools.cache.[名称.]maxBytes / expireMillis / segments，带名称的优先
+     */
+    public static final String CACHE_PREFIX = "ohmytools.cache.";
+
+    /**
+     * 进程内共享的资源，键为 “类型:路径”
+     */
+    private static final ConcurrentMap<String, FutureTask<Object>> RESOURCES = new ConcurrentHashMap<String, FutureTask<Object>>();
+
+    private final Properties properties = new Properties();
+    /**
+     * 已注册的资源：配置项 -&gt; 加载方式，预加载时逐一加载
+     */
+    private final Map<String, ResourceLoader<?>> registry = new LinkedHashMap<String, ResourceLoader<?>>();
+
+    /**
+     * 资源的加载方式
+     */
+    public interface ResourceLoader<T> {
+        /**
+         * @param path 资源路径
+         * @return 资源，失败时返回null
+         */
+        T load(String path);
+    }
+
+    public static final ResourceLoader<CoreDictionary> CORE_DICTIONARY_LOADER = new ResourceLoader<CoreDictionary>() {
+        @Override
+        public CoreDictionary load(String path) {
+            return loadCoreDictionary(path);
+        }
+    };
+
+    public static final ResourceLoader<HmmPosTagger> HMM_MODEL_LOADER = new ResourceLoader<HmmPosTagger>() {
+        @Override
+        public HmmPosTagger load(String path) {
+            MappedByteArray byteArray = MappedByteArray.map(path);
+            return byteArray == null ? null : HmmPosTagger.load(byteArray);
+        }
+    };
+
+    public Config() {
+        register(CORE_DICTIONARY_PATH, CORE_DICTIONARY_LOADER);
+        register(HMM_MODEL_PATH, HMM_MODEL_LOADER);
+        properties.setProperty(CORE_DICTIONARY_PATH, "data/dictionary/CoreNatureDictionary.txt");
+        properties.setProperty(HMM_MODEL_PATH, "data/model/hmm.bin");
+        InputStream is = Config.class.getClassLoader().getResourceAsStream(PROPERTIES_FILE);
+        if (is != null) {
+            try {
+                properties.load(is);
+                is.close();
+            } catch (IOException e) {
+                log.error("读取{}失败，使用默认配置", PROPERTIES_FILE, e);
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("ohmytools.")) properties.setProperty(key, System.getProperty(key));
+        }
+    }
+
+    public String getProperty(String key) {
+        return properties.getProperty(key);
+    }
+
+    /**
+     * 修改配置，只影响之后按新路径获取的资源，已加载的资源仍然保留在共享缓存中
+     */
+    public void setProperty(String key, String value) {
+        properties.setProperty(key, value);
+    }
+
+    /**
+     * @return 全部配置项的键
+     */
+    public Set<String> keys() {
+        return new TreeSet<String>(properties.stringPropertyNames());
+    }
+
+    /**
+     * 注册资源，之后可以通过 getResource(key, loader) 获取，并参与 ToolsPackage.preload
+     *
+     * @param key    路径的配置项
+     * @param loader 加载方式
+     */
+    public synchronized void register(String key, ResourceLoader<?> loader) {
+        registry.put(key, loader);
+    }
+
+    /**
+     * @return 已注册资源的副本，按注册顺序排列
+     */
+    public synchronized Map<String, ResourceLoader<?>> registeredResources() {
+        return new LinkedHashMap<String, ResourceLoader<?>>(registry);
+    }
+
+    /**
+     * @return 核心词典，首次调用时加载，失败时返回null
+     */
+    public CoreDictionary getCoreDictionary() {
+        return getResource(CORE_DICTIONARY_PATH, CORE_DICTIONARY_LOADER);
+    }
+
+    /**
+     * @return HMM词性标注模型，首次调用时加载，失败时返回null
+     */
+    public HmmPosTagger getHmmPosTagger() {
+        return getResource(HMM_MODEL_PATH, HMM_MODEL_LOADER);
+    }
+
+    /**
+     * 按配置创建缓存，未配置时默认最大64MB、不过期、段数为CPU核数的4倍
+     *
+     * @param name    缓存名称，如 seg
+     * @param weigher 计算每一项的字节数
+     * @return 新的缓存
+     */
+    public <K, V> TinyLfuCache<K, V> newCache(String name, Weigher<? super K, ? super V> weigher) {
+        long maxBytes = getCacheProperty(name, "maxBytes", 64L * 1024 * 1024);
+        long expireMillis = getCacheProperty(name, "expireMillis", 0);
+        int segments = (int) getCacheProperty(name, "segments", Runtime.getRuntime().availableProcessors() * 4);
+        TinyLfuCache<K, V> cache = new TinyLfuCache<K, V>(maxBytes, expireMillis, segments, weigher);
+        if (Metrics.ENABLED) registerCacheMetrics(name, cache);
+        return cache;
+    }
+
+    /**
+     * 以 cache.名称.* 注册缓存的读数，同名缓存以最后创建的为准
+     */
+    private static void registerCacheMetrics(String name, final TinyLfuCache<?, ?> cache) {
+        String prefix = "cache." + name + '.';
+        Metrics.gauge(prefix + "hitRate", new Gauge() {
+            @Override
+            public Number value() {
+                return cache.stats().hitRate();
+            }
+        });
+        Metrics.gauge(prefix + "hits", new Gauge() {
+            @Override
+            public Number value() {
+                return cache.stats().getHits();
+            }
+        });
+        Metrics.gauge(prefix + "misses", new Gauge() {
+            @Override
+            public Number value() {
+                return cache.stats().getMisses();
+            }
+        });
+        Metrics.gauge(prefix + "evictions", new Gauge() {
+            @Override
+            public Number value() {
+                CacheStats stats = cache.stats();
+                return stats.getEvictions() + stats.getExpirations();
+            }
+        });
+        Metrics.gauge(prefix + "bytes", new Gauge() {
+            @Override
+            public Number value() {
+                return cache.weightedSize();
+            }
+        });
+    }
+
+    private long getCacheProperty(String name, String field, long defaultValue) {
+        String value = getProperty(CACHE_PREFIX + name + '.' + field);
+        if (value == null) value = getProperty(CACHE_PREFIX + field);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.error("缓存配置{}格式错误:{}，使用默认值{}", CACHE_PREFIX + name + '.' + field, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 按配置项的路径获取共享资源
+     *
+     * @param key    配置项
+     * @param loader 加载方式
+     * @return 资源，路径未配置或加载失败时返回null
+     */
+    public <T> T getResource(String key, ResourceLoader<T> loader) {
+        String path = getProperty(key);
+        if (path == null) {
+            log.error("未配置{}", key);
+            return null;
+        }
+        return getShared(key, path, loader);
+    }
+
+    /**
+     * 获取进程内共享的资源，同一 (loader, path) 只加载一次；加载失败不会被缓存，下次调用时重试。
+     * 指标以 loader 的类名区分
+     *
+     * @param path   资源路径
+     * @param loader 加载方式
+     * @return 资源，失败时返回null
+     */
+    public static <T> T getShared(String path, ResourceLoader<T> loader) {
+        return getShared(loader.getClass().getName(), path, loader);
+    }
+
+    /**
+     * 成功的加载耗时记入 resource.load.ms.名称，失败（返回null或抛出异常）记入 resource.load.failures.名称，
+     * 名称是配置项或 loader 的类名，数量以注册的资源为限
+     *
+     * @param name 指标名称
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T getShared(final String name, final String path, final ResourceLoader<T> loader) {
+        String cacheKey = loader.getClass().getName() + ':' + path;
+        FutureTask<Object> task = RESOURCES.get(cacheKey);
+        if (task == null) {
+            FutureTask<Object> newTask = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    long start = System.currentTimeMillis();
+                    T resource = null;
+                    try {
+                        resource = loader.load(path);
+                    } finally {
+                        long elapsed = System.currentTimeMillis() - start;
+                        if (resource != null) log.info("加载{}耗时{}ms", path, elapsed);
+                        if (Metrics.ENABLED) {
+                            if (resource != null) Metrics.histogram("resource.load.ms." + name).record(elapsed);
+                            else Metrics.counter("resource.load.failures." + name).increment();
+                        }
+                    }
+                    return resource;
+                }
+            });
+            task = RESOURCES.putIfAbsent(cacheKey, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        Object resource;
+        try {
+            resource = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("加载{}失败", path, e.getCause());
+            resource = null;
+        }
+        if (resource == null) RESOURCES.remove(cacheKey, task);
+        return (T) resource;
+    }
+
+    /**
+     * 清空共享资源，之后的访问会重新加载
+     */
+    public static void clearShared() {
+        RESOURCES.clear();
+    }
+
+    /**
+     * 加载核心词典：.bin 缓存不旧于文本时映射缓存，否则解析文本并写出缓存（写临时文件后原子替换）
+     *
+     * @param path 文本词典路径
+     * @return 词典，失败时返回null
+     */
+    public static CoreDictionary loadCoreDictionary(String path) {
+        String cachePath = path + CACHE_SUFFIX;
+        if (isCacheValid(path, cachePath)) {
+            CoreDictionary dictionary = CoreDictionary.load(MappedByteArray.map(cachePath));
+            if (dictionary != null) return dictionary;
+            log.warn("缓存{}无法读取，重新从文本加载", cachePath);
+        }
+        CoreDictionary dictionary = CoreDictionary.load(path);
+        if (dictionary == null) return null;
+        // 先写同目录下的临时文件，写完再重命名为缓存，其他进程不会映射到写了一半的缓存，中途退出也不会留下损坏的缓存
+        File cache = new File(cachePath).getAbsoluteFile();
+        File temp = null;
+        try {
+            temp = File.createTempFile(cache.getName(), ".tmp", cache.getParentFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                dictionary.save(out);
+            } finally {
+                out.close();
+            }
+            IOUtil.replaceFile(temp.getPath(), cache.getPath());
+        } catch (IOException e) {
+            // 缓存只是加速手段，写不出来（如只读目录）不影响使用
+            log.warn("写出词典缓存{}失败:{}", cachePath, e.getMessage());
+            if (temp != null) temp.delete();
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return 缓存存在，且文本不存在或不比缓存新
+     */
+    public static boolean isCacheValid(String sourcePath, String cachePath) {
+        File cache = new File(cachePath);
+        if (!cache.isFile()) return false;
+        File source = new File(sourcePath);
+        return !source.exists() || source.lastModified() <= cache.lastModified();
+    }
 }
@@ -0,0 +1,193 @@
+package config;
+
+import lombok.extern.slf4j.Slf4j;
+import model.hmm.HmmPosTagger;
+import seg.CoreDictionary;
+import seg.DagSegmenter;
+import seg.SpanBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+/**
+ * 并行预加载 Config 中注册的全部资源，每个资源依次：
+ * <ol>
+ *     <li>映射将要加载的文件，MappedByteBuffer.load 把页面读入页缓存：二进制缓存有效时只读缓存，否则读资源文件；
+ *     配置了校验和时总是读取资源文件，计算CRC32并比对；</li>
+ *     <li>通过 Config.getResource 加载，结果进入进程内的共享缓存；</li>
+ *     <li>在热点查询路径上空跑一段时间，让JIT提前编译，避免第一批请求变慢。</li>
+ * </ol>
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日11:35 下午
+ */
+@Slf4j
+public class ResourcePreloader {
+
+    /**
+     * 预热使用的文本
+     */
+    private static final String WARM_UP_TEXT = "商品和服务的价格在2026年上涨了3.5%，研究生命的起源是科学家的长期目标。iPhone12发布会于上午10点开始！";
+    private static final String[] WARM_UP_WORDS = {"商品", "和", "服务", "的", "价格", "上涨", "了"};
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 在executor上并行预加载，等待全部完成后返回
+     *
+     * @param config   配置
+     * @param executor 执行器
+     * @return 每个资源的结果，按注册顺序排列
+     */
+    public static List<ResourceTiming> preload(final Config config, Executor executor) {
+        List<FutureTask<ResourceTiming>> tasks = new ArrayList<FutureTask<ResourceTiming>>();
+        for (final Map.Entry<String, Config.ResourceLoader<?>> entry : config.registeredResources().entrySet()) {
+            FutureTask<ResourceTiming> task = new FutureTask<ResourceTiming>(new Callable<ResourceTiming>() {
+                @Override
+                public ResourceTiming call() {
+                    return preload(config, entry.getKey(), entry.getValue());
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        List<ResourceTiming> timings = new ArrayList<ResourceTiming>(tasks.size());
+        for (FutureTask<ResourceTiming> task : tasks) {
+            try {
+                timings.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("预加载失败", e.getCause());
+            }
+        }
+        for (ResourceTiming timing : timings) {
+            if (timing.isSuccess()) log.info("预加载 {}", timing);
+            else log.warn("预加载 {}", timing);
+        }
+        return timings;
+    }
+
+    /**
+     * 预加载单个资源
+     */
+    static ResourceTiming preload(Config config, String key, Config.ResourceLoader<?> loader) {
+        String path = config.getProperty(key);
+        ResourceTiming timing = new ResourceTiming(key, path);
+        if (path == null) {
+            timing.error = "未配置路径";
+            return timing;
+        }
+
+        long start = System.nanoTime();
+        String expected = config.getProperty(key + Config.CHECKSUM_SUFFIX);
+        try {
+            String cachePath = path + Config.CACHE_SUFFIX;
+            boolean cacheValid = Config.isCacheValid(path, cachePath);
+            // 缓存有效时实际加载的是缓存，文本只在需要校验或需要从文本加载时读取
+            if (new File(path).isFile()) {
+                if (expected != null || !cacheValid) {
+                    long crc = touch(path, expected != null, timing);
+                    if (expected != null && crc != Long.parseLong(expected.trim(), 16)) {
+                        timing.error = "校验和不一致，期望" + expected.trim() + "，实际" + Long.toHexString(crc);
+                    }
+                }
+            } else if (expected != null) {
+                timing.error = "文件不存在，无法校验";
+            }
+            if (timing.error == null && cacheValid) touch(cachePath, false, timing);
+        } catch (IOException e) {
+            timing.error = "读取失败:" + e.getMessage();
+        } catch (NumberFormatException e) {
+            timing.error = "校验和格式错误:" + expected;
+        }
+        timing.touchMillis = (System.nanoTime() - start) / 1000000;
+        if (timing.error != null) return timing;
+
+        start = System.nanoTime();
+        Object resource = config.getResource(key, loader);
+        timing.loadMillis = (System.nanoTime() - start) / 1000000;
+        if (resource == null) {
+            timing.error = "加载失败";
+            return timing;
+        }
+
+        start = System.nanoTime();
+        warmUp(resource);
+        timing.warmUpMillis = (System.nanoTime() - start) / 1000000;
+        return timing;
+    }
+
+    /**
+     * 映射文件并把全部页面读入内存
+     *
+     * @param checksum 是否计算CRC32
+     * @return CRC32，不计算时为0
+     */
+    private static long touch(String path, boolean checksum, ResourceTiming timing) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        CRC32 crc = checksum ? new CRC32() : null;
+        byte[] chunk = checksum ? new byte[CHUNK_SIZE] : null;
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            // 单次映射不能超过2GB，大文件分段
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                long length = Math.min(Integer.MAX_VALUE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                buffer.load();
+                while (crc != null && buffer.hasRemaining()) {
+                    int n = Math.min(chunk.length, buffer.remaining());
+                    buffer.get(chunk, 0, n);
+                    crc.update(chunk, 0, n);
+                }
+            }
+            timing.bytes += size;
+        } finally {
+            file.close();
+        }
+        return crc == null ? 0 : crc.getValue();
+    }
+
+    /**
+     * 计算文件的CRC32，用于生成 xxx.crc32 配置项
+     *
+     * @param path 文件路径
+     * @return 十六进制的CRC32
+     */
+    public static String checksum(String path) throws IOException {
+        return Long.toHexString(touch(path, true, new ResourceTiming(null, path)));
+    }
+
+    /**
+     * 在已知资源的热点路径上空跑，触发JIT编译
+     */
+    static void warmUp(Object resource) {
+        if (resource instanceof CoreDictionary) {
+            DagSegmenter segmenter = new DagSegmenter((CoreDictionary) resource);
+            SpanBuffer buffer = new SpanBuffer();
+            char[] text = WARM_UP_TEXT.toCharArray();
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                buffer.clear();
+                segmenter.segment(text, 0, text.length, buffer);
+            }
+        } else if (resource instanceof HmmPosTagger) {
+            HmmPosTagger tagger = (HmmPosTagger) resource;
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                tagger.tag(WARM_UP_WORDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package config;
+
+/**
+ * 单个资源的预加载结果
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日11:30 下午
+ */
+public class ResourceTiming {
+
+    private final String key;
+    private final String path;
+    long bytes;
+    long touchMillis;
+    long loadMillis;
+    long warmUpMillis;
+    String error;
+
+    ResourceTiming(String key, String path) {
+        this.key = key;
+        this.path = path;
+    }
+
+    /**
+     * @return 配置项
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return 预读、校验的文件字节数（含二进制缓存）
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 映射文件、预读页面和校验的耗时
+     */
+    public long getTouchMillis() {
+        return touchMillis;
+    }
+
+    /**
+     * @return 加载（或从共享缓存获取）的耗时
+     */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /**
+     * @return JIT预热的耗时
+     */
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    /**
+     * @return 失败原因，成功时为null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + path + (error == null ? "" : " 失败(" + error + ")")
+                + " 大小:" + bytes + "B 预读:" + touchMillis + "ms 加载:" + loadMillis + "ms 预热:" + warmUpMillis + "ms";
+    }
+}
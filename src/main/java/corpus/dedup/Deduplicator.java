@@ -0,0 +1,223 @@
+package corpus.dedup;
+
+import common.io.IOUtil;
+import common.io.LineIterator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 近重复文档去重：计算每篇文档的SimHash指纹，在 NearDuplicateIndex 中查找汉明距离不超过阈值的已有文档。<br>
+ * 两种模式：
+ * <ul>
+ *     <li>流式：threads 为1时在调用线程上逐篇计算，不创建线程池；</li>
+ *     <li>并行：按批读取文档，指纹在 ForkJoinPool 上并行计算（每个线程一个 SimHash），
+ *     查重和回调仍在调用线程上按输入顺序进行，因此结果与流式一致。一批计算时调用线程读取下一批。</li>
+ * </ul>
+ * 内存只与不重复的文档数有关，见 NearDuplicateIndex。dedup 方法不可并发调用；用完后调用 shutdown 释放线程。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日4:45 下午
+ */
+@Slf4j
+public class Deduplicator {
+
+    /**
+     * 去重结果回调，在调用 dedup 的线程上按输入顺序执行
+     */
+    public interface DuplicateHandler {
+        /**
+         * @param ordinal    文档序号，从0开始
+         * @param text       文档
+         * @param duplicateOf 与之近重复的较早文档的序号，-1 表示不重复
+         */
+        void onDocument(long ordinal, String text, long duplicateOf);
+    }
+
+    private final NearDuplicateIndex index;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<SimHash> hashers;
+    private long ordinal;
+
+    /**
+     * 流式去重，汉明距离不超过3视为重复
+     */
+    public Deduplicator() {
+        this(3, SimHash.DEFAULT_SHINGLE, 1, 1024);
+    }
+
+    /**
+     * @param maxDistance 汉明距离不超过它时视为重复
+     * @param shingle     特征的字符数
+     * @param threads     计算指纹的线程数，1 表示流式
+     * @param batchSize   并行时每批文档数
+     */
+    public Deduplicator(int maxDistance, final int shingle, int threads, int batchSize) {
+        this.index = new NearDuplicateIndex(maxDistance, 1 << 16);
+        this.batchSize = Math.max(batchSize, 1);
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.hashers = new ThreadLocal<SimHash>() {
+            @Override
+            protected SimHash initialValue() {
+                return new SimHash(shingle);
+            }
+        };
+    }
+
+    /**
+     * 去重，多次调用时共用同一个索引，文档序号连续
+     *
+     * @param documents 文档，null会被跳过
+     * @param handler   结果回调
+     * @return 重复的文档数
+     */
+    public long dedup(Iterable<String> documents, DuplicateHandler handler) {
+        return dedup(documents.iterator(), handler);
+    }
+
+    public long dedup(Iterator<String> documents, DuplicateHandler handler) {
+        if (pool == null) {
+            SimHash hasher = hashers.get();
+            long duplicates = 0;
+            while (documents.hasNext()) {
+                String text = documents.next();
+                if (text == null) continue;
+                if (accept(hasher.fingerprint(text), text, handler)) duplicates++;
+            }
+            return duplicates;
+        }
+        Batch current = new Batch(batchSize);
+        Batch next = new Batch(batchSize);
+        current.fill(documents);
+        if (current.size == 0) return 0;
+        long duplicates = 0;
+        ForkJoinTask<Void> task = pool.submit(new FingerprintTask(current, 0, current.size));
+        while (true) {
+            next.fill(documents);
+            task.join();
+            ForkJoinTask<Void> nextTask = next.size == 0 ? null : pool.submit(new FingerprintTask(next, 0, next.size));
+            for (int i = 0; i < current.size; i++) {
+                if (accept(current.fingerprints[i], current.texts[i], handler)) duplicates++;
+                current.texts[i] = null;
+            }
+            if (nextTask == null) break;
+            Batch swap = current;
+            current = next;
+            next = swap;
+            task = nextTask;
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return 是否重复
+     */
+    private boolean accept(long fingerprint, String text, DuplicateHandler handler) {
+        long current = ordinal++;
+        long original = index.add(fingerprint, current);
+        handler.onDocument(current, text, original);
+        return original >= 0;
+    }
+
+    /**
+     * 按行去重，把不重复的行写入 outputPath
+     *
+     * @return 重复的行数，失败时返回-1
+     */
+    public long dedup(String inputPath, String outputPath) {
+        LineIterator lines = IOUtil.readLineIterator(inputPath);
+        try {
+            final BufferedWriter writer = IOUtil.newBufferedWriter(outputPath);
+            final IOException[] error = new IOException[1];
+            long duplicates = dedup((Iterator<String>) lines, new DuplicateHandler() {
+                @Override
+                public void onDocument(long ordinal, String text, long duplicateOf) {
+                    if (duplicateOf >= 0 || error[0] != null) return;
+                    try {
+                        writer.write(text);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            writer.close();
+            if (error[0] != null) throw error[0];
+            log.info("{}去重完成，共{}行，重复{}行", inputPath, ordinal, duplicates);
+            return duplicates;
+        } catch (IOException e) {
+            log.error("去重{}到{}失败", inputPath, outputPath, e);
+            return -1;
+        } finally {
+            lines.close();
+        }
+    }
+
+    /**
+     * @return 索引，可用于查看不重复的文档数和内存占用
+     */
+    public NearDuplicateIndex index() {
+        return index;
+    }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    /**
+     * 一批文档及其指纹，跨批次复用
+     */
+    private static class Batch {
+        final String[] texts;
+        final long[] fingerprints;
+        int size;
+
+        Batch(int capacity) {
+            texts = new String[capacity];
+            fingerprints = new long[capacity];
+        }
+
+        void fill(Iterator<String> iterator) {
+            size = 0;
+            while (size < texts.length && iterator.hasNext()) {
+                String text = iterator.next();
+                if (text == null) continue;
+                texts[size++] = text;
+            }
+        }
+    }
+
+    /**
+     * 计算 batch[from, to) 的指纹，二分到不超过64篇
+     */
+    private class FingerprintTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Batch batch;
+        private final int from;
+        private final int to;
+
+        FingerprintTask(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 64) {
+                SimHash hasher = hashers.get();
+                for (int i = from; i < to; i++) batch.fingerprints[i] = hasher.fingerprint(batch.texts[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FingerprintTask(batch, from, mid), new FingerprintTask(batch, mid, to));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package corpus.dedup;
+
+import collection.primitive.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * SimHash指纹的近重复索引，查找汉明距离不超过 maxDistance 的已有指纹。<br>
+ * 把64位分成 maxDistance + 1 段，由抽屉原理，距离不超过 maxDistance 的两个指纹至少有一段完全相同。
+ * 每段一张表：键为（段号, 段值），值为该桶最后加入的文档，桶内文档用 next 数组串成链，
+ * 查询时只需与同桶的文档比较，整体接近线性。<br>
+ * 只保存不重复的文档，每篇约占 16 + 段数 * 28 字节（指纹、序号、链表和哈希表槽位），
+ * maxDistance 为3时每百万篇约130MB。非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日4:25 下午
+ */
+public class NearDuplicateIndex {
+
+    private final int maxDistance;
+    private final int bands;
+    private final int[] shifts;
+    private final long[] masks;
+
+    private long[] fingerprints;
+    private long[] ordinals;     // 文档在输入中的序号
+    private int[] next;          // next[doc * bands + band]：同桶中上一个文档 + 1，0 表示链尾
+    private final LongIntHashMap heads;
+    private int size;
+
+    public NearDuplicateIndex() {
+        this(3, 1 << 16);
+    }
+
+    /**
+     * @param maxDistance       汉明距离不超过它时视为重复，取值 0~63
+     * @param expectedDocuments 预计的不重复文档数
+     */
+    public NearDuplicateIndex(int maxDistance, int expectedDocuments) {
+        this.maxDistance = Math.max(0, Math.min(maxDistance, 63));
+        this.bands = this.maxDistance + 1;
+        this.shifts = new int[bands];
+        this.masks = new long[bands];
+        for (int band = 0, shift = 0; band < bands; band++) {
+            int width = 64 / bands + (band < 64 % bands ? 1 : 0);
+            shifts[band] = shift;
+            masks[band] = width == 64 ? -1L : (1L << width) - 1;
+            shift += width;
+        }
+        int capacity = Math.max(expectedDocuments, 16);
+        fingerprints = new long[capacity];
+        ordinals = new long[capacity];
+        next = new int[capacity * bands];
+        heads = new LongIntHashMap(capacity * bands);
+    }
+
+    /**
+     * 段号放在高32位，段值不超过32位；maxDistance为0时只有一段，用打散后的整个指纹。都不会与哈希表的空槽标记冲突
+     */
+    private long bucketKey(int band, long fingerprint) {
+        long value = (fingerprint >>> shifts[band]) & masks[band];
+        if (bands == 1) return (fingerprint * 0x9E3779B97F4A7C15L) >>> 6;
+        return ((long) band << 32) | value;
+    }
+
+    /**
+     * 查找近重复的文档
+     *
+     * @return 已有文档的序号，没有时返回-1
+     */
+    public long find(long fingerprint) {
+        for (int band = 0; band < bands; band++) {
+            for (int doc = heads.get(bucketKey(band, fingerprint)); doc != 0; doc = next[(doc - 1) * bands + band]) {
+                if (SimHash.distance(fingerprints[doc - 1], fingerprint) <= maxDistance) return ordinals[doc - 1];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找近重复的文档，没有时加入索引
+     *
+     * @param fingerprint 指纹
+     * @param ordinal     文档序号
+     * @return 已有文档的序号，-1 表示不重复、已加入
+     */
+    public long add(long fingerprint, long ordinal) {
+        long original = find(fingerprint);
+        if (original >= 0) return original;
+        if (size == fingerprints.length) {
+            int capacity = size * 2;
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            ordinals = Arrays.copyOf(ordinals, capacity);
+            next = Arrays.copyOf(next, capacity * bands);
+        }
+        int doc = size++;
+        fingerprints[doc] = fingerprint;
+        ordinals[doc] = ordinal;
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(band, fingerprint);
+            next[doc * bands + band] = heads.get(key);
+            heads.put(key, doc + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * @return 不重复的文档数
+     */
+    public int size() {
+        return size;
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @return 估算的内存占用（字节）
+     */
+    public long memoryUsage() {
+        return 16L * fingerprints.length + 4L * next.length + 12L * heads.capacity();
+    }
+}
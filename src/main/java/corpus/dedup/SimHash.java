@@ -0,0 +1,98 @@
+package corpus.dedup;
+
+import utils.CharacterUtils;
+
+/**
+ * 64位SimHash指纹。<br>
+ * 文本先经 CharacterUtils.regularize 规格化（全角转半角、大写转小写，全角字母转半角后再转小写），去掉空白和标点，
+ * 再取连续 shingle 个字符作为特征，每个特征哈希成64位后按位投票，得票为正的位置1。
+ * 相似文本的指纹只有少数几位不同，用汉明距离衡量相似程度。<br>
+ * 实例内复用投票数组和字符缓冲区，非线程安全，每个线程各用一个。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日4:10 下午
+ */
+public class SimHash {
+
+    public static final int DEFAULT_SHINGLE = 3;
+
+    private final int shingle;
+    private final int[] votes = new int[64];
+    private char[] buffer = new char[256];
+
+    public SimHash() {
+        this(DEFAULT_SHINGLE);
+    }
+
+    /**
+     * @param shingle 特征的字符数
+     */
+    public SimHash(int shingle) {
+        this.shingle = Math.max(shingle, 1);
+    }
+
+    /**
+     * 计算文本的指纹
+     */
+    public long fingerprint(CharSequence text) {
+        int length = normalize(text);
+        if (length == 0) return 0;
+        for (int i = 0; i < 64; i++) votes[i] = 0;
+        if (length <= shingle) {
+            vote(hash(buffer, 0, length));
+        } else {
+            for (int i = 0, end = length - shingle; i <= end; i++) {
+                vote(hash(buffer, i, shingle));
+            }
+        }
+        long fingerprint = 0;
+        for (int i = 0; i < 64; i++) {
+            if (votes[i] > 0) fingerprint |= 1L << i;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 规格化后写入 buffer
+     *
+     * @return 有效字符数
+     */
+    private int normalize(CharSequence text) {
+        if (buffer.length < text.length()) buffer = new char[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(CharacterUtils.regularize(text.charAt(i)));
+            if (Character.isLetterOrDigit(c)) buffer[length++] = c;
+        }
+        return length;
+    }
+
+    private void vote(long hash) {
+        for (int i = 0; i < 64; i++) {
+            votes[i] += ((hash >>> i) & 1) == 0 ? -1 : 1;
+        }
+    }
+
+    /**
+     * 字符片段的64位哈希，用 MurmurHash3 的 fmix64 打散
+     */
+    static long hash(char[] chars, int offset, int length) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h ^ chars[i]) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return 两个指纹的汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
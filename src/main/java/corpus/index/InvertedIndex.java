@@ -0,0 +1,312 @@
+package corpus.index;
+
+import collection.trie.DoubleArrayTrie;
+import common.io.MappedByteArray;
+import corpus.tag.Nature;
+import lombok.extern.slf4j.Slf4j;
+import seg.CoreDictionary;
+import seg.DagSegmenter;
+import seg.SpanBuffer;
+
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 内存映射的倒排索引，由 InvertedIndexBuilder 构建，文档id即语料的行号，可配合 LineIndex 取回原文。<br>
+ * 文件格式：
+ * <ul>
+ *     <li>头部：MAGIC、文档数、词数；词典为双数组trie树，词的下标为其在有序词表中的序号；</li>
+ *     <li>词表：每个词的文档频率、倒排表的位置，加载时读入堆内存；</li>
+ *     <li>倒排表：跳表项数，每项为(块首文档id, 块起始位置)两个int，之后是块数据，每块 BLOCK_DOCUMENTS 篇文档，
+ *     块内每篇为文档id之差、词频、各位置之差，都是变长编码。倒排表只做内存映射，查询时按需换页。</li>
+ * </ul>
+ * 多个词的AND查询按文档频率从小到大排列，以最稀有的词为主，其他词用跳表上的倍增查找（galloping）跳到目标文档所在的块，
+ * 再在块内顺序解码；短语查询在此基础上比较位置。查询方法只读映射缓冲区的绝对位置，可以多线程并发调用。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:40 下午
+ */
+@Slf4j
+public class InvertedIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int documentCount;
+    private final DoubleArrayTrie<Object> trie;
+    private final int[] documentFrequencies;
+    private final int[] offsets;
+    private final MappedByteBuffer buffer;
+    private final int dataStart;
+    private final ThreadLocal<DagSegmenter> segmenters;
+    private final int punctuation = Nature.w.ordinal();
+
+    private InvertedIndex(int documentCount, DoubleArrayTrie<Object> trie, int[] documentFrequencies, int[] offsets,
+                          MappedByteBuffer buffer, int dataStart, final CoreDictionary dictionary) {
+        this.documentCount = documentCount;
+        this.trie = trie;
+        this.documentFrequencies = documentFrequencies;
+        this.offsets = offsets;
+        this.buffer = buffer;
+        this.dataStart = dataStart;
+        this.segmenters = new ThreadLocal<DagSegmenter>() {
+            @Override
+            protected DagSegmenter initialValue() {
+                return new DagSegmenter(dictionary);
+            }
+        };
+    }
+
+    /**
+     * 以内存映射的方式打开索引
+     *
+     * @param path       索引文件
+     * @param dictionary 构建索引时使用的词典，短语查询时用它分词
+     * @return 索引，文件不存在或格式不符时返回null
+     */
+    public static InvertedIndex load(String path, CoreDictionary dictionary) {
+        MappedByteArray byteArray = MappedByteArray.map(path);
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != InvertedIndexBuilder.MAGIC) {
+            log.error("{}不是倒排索引文件", path);
+            return null;
+        }
+        int documentCount = byteArray.nextInt();
+        int termCount = byteArray.nextInt();
+        DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+        if (!trie.load(byteArray, null)) return null;
+        int[] documentFrequencies = new int[termCount];
+        int[] offsets = new int[termCount];
+        for (int i = 0; i < termCount; i++) {
+            documentFrequencies[i] = byteArray.nextInt();
+            offsets[i] = byteArray.nextInt();
+        }
+        long dataLength = byteArray.nextLong();
+        int dataStart = byteArray.getOffset();
+        if (dataStart + dataLength != byteArray.length()) {
+            log.error("倒排索引{}的长度不符，文件可能已损坏", path);
+            return null;
+        }
+        return new InvertedIndex(documentCount, trie, documentFrequencies, offsets, byteArray.buffer(), dataStart, dictionary);
+    }
+
+    /**
+     * @return 文档数
+     */
+    public int documentCount() {
+        return documentCount;
+    }
+
+    /**
+     * @return 词数
+     */
+    public int termCount() {
+        return documentFrequencies.length;
+    }
+
+    /**
+     * @return 包含该词的文档数
+     */
+    public int documentFrequency(String term) {
+        int index = trie.exactMatchSearch(term);
+        return index < 0 ? 0 : documentFrequencies[index];
+    }
+
+    /**
+     * @return 包含该词的全部文档，升序
+     */
+    public int[] documents(String term) {
+        int index = trie.exactMatchSearch(term);
+        if (index < 0) return EMPTY;
+        int[] documents = new int[documentFrequencies[index]];
+        PostingCursor cursor = new PostingCursor(index, 0);
+        for (int i = 0; cursor.next(); i++) documents[i] = cursor.document;
+        return documents;
+    }
+
+    /**
+     * @return 同时包含所有词的文档，升序
+     */
+    public int[] and(String... terms) {
+        return intersect(Arrays.asList(terms), false);
+    }
+
+    /**
+     * 短语查询：用词典对短语分词，返回这些词按顺序连续出现的文档
+     *
+     * @return 文档id，升序
+     */
+    public int[] phrase(String text) {
+        SpanBuffer spans = new SpanBuffer();
+        char[] chars = segmenters.get().segment(text, spans);
+        List<String> terms = new ArrayList<String>(spans.size());
+        for (int i = 0; i < spans.size(); i++) {
+            if (spans.natureOrdinal(i) == punctuation) continue;
+            terms.add(new String(chars, spans.offset(i), spans.length(i)));
+        }
+        return intersect(terms, true);
+    }
+
+    private int[] intersect(List<String> terms, boolean phrase) {
+        if (terms.isEmpty()) return EMPTY;
+        PostingCursor[] cursors = new PostingCursor[terms.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            int index = trie.exactMatchSearch(terms.get(i));
+            if (index < 0) return EMPTY;
+            cursors[i] = new PostingCursor(index, i);
+        }
+        // 最稀有的词在前，由它驱动
+        Arrays.sort(cursors, new Comparator<PostingCursor>() {
+            @Override
+            public int compare(PostingCursor a, PostingCursor b) {
+                return a.documentFrequency - b.documentFrequency;
+            }
+        });
+        int[] result = new int[cursors[0].documentFrequency];
+        int size = 0;
+        PostingCursor lead = cursors[0];
+        if (!lead.next()) return EMPTY;
+        int target = lead.document;
+        outer:
+        while (true) {
+            for (int i = 1; i < cursors.length; i++) {
+                if (!cursors[i].advance(target)) break outer;
+                if (cursors[i].document > target) {
+                    if (!lead.advance(cursors[i].document)) break outer;
+                    target = lead.document;
+                    continue outer;
+                }
+            }
+            if (!phrase || matchesPhrase(cursors)) result[size++] = target;
+            if (!lead.next()) break;
+            target = lead.document;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 所有游标停在同一篇文档上时，检查是否存在位置p，使第k个词出现在 p + k
+     */
+    private boolean matchesPhrase(PostingCursor[] cursors) {
+        int[][] positions = new int[cursors.length][];
+        int anchor = 0;
+        for (int i = 0; i < cursors.length; i++) {
+            positions[i] = cursors[i].positions();
+            if (positions[i].length < positions[anchor].length) anchor = i;
+        }
+        for (int p : positions[anchor]) {
+            int start = p - cursors[anchor].phraseOffset;
+            if (start < 0) continue;
+            boolean matched = true;
+            for (int i = 0; i < cursors.length && matched; i++) {
+                if (i != anchor) matched = Arrays.binarySearch(positions[i], start + cursors[i].phraseOffset) >= 0;
+            }
+            if (matched) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按顺序读取一个词的倒排表
+     */
+    private class PostingCursor {
+        final int documentFrequency;
+        final int phraseOffset;
+        private final int skipStart;   // 跳表的位置
+        private final int skipCount;
+        private final int blockStart;  // 块数据的位置
+        private int ordinal = -1;      // 当前文档在倒排表中的序号
+        private int position;          // 下一个待读字节的位置
+        int document = -1;
+        private int frequency;
+        private int positionsStart;
+
+        PostingCursor(int term, int phraseOffset) {
+            this.documentFrequency = documentFrequencies[term];
+            this.phraseOffset = phraseOffset;
+            int start = dataStart + offsets[term];
+            this.skipCount = buffer.getInt(start);
+            this.skipStart = start + 4;
+            this.blockStart = skipStart + 8 * skipCount;
+            this.position = blockStart;
+        }
+
+        private int skipDocument(int block) {
+            return buffer.getInt(skipStart + 8 * block);
+        }
+
+        private int readVarInt() {
+            int result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                result |= (b & 0x7F) << shift;
+                if (b >= 0) return result;
+            }
+        }
+
+        /**
+         * 读取下一篇文档
+         *
+         * @return 是否还有
+         */
+        boolean next() {
+            if (ordinal + 1 >= documentFrequency) return false;
+            ordinal++;
+            int delta = readVarInt();
+            document = ordinal % InvertedIndexBuilder.BLOCK_DOCUMENTS == 0
+                    ? skipDocument(ordinal / InvertedIndexBuilder.BLOCK_DOCUMENTS) : document + delta;
+            frequency = readVarInt();
+            positionsStart = position;
+            for (int i = 0; i < frequency; i++) readVarInt();
+            return true;
+        }
+
+        /**
+         * 前进到第一篇id不小于target的文档，先在跳表上倍增查找目标块
+         *
+         * @return 是否存在
+         */
+        boolean advance(int target) {
+            if (ordinal >= 0 && document >= target) return true;
+            int block = Math.max(ordinal, 0) / InvertedIndexBuilder.BLOCK_DOCUMENTS;
+            if (block + 1 < skipCount && skipDocument(block + 1) <= target) {
+                // 倍增找到上界，再二分找最后一个首文档不超过target的块
+                int low = block + 1;
+                int step = 1;
+                int high = low + step;
+                while (high < skipCount && skipDocument(high) <= target) {
+                    low = high;
+                    step <<= 1;
+                    high = low + step;
+                }
+                high = Math.min(high, skipCount);
+                while (high - low > 1) {
+                    int mid = (low + high) >>> 1;
+                    if (skipDocument(mid) <= target) low = mid;
+                    else high = mid;
+                }
+                ordinal = low * InvertedIndexBuilder.BLOCK_DOCUMENTS - 1;
+                position = blockStart + buffer.getInt(skipStart + 8 * low + 4);
+            }
+            while (next()) {
+                if (document >= target) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return 当前文档中的位置，升序
+         */
+        int[] positions() {
+            int saved = position;
+            position = positionsStart;
+            int[] positions = new int[frequency];
+            int previous = 0;
+            for (int i = 0; i < frequency; i++) positions[i] = previous += readVarInt();
+            position = saved;
+            return positions;
+        }
+    }
+}
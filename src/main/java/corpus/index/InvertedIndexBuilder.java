@@ -0,0 +1,224 @@
+package corpus.index;
+
+import collection.primitive.CharSpanIntMap;
+import collection.trie.DoubleArrayTrie;
+import corpus.tag.Nature;
+import lombok.extern.slf4j.Slf4j;
+import seg.BatchSegmenter;
+import seg.CoreDictionary;
+import seg.SegmentedDocument;
+import seg.SpanBuffer;
+import utils.ByteUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 倒排索引的构建器：用 BatchSegmenter 并行分词，每行一篇文档，文档id为行号；按输入顺序把每个词的出现写入倒排表。<br>
+ * 倒排表在内存中就以最终的压缩格式累积（见 InvertedIndex），每篇文档的词按(词id, 位置)排序后分组写入，
+ * 词用 CharSpanIntMap 直接按字符片段映射为id，不为每个词创建String。标点（词性w）不建索引，也不占位置。<br>
+ * 整个索引在内存中构建，文件不超过2GB（一次内存映射）；更大的语料可用 LineIndex.shard 分片，每片建一个索引。
+ * 非线程安全。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日11:10 下午
+ */
+@Slf4j
+public class InvertedIndexBuilder {
+
+    static final int MAGIC = 0x494E5658; // INVX
+    /**
+     * 每块的文档数，每块在跳表中有一项
+     */
+    static final int BLOCK_DOCUMENTS = 128;
+
+    private final BatchSegmenter segmenter;
+    private final CharSpanIntMap terms = new CharSpanIntMap(1 << 16);
+    private TermPostings[] postings = new TermPostings[1 << 16];
+    private long[] occurrences = new long[256];
+    private int documentCount;
+    private final int punctuation = Nature.w.ordinal();
+
+    /**
+     * 使用全部CPU核心分词
+     */
+    public InvertedIndexBuilder(CoreDictionary dictionary) {
+        this(dictionary, Runtime.getRuntime().availableProcessors());
+    }
+
+    public InvertedIndexBuilder(CoreDictionary dictionary, int threads) {
+        this.segmenter = new BatchSegmenter(dictionary, threads, 1024);
+    }
+
+    /**
+     * 一个词的倒排表：跳表（每块首个文档id、块的起始位置）和块数据，块内每篇文档为
+     * 文档id之差、词频、各位置之差，都是变长编码
+     */
+    private static class TermPostings {
+        byte[] bytes = new byte[16];
+        int size;
+        int[] skips = new int[2];
+        int skipCount;
+        int documentFrequency;
+        int lastDocument;
+
+        void add(int document, long[] occurrences, int from, int to) {
+            int delta;
+            if (documentFrequency % BLOCK_DOCUMENTS == 0) {
+                if (2 * skipCount + 2 > skips.length) skips = Arrays.copyOf(skips, skips.length * 2);
+                skips[2 * skipCount] = document;
+                skips[2 * skipCount + 1] = size;
+                skipCount++;
+                delta = 0;
+            } else {
+                delta = document - lastDocument;
+            }
+            ensure(10 * (to - from + 2));
+            size = ByteUtils.writeVarLong(bytes, size, delta);
+            size = ByteUtils.writeVarLong(bytes, size, to - from);
+            int previous = 0;
+            for (int i = from; i < to; i++) {
+                int position = (int) occurrences[i];
+                size = ByteUtils.writeVarLong(bytes, size, position - previous);
+                previous = position;
+            }
+            lastDocument = document;
+            documentFrequency++;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        /**
+         * @return 写入文件后占用的字节数
+         */
+        int encodedSize() {
+            return 4 + 8 * skipCount + size;
+        }
+    }
+
+    /**
+     * 加入文档，文档id接着已有的文档编号
+     *
+     * @param lines 每行一篇文档，null会被跳过（不占id）
+     * @return 本次加入的文档数
+     */
+    public long addAll(Iterator<String> lines) {
+        return segmenter.segment(lines, new BatchSegmenter.DocumentHandler() {
+            @Override
+            public void onDocument(SegmentedDocument document) {
+                add(document);
+            }
+        });
+    }
+
+    public long addAll(Iterable<String> lines) {
+        return addAll(lines.iterator());
+    }
+
+    private void add(SegmentedDocument document) {
+        int id = documentCount++;
+        char[] chars = document.chars();
+        SpanBuffer spans = document.spans();
+        if (occurrences.length < spans.size()) occurrences = new long[Math.max(spans.size(), occurrences.length * 2)];
+        // 高32位为词id，低32位为位置，排序后同一个词的位置连续且有序
+        int count = 0;
+        for (int i = 0; i < spans.size(); i++) {
+            if (spans.natureOrdinal(i) == punctuation) continue;
+            int term = terms.put(chars, spans.offset(i), spans.length(i));
+            occurrences[count] = ((long) term << 32) | count;
+            count++;
+        }
+        Arrays.sort(occurrences, 0, count);
+        for (int i = 0; i < count; ) {
+            int term = (int) (occurrences[i] >>> 32);
+            int j = i + 1;
+            while (j < count && (int) (occurrences[j] >>> 32) == term) j++;
+            if (term >= postings.length) postings = Arrays.copyOf(postings, Math.max(term + 1, postings.length * 2));
+            if (postings[term] == null) postings[term] = new TermPostings();
+            postings[term].add(id, occurrences, i, j);
+            i = j;
+        }
+    }
+
+    /**
+     * @return 已加入的文档数
+     */
+    public int documentCount() {
+        return documentCount;
+    }
+
+    /**
+     * 保存索引
+     *
+     * @return 是否成功
+     */
+    public boolean save(String path) {
+        long start = System.currentTimeMillis();
+        int termCount = terms.size();
+        // 词按字典序排列，trie树的下标即为在有序词表中的序号
+        Integer[] order = new Integer[termCount];
+        final String[] words = new String[termCount];
+        for (int i = 0; i < termCount; i++) {
+            order[i] = i;
+            words[i] = terms.key(i);
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return words[a].compareTo(words[b]);
+            }
+        });
+        List<String> sortedWords = new ArrayList<String>(termCount);
+        for (Integer term : order) sortedWords.add(words[term]);
+        DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+        trie.build(sortedWords, null);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(documentCount);
+            out.writeInt(termCount);
+            if (!trie.save(out)) {
+                out.close();
+                return false;
+            }
+            long offset = 0;
+            for (Integer term : order) {
+                TermPostings termPostings = postings[term];
+                if (offset > Integer.MAX_VALUE) throw new IOException("倒排表超过2GB，请分片构建");
+                out.writeInt(termPostings.documentFrequency);
+                out.writeInt((int) offset);
+                offset += termPostings.encodedSize();
+            }
+            out.writeLong(offset);
+            for (Integer term : order) {
+                TermPostings termPostings = postings[term];
+                out.writeInt(termPostings.skipCount);
+                for (int i = 0; i < 2 * termPostings.skipCount; i++) out.writeInt(termPostings.skips[i]);
+                out.write(termPostings.bytes, 0, termPostings.size);
+            }
+            out.close();
+            log.info("保存倒排索引到{}完成，{}篇文档，{}个词，倒排表{}字节，耗时{}ms", path, documentCount, termCount, offset,
+                    System.currentTimeMillis() - start);
+            return true;
+        } catch (IOException e) {
+            log.error("保存倒排索引到{}失败", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * 释放分词线程
+     */
+    public void shutdown() {
+        segmenter.shutdown();
+    }
+}
@@ -0,0 +1,170 @@
+package corpus.io;
+
+import common.io.IOUtil;
+import common.io.LineIterator;
+import corpus.tag.Nature;
+
+/**
+ * 词性标注语料读取器，每行一个句子，词语之间以空白分隔，如人民日报语料：<br>
+ * 19980101-01-001-002/m  中共中央/nt  总书记/n  、/wu  [国家/n  主席/n]nt  江/nr  泽民/nr<br>
+ * 解析时直接在字符数组上查找词性，不为每个词创建String，结果写入列式的 {@link TaggedCorpus}。<br>
+ * 读取器不是线程安全的，可以按文件为每个线程创建一个实例。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日3:45 下午
+ */
+public class CorpusReader {
+
+    /**
+     * 逐句处理语料的回调
+     */
+    public interface SentenceHandler {
+        /**
+         * @param sentence 只包含当前句子的语料，读取下一句时会被清空复用，需要保留的数据应自行复制
+         */
+        void onSentence(TaggedCorpus sentence);
+    }
+
+    private char[] buffer = new char[256];
+
+    /**
+     * 把整个语料文件读入一个列式语料
+     *
+     * @param path 语料路径
+     * @return 语料，文件不存在时返回空语料
+     */
+    public static TaggedCorpus load(String path) {
+        TaggedCorpus corpus = new TaggedCorpus(1 << 16, 1 << 14);
+        CorpusReader reader = new CorpusReader();
+        for (String line : IOUtil.readLineIterator(path)) {
+            reader.parseLine(line, corpus);
+        }
+        corpus.trimToSize();
+        return corpus;
+    }
+
+    /**
+     * 流式读取语料，内存占用只与最长的句子有关
+     *
+     * @param path    语料路径
+     * @param handler 每读到一个句子回调一次
+     * @return 句子数量
+     */
+    public int stream(String path, SentenceHandler handler) {
+        return stream(IOUtil.readLineIterator(path), handler);
+    }
+
+    /**
+     * 流式读取语料
+     *
+     * @param lines   语料的行
+     * @param handler 每读到一个句子回调一次
+     * @return 句子数量
+     */
+    public int stream(Iterable<String> lines, SentenceHandler handler) {
+        TaggedCorpus sentence = new TaggedCorpus();
+        int count = 0;
+        try {
+            for (String line : lines) {
+                sentence.clear();
+                if (parseLine(line, sentence)) {
+                    handler.onSentence(sentence);
+                    count++;
+                }
+            }
+        } finally {
+            if (lines instanceof LineIterator) ((LineIterator) lines).close();
+        }
+        return count;
+    }
+
+    /**
+     * 解析一行语料并追加到 corpus 中，作为一个句子
+     *
+     * @param line   一行语料
+     * @param corpus 输出
+     * @return 是否解析出至少一个词
+     */
+    public boolean parseLine(String line, TaggedCorpus corpus) {
+        int length = line.length();
+        if (buffer.length < length) buffer = new char[Math.max(length, buffer.length * 2)];
+        line.getChars(0, length, buffer, 0);
+        char[] buf = buffer;
+        int before = corpus.wordCount();
+
+        int i = 0;
+        while (i < length) {
+            while (i < length && isBlank(buf[i])) i++;
+            int begin = i;
+            while (i < length && !isBlank(buf[i])) i++;
+            if (begin < i) parseToken(buf, begin, i, corpus);
+        }
+        boolean parsed = corpus.wordCount() > before;
+        corpus.endSentence();
+        return parsed;
+    }
+
+    /**
+     * 解析一个 “词/词性” 单元，复合词以 [ 开头，以 ]词性（1998年格式）或 ]/词性（2014年格式）结尾
+     */
+    private static void parseToken(char[] buf, int begin, int end, TaggedCorpus corpus) {
+        if (buf[begin] == '[' && end - begin > 1 && buf[begin + 1] != '/') {
+            corpus.beginCompound();
+            begin++;
+        }
+        int slash = lastSlash(buf, begin, end);
+        int compoundTag = -1;
+        int compoundTagEnd = end;
+        if (slash > begin + 1 && buf[slash - 1] == ']') {
+            // ]/词性：跳过 ] 后的 /，在 ] 之前重新查找词与词性的分隔
+            int inner = lastSlash(buf, begin, slash - 1);
+            if (inner >= 0) {
+                compoundTag = slash + 1;
+                end = slash - 1;
+                slash = inner;
+            }
+        }
+        if (slash < 0) {
+            corpus.addWord(buf, begin, end - begin, TaggedCorpus.NO_NATURE);
+            return;
+        }
+        int tagEnd = end;
+        if (compoundTag < 0) {
+            for (int i = slash + 1; i < end; i++) {
+                if (buf[i] == ']') {
+                    tagEnd = i;
+                    compoundTag = i + 1;
+                    break;
+                }
+            }
+        }
+        corpus.addWord(buf, begin, slash - begin, natureOrdinal(buf, slash + 1, tagEnd - slash - 1));
+        if (compoundTag >= 0) {
+            corpus.endCompound(natureOrdinal(buf, compoundTag, compoundTagEnd - compoundTag));
+        }
+    }
+
+    /**
+     * @return (begin, end) 中最后一个 / 的下标，没有时返回-1
+     */
+    private static int lastSlash(char[] buf, int begin, int end) {
+        for (int i = end - 1; i > begin; i--) {
+            if (buf[i] == '/') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找词性序数，未定义的词性会被注册为自定义词性
+     */
+    private static int natureOrdinal(char[] buf, int offset, int length) {
+        if (length == 0) return TaggedCorpus.NO_NATURE;
+        int ordinal = Nature.ordinalOf(buf, offset, length);
+        if (ordinal < 0) ordinal = Nature.create(new String(buf, offset, length)).ordinal();
+        return ordinal;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '　' || c == '\r' || c == '\n';
+    }
+}
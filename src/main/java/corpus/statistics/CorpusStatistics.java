@@ -0,0 +1,407 @@
+package corpus.statistics;
+
+import collection.primitive.CharSpanIntMap;
+import collection.primitive.LongIntHashMap;
+import collection.trie.DoubleArrayTrie;
+import common.io.IOUtil;
+import corpus.io.CorpusReader;
+import corpus.io.TaggedCorpus;
+import corpus.tag.Nature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 词频、词语-词性分布、词性转移（二元）统计。<br>
+ * 词语映射为连续id（{@link CharSpanIntMap}），计数保存在按id索引的 int[] 中，
+ * 词语-词性计数保存在以 (词id &lt;&lt; 16 | 词性序数) 为键的 {@link LongIntHashMap} 中，
+ * 词性转移为 词性数 × 词性数 的稠密矩阵，句首句尾分别以 Nature.begin、Nature.end 表示。<br>
+ * 单个实例非线程安全，多线程统计时每个线程持有一个实例，最后调用 merge 合并。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日6:10 下午
+ */
+@Slf4j
+public class CorpusStatistics {
+
+    private final CharSpanIntMap words;
+    private int[] wordFrequencies;
+    private final LongIntHashMap wordNatures;
+    private int natureDimension;
+    private int[] natureFrequencies;
+    private int[] transitions;   // transitions[from * natureDimension + to]
+    private long totalFrequency;
+
+    public CorpusStatistics() {
+        this(1 << 14);
+    }
+
+    /**
+     * @param expectedWords 预计的词语数量
+     */
+    public CorpusStatistics(int expectedWords) {
+        words = new CharSpanIntMap(expectedWords);
+        wordFrequencies = new int[Math.max(expectedWords, 16)];
+        wordNatures = new LongIntHashMap(expectedWords);
+        natureDimension = 0;
+        ensureNatureDimension(Nature.size());
+    }
+
+    private static long wordNatureKey(int wordId, int nature) {
+        return ((long) wordId << 16) | (nature & 0xFFFF);
+    }
+
+    private void ensureNatureDimension(int dimension) {
+        if (dimension <= natureDimension) return;
+        int newDimension = Math.max(dimension, natureDimension + 16);
+        int[] newTransitions = new int[newDimension * newDimension];
+        for (int from = 0; from < natureDimension; from++) {
+            System.arraycopy(transitions, from * natureDimension, newTransitions, from * newDimension, natureDimension);
+        }
+        transitions = newTransitions;
+        natureFrequencies = natureFrequencies == null ? new int[newDimension] : Arrays.copyOf(natureFrequencies, newDimension);
+        natureDimension = newDimension;
+    }
+
+    private int addWord(char[] chars, int offset, int length, int count) {
+        int id = words.put(chars, offset, length);
+        if (id == wordFrequencies.length) {
+            wordFrequencies = Arrays.copyOf(wordFrequencies, wordFrequencies.length * 2);
+        }
+        wordFrequencies[id] += count;
+        totalFrequency += count;
+        return id;
+    }
+
+    /**
+     * 统计整份语料
+     *
+     * @param corpus 语料
+     */
+    public void add(TaggedCorpus corpus) {
+        for (int s = 0; s < corpus.sentenceCount(); s++) {
+            addSentence(corpus, s);
+        }
+    }
+
+    /**
+     * 统计语料中的一个句子
+     *
+     * @param corpus   语料
+     * @param sentence 句子下标
+     */
+    public void addSentence(TaggedCorpus corpus, int sentence) {
+        char[] chars = corpus.chars();
+        int previous = Nature.begin.ordinal();
+        for (int i = corpus.sentenceBegin(sentence), end = corpus.sentenceEnd(sentence); i < end; i++) {
+            int id = addWord(chars, corpus.wordOffset(i), corpus.wordLength(i), 1);
+            int nature = corpus.natureOrdinal(i);
+            if (nature < 0) continue;
+            if (nature >= natureDimension) ensureNatureDimension(nature + 1);
+            wordNatures.addTo(wordNatureKey(id, nature), 1);
+            natureFrequencies[nature]++;
+            transitions[previous * natureDimension + nature]++;
+            previous = nature;
+        }
+        transitions[previous * natureDimension + Nature.end.ordinal()]++;
+    }
+
+    /**
+     * 把另一份统计结果合并进来
+     *
+     * @param other 另一份统计结果
+     */
+    public void merge(CorpusStatistics other) {
+        int[] idMap = new int[other.words.size()];
+        char[] pool = other.words.pool();
+        for (int id = 0; id < idMap.length; id++) {
+            idMap[id] = addWord(pool, other.words.keyOffset(id), other.words.keyLength(id), other.wordFrequencies[id]);
+        }
+        for (int slot = 0; slot < other.wordNatures.capacity(); slot++) {
+            if (!other.wordNatures.isUsed(slot)) continue;
+            long key = other.wordNatures.keyAt(slot);
+            wordNatures.addTo(wordNatureKey(idMap[(int) (key >>> 16)], (int) (key & 0xFFFF)), other.wordNatures.valueAt(slot));
+        }
+        ensureNatureDimension(other.natureDimension);
+        int dimension = other.natureDimension;
+        for (int from = 0; from < dimension; from++) {
+            natureFrequencies[from] += other.natureFrequencies[from];
+            for (int to = 0; to < dimension; to++) {
+                transitions[from * natureDimension + to] += other.transitions[from * dimension + to];
+            }
+        }
+    }
+
+    /**
+     * 多线程统计多个语料文件，每个线程独立计数，最后合并
+     *
+     * @param paths   语料文件路径
+     * @param threads 线程数
+     * @return 合并后的统计结果，统计过程出错时返回null
+     */
+    public static CorpusStatistics count(final List<String> paths, int threads) {
+        final AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<CorpusStatistics>> shards = new ArrayList<Future<CorpusStatistics>>(threads);
+        for (int t = 0; t < threads; t++) {
+            shards.add(pool.submit(new Callable<CorpusStatistics>() {
+                @Override
+                public CorpusStatistics call() {
+                    final CorpusStatistics statistics = new CorpusStatistics();
+                    CorpusReader reader = new CorpusReader();
+                    CorpusReader.SentenceHandler handler = new CorpusReader.SentenceHandler() {
+                        @Override
+                        public void onSentence(TaggedCorpus sentence) {
+                            statistics.addSentence(sentence, 0);
+                        }
+                    };
+                    for (int i = next.getAndIncrement(); i < paths.size(); i = next.getAndIncrement()) {
+                        reader.stream(paths.get(i), handler);
+                    }
+                    return statistics;
+                }
+            }));
+        }
+        pool.shutdown();
+        CorpusStatistics result = null;
+        try {
+            for (Future<CorpusStatistics> shard : shards) {
+                if (result == null) result = shard.get();
+                else result.merge(shard.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            return null;
+        } catch (ExecutionException e) {
+            log.error("统计语料失败", e.getCause());
+            pool.shutdownNow();
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * @return 不同词语的数量
+     */
+    public int wordCount() {
+        return words.size();
+    }
+
+    /**
+     * @return 所有词语的总频次
+     */
+    public long totalFrequency() {
+        return totalFrequency;
+    }
+
+    /**
+     * @return 词语的id，不存在时返回-1
+     */
+    public int wordId(char[] chars, int offset, int length) {
+        return words.get(chars, offset, length);
+    }
+
+    /**
+     * @return 词语的id，不存在时返回-1
+     */
+    public int wordId(String word) {
+        return words.get(word);
+    }
+
+    public String word(int wordId) {
+        return words.key(wordId);
+    }
+
+    public int frequency(int wordId) {
+        return wordFrequencies[wordId];
+    }
+
+    /**
+     * @return 词语的频次，不存在时返回0
+     */
+    public int frequency(String word) {
+        int id = words.get(word);
+        return id < 0 ? 0 : wordFrequencies[id];
+    }
+
+    /**
+     * @return 词语以某个词性出现的次数
+     */
+    public int frequency(int wordId, int nature) {
+        return wordNatures.get(wordNatureKey(wordId, nature));
+    }
+
+    /**
+     * @return 词性矩阵的维度，不小于统计时已注册的词性数量
+     */
+    public int natureDimension() {
+        return natureDimension;
+    }
+
+    /**
+     * @return 词性出现的次数
+     */
+    public int natureFrequency(int nature) {
+        return nature < natureDimension ? natureFrequencies[nature] : 0;
+    }
+
+    /**
+     * @return 词性from之后紧跟词性to的次数
+     */
+    public int transitionFrequency(int from, int to) {
+        if (from >= natureDimension || to >= natureDimension) return 0;
+        return transitions[from * natureDimension + to];
+    }
+
+    /**
+     * 每个词语的词性分布，压缩为按词id分段的数组，同一词语的词性按频次从高到低排列
+     */
+    public static class NatureDistribution {
+        /**
+         * 第id个词的词性位于 [offsets[id], offsets[id + 1])
+         */
+        public final int[] offsets;
+        public final short[] natures;
+        public final int[] frequencies;
+
+        NatureDistribution(int[] offsets, short[] natures, int[] frequencies) {
+            this.offsets = offsets;
+            this.natures = natures;
+            this.frequencies = frequencies;
+        }
+    }
+
+    /**
+     * 构建词性分布
+     *
+     * @return 按词id分段的词性分布
+     */
+    public NatureDistribution natureDistribution() {
+        int wordCount = words.size();
+        int[] offsets = new int[wordCount + 1];
+        for (int slot = 0; slot < wordNatures.capacity(); slot++) {
+            if (wordNatures.isUsed(slot)) offsets[(int) (wordNatures.keyAt(slot) >>> 16) + 1]++;
+        }
+        for (int id = 0; id < wordCount; id++) offsets[id + 1] += offsets[id];
+        short[] natures = new short[offsets[wordCount]];
+        int[] frequencies = new int[offsets[wordCount]];
+        int[] fill = Arrays.copyOf(offsets, wordCount);
+        for (int slot = 0; slot < wordNatures.capacity(); slot++) {
+            if (!wordNatures.isUsed(slot)) continue;
+            long key = wordNatures.keyAt(slot);
+            int position = fill[(int) (key >>> 16)]++;
+            natures[position] = (short) (key & 0xFFFF);
+            frequencies[position] = wordNatures.valueAt(slot);
+        }
+        // 每个词的词性很少，插入排序即可
+        for (int id = 0; id < wordCount; id++) {
+            for (int i = offsets[id] + 1; i < offsets[id + 1]; i++) {
+                short nature = natures[i];
+                int frequency = frequencies[i];
+                int j = i - 1;
+                while (j >= offsets[id] && frequencies[j] < frequency) {
+                    natures[j + 1] = natures[j];
+                    frequencies[j + 1] = frequencies[j];
+                    j--;
+                }
+                natures[j + 1] = nature;
+                frequencies[j + 1] = frequency;
+            }
+        }
+        return new NatureDistribution(offsets, natures, frequencies);
+    }
+
+    /**
+     * @return 按字典序排列的 词语 → 频次
+     */
+    public TreeMap<String, Integer> toFrequencyMap() {
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        for (int id = 0; id < words.size(); id++) {
+            map.put(words.key(id), wordFrequencies[id]);
+        }
+        return map;
+    }
+
+    /**
+     * 以词频为值构建双数组trie树
+     *
+     * @return trie树
+     */
+    public DoubleArrayTrie<Integer> buildTrie() {
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(toFrequencyMap());
+        return trie;
+    }
+
+    /**
+     * 保存词频，每行一个 “词语 频次”
+     *
+     * @param path 保存路径
+     * @return 是否成功
+     */
+    public boolean saveWordFrequency(String path) {
+        Map<Object, Object> map = new TreeMap<Object, Object>();
+        for (int id = 0; id < words.size(); id++) {
+            map.put(words.key(id), wordFrequencies[id]);
+        }
+        return IOUtil.saveMapToTxt(map, path, " ");
+    }
+
+    /**
+     * 保存为词典，每行为 “词语 词性1 频次1 词性2 频次2 ...”，词性按频次从高到低排列，词语按字典序排列
+     *
+     * @param path 保存路径
+     * @return 是否成功
+     */
+    public boolean saveDictionary(String path) {
+        NatureDistribution distribution = natureDistribution();
+        Integer[] order = new Integer[words.size()];
+        String[] keys = new String[words.size()];
+        for (int id = 0; id < order.length; id++) {
+            order[id] = id;
+            keys[id] = words.key(id);
+        }
+        final String[] sortKeys = keys;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return sortKeys[o1].compareTo(sortKeys[o2]);
+            }
+        });
+        try {
+            BufferedWriter bw = IOUtil.newBufferedWriter(path);
+            StringBuilder sb = new StringBuilder();
+            for (Integer id : order) {
+                int begin = distribution.offsets[id];
+                int end = distribution.offsets[id + 1];
+                if (begin == end) continue;
+                sb.setLength(0);
+                sb.append(keys[id]);
+                for (int i = begin; i < end; i++) {
+                    sb.append(' ').append(Nature.fromOrdinal(distribution.natures[i])).append(' ').append(distribution.frequencies[i]);
+                }
+                sb.append('\n');
+                bw.write(sb.toString());
+            }
+            bw.close();
+        } catch (IOException e) {
+            log.error("保存词典到{}失败", path, e);
+            return false;
+        }
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package corpus.tag;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -7,775 +9,1028 @@ import java.util.concurrent.ConcurrentHashMap;
  * @Date 2021年11月02日9:31 上午
  */
 public class Nature {
+    // 注册表必须声明在所有词性常量之前，保证静态初始化时已经可用
+
+    /**
+     * 保护注册过程的锁，读取不需要加锁
+     */
+    private static final Object LOCK = new Object();
+    private static final ConcurrentHashMap<String, Nature> idMap = new ConcurrentHashMap<String, Nature>();
+    /**
+     * 按序数存放的词性，容量按两倍扩展，只在持有LOCK时替换
+     */
+    private static volatile Nature[] values = new Nature[256];
+    /**
+     * 已注册的词性数量，写入values之后才更新
+     */
+    private static volatile int size;
+
     /**
      * 区别语素
      */
-    public static final Nature bg = new Nature("bg");
+    public static final Nature bg = register("bg");
 
     /**
      * 数语素
      */
-    public static final Nature mg = new Nature("mg");
+    public static final Nature mg = register("mg");
 
     /**
      * 名词性惯用语
      */
-    public static final Nature nl = new Nature("nl");
+    public static final Nature nl = register("nl");
 
     /**
      * 字母专名
      */
-    public static final Nature nx = new Nature("nx");
+    public static final Nature nx = register("nx");
 
     /**
      * 量词语素
      */
-    public static final Nature qg = new Nature("qg");
+    public static final Nature qg = register("qg");
 
     /**
      * 助词
      */
-    public static final Nature ud = new Nature("ud");
+    public static final Nature ud = register("ud");
 
     /**
      * 助词
      */
-    public static final Nature uj = new Nature("uj");
+    public static final Nature uj = register("uj");
 
     /**
      * 着
      */
-    public static final Nature uz = new Nature("uz");
+    public static final Nature uz = register("uz");
 
     /**
      * 过
      */
-    public static final Nature ug = new Nature("ug");
+    public static final Nature ug = register("ug");
 
     /**
      * 连词
      */
-    public static final Nature ul = new Nature("ul");
+    public static final Nature ul = register("ul");
 
     /**
      * 连词
      */
-    public static final Nature uv = new Nature("uv");
+    public static final Nature uv = register("uv");
 
     /**
      * 语气语素
      */
-    public static final Nature yg = new Nature("yg");
+    public static final Nature yg = register("yg");
 
     /**
      * 状态词
      */
-    public static final Nature zg = new Nature("zg");
+    public static final Nature zg = register("zg");
 
     // 以上标签来自ICT，以下标签来自北大
 
     /**
      * 名词
      */
-    public static final Nature n = new Nature("n");
+    public static final Nature n = register("n");
 
     /**
      * 人名
      */
-    public static final Nature nr = new Nature("nr");
+    public static final Nature nr = register("nr");
 
     /**
      * 日语人名
      */
-    public static final Nature nrj = new Nature("nrj");
+    public static final Nature nrj = register("nrj");
 
     /**
      * 音译人名
      */
-    public static final Nature nrf = new Nature("nrf");
+    public static final Nature nrf = register("nrf");
 
     /**
      * 复姓
      */
-    public static final Nature nr1 = new Nature("nr1");
+    public static final Nature nr1 = register("nr1");
 
     /**
      * 蒙古姓名
      */
-    public static final Nature nr2 = new Nature("nr2");
+    public static final Nature nr2 = register("nr2");
 
     /**
      * 地名
      */
-    public static final Nature ns = new Nature("ns");
+    public static final Nature ns = register("ns");
 
     /**
      * 音译地名
      */
-    public static final Nature nsf = new Nature("nsf");
+    public static final Nature nsf = register("nsf");
 
     /**
      * 机构团体名
      */
-    public static final Nature nt = new Nature("nt");
+    public static final Nature nt = register("nt");
 
     /**
      * 公司名
      */
-    public static final Nature ntc = new Nature("ntc");
+    public static final Nature ntc = register("ntc");
 
     /**
      * 工厂
      */
-    public static final Nature ntcf = new Nature("ntcf");
+    public static final Nature ntcf = register("ntcf");
 
     /**
      * 银行
      */
-    public static final Nature ntcb = new Nature("ntcb");
+    public static final Nature ntcb = register("ntcb");
 
     /**
      * 酒店宾馆
      */
-    public static final Nature ntch = new Nature("ntch");
+    public static final Nature ntch = register("ntch");
 
     /**
      * 政府机构
      */
-    public static final Nature nto = new Nature("nto");
+    public static final Nature nto = register("nto");
 
     /**
      * 大学
      */
-    public static final Nature ntu = new Nature("ntu");
+    public static final Nature ntu = register("ntu");
 
     /**
      * 中小学
      */
-    public static final Nature nts = new Nature("nts");
+    public static final Nature nts = register("nts");
 
     /**
      * 医院
      */
-    public static final Nature nth = new Nature("nth");
+    public static final Nature nth = register("nth");
 
     /**
      * 医药疾病等健康相关名词
      */
-    public static final Nature nh = new Nature("nh");
+    public static final Nature nh = register("nh");
 
     /**
      * 药品
      */
-    public static final Nature nhm = new Nature("nhm");
+    public static final Nature nhm = register("nhm");
 
     /**
      * 疾病
      */
-    public static final Nature nhd = new Nature("nhd");
+    public static final Nature nhd = register("nhd");
 
     /**
      * 工作相关名词
      */
-    public static final Nature nn = new Nature("nn");
+    public static final Nature nn = register("nn");
 
     /**
      * 职务职称
      */
-    public static final Nature nnt = new Nature("nnt");
+    public static final Nature nnt = register("nnt");
 
     /**
      * 职业
      */
-    public static final Nature nnd = new Nature("nnd");
+    public static final Nature nnd = register("nnd");
 
     /**
      * 名词性语素
      */
-    public static final Nature ng = new Nature("ng");
+    public static final Nature ng = register("ng");
 
     /**
      * 食品，比如“薯片”
      */
-    public static final Nature nf = new Nature("nf");
+    public static final Nature nf = register("nf");
 
     /**
      * 机构相关（不是独立机构名）
      */
-    public static final Nature ni = new Nature("ni");
+    public static final Nature ni = register("ni");
 
     /**
      * 教育相关机构
      */
-    public static final Nature nit = new Nature("nit");
+    public static final Nature nit = register("nit");
 
     /**
      * 下属机构
      */
-    public static final Nature nic = new Nature("nic");
+    public static final Nature nic = register("nic");
 
     /**
      * 机构后缀
      */
-    public static final Nature nis = new Nature("nis");
+    public static final Nature nis = register("nis");
 
     /**
      * 物品名
      */
-    public static final Nature nm = new Nature("nm");
+    public static final Nature nm = register("nm");
 
     /**
      * 化学品名
      */
-    public static final Nature nmc = new Nature("nmc");
+    public static final Nature nmc = register("nmc");
 
     /**
      * 生物名
      */
-    public static final Nature nb = new Nature("nb");
+    public static final Nature nb = register("nb");
 
     /**
      * 动物名
      */
-    public static final Nature nba = new Nature("nba");
+    public static final Nature nba = register("nba");
 
     /**
      * 动物纲目
      */
-    public static final Nature nbc = new Nature("nbc");
+    public static final Nature nbc = register("nbc");
 
     /**
      * 植物名
      */
-    public static final Nature nbp = new Nature("nbp");
+    public static final Nature nbp = register("nbp");
 
     /**
      * 其他专名
      */
-    public static final Nature nz = new Nature("nz");
+    public static final Nature nz = register("nz");
 
     /**
      * 学术词汇
      */
-    public static final Nature g = new Nature("g");
+    public static final Nature g = register("g");
 
     /**
      * 数学相关词汇
      */
-    public static final Nature gm = new Nature("gm");
+    public static final Nature gm = register("gm");
 
     /**
      * 物理相关词汇
      */
-    public static final Nature gp = new Nature("gp");
+    public static final Nature gp = register("gp");
 
     /**
      * 化学相关词汇
      */
-    public static final Nature gc = new Nature("gc");
+    public static final Nature gc = register("gc");
 
     /**
      * 生物相关词汇
      */
-    public static final Nature gb = new Nature("gb");
+    public static final Nature gb = register("gb");
 
     /**
      * 生物类别
      */
-    public static final Nature gbc = new Nature("gbc");
+    public static final Nature gbc = register("gbc");
 
     /**
      * 地理地质相关词汇
      */
-    public static final Nature gg = new Nature("gg");
+    public static final Nature gg = register("gg");
 
     /**
      * 计算机相关词汇
      */
-    public static final Nature gi = new Nature("gi");
+    public static final Nature gi = register("gi");
 
     /**
      * 简称略语
      */
-    public static final Nature j = new Nature("j");
+    public static final Nature j = register("j");
 
     /**
      * 成语
      */
-    public static final Nature i = new Nature("i");
+    public static final Nature i = register("i");
 
     /**
      * 习用语
      */
-    public static final Nature l = new Nature("l");
+    public static final Nature l = register("l");
 
     /**
      * 时间词
      */
-    public static final Nature t = new Nature("t");
+    public static final Nature t = register("t");
 
     /**
      * 时间词性语素
      */
-    public static final Nature tg = new Nature("tg");
+    public static final Nature tg = register("tg");
 
     /**
      * 处所词
      */
-    public static final Nature s = new Nature("s");
+    public static final Nature s = register("s");
 
     /**
      * 方位词
      */
-    public static final Nature f = new Nature("f");
+    public static final Nature f = register("f");
 
     /**
      * 动词
      */
-    public static final Nature v = new Nature("v");
+    public static final Nature v = register("v");
 
     /**
      * 副动词
      */
-    public static final Nature vd = new Nature("vd");
+    public static final Nature vd = register("vd");
 
     /**
      * 名动词
      */
-    public static final Nature vn = new Nature("vn");
+    public static final Nature vn = register("vn");
 
     /**
      * 动词“是”
      */
-    public static final Nature vshi = new Nature("vshi");
+    public static final Nature vshi = register("vshi");
 
     /**
      * 动词“有”
      */
-    public static final Nature vyou = new Nature("vyou");
+    public static final Nature vyou = register("vyou");
 
     /**
      * 趋向动词
      */
-    public static final Nature vf = new Nature("vf");
+    public static final Nature vf = register("vf");
 
     /**
      * 形式动词
      */
-    public static final Nature vx = new Nature("vx");
+    public static final Nature vx = register("vx");
 
     /**
      * 不及物动词（内动词）
      */
-    public static final Nature vi = new Nature("vi");
+    public static final Nature vi = register("vi");
 
     /**
      * 动词性惯用语
      */
-    public static final Nature vl = new Nature("vl");
+    public static final Nature vl = register("vl");
 
     /**
      * 动词性语素
      */
-    public static final Nature vg = new Nature("vg");
+    public static final Nature vg = register("vg");
 
     /**
      * 形容词
      */
-    public static final Nature a = new Nature("a");
+    public static final Nature a = register("a");
 
     /**
      * 副形词
      */
-    public static final Nature ad = new Nature("ad");
+    public static final Nature ad = register("ad");
 
     /**
      * 名形词
      */
-    public static final Nature an = new Nature("an");
+    public static final Nature an = register("an");
 
     /**
      * 形容词性语素
      */
-    public static final Nature ag = new Nature("ag");
+    public static final Nature ag = register("ag");
 
     /**
      * 形容词性惯用语
      */
-    public static final Nature al = new Nature("al");
+    public static final Nature al = register("al");
 
     /**
      * 区别词
      */
-    public static final Nature b = new Nature("b");
+    public static final Nature b = register("b");
 
     /**
      * 区别词性惯用语
      */
-    public static final Nature bl = new Nature("bl");
+    public static final Nature bl = register("bl");
 
     /**
      * 状态词
      */
-    public static final Nature z = new Nature("z");
+    public static final Nature z = register("z");
 
     /**
      * 代词
      */
-    public static final Nature r = new Nature("r");
+    public static final Nature r = register("r");
 
     /**
      * 人称代词
      */
-    public static final Nature rr = new Nature("rr");
+    public static final Nature rr = register("rr");
 
     /**
      * 指示代词
      */
-    public static final Nature rz = new Nature("rz");
+    public static final Nature rz = register("rz");
 
     /**
      * 时间指示代词
      */
-    public static final Nature rzt = new Nature("rzt");
+    public static final Nature rzt = register("rzt");
 
     /**
      * 处所指示代词
      */
-    public static final Nature rzs = new Nature("rzs");
+    public static final Nature rzs = register("rzs");
 
     /**
      * 谓词性指示代词
      */
-    public static final Nature rzv = new Nature("rzv");
+    public static final Nature rzv = register("rzv");
 
     /**
      * 疑问代词
      */
-    public static final Nature ry = new Nature("ry");
+    public static final Nature ry = register("ry");
 
     /**
      * 时间疑问代词
      */
-    public static final Nature ryt = new Nature("ryt");
+    public static final Nature ryt = register("ryt");
 
     /**
      * 处所疑问代词
      */
-    public static final Nature rys = new Nature("rys");
+    public static final Nature rys = register("rys");
 
     /**
      * 谓词性疑问代词
      */
-    public static final Nature ryv = new Nature("ryv");
+    public static final Nature ryv = register("ryv");
 
     /**
      * 代词性语素
      */
-    public static final Nature rg = new Nature("rg");
+    public static final Nature rg = register("rg");
 
     /**
      * 古汉语代词性语素
      */
-    public static final Nature Rg = new Nature("Rg");
+    public static final Nature Rg = register("Rg");
 
     /**
      * 数词
      */
-    public static final Nature m = new Nature("m");
+    public static final Nature m = register("m");
 
     /**
      * 数量词
      */
-    public static final Nature mq = new Nature("mq");
+    public static final Nature mq = register("mq");
 
     /**
      * 甲乙丙丁之类的数词
      */
-    public static final Nature Mg = new Nature("Mg");
+    public static final Nature Mg = register("Mg");
 
     /**
      * 量词
      */
-    public static final Nature q = new Nature("q");
+    public static final Nature q = register("q");
 
     /**
      * 动量词
      */
-    public static final Nature qv = new Nature("qv");
+    public static final Nature qv = register("qv");
 
     /**
      * 时量词
      */
-    public static final Nature qt = new Nature("qt");
+    public static final Nature qt = register("qt");
 
     /**
      * 副词
      */
-    public static final Nature d = new Nature("d");
+    public static final Nature d = register("d");
 
     /**
      * 辄,俱,复之类的副词
      */
-    public static final Nature dg = new Nature("dg");
+    public static final Nature dg = register("dg");
 
     /**
      * 连语
      */
-    public static final Nature dl = new Nature("dl");
+    public static final Nature dl = register("dl");
 
     /**
      * 介词
      */
-    public static final Nature p = new Nature("p");
+    public static final Nature p = register("p");
 
     /**
      * 介词“把”
      */
-    public static final Nature pba = new Nature("pba");
+    public static final Nature pba = register("pba");
 
     /**
      * 介词“被”
      */
-    public static final Nature pbei = new Nature("pbei");
+    public static final Nature pbei = register("pbei");
 
     /**
      * 连词
      */
-    public static final Nature c = new Nature("c");
+    public static final Nature c = register("c");
 
     /**
      * 并列连词
      */
-    public static final Nature cc = new Nature("cc");
+    public static final Nature cc = register("cc");
 
     /**
      * 助词
      */
-    public static final Nature u = new Nature("u");
+    public static final Nature u = register("u");
 
     /**
      * 着
      */
-    public static final Nature uzhe = new Nature("uzhe");
+    public static final Nature uzhe = register("uzhe");
 
     /**
      * 了 喽
      */
-    public static final Nature ule = new Nature("ule");
+    public static final Nature ule = register("ule");
 
     /**
      * 过
      */
-    public static final Nature uguo = new Nature("uguo");
+    public static final Nature uguo = register("uguo");
 
     /**
      * 的 底
      */
-    public static final Nature ude1 = new Nature("ude1");
+    public static final Nature ude1 = register("ude1");
 
     /**
      * 地
      */
-    public static final Nature ude2 = new Nature("ude2");
+    public static final Nature ude2 = register("ude2");
 
     /**
      * 得
      */
-    public static final Nature ude3 = new Nature("ude3");
+    public static final Nature ude3 = register("ude3");
 
     /**
      * 所
      */
-    public static final Nature usuo = new Nature("usuo");
+    public static final Nature usuo = register("usuo");
 
     /**
      * 等 等等 云云
      */
-    public static final Nature udeng = new Nature("udeng");
+    public static final Nature udeng = register("udeng");
 
     /**
      * 一样 一般 似的 般
      */
-    public static final Nature uyy = new Nature("uyy");
+    public static final Nature uyy = register("uyy");
 
     /**
      * 的话
      */
-    public static final Nature udh = new Nature("udh");
+    public static final Nature udh = register("udh");
 
     /**
      * 来讲 来说 而言 说来
      */
-    public static final Nature uls = new Nature("uls");
+    public static final Nature uls = register("uls");
 
     /**
      * 之
      */
-    public static final Nature uzhi = new Nature("uzhi");
+    public static final Nature uzhi = register("uzhi");
 
     /**
      * 连 （“连小学生都会”）
      */
-    public static final Nature ulian = new Nature("ulian");
+    public static final Nature ulian = register("ulian");
 
     /**
      * 叹词
      */
-    public static final Nature e = new Nature("e");
+    public static final Nature e = register("e");
 
     /**
      * 语气词(delete yg)
      */
-    public static final Nature y = new Nature("y");
+    public static final Nature y = register("y");
 
     /**
      * 拟声词
      */
-    public static final Nature o = new Nature("o");
+    public static final Nature o = register("o");
 
     /**
      * 前缀
      */
-    public static final Nature h = new Nature("h");
+    public static final Nature h = register("h");
 
     /**
      * 后缀
      */
-    public static final Nature k = new Nature("k");
+    public static final Nature k = register("k");
 
     /**
      * 字符串
      */
-    public static final Nature x = new Nature("x");
+    public static final Nature x = register("x");
 
     /**
      * 非语素字
      */
-    public static final Nature xx = new Nature("xx");
+    public static final Nature xx = register("xx");
 
     /**
      * 网址URL
      */
-    public static final Nature xu = new Nature("xu");
+    public static final Nature xu = register("xu");
 
     /**
      * 标点符号
      */
-    public static final Nature w = new Nature("w");
+    public static final Nature w = register("w");
 
     /**
      * 左括号，全角：（ 〔  ［  ｛  《 【  〖 〈   半角：( [ { <
      */
-    public static final Nature wkz = new Nature("wkz");
+    public static final Nature wkz = register("wkz");
 
     /**
      * 右括号，全角：） 〕  ］ ｝ 》  】 〗 〉 半角： ) ] { >
      */
-    public static final Nature wky = new Nature("wky");
+    public static final Nature wky = register("wky");
 
     /**
      * 左引号，全角：“ ‘ 『
      */
-    public static final Nature wyz = new Nature("wyz");
+    public static final Nature wyz = register("wyz");
 
     /**
      * 右引号，全角：” ’ 』
      */
-    public static final Nature wyy = new Nature("wyy");
+    public static final Nature wyy = register("wyy");
 
     /**
      * 句号，全角：。
      */
-    public static final Nature wj = new Nature("wj");
+    public static final Nature wj = register("wj");
 
     /**
      * 问号，全角：？ 半角：?
      */
-    public static final Nature ww = new Nature("ww");
+    public static final Nature ww = register("ww");
 
     /**
      * 叹号，全角：！ 半角：!
      */
-    public static final Nature wt = new Nature("wt");
+    public static final Nature wt = register("wt");
 
     /**
      * 逗号，全角：， 半角：,
      */
-    public static final Nature wd = new Nature("wd");
+    public static final Nature wd = register("wd");
 
     /**
      * 分号，全角：； 半角： ;
      */
-    public static final Nature wf = new Nature("wf");
+    public static final Nature wf = register("wf");
 
     /**
      * 顿号，全角：、
      */
-    public static final Nature wn = new Nature("wn");
+    public static final Nature wn = register("wn");
 
     /**
      * 冒号，全角：： 半角： :
      */
-    public static final Nature wm = new Nature("wm");
+    public static final Nature wm = register("wm");
 
     /**
      * 省略号，全角：……  …
      */
-    public static final Nature ws = new Nature("ws");
+    public static final Nature ws = register("ws");
 
     /**
      * 破折号，全角：——   －－   ——－   半角：---  ----
      */
-    public static final Nature wp = new Nature("wp");
+    public static final Nature wp = register("wp");
 
     /**
      * 百分号千分号，全角：％ ‰   半角：%
      */
-    public static final Nature wb = new Nature("wb");
+    public static final Nature wb = register("wb");
 
     /**
      * 单位符号，全角：￥ ＄ ￡  °  ℃  半角：$
      */
-    public static final Nature wh = new Nature("wh");
+    public static final Nature wh = register("wh");
 
     /**
      * 仅用于终##终，不会出现在分词结果中
      */
-    public static final Nature end = new Nature("end");
+    public static final Nature end = register("end");
 
     /**
      * 仅用于始##始，不会出现在分词结果中
      */
-    public static final Nature begin = new Nature("begin");
+    public static final Nature begin = register("begin");
 
+    // 以上为内置词性，类加载时为它们构建最小完美哈希，按字符片段查找时不需要创建String
 
+    /**
+     * 内置词性的数量，序数小于该值的都是内置词性
+     */
+    private static final int BUILT_IN_COUNT;
+    /**
+     * 一级哈希的桶数
+     */
+    private static final int BUCKET_COUNT;
+    /**
+     * 每个桶的二级哈希种子
+     */
+    private static final int[] bucketSeeds;
+    /**
+     * 按二级哈希槽位存放的内置词性，长度恰好等于内置词性数量
+     */
+    private static final Nature[] builtInTable;
+    /**
+     * 自定义词性的开放寻址表（线性探测），长度为2的幂，装载因子不超过0.5，只在持有LOCK时插入或整体替换
+     */
+    private static volatile Nature[] customTable;
+    private static int customCount;
 
-    private static ConcurrentHashMap<String, Integer> idMap;
-    private static Nature[] values;
-    private int ordinal;  // 序数，表示该词性的序号
-    private final String name;
+    static
+    {
+        BUILT_IN_COUNT = size;
+        BUCKET_COUNT = Math.max(1, BUILT_IN_COUNT / 2);
+        bucketSeeds = new int[BUCKET_COUNT];
+        builtInTable = new Nature[BUILT_IN_COUNT];
+        buildPerfectHash();
+        customTable = new Nature[64];
+    }
 
+    /**
+     * 哈希冲突-位移法(hash and displace)构建最小完美哈希：先把词性按一级哈希分桶，
+     * 再从大桶到小桶依次为每个桶寻找一个种子，使桶内所有词性的二级哈希落在互不相同的空槽位上
+     */
+    private static void buildPerfectHash()
+    {
+        int[][] buckets = new int[BUCKET_COUNT][];
+        int[] bucketSizes = new int[BUCKET_COUNT];
+        for (int i = 0; i < BUILT_IN_COUNT; i++)
+        {
+            int b = bucketOf(values[i].name);
+            if (buckets[b] == null) buckets[b] = new int[4];
+            else if (bucketSizes[b] == buckets[b].length) buckets[b] = Arrays.copyOf(buckets[b], bucketSizes[b] * 2);
+            buckets[b][bucketSizes[b]++] = i;
+        }
+        Integer[] order = new Integer[BUCKET_COUNT];
+        for (int b = 0; b < BUCKET_COUNT; b++) order[b] = b;
+        final int[] sizes = bucketSizes;
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer o1, Integer o2)
+            {
+                return sizes[o2] - sizes[o1];
+            }
+        });
+
+        int[] slots = new int[8];
+        for (Integer b : order)
+        {
+            int bucketSize = bucketSizes[b];
+            if (bucketSize == 0) break;
+            if (slots.length < bucketSize) slots = new int[bucketSize];
+            for (int seed = 1; ; seed++)
+            {
+                if (seed == Integer.MAX_VALUE)
+                    throw new IllegalStateException("无法为内置词性构建完美哈希");
+                boolean ok = true;
+                for (int k = 0; k < bucketSize && ok; k++)
+                {
+                    int slot = slotOf(values[buckets[b][k]].name, seed);
+                    if (builtInTable[slot] != null) ok = false;
+                    for (int j = 0; j < k && ok; j++)
+                        if (slots[j] == slot) ok = false;
+                    slots[k] = slot;
+                }
+                if (!ok) continue;
+                for (int k = 0; k < bucketSize; k++)
+                    builtInTable[slots[k]] = values[buckets[b][k]];
+                bucketSeeds[b] = seed;
+                break;
+            }
+        }
+    }
+
+    private static int hash(CharSequence key, int seed)
+    {
+        int h = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++)
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        return mix(h);
+    }
+
+    private static int hash(char[] buf, int off, int len, int seed)
+    {
+        int h = seed ^ len;
+        for (int i = off, end = off + len; i < end; i++)
+            h = (h ^ buf[i]) * 0x01000193;
+        return mix(h);
+    }
+
+    private static int mix(int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & 0x7FFFFFFF;
+    }
+
+    private static int bucketOf(String name)
+    {
+        return hash(name, 0) % BUCKET_COUNT;
+    }
+
+    private static int slotOf(String name, int seed)
+    {
+        return hash(name, seed) % BUILT_IN_COUNT;
+    }
 
     /**
-     * 构造器
-     * @param name 词性名称
+     * 判断词性名称是否与字符片段相同
+     */
+    private boolean nameEquals(char[] buf, int off, int len)
+    {
+        if (name.length() != len) return false;
+        for (int i = 0; i < len; i++)
+            if (name.charAt(i) != buf[off + i]) return false;
+        return true;
+    }
+
+    /**
+     * 在持有LOCK时把自定义词性加入开放寻址表。容量足够时直接写入当前表的空槽位，fromChars 无锁读取时
+     * 要么还看不到新槽位，要么看到构造完成的对象（字段都是final）；线性探测只会填充空槽位，已有的探测链不受影响。
+     * 装载因子超过0.5时才复制到两倍大小的新表，均摊代价为O(1)；最后通过volatile字段发布
+     */
+    private static void addCustom(Nature nature)
+    {
+        Nature[] table = customTable;
+        if ((customCount + 1) * 2 > table.length)
+        {
+            Nature[] copy = new Nature[table.length * 2];
+            for (Nature n : table)
+                if (n != null) insert(copy, n);
+            table = copy;
+        }
+        insert(table, nature);
+        customTable = table;
+        customCount++;
+    }
+
+    private static void insert(Nature[] table, Nature nature)
+    {
+        int mask = table.length - 1;
+        int i = hash(nature.name, 0) & mask;
+        while (table[i] != null)
+            i = (i + 1) & mask;
+        table[i] = nature;
+    }
+
+    /**
+     * 从字符片段中直接查找词性，不需要先截取出String。适用于解析“词/词性”形式的语料
+     *
+     * @param buf 字符数组
+     * @param off 词性起始下标
+     * @param len 词性长度
+     * @return 词性，未定义时返回null
      */
-    private Nature(String name)
+    public static Nature fromChars(char[] buf, int off, int len)
     {
-        if (idMap == null) {
-            idMap = new ConcurrentHashMap<String, Integer>();
+        if (len == 0) return null;
+        int h = hash(buf, off, len, 0);
+        int seed = bucketSeeds[h % BUCKET_COUNT];
+        Nature nature = builtInTable[hash(buf, off, len, seed) % BUILT_IN_COUNT];
+        if (nature.nameEquals(buf, off, len))
+            return nature;
+
+        Nature[] table = customTable;
+        int mask = table.length - 1;
+        for (int i = h & mask; (nature = table[i]) != null; i = (i + 1) & mask)
+        {
+            if (nature.nameEquals(buf, off, len))
+                return nature;
         }
-        assert !idMap.containsKey(name);
+        return null;
+    }
+
+    /**
+     * 从字符片段中直接查找词性的序数
+     *
+     * @param buf 字符数组
+     * @param off 词性起始下标
+     * @param len 词性长度
+     * @return 词性的序数，未定义时返回-1
+     */
+    public static int ordinalOf(char[] buf, int off, int len)
+    {
+        Nature nature = fromChars(buf, off, len);
+        return nature == null ? -1 : nature.ordinal;
+    }
+
+    /**
+     * 根据序数获取词性，便于语料中以int/short形式保存词性
+     *
+     * @param ordinal 序数
+     * @return 词性，序数不存在时返回null
+     */
+    public static Nature fromOrdinal(int ordinal)
+    {
+        if (ordinal < 0 || ordinal >= size)
+            return null;
+        return values[ordinal];
+    }
+
+    /**
+     * @return 已注册的词性数量（内置与自定义），所有序数都小于该值
+     */
+    public static int size()
+    {
+        return size;
+    }
+
+
+
+
+    private final int ordinal;  // 序数，表示该词性的序号
+    private final String name;
+
+
+    private Nature(String name, int ordinal)
+    {
         this.name = name;
-        ordinal = idMap.size();
-        idMap.put(name, ordinal);
-        Nature[] extended = new Nature[idMap.size()];
-        if (values != null){
-            System.arraycopy(values, 0, extended, 0, values.length);
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * 创建并注册新的词性。对象构造完成后才在锁内发布到 values、自定义词性表和 idMap，
+     * 无锁读取的线程不会看到未构造完的对象；values 容量不足时成倍扩展，均摊代价为O(1)
+     *
+     * @param name 词性名称
+     * @return 新的词性
+     */
+    private static Nature register(String name)
+    {
+        synchronized (LOCK)
+        {
+            assert !idMap.containsKey(name);
+            Nature nature = new Nature(name, size);
+            Nature[] array = values;
+            if (nature.ordinal == array.length)
+            {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[nature.ordinal] = nature;
+            values = array;
+            size = nature.ordinal + 1;
+            if (customTable != null)
+                addCustom(nature);
+            idMap.put(name, nature);
+            return nature;
         }
-        extended[ordinal] = this;
-        values = extended;
     }
 
 
@@ -787,25 +1042,55 @@ public class Nature {
      */
     public static Nature fromString(String name)
     {
-        Integer id = idMap.get(name);
-        if (id == null)
-            return null;
-        return values[id];
+        return idMap.get(name);
     }
 
 
     /**
-     * 创建自定义词性,如果已有该对应词性,则直接返回已有的词性
+     * 创建自定义词性,如果已有该对应词性,则直接返回已有的词性。可以被多个线程同时调用
      *
      * @param name 字符串词性
      * @return Enum词性
      */
     public static Nature create(String name)
     {
-        Nature nature = fromString(name);
-        if (nature == null)
-            return new Nature(name);
-        return nature;
+        Nature nature = idMap.get(name);
+        if (nature != null)
+            return nature;
+        synchronized (LOCK)
+        {
+            nature = idMap.get(name);
+            if (nature == null)
+                nature = register(name);
+            return nature;
+        }
+    }
+
+
+    /**
+     * @return 词性的序数，从0开始连续编号
+     */
+    public int ordinal()
+    {
+        return ordinal;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+
+
+    /**
+     * 获取已注册的全部词性，返回的是一份拷贝
+     *
+     * @return 按序数排列的词性数组
+     */
+    public static Nature[] values()
+    {
+        int n = size;
+        return Arrays.copyOf(values, n);
     }
 
 
@@ -0,0 +1,74 @@
+package model.embedding;
+
+import java.util.Arrays;
+
+/**
+ * 按得分取最大值的堆，HNSW 搜索时存放待扩展的候选节点。非线程安全，可复用
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日2:30 下午
+ */
+class CandidateQueue {
+
+    private int[] ids = new int[64];
+    private float[] scores = new float[64];
+    private int size;
+    /**
+     * 最近一次 poll 出的得分
+     */
+    float polledScore;
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    void add(int id, float score) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] >= score) break;
+            ids[i] = ids[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    /**
+     * 取出得分最高的节点，得分保存在 polledScore
+     */
+    int poll() {
+        int top = ids[0];
+        polledScore = scores[0];
+        int id = ids[--size];
+        float score = scores[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] > scores[child]) child++;
+            if (score >= scores[child]) break;
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        if (size > 0) {
+            ids[i] = id;
+            scores[i] = score;
+        }
+        return top;
+    }
+}
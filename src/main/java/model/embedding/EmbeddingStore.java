@@ -0,0 +1,488 @@
+package model.embedding;
+
+import collection.primitive.CharPool;
+import collection.primitive.LongIntHashMap;
+import collection.trie.DoubleArrayTrie;
+import common.io.ByteArray;
+import common.io.IOUtil;
+import common.io.MappedByteArray;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 内存映射的词向量库。<br>
+ * convert 把 word2vec 的文本或二进制文件转换为两个文件：
+ * <ul>
+ *     <li>basePath.vec：16字节文件头（魔数、行数、维数、保留）+ 按行连续存放的单位化向量（float，高位在前）；</li>
+ *     <li>basePath.idx：行数、维数、每行的词、原始模长、词的双数组trie树，以及trie下标到行号的映射。</li>
+ * </ul>
+ * open 以只读方式映射向量文件，超过2GB时按整行分段映射，多个进程打开同一文件时共享页缓存；
+ * 词保存在 CharPool 中，不为每个词创建String。<br>
+ * 向量读取（vector、dot）不分配对象；nearest 把全部行分块，在 ForkJoinPool 上并行计算余弦相似度，
+ * 每块维护自己的 top-k 小顶堆再合并。打开后只读，可以被多个线程共享。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日1:10 下午
+ */
+@Slf4j
+public class EmbeddingStore {
+
+    public static final String VECTOR_SUFFIX = ".vec";
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4F4D5445; // OMTE
+    private static final int HEADER_SIZE = 16;
+    private static final int BLOCK_ROWS = 4096;
+
+    private final int rows;
+    private final int dimension;
+    private final FloatBuffer[] chunks;
+    private final int rowsPerChunk;
+    private final float[] norms;
+    private final CharPool wordPool;
+    private final long[] wordHandles;
+    private final DoubleArrayTrie<Object> trie;
+    private final int[] rowOfKey;
+    private ForkJoinPool pool;
+
+    private EmbeddingStore(int rows, int dimension, FloatBuffer[] chunks, int rowsPerChunk, float[] norms,
+                           CharPool wordPool, long[] wordHandles, DoubleArrayTrie<Object> trie, int[] rowOfKey) {
+        this.rows = rows;
+        this.dimension = dimension;
+        this.chunks = chunks;
+        this.rowsPerChunk = rowsPerChunk;
+        this.norms = norms;
+        this.wordPool = wordPool;
+        this.wordHandles = wordHandles;
+        this.trie = trie;
+        this.rowOfKey = rowOfKey;
+    }
+
+    /**
+     * 转换 word2vec 格式的词向量，重复的词只保留第一次出现的。
+     * 两个文件都先写到 .tmp 临时文件，全部写完后再依次重命名，中途失败不会留下不完整的词向量库
+     *
+     * @param word2vecPath word2vec 文件，首行为 “行数 维数”
+     * @param binary       是否为二进制格式（word2vec -binary 1 的输出，float为小端序）
+     * @param basePath     输出文件的路径前缀
+     * @return 是否成功
+     */
+    public static boolean convert(String word2vecPath, boolean binary, String basePath) {
+        InputStream in = null;
+        DataOutputStream vectorOut = null;
+        String vectorTemp = basePath + VECTOR_SUFFIX + ".tmp";
+        String indexTemp = basePath + INDEX_SUFFIX + ".tmp";
+        try {
+            in = new BufferedInputStream(new FileInputStream(word2vecPath), 1 << 16);
+            String[] header = readToken(in, true).trim().split("\\s+");
+            if (header.length < 2) throw new IOException("文件头格式错误");
+            int declaredRows = Integer.parseInt(header[0]);
+            int dimension = Integer.parseInt(header[1]);
+
+            vectorOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(vectorTemp), 1 << 16));
+            vectorOut.writeInt(MAGIC);
+            vectorOut.writeInt(0);
+            vectorOut.writeInt(dimension);
+            vectorOut.writeInt(0);
+
+            CharPool wordPool = new CharPool(declaredRows);
+            LongIntHashMap rowOfHandle = new LongIntHashMap(declaredRows);
+            long[] handles = new long[Math.max(declaredRows, 16)];
+            float[] norms = new float[handles.length];
+            float[] vector = new float[dimension];
+            byte[] floatBytes = new byte[dimension * 4];
+            int rows = 0;
+            for (int r = 0; r < declaredRows; r++) {
+                String word = binary ? readToken(in, false) : readToken(in, true);
+                if (word == null) break;
+                if (binary) {
+                    readFully(in, floatBytes);
+                    for (int d = 0; d < dimension; d++) {
+                        vector[d] = Float.intBitsToFloat(ByteUtils.bytesToInt(floatBytes, d * 4));
+                    }
+                } else {
+                    if (word.trim().isEmpty()) continue;
+                    String[] tokens = word.trim().split("\\s+");
+                    if (tokens.length != dimension + 1) {
+                        log.warn("跳过维数不符的行：{}", tokens[0]);
+                        continue;
+                    }
+                    word = tokens[0];
+                    for (int d = 0; d < dimension; d++) vector[d] = Float.parseFloat(tokens[d + 1]);
+                }
+                if (word.isEmpty()) continue;
+                long handle = wordPool.intern(word);
+                if (rowOfHandle.containsKey(handle)) continue;
+                rowOfHandle.put(handle, rows);
+                if (rows == handles.length) {
+                    handles = Arrays.copyOf(handles, rows * 2);
+                    norms = Arrays.copyOf(norms, rows * 2);
+                }
+                handles[rows] = handle;
+                double sum = 0;
+                for (float v : vector) sum += v * v;
+                float norm = (float) Math.sqrt(sum);
+                norms[rows] = norm;
+                for (float v : vector) vectorOut.writeFloat(norm == 0 ? 0 : v / norm);
+                rows++;
+            }
+            vectorOut.close();
+            vectorOut = null;
+            RandomAccessFile file = new RandomAccessFile(vectorTemp, "rw");
+            file.seek(4);
+            file.writeInt(rows);
+            file.close();
+
+            long[] sorted = Arrays.copyOf(handles, rows);
+            wordPool.sort(sorted, 0, rows);
+            List<String> keys = new ArrayList<String>(rows);
+            int[] rowOfKey = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                keys.add(wordPool.toString(sorted[i]));
+                rowOfKey[i] = rowOfHandle.get(sorted[i]);
+            }
+            DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+            trie.build(keys, null);
+
+            DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexTemp), 1 << 16));
+            indexOut.writeInt(rows);
+            indexOut.writeInt(dimension);
+            for (int i = 0; i < rows; i++) ByteUtils.writeString(indexOut, wordPool.toString(handles[i]));
+            for (int i = 0; i < rows; i++) indexOut.writeFloat(norms[i]);
+            trie.save(indexOut);
+            for (int i = 0; i < rows; i++) indexOut.writeInt(rowOfKey[i]);
+            indexOut.close();
+            IOUtil.replaceFile(vectorTemp, basePath + VECTOR_SUFFIX);
+            IOUtil.replaceFile(indexTemp, basePath + INDEX_SUFFIX);
+            log.info("转换词向量{}完成，共{}行，{}维", word2vecPath, rows, dimension);
+            return true;
+        } catch (IOException e) {
+            log.error("转换词向量{}失败:{}", word2vecPath, e.getMessage(), e);
+            return false;
+        } catch (NumberFormatException e) {
+            log.error("词向量{}格式错误:{}", word2vecPath, e.getMessage());
+            return false;
+        } finally {
+            try {
+                if (in != null) in.close();
+                if (vectorOut != null) vectorOut.close();
+            } catch (IOException ignored) {
+            }
+            IOUtil.deleteFile(vectorTemp);
+            IOUtil.deleteFile(indexTemp);
+        }
+    }
+
+    /**
+     * 读取一个UTF-8片段：整行模式读到换行为止，否则读到空格为止（跳过前导的换行）
+     *
+     * @return 片段，文件结束时返回null
+     */
+    private static String readToken(InputStream in, boolean line) throws IOException {
+        byte[] buffer = new byte[64];
+        int length = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n' || (!line && b == ' ')) {
+                if (length == 0 && !line) continue;
+                break;
+            }
+            if (length == buffer.length) buffer = Arrays.copyOf(buffer, length * 2);
+            buffer[length++] = (byte) b;
+        }
+        if (b == -1 && length == 0) return null;
+        if (line && length > 0 && buffer[length - 1] == '\r') length--;
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int n = 0;
+        while (n < bytes.length) {
+            int read = in.read(bytes, n, bytes.length - n);
+            if (read < 0) throw new EOFException("向量数据不完整");
+            n += read;
+        }
+    }
+
+    /**
+     * 打开 convert 生成的词向量库
+     *
+     * @param basePath 路径前缀
+     * @return 词向量库，文件不存在、不匹配或不完整时返回null
+     */
+    public static EmbeddingStore open(String basePath) {
+        return open(basePath, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxChunkBytes 单段映射的最大字节数，测试时用较小的值验证分段逻辑
+     */
+    static EmbeddingStore open(String basePath, int maxChunkBytes) {
+        ByteArray index = MappedByteArray.map(basePath + INDEX_SUFFIX);
+        if (index == null) return null;
+        RandomAccessFile file = null;
+        try {
+            int rows = index.nextInt();
+            int dimension = index.nextInt();
+            CharPool wordPool = new CharPool(rows);
+            long[] wordHandles = new long[rows];
+            char[] chars = new char[64];
+            for (int i = 0; i < rows; i++) {
+                int length = index.nextInt();
+                if (length > chars.length) chars = new char[Math.max(length, chars.length * 2)];
+                for (int j = 0; j < length; j++) chars[j] = index.nextChar();
+                wordHandles[i] = wordPool.append(chars, 0, length);
+            }
+            float[] norms = new float[rows];
+            for (int i = 0; i < rows; i++) norms[i] = index.nextFloat();
+            DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+            if (!trie.load(index, null)) {
+                log.error("{}中的trie树无法读取", basePath + INDEX_SUFFIX);
+                return null;
+            }
+            int[] rowOfKey = new int[rows];
+            for (int i = 0; i < rows; i++) rowOfKey[i] = index.nextInt();
+
+            file = new RandomAccessFile(basePath + VECTOR_SUFFIX, "r");
+            FileChannel channel = file.getChannel();
+            ByteArray header = new MappedByteArray(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE));
+            if (header.nextInt() != MAGIC || header.nextInt() != rows || header.nextInt() != dimension) {
+                log.error("{}与{}不匹配", basePath + VECTOR_SUFFIX, basePath + INDEX_SUFFIX);
+                return null;
+            }
+            long rowBytes = 4L * dimension;
+            if (channel.size() < HEADER_SIZE + rows * rowBytes) {
+                log.error("{}不完整，长度{}小于{}行{}维所需", basePath + VECTOR_SUFFIX, channel.size(), rows, dimension);
+                return null;
+            }
+            int rowsPerChunk = (int) Math.max(1, maxChunkBytes / rowBytes);
+            int chunkCount = rows == 0 ? 0 : (rows + rowsPerChunk - 1) / rowsPerChunk;
+            FloatBuffer[] chunks = new FloatBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                long begin = HEADER_SIZE + c * rowsPerChunk * rowBytes;
+                long size = Math.min(rowsPerChunk, rows - (long) c * rowsPerChunk) * rowBytes;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, begin, size).order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+            }
+            return new EmbeddingStore(rows, dimension, chunks, rowsPerChunk, norms, wordPool, wordHandles, trie, rowOfKey);
+        } catch (IOException e) {
+            log.error("打开词向量{}失败:{}", basePath, e.getMessage(), e);
+            return null;
+        } catch (RuntimeException e) {
+            // 索引文件被截断时映射区域的读取越界
+            log.error("读取词向量{}失败，文件可能已损坏", basePath, e);
+            return null;
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * @return 词所在的行，不存在时返回-1
+     */
+    public int rowOf(String word) {
+        int key = trie.exactMatchSearch(word);
+        return key < 0 ? -1 : rowOfKey[key];
+    }
+
+    /**
+     * @return 词所在的行，不存在时返回-1
+     */
+    public int rowOf(char[] chars, int offset, int length) {
+        int key = trie.exactMatchSearch(chars, offset, length);
+        return key < 0 ? -1 : rowOfKey[key];
+    }
+
+    /**
+     * @return 第row行的词，会创建String
+     */
+    public String word(int row) {
+        return wordPool.toString(wordHandles[row]);
+    }
+
+    /**
+     * @return 原始向量的模长
+     */
+    public float norm(int row) {
+        return norms[row];
+    }
+
+    /**
+     * 读取单位化后的向量
+     *
+     * @param row 行号
+     * @param out 输出，长度不小于维数
+     */
+    public void unitVector(int row, float[] out) {
+        FloatBuffer chunk = chunks[row / rowsPerChunk];
+        int base = (row % rowsPerChunk) * dimension;
+        for (int d = 0; d < dimension; d++) out[d] = chunk.get(base + d);
+    }
+
+    /**
+     * 读取原始向量（单位向量乘以模长）
+     *
+     * @param row 行号
+     * @param out 输出，长度不小于维数
+     */
+    public void vector(int row, float[] out) {
+        unitVector(row, out);
+        float norm = norms[row];
+        for (int d = 0; d < dimension; d++) out[d] *= norm;
+    }
+
+    /**
+     * @return 第row行的单位向量与query的点积
+     */
+    public float dot(int row, float[] query) {
+        FloatBuffer chunk = chunks[row / rowsPerChunk];
+        int base = (row % rowsPerChunk) * dimension;
+        // 四路累加，减少循环依赖，便于JIT流水化
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int d = 0;
+        for (int limit = dimension - 3; d < limit; d += 4) {
+            s0 += chunk.get(base + d) * query[d];
+            s1 += chunk.get(base + d + 1) * query[d + 1];
+            s2 += chunk.get(base + d + 2) * query[d + 2];
+            s3 += chunk.get(base + d + 3) * query[d + 3];
+        }
+        for (; d < dimension; d++) s0 += chunk.get(base + d) * query[d];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * @return 两行的余弦相似度
+     */
+    public float similarity(int a, int b) {
+        float[] query = new float[dimension];
+        unitVector(a, query);
+        return dot(b, query);
+    }
+
+    /**
+     * 与某个词最相似的k个词，不含该词本身
+     *
+     * @return 结果，词不存在时返回null
+     */
+    public Neighbors nearest(String word, int k) {
+        int row = rowOf(word);
+        if (row < 0) return null;
+        float[] query = new float[dimension];
+        unitVector(row, query);
+        return nearest(query, k, row);
+    }
+
+    /**
+     * 与查询向量余弦相似度最高的k行
+     *
+     * @param query      查询向量，不必单位化
+     * @param k          返回的数量
+     * @param excludeRow 需要排除的行，-1表示不排除
+     * @return 结果
+     */
+    public Neighbors nearest(float[] query, int k, int excludeRow) {
+        float[] unit = new float[dimension];
+        double sum = 0;
+        for (int d = 0; d < dimension; d++) sum += query[d] * query[d];
+        float norm = (float) Math.sqrt(sum);
+        for (int d = 0; d < dimension; d++) unit[d] = norm == 0 ? 0 : query[d] / norm;
+        k = Math.max(0, Math.min(k, rows - (excludeRow >= 0 ? 1 : 0)));
+        TopK topK = k == 0 ? new TopK(0) : pool().invoke(new SearchTask(unit, k, excludeRow, 0, rows));
+        int[] ids = new int[topK.size];
+        float[] scores = new float[topK.size];
+        int size = topK.drainDescending(ids, scores);
+        return new Neighbors(ids, scores, size, this);
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) pool = new ForkJoinPool();
+        return pool;
+    }
+
+    /**
+     * 指定搜索使用的线程池，默认创建与CPU核数相同的线程池
+     */
+    public synchronized void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 对 [from, to) 行搜索top-k，按 BLOCK_ROWS 分块
+     */
+    private class SearchTask extends RecursiveTask<TopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] query;
+        private final int k;
+        private final int excludeRow;
+        private final int from;
+        private final int to;
+
+        SearchTask(float[] query, int k, int excludeRow, int from, int to) {
+            this.query = query;
+            this.k = k;
+            this.excludeRow = excludeRow;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= BLOCK_ROWS) {
+                TopK topK = new TopK(k);
+                for (int row = from; row < to; row++) {
+                    if (row == excludeRow) continue;
+                    float score = dot(row, query);
+                    if (score > topK.threshold()) topK.offer(row, score);
+                }
+                return topK;
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask left = new SearchTask(query, k, excludeRow, from, mid);
+            left.fork();
+            TopK right = new SearchTask(query, k, excludeRow, mid, to).compute();
+            TopK result = left.join();
+            result.addAll(right);
+            return result;
+        }
+    }
+
+    /**
+     * 删除 convert 生成的文件
+     */
+    public static void delete(String basePath) {
+        IOUtil.deleteFile(basePath + VECTOR_SUFFIX);
+        IOUtil.deleteFile(basePath + INDEX_SUFFIX);
+    }
+}
@@ -0,0 +1,588 @@
+package model.embedding;
+
+import common.io.ByteArray;
+import common.io.MappedByteArray;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 EmbeddingStore 的 HNSW（分层可导航小世界图）近似最近邻索引，相似度为余弦相似度。<br>
+ * 图的邻接表全部保存在扁平的 IntBuffer 中，不为节点创建对象（构建时包装 int[]，从文件读取时直接是映射的视图）：
+ * <ul>
+ *     <li>第0层：layer0[node * (m0 + 1)] 为邻居数，其后 m0 个槽位为邻居；</li>
+ *     <li>第1层及以上：upper[upperOffsets[node] + (level - 1) * (m + 1)] 起，格式相同，每个节点的层数在构建前随机确定，
+ *     因此 upper 可以一次分配。</li>
+ * </ul>
+ * 构建时多个线程并行插入，节点邻接表的读写由分段锁保护；构建完成后只读，查询不加锁。
+ * 搜索上下文按线程保存在静态的 ThreadLocal 中，不引用索引，线程在多个索引间切换时按需扩大。
+ * ef 越大召回率越高、延迟越大，可以全局设置，也可以在每次查询时指定。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日2:40 下午
+ */
+@Slf4j
+public class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // HNSW
+    private static final int MAX_LEVEL = 16;
+    private static final int LOCK_STRIPES = 4096;
+
+    private final EmbeddingStore store;
+    private final int m;
+    private final int m0;
+    private final int[] levels;
+    private final int[] upperOffsets;
+    private final IntBuffer layer0;
+    private final IntBuffer upper;
+    private volatile int entryPoint = -1;
+    private volatile int maxLevel = -1;
+    private volatile int ef = 64;
+
+    // 以下字段只在构建时使用
+    private final int efConstruction;
+    private final Object[] locks;
+    private final Object entryLock = new Object();
+    private volatile boolean building;
+
+    /**
+     * 按线程保存的搜索上下文。上下文是静态类，不持有索引，线程存活期间不会让用过的索引无法回收
+     */
+    private static final ThreadLocal<SearchContext> CONTEXTS = new ThreadLocal<SearchContext>();
+
+    private HnswIndex(EmbeddingStore store, int m, int efConstruction, int[] levels) {
+        this.store = store;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levels = levels;
+        int rows = levels.length;
+        this.upperOffsets = new int[rows];
+        int cursor = 0;
+        for (int i = 0; i < rows; i++) {
+            upperOffsets[i] = cursor;
+            cursor += levels[i] * (m + 1);
+        }
+        this.upper = IntBuffer.wrap(new int[cursor]);
+        this.layer0 = IntBuffer.wrap(new int[rows * (m0 + 1)]);
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new Object();
+    }
+
+    private HnswIndex(EmbeddingStore store, int m, int[] levels, int[] upperOffsets, IntBuffer layer0, IntBuffer upper,
+                      int entryPoint, int maxLevel) {
+        this.store = store;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = 0;
+        this.levels = levels;
+        this.upperOffsets = upperOffsets;
+        this.layer0 = layer0;
+        this.upper = upper;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+        this.locks = null;
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param store          词向量库
+     * @param m              每层的最大邻居数，第0层为2m，常用16
+     * @param efConstruction 构建时的候选集大小，越大图的质量越高，常用100~200
+     * @param threads        构建线程数
+     * @param seed           随机层数的种子
+     * @return 索引，构建失败或被中断时返回null
+     */
+    public static HnswIndex build(EmbeddingStore store, int m, int efConstruction, int threads, long seed) {
+        int rows = store.rows();
+        int[] levels = new int[rows];
+        Random random = new Random(seed);
+        double ml = 1 / Math.log(Math.max(m, 2));
+        for (int i = 0; i < rows; i++) {
+            levels[i] = Math.min((int) (-Math.log(1 - random.nextDouble()) * ml), MAX_LEVEL);
+        }
+        final HnswIndex index = new HnswIndex(store, m, Math.max(efConstruction, m), levels);
+        index.building = true;
+        long start = System.currentTimeMillis();
+        final AtomicInteger next = new AtomicInteger();
+        if (rows > 0) index.insert(next.getAndIncrement());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < Math.max(threads, 1); t++) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int node; (node = next.getAndIncrement()) < index.levels.length; ) {
+                        index.insert(node);
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            next.set(rows);
+            executor.shutdownNow();
+            log.error("构建HNSW索引被中断");
+            return null;
+        } catch (ExecutionException e) {
+            // 让其余线程尽快停止，不完整的图不能返回
+            next.set(rows);
+            executor.shutdownNow();
+            log.error("构建HNSW索引失败", e.getCause());
+            return null;
+        }
+        index.building = false;
+        log.info("构建HNSW索引完成，{}个节点，最高{}层，耗时{}ms", rows, index.maxLevel, System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private IntBuffer adjacency(int level) {
+        return level == 0 ? layer0 : upper;
+    }
+
+    private int adjacencyBase(int node, int level) {
+        return level == 0 ? node * (m0 + 1) : upperOffsets[node] + (level - 1) * (m + 1);
+    }
+
+    /**
+     * 把节点在某层的邻居复制到 out
+     *
+     * @return 邻居数
+     */
+    private int neighbors(int node, int level, int[] out) {
+        IntBuffer adjacency = adjacency(level);
+        int base = adjacencyBase(node, level);
+        if (building) {
+            synchronized (locks[node & (LOCK_STRIPES - 1)]) {
+                return copyNeighbors(adjacency, base, out);
+            }
+        }
+        return copyNeighbors(adjacency, base, out);
+    }
+
+    private static int copyNeighbors(IntBuffer adjacency, int base, int[] out) {
+        int count = adjacency.get(base);
+        for (int i = 0; i < count; i++) out[i] = adjacency.get(base + 1 + i);
+        return count;
+    }
+
+    private static void setNeighbors(IntBuffer adjacency, int base, int[] neighbors, int count) {
+        adjacency.put(base, count);
+        for (int i = 0; i < count; i++) adjacency.put(base + 1 + i, neighbors[i]);
+    }
+
+    /**
+     * @return 当前线程的搜索上下文，容量不足时按该线程用过的最大尺寸重新分配，在多个索引间交替查询时不会反复分配
+     */
+    private SearchContext context() {
+        int dimension = store.dimension();
+        int rows = levels.length;
+        int ef = Math.max(efConstruction, 1);
+        SearchContext context = CONTEXTS.get();
+        if (context == null || !context.fits(dimension, m0, rows, ef)) {
+            int maxM0 = m0;
+            if (context != null) {
+                dimension = Math.max(dimension, context.query.length);
+                maxM0 = Math.max(maxM0, context.selected.length - 1);
+                rows = Math.max(rows, context.visited.length);
+                ef = Math.max(ef, context.candidateIds.length);
+            }
+            context = new SearchContext(dimension, maxM0, rows, ef);
+            CONTEXTS.set(context);
+        }
+        return context;
+    }
+
+    private void insert(int node) {
+        SearchContext context = context();
+        float[] query = context.query;
+        store.unitVector(node, query);
+        int level = levels[node];
+        int current;
+        int top;
+        synchronized (entryLock) {
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+            current = entryPoint;
+            top = maxLevel;
+        }
+        current = greedyDescend(query, current, top, level, context);
+        for (int l = Math.min(level, top); l >= 0; l--) {
+            searchLayer(query, current, efConstruction, l, context, -1);
+            int count = context.results.drainDescending(context.candidateIds, context.candidateScores);
+            current = context.candidateIds[0];
+            int maxNeighbors = l == 0 ? m0 : m;
+            int selected = selectNeighbors(context.candidateIds, context.candidateScores, count, maxNeighbors, context.selected, context);
+            IntBuffer adjacency = adjacency(l);
+            int base = adjacencyBase(node, l);
+            synchronized (locks[node & (LOCK_STRIPES - 1)]) {
+                setNeighbors(adjacency, base, context.selected, selected);
+            }
+            for (int i = 0; i < selected; i++) {
+                link(context.selected[i], node, l, context);
+            }
+        }
+        if (level > top) {
+            synchronized (entryLock) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从top层贪心下降到bottom + 1层
+     *
+     * @return 第bottom层的入口
+     */
+    private int greedyDescend(float[] query, int current, int top, int bottom, SearchContext context) {
+        float currentScore = store.dot(current, query);
+        for (int l = top; l > bottom; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int count = neighbors(current, l, context.neighborBuffer);
+                for (int i = 0; i < count; i++) {
+                    int candidate = context.neighborBuffer[i];
+                    float score = store.dot(candidate, query);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = candidate;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在某一层上做best-first搜索，结果留在 context.results
+     */
+    private void searchLayer(float[] query, int entry, int ef, int level, SearchContext context, int exclude) {
+        context.nextVisit();
+        context.visit(entry);
+        CandidateQueue candidates = context.candidates;
+        TopK results = context.results;
+        candidates.clear();
+        results.reset(ef);
+        float entryScore = store.dot(entry, query);
+        candidates.add(entry, entryScore);
+        if (entry != exclude) results.offer(entry, entryScore);
+        while (!candidates.isEmpty()) {
+            int node = candidates.poll();
+            if (results.isFull() && candidates.polledScore < results.threshold()) break;
+            int count = neighbors(node, level, context.neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int neighbor = context.neighborBuffer[i];
+                if (!context.visit(neighbor)) continue;
+                float score = store.dot(neighbor, query);
+                if (!results.isFull() || score > results.threshold()) {
+                    candidates.add(neighbor, score);
+                    if (neighbor != exclude) results.offer(neighbor, score);
+                }
+            }
+        }
+    }
+
+    /**
+     * 启发式选择邻居：候选按相似度从高到低考察，只有当它与查询的相似度高于与所有已选邻居的相似度时才保留，
+     * 使邻居分布在不同方向上
+     *
+     * @return 选中的数量，结果在 out
+     */
+    private int selectNeighbors(int[] ids, float[] scores, int count, int maxNeighbors, int[] out, SearchContext context) {
+        int selected = 0;
+        float[] vector = context.vector;
+        for (int i = 0; i < count && selected < maxNeighbors; i++) {
+            int candidate = ids[i];
+            store.unitVector(candidate, vector);
+            boolean good = true;
+            for (int j = 0; j < selected; j++) {
+                if (store.dot(out[j], vector) > scores[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) out[selected++] = candidate;
+        }
+        return selected;
+    }
+
+    /**
+     * 把node加入target在第level层的邻居，超出上限时重新选择
+     */
+    private void link(int target, int node, int level, SearchContext context) {
+        IntBuffer adjacency = adjacency(level);
+        int base = adjacencyBase(target, level);
+        int maxNeighbors = level == 0 ? m0 : m;
+        synchronized (locks[target & (LOCK_STRIPES - 1)]) {
+            int count = adjacency.get(base);
+            for (int i = 0; i < count; i++) {
+                if (adjacency.get(base + 1 + i) == node) return;
+            }
+            if (count < maxNeighbors) {
+                adjacency.put(base + 1 + count, node);
+                adjacency.put(base, count + 1);
+                return;
+            }
+            // 以target为查询，对原有邻居加上node重新选择
+            float[] targetVector = context.linkVector;
+            store.unitVector(target, targetVector);
+            int[] ids = context.linkIds;
+            float[] scores = context.linkScores;
+            for (int i = 0; i < count; i++) ids[i] = adjacency.get(base + 1 + i);
+            ids[count] = node;
+            for (int i = 0; i <= count; i++) scores[i] = store.dot(ids[i], targetVector);
+            sortDescending(ids, scores, count + 1);
+            int selected = selectNeighbors(ids, scores, count + 1, maxNeighbors, context.linkSelected, context);
+            setNeighbors(adjacency, base, context.linkSelected, selected);
+        }
+    }
+
+    private static void sortDescending(int[] ids, float[] scores, int n) {
+        for (int i = 1; i < n; i++) {
+            int id = ids[i];
+            float score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                ids[j + 1] = ids[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * 设置默认的查询候选集大小
+     */
+    public void setEf(int ef) {
+        this.ef = Math.max(ef, 1);
+    }
+
+    public int getEf() {
+        return ef;
+    }
+
+    /**
+     * 与某个词最相似的k个词，不含该词本身，使用默认ef
+     *
+     * @return 结果，词不存在时返回null
+     */
+    public Neighbors nearest(String word, int k) {
+        int row = store.rowOf(word);
+        if (row < 0) return null;
+        float[] query = new float[store.dimension()];
+        store.unitVector(row, query);
+        return nearest(query, k, ef, row);
+    }
+
+    /**
+     * 近似最近邻查询
+     *
+     * @param query      查询向量，不必单位化
+     * @param k          返回的数量
+     * @param ef         候选集大小，小于k时按k处理
+     * @param excludeRow 需要排除的行，-1表示不排除
+     * @return 结果，按相似度从高到低排列
+     */
+    public Neighbors nearest(float[] query, int k, int ef, int excludeRow) {
+        SearchContext context = context();
+        float[] unit = context.query;
+        int dimension = store.dimension();
+        double sum = 0;
+        for (int d = 0; d < dimension; d++) sum += query[d] * query[d];
+        float norm = (float) Math.sqrt(sum);
+        for (int d = 0; d < dimension; d++) unit[d] = norm == 0 ? 0 : query[d] / norm;
+        int entry = entryPoint;
+        if (entry < 0 || k <= 0) return new Neighbors(new int[0], new float[0], 0, store);
+        entry = greedyDescend(unit, entry, maxLevel, 0, context);
+        searchLayer(unit, entry, Math.max(ef, k), 0, context, excludeRow);
+        TopK results = context.results;
+        int[] ids = new int[results.size];
+        float[] scores = new float[results.size];
+        int size = results.drainDescending(ids, scores);
+        size = Math.min(size, k);
+        return new Neighbors(ids, scores, size, store);
+    }
+
+    /**
+     * @return 节点数
+     */
+    public int size() {
+        return levels.length;
+    }
+
+    /**
+     * 保存为二进制格式，由 load 读取
+     */
+    public void save(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(levels.length);
+        out.writeInt(m);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int level : levels) out.writeInt(level);
+        for (int i = 0; i < layer0.limit(); i++) out.writeInt(layer0.get(i));
+        out.writeInt(upper.limit());
+        for (int i = 0; i < upper.limit(); i++) out.writeInt(upper.get(i));
+    }
+
+    public boolean save(String path) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+            save(out);
+            out.close();
+            return true;
+        } catch (IOException e) {
+            log.error("保存HNSW索引到{}失败", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * 读取索引。byteArray 为 MappedByteArray 时邻接表直接使用映射的视图，不复制到堆上，
+     * 堆上只保留每个节点的层数和上层偏移（每节点8字节）
+     *
+     * @param byteArray save 输出的字节
+     * @param store     构建索引时使用的词向量库
+     * @return 索引，格式不符或文件不完整时返回null
+     */
+    public static HnswIndex load(ByteArray byteArray, EmbeddingStore store) {
+        if (byteArray == null) return null;
+        if (byteArray.nextInt() != MAGIC) {
+            log.error("不是HNSW索引文件");
+            return null;
+        }
+        int rows = byteArray.nextInt();
+        if (rows != store.rows()) {
+            log.error("索引的节点数{}与词向量库的行数{}不一致", rows, store.rows());
+            return null;
+        }
+        int m = byteArray.nextInt();
+        int entryPoint = byteArray.nextInt();
+        int maxLevel = byteArray.nextInt();
+        int[] levels = new int[rows];
+        int[] upperOffsets = new int[rows];
+        int cursor = 0;
+        for (int i = 0; i < rows; i++) {
+            levels[i] = byteArray.nextInt();
+            upperOffsets[i] = cursor;
+            cursor += levels[i] * (m + 1);
+        }
+        IntBuffer layer0 = nextInts(byteArray, rows * (2 * m + 1));
+        IntBuffer upper = layer0 == null ? null : nextInts(byteArray, byteArray.nextInt());
+        if (upper == null || upper.limit() != cursor) {
+            log.error("HNSW索引文件不完整");
+            return null;
+        }
+        return new HnswIndex(store, m, levels, upperOffsets, layer0, upper, entryPoint, maxLevel);
+    }
+
+    /**
+     * 读取count个int：映射的文件返回映射区域的视图，否则复制到堆上
+     *
+     * @return 数据，映射的文件长度不足时返回null
+     */
+    private static IntBuffer nextInts(ByteArray byteArray, int count) {
+        if (byteArray instanceof MappedByteArray) {
+            MappedByteArray mapped = (MappedByteArray) byteArray;
+            if (count < 0 || byteArray.getOffset() + 4L * count > mapped.length()) return null;
+            ByteBuffer view = mapped.buffer().duplicate();
+            view.position(byteArray.getOffset());
+            view.limit(byteArray.getOffset() + count * 4);
+            byteArray.skip(count * 4);
+            return view.slice().asIntBuffer();
+        }
+        int[] ints = new int[count];
+        for (int i = 0; i < count; i++) ints[i] = byteArray.nextInt();
+        return IntBuffer.wrap(ints);
+    }
+
+    /**
+     * 以内存映射的方式读取索引文件，邻接表不占用堆内存
+     */
+    public static HnswIndex load(String path, EmbeddingStore store) {
+        return load(MappedByteArray.map(path), store);
+    }
+
+    /**
+     * 每个线程的搜索上下文：访问标记、候选堆、结果堆和各种缓冲区，数组长度不小于所服务索引的需要
+     */
+    private static class SearchContext {
+        final float[] query;
+        final float[] vector;
+        final float[] linkVector;
+        final int[] neighborBuffer;
+        final int[] selected;
+        final int[] linkSelected;
+        final int[] linkIds;
+        final float[] linkScores;
+        final int[] candidateIds;
+        final float[] candidateScores;
+        final CandidateQueue candidates = new CandidateQueue();
+        final TopK results = new TopK(0);
+        // 访问标记：visited[node] == stamp 表示本次搜索已访问，换代时不必清空数组
+        final int[] visited;
+        int stamp;
+
+        SearchContext(int dimension, int m0, int rows, int ef) {
+            query = new float[dimension];
+            vector = new float[dimension];
+            linkVector = new float[dimension];
+            neighborBuffer = new int[m0 + 1];
+            selected = new int[m0 + 1];
+            linkSelected = new int[m0 + 1];
+            linkIds = new int[m0 + 2];
+            linkScores = new float[m0 + 2];
+            candidateIds = new int[ef];
+            candidateScores = new float[ef];
+            visited = new int[rows];
+        }
+
+        boolean fits(int dimension, int m0, int rows, int ef) {
+            return query.length >= dimension && selected.length >= m0 + 1 && visited.length >= rows && candidateIds.length >= ef;
+        }
+
+        void nextVisit() {
+            if (++stamp == 0) {
+                Arrays.fill(visited, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * @return 首次访问时返回true
+         */
+        boolean visit(int node) {
+            if (visited[node] == stamp) return false;
+            visited[node] = stamp;
+            return true;
+        }
+    }
+}
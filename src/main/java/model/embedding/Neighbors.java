@@ -0,0 +1,57 @@
+package model.embedding;
+
+/**
+ * 近邻查询的结果，按相似度从高到低排列
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日1:00 下午
+ */
+public class Neighbors {
+
+    private final int[] rows;
+    private final float[] scores;
+    private final int size;
+    private final EmbeddingStore store;
+
+    Neighbors(int[] rows, float[] scores, int size, EmbeddingStore store) {
+        this.rows = rows;
+        this.scores = scores;
+        this.size = size;
+        this.store = store;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 第i近的向量的行号
+     */
+    public int row(int i) {
+        return rows[i];
+    }
+
+    /**
+     * @return 第i近的向量与查询的余弦相似度
+     */
+    public float score(int i) {
+        return scores[i];
+    }
+
+    /**
+     * @return 第i近的词，会创建String
+     */
+    public String word(int i) {
+        return store.word(rows[i]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(word(i)).append('=').append(scores[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
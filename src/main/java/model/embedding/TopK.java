@@ -0,0 +1,96 @@
+package model.embedding;
+
+/**
+ * 保留得分最高的k项的小顶堆，堆顶是当前第k高的得分。非线程安全，每个任务各用一个
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日1:05 下午
+ */
+class TopK {
+
+    int[] ids;
+    float[] scores;
+    int capacity;
+    int size;
+
+    TopK(int k) {
+        ids = new int[k];
+        scores = new float[k];
+        capacity = k;
+    }
+
+    /**
+     * 清空并修改容量，复用已有数组
+     */
+    void reset(int k) {
+        if (ids.length < k) {
+            ids = new int[k];
+            scores = new float[k];
+        }
+        capacity = k;
+        size = 0;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    /**
+     * @return 能进入堆的最低得分
+     */
+    float threshold() {
+        return size < capacity ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int id, float score) {
+        if (size < capacity) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) break;
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        } else if (capacity > 0 && score > scores[0]) {
+            siftDown(id, score);
+        }
+    }
+
+    private void siftDown(int id, float score) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] < scores[child]) child++;
+            if (score <= scores[child]) break;
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) offer(other.ids[i], other.scores[i]);
+    }
+
+    /**
+     * 按得分从高到低输出，输出后堆被清空
+     *
+     * @return 项数
+     */
+    int drainDescending(int[] outIds, float[] outScores) {
+        int n = size;
+        for (int i = n - 1; i >= 0; i--) {
+            outIds[i] = ids[0];
+            outScores[i] = scores[0];
+            size--;
+            if (size > 0) siftDown(ids[size], scores[size]);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,400 @@
+package model.hmm;
+
+import collection.primitive.CharSpanIntMap;
+import common.io.ByteArray;
+import corpus.io.TaggedCorpus;
+import corpus.statistics.CorpusStatistics;
+import corpus.tag.Nature;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 基于一阶隐马尔可夫模型的词性标注器，用Viterbi算法解码。<br>
+ * 隐状态为语料中出现过的词性（不含 begin/end），转移概率和发射概率取对数后保存在 double[] 中，
+ * 每个词只在它出现过的词性上展开（未登录词使用最常见的若干词性），
+ * 解码时使用预先分配、可复用的 {@link Lattice}，不为节点创建对象。<br>
+ * 模型训练后只读，可以被多个线程共享，每个线程使用自己的 Lattice。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日7:40 下午
+ */
+@Slf4j
+public class HmmPosTagger {
+
+    /**
+     * 未登录词的候选词性数量
+     */
+    private static final int UNKNOWN_CANDIDATES = 12;
+
+    private int stateCount;
+    private int[] stateNatures;      // 状态 → Nature序数
+    private double[] startLogProb;   // log P(状态 | 句首)
+    private double[] endLogProb;     // log P(句尾 | 状态)
+    private double[] transLogProb;   // transLogProb[from * stateCount + to]
+
+    private CharSpanIntMap words;
+    private int[] emitOffsets;       // 第id个词的候选状态位于 [emitOffsets[id], emitOffsets[id + 1])
+    private int[] emitStates;
+    private double[] emitLogProb;    // log P(词 | 状态)
+
+    private int[] unknownStates;
+    private double[] unknownLogProb;
+
+    private final ThreadLocal<Lattice> lattices = new ThreadLocal<Lattice>() {
+        @Override
+        protected Lattice initialValue() {
+            return new Lattice();
+        }
+    };
+
+    private HmmPosTagger() {
+    }
+
+    /**
+     * 解码用的网格，按句子长度和候选数量扩容后反复使用。非线程安全
+     */
+    public static class Lattice {
+        int[] nodeOffsets = new int[65];   // 第i个词的节点位于 [nodeOffsets[i], nodeOffsets[i + 1])
+        int[] nodeStates = new int[256];
+        double[] nodeEmit = new double[256];
+        double[] score = new double[256];
+        int[] backPointer = new int[256];
+
+        void ensureWords(int words) {
+            if (nodeOffsets.length < words + 1) nodeOffsets = new int[Math.max(words + 1, nodeOffsets.length * 2)];
+        }
+
+        void ensureNodes(int nodes) {
+            if (nodeStates.length < nodes) {
+                int capacity = Math.max(nodes, nodeStates.length * 2);
+                nodeStates = Arrays.copyOf(nodeStates, capacity);
+                nodeEmit = Arrays.copyOf(nodeEmit, capacity);
+                score = new double[capacity];
+                backPointer = new int[capacity];
+            }
+        }
+    }
+
+    /**
+     * 从标注语料训练
+     *
+     * @param corpus 标注语料
+     * @return 标注器
+     */
+    public static HmmPosTagger train(TaggedCorpus corpus) {
+        CorpusStatistics statistics = new CorpusStatistics();
+        statistics.add(corpus);
+        return train(statistics);
+    }
+
+    /**
+     * 从语料统计结果训练，转移概率与句首句尾概率使用加一平滑
+     *
+     * @param statistics 语料统计
+     * @return 标注器
+     */
+    public static HmmPosTagger train(CorpusStatistics statistics) {
+        HmmPosTagger tagger = new HmmPosTagger();
+        int dimension = statistics.natureDimension();
+        int begin = Nature.begin.ordinal();
+        int end = Nature.end.ordinal();
+
+        int[] natureToState = new int[dimension];
+        Arrays.fill(natureToState, -1);
+        int[] stateNatures = new int[dimension];
+        int k = 0;
+        for (int nature = 0; nature < dimension; nature++) {
+            if (nature == begin || nature == end || statistics.natureFrequency(nature) == 0) continue;
+            natureToState[nature] = k;
+            stateNatures[k++] = nature;
+        }
+        tagger.stateCount = k;
+        tagger.stateNatures = Arrays.copyOf(stateNatures, k);
+
+        tagger.startLogProb = new double[k];
+        tagger.endLogProb = new double[k];
+        tagger.transLogProb = new double[k * k];
+        long startTotal = 0;
+        for (int to = 0; to < k; to++) startTotal += statistics.transitionFrequency(begin, stateNatures[to]);
+        for (int s = 0; s < k; s++) {
+            tagger.startLogProb[s] = Math.log((statistics.transitionFrequency(begin, stateNatures[s]) + 1.0) / (startTotal + k));
+            long total = statistics.transitionFrequency(stateNatures[s], end);
+            for (int to = 0; to < k; to++) total += statistics.transitionFrequency(stateNatures[s], stateNatures[to]);
+            for (int to = 0; to < k; to++) {
+                tagger.transLogProb[s * k + to] = Math.log((statistics.transitionFrequency(stateNatures[s], stateNatures[to]) + 1.0) / (total + k + 1));
+            }
+            tagger.endLogProb[s] = Math.log((statistics.transitionFrequency(stateNatures[s], end) + 1.0) / (total + k + 1));
+        }
+
+        CorpusStatistics.NatureDistribution distribution = statistics.natureDistribution();
+        int wordCount = statistics.wordCount();
+        tagger.words = new CharSpanIntMap(wordCount);
+        tagger.emitOffsets = new int[wordCount + 1];
+        tagger.emitStates = new int[distribution.natures.length];
+        tagger.emitLogProb = new double[distribution.natures.length];
+        int nodes = 0;
+        for (int id = 0; id < wordCount; id++) {
+            String word = statistics.word(id);
+            int newId = tagger.words.put(word);
+            // 按插入顺序分配id，与统计中的id一致
+            assert newId == id;
+            for (int i = distribution.offsets[id]; i < distribution.offsets[id + 1]; i++) {
+                int state = natureToState[distribution.natures[i]];
+                if (state < 0) continue;
+                tagger.emitStates[nodes] = state;
+                tagger.emitLogProb[nodes] = Math.log((double) distribution.frequencies[i] / statistics.natureFrequency(distribution.natures[i]));
+                nodes++;
+            }
+            tagger.emitOffsets[id + 1] = nodes;
+        }
+
+        // 未登录词：在最常见的词性上展开，发射概率取该词性下一个未见词的平滑概率
+        Integer[] order = new Integer[k];
+        for (int s = 0; s < k; s++) order[s] = s;
+        final int[] natures = tagger.stateNatures;
+        final CorpusStatistics stats = statistics;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return stats.natureFrequency(natures[o2]) - stats.natureFrequency(natures[o1]);
+            }
+        });
+        int unknown = Math.min(UNKNOWN_CANDIDATES, k);
+        tagger.unknownStates = new int[unknown];
+        tagger.unknownLogProb = new double[unknown];
+        for (int i = 0; i < unknown; i++) {
+            int s = order[i];
+            tagger.unknownStates[i] = s;
+            tagger.unknownLogProb[i] = Math.log(1.0 / (statistics.natureFrequency(natures[s]) + wordCount));
+        }
+        return tagger;
+    }
+
+    /**
+     * 为一句话中的词语标注词性
+     *
+     * @param chars   文本
+     * @param offsets 每个词在文本中的起始下标
+     * @param lengths 每个词的长度
+     * @param from    第一个词在 offsets/lengths 中的下标
+     * @param count   词语数量
+     * @param natures 输出，第i个词的Nature序数写入 natures[from + i]
+     * @param lattice 可复用的网格
+     */
+    public void tag(char[] chars, int[] offsets, int[] lengths, int from, int count, int[] natures, Lattice lattice) {
+        if (count == 0) return;
+        if (stateCount == 0) {
+            Arrays.fill(natures, from, from + count, TaggedCorpus.NO_NATURE);
+            return;
+        }
+        lattice.ensureWords(count);
+        int[] nodeOffsets = lattice.nodeOffsets;
+        int nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int id = words.get(chars, offsets[from + i], lengths[from + i]);
+            int candidates;
+            if (id >= 0 && emitOffsets[id + 1] > emitOffsets[id]) {
+                candidates = emitOffsets[id + 1] - emitOffsets[id];
+                lattice.ensureNodes(nodes + candidates);
+                System.arraycopy(emitStates, emitOffsets[id], lattice.nodeStates, nodes, candidates);
+                System.arraycopy(emitLogProb, emitOffsets[id], lattice.nodeEmit, nodes, candidates);
+            } else {
+                candidates = unknownStates.length;
+                lattice.ensureNodes(nodes + candidates);
+                System.arraycopy(unknownStates, 0, lattice.nodeStates, nodes, candidates);
+                System.arraycopy(unknownLogProb, 0, lattice.nodeEmit, nodes, candidates);
+            }
+            nodeOffsets[i] = nodes;
+            nodes += candidates;
+        }
+        nodeOffsets[count] = nodes;
+
+        int[] states = lattice.nodeStates;
+        double[] emit = lattice.nodeEmit;
+        double[] score = lattice.score;
+        int[] back = lattice.backPointer;
+        for (int n = nodeOffsets[0]; n < nodeOffsets[1]; n++) {
+            score[n] = startLogProb[states[n]] + emit[n];
+            back[n] = -1;
+        }
+        for (int i = 1; i < count; i++) {
+            int prevBegin = nodeOffsets[i - 1];
+            int prevEnd = nodeOffsets[i];
+            for (int n = nodeOffsets[i]; n < nodeOffsets[i + 1]; n++) {
+                int to = states[n];
+                double best = Double.NEGATIVE_INFINITY;
+                int bestPrev = prevBegin;
+                for (int p = prevBegin; p < prevEnd; p++) {
+                    double s = score[p] + transLogProb[states[p] * stateCount + to];
+                    if (s > best) {
+                        best = s;
+                        bestPrev = p;
+                    }
+                }
+                score[n] = best + emit[n];
+                back[n] = bestPrev;
+            }
+        }
+        double best = Double.NEGATIVE_INFINITY;
+        int last = nodeOffsets[count - 1];
+        for (int n = nodeOffsets[count - 1]; n < nodeOffsets[count]; n++) {
+            double s = score[n] + endLogProb[states[n]];
+            if (s > best) {
+                best = s;
+                last = n;
+            }
+        }
+        for (int i = count - 1, n = last; i >= 0; i--, n = back[n]) {
+            natures[from + i] = stateNatures[states[n]];
+        }
+    }
+
+    /**
+     * 为一句话中的词语标注词性，使用当前线程的网格
+     *
+     * @param words 词语
+     * @return 词性
+     */
+    public Nature[] tag(String... words) {
+        int length = 0;
+        for (String word : words) length += word.length();
+        char[] chars = new char[length];
+        int[] offsets = new int[words.length];
+        int[] lengths = new int[words.length];
+        int position = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i].getChars(0, words[i].length(), chars, position);
+            offsets[i] = position;
+            lengths[i] = words[i].length();
+            position += lengths[i];
+        }
+        int[] ordinals = new int[words.length];
+        tag(chars, offsets, lengths, 0, words.length, ordinals, lattices.get());
+        Nature[] natures = new Nature[words.length];
+        for (int i = 0; i < words.length; i++) natures[i] = Nature.fromOrdinal(ordinals[i]);
+        return natures;
+    }
+
+    /**
+     * @return 隐状态（词性）数量
+     */
+    public int stateCount() {
+        return stateCount;
+    }
+
+    /**
+     * 保存模型。词性以名称保存，加载时重新映射为当前进程中的序数
+     *
+     * @param out 输出流
+     * @throws IOException
+     */
+    public void save(DataOutputStream out) throws IOException {
+        out.writeInt(stateCount);
+        for (int s = 0; s < stateCount; s++) ByteUtils.writeString(out, Nature.fromOrdinal(stateNatures[s]).toString());
+        for (int s = 0; s < stateCount; s++) out.writeDouble(startLogProb[s]);
+        for (int s = 0; s < stateCount; s++) out.writeDouble(endLogProb[s]);
+        for (double p : transLogProb) out.writeDouble(p);
+
+        out.writeInt(words.size());
+        for (int id = 0; id < words.size(); id++) {
+            ByteUtils.writeString(out, words.key(id));
+            out.writeInt(emitOffsets[id + 1] - emitOffsets[id]);
+            for (int i = emitOffsets[id]; i < emitOffsets[id + 1]; i++) {
+                out.writeShort(emitStates[i]);
+                out.writeDouble(emitLogProb[i]);
+            }
+        }
+        out.writeInt(unknownStates.length);
+        for (int i = 0; i < unknownStates.length; i++) {
+            out.writeShort(unknownStates[i]);
+            out.writeDouble(unknownLogProb[i]);
+        }
+    }
+
+    /**
+     * 保存模型到文件
+     *
+     * @param path 文件路径
+     * @return 是否成功
+     */
+    public boolean save(String path) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+            save(out);
+            out.close();
+        } catch (IOException e) {
+            log.error("保存词性标注模型到{}失败", path, e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 加载模型
+     *
+     * @param byteArray 由 save 输出的字节
+     * @return 标注器
+     */
+    public static HmmPosTagger load(ByteArray byteArray) {
+        HmmPosTagger tagger = new HmmPosTagger();
+        int k = byteArray.nextInt();
+        tagger.stateCount = k;
+        tagger.stateNatures = new int[k];
+        for (int s = 0; s < k; s++) tagger.stateNatures[s] = Nature.create(byteArray.nextString()).ordinal();
+        tagger.startLogProb = new double[k];
+        tagger.endLogProb = new double[k];
+        tagger.transLogProb = new double[k * k];
+        for (int s = 0; s < k; s++) tagger.startLogProb[s] = byteArray.nextDouble();
+        for (int s = 0; s < k; s++) tagger.endLogProb[s] = byteArray.nextDouble();
+        for (int i = 0; i < k * k; i++) tagger.transLogProb[i] = byteArray.nextDouble();
+
+        int wordCount = byteArray.nextInt();
+        tagger.words = new CharSpanIntMap(wordCount);
+        tagger.emitOffsets = new int[wordCount + 1];
+        int capacity = Math.max(wordCount, 16);
+        tagger.emitStates = new int[capacity];
+        tagger.emitLogProb = new double[capacity];
+        int nodes = 0;
+        for (int id = 0; id < wordCount; id++) {
+            tagger.words.put(byteArray.nextString());
+            int candidates = byteArray.nextInt();
+            if (nodes + candidates > tagger.emitStates.length) {
+                capacity = Math.max(nodes + candidates, capacity * 2);
+                tagger.emitStates = Arrays.copyOf(tagger.emitStates, capacity);
+                tagger.emitLogProb = Arrays.copyOf(tagger.emitLogProb, capacity);
+            }
+            for (int i = 0; i < candidates; i++, nodes++) {
+                tagger.emitStates[nodes] = byteArray.nextShort();
+                tagger.emitLogProb[nodes] = byteArray.nextDouble();
+            }
+            tagger.emitOffsets[id + 1] = nodes;
+        }
+        int unknown = byteArray.nextInt();
+        tagger.unknownStates = new int[unknown];
+        tagger.unknownLogProb = new double[unknown];
+        for (int i = 0; i < unknown; i++) {
+            tagger.unknownStates[i] = byteArray.nextShort();
+            tagger.unknownLogProb[i] = byteArray.nextDouble();
+        }
+        return tagger;
+    }
+
+    /**
+     * 从文件加载模型
+     *
+     * @param path 文件路径
+     * @return 标注器，文件不存在时返回null
+     */
+    public static HmmPosTagger load(String path) {
+        ByteArray byteArray = ByteArray.createByteArray(path);
+        if (byteArray == null) return null;
+        return load(byteArray);
+    }
+}
@@ -0,0 +1,157 @@
+package seg;
+
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量分词：从文档迭代器（如 IOUtil.readLineIterator）中按批读取文档，在 ForkJoinPool 上按句分词，
+ * 再按输入顺序逐篇回调。<br>
+ * <ul>
+ *     <li>每个工作线程通过 ThreadLocal 持有自己的 DagSegmenter（词图、路径数组都在其中复用），词典只读共享，没有锁竞争；</li>
+ *     <li>批次内的文档二分成任务，空闲线程从其他线程的队列中窃取，长短不一的文档也能均衡负载；</li>
+ *     <li>两个批次交替使用：一个批次在线程池中分词时，调用线程读取下一批、回调上一批，文档对象及其缓冲区跨批次复用。</li>
+ * </ul>
+ * segment 方法不可并发调用；用完后调用 shutdown 释放线程。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日10:20 下午
+ */
+public class BatchSegmenter {
+
+    /**
+     * 分词结果回调，在调用 segment 的线程上按输入顺序执行
+     */
+    public interface DocumentHandler {
+        /**
+         * @param document 分词结果，回调返回后会被复用
+         */
+        void onDocument(SegmentedDocument document);
+    }
+
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final ThreadLocal<DagSegmenter> segmenters;
+
+    /**
+     * 使用全部CPU核心，每批1024篇文档
+     */
+    public BatchSegmenter(CoreDictionary dictionary) {
+        this(dictionary, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * @param dictionary 词典
+     * @param threads    线程数
+     * @param batchSize  每批文档数
+     */
+    public BatchSegmenter(final CoreDictionary dictionary, int threads, int batchSize) {
+        this.pool = new ForkJoinPool(Math.max(threads, 1));
+        this.batchSize = Math.max(batchSize, 1);
+        this.segmenters = new ThreadLocal<DagSegmenter>() {
+            @Override
+            protected DagSegmenter initialValue() {
+                return new DagSegmenter(dictionary);
+            }
+        };
+    }
+
+    /**
+     * 分词
+     *
+     * @param documents 文档，每个元素一篇，null会被跳过
+     * @param handler   结果回调
+     * @return 文档数量
+     */
+    public long segment(Iterable<String> documents, DocumentHandler handler) {
+        return segment(documents.iterator(), handler);
+    }
+
+    /**
+     * 分词
+     *
+     * @param documents 文档，每个元素一篇，null会被跳过
+     * @param handler   结果回调
+     * @return 文档数量
+     */
+    public long segment(Iterator<String> documents, DocumentHandler handler) {
+        Batch current = new Batch(batchSize);
+        Batch next = new Batch(batchSize);
+        long count = current.fill(documents, 0);
+        if (current.size == 0) return 0;
+        ForkJoinTask<Void> task = pool.submit(new SegmentTask(current.documents, 0, current.size));
+        while (true) {
+            count += next.fill(documents, count);
+            task.join();
+            ForkJoinTask<Void> nextTask = next.size == 0 ? null : pool.submit(new SegmentTask(next.documents, 0, next.size));
+            for (int i = 0; i < current.size; i++) {
+                handler.onDocument(current.documents[i]);
+            }
+            if (nextTask == null) break;
+            Batch swap = current;
+            current = next;
+            next = swap;
+            task = nextTask;
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 一批文档，文档对象跨批次复用
+     */
+    private static class Batch {
+        final SegmentedDocument[] documents;
+        int size;
+
+        Batch(int capacity) {
+            documents = new SegmentedDocument[capacity];
+            for (int i = 0; i < capacity; i++) documents[i] = new SegmentedDocument();
+        }
+
+        /**
+         * @return 读取的文档数
+         */
+        int fill(Iterator<String> iterator, long firstIndex) {
+            size = 0;
+            while (size < documents.length && iterator.hasNext()) {
+                String text = iterator.next();
+                if (text == null) continue;
+                documents[size].reset(firstIndex + size, text);
+                size++;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 对 documents[from, to) 分词，二分直到单篇文档
+     */
+    private class SegmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SegmentedDocument[] documents;
+        private final int from;
+        private final int to;
+
+        SegmentTask(SegmentedDocument[] documents, int from, int to) {
+            this.documents = documents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                documents[from].segment(segmenters.get());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SegmentTask(documents, from, mid), new SegmentTask(documents, mid, to));
+        }
+    }
+}
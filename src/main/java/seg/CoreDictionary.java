@@ -0,0 +1,303 @@
+package seg;
+
+import collection.trie.DoubleArrayTrie;
+import common.io.ByteArray;
+import common.io.IOUtil;
+import common.io.LineIterator;
+import corpus.statistics.CorpusStatistics;
+import corpus.tag.Nature;
+import lombok.extern.slf4j.Slf4j;
+import utils.ByteUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分词用的核心词典：双数组trie树 + 按词下标存放的词频、主词性和对数概率。<br>
+ * 文本格式兼容两种写法，每行一个词：
+ * <pre>
+ * 词语 词性1 频次1 词性2 频次2 ...   （CorpusStatistics.saveDictionary 的输出）
+ * 词语 频次 [词性]                   （jieba 风格）
+ * </pre>
+ * 构建完成后只读，可以被多个线程共享。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日9:10 下午
+ */
+@Slf4j
+public class CoreDictionary {
+
+    private final DoubleArrayTrie<Object> trie;
+    private final int[] frequencies;
+    private final int[] natures;
+    private final double[] logProbabilities;
+    private final long totalFrequency;
+    private final int maxWordLength;
+    /**
+     * 未登录词（频次视为1）的对数概率
+     */
+    private final double unknownLogProbability;
+
+    /**
+     * @param sortedWords 按字典序排列、不重复的词
+     * @param frequencies 与词一一对应的频次
+     * @param natures     与词一一对应的主词性序数
+     */
+    CoreDictionary(List<String> sortedWords, int[] frequencies, int[] natures) {
+        this(buildTrie(sortedWords), frequencies, natures, maxLength(sortedWords));
+    }
+
+    private CoreDictionary(DoubleArrayTrie<Object> trie, int[] frequencies, int[] natures, int maxWordLength) {
+        this.trie = trie;
+        this.frequencies = frequencies;
+        this.natures = natures;
+        this.maxWordLength = maxWordLength;
+        long total = 0;
+        for (int frequency : frequencies) total += frequency;
+        this.totalFrequency = Math.max(total, 1);
+        double logTotal = Math.log(totalFrequency);
+        this.logProbabilities = new double[frequencies.length];
+        for (int i = 0; i < logProbabilities.length; i++) {
+            logProbabilities[i] = Math.log(Math.max(frequencies[i], 1)) - logTotal;
+        }
+        this.unknownLogProbability = -logTotal;
+    }
+
+    private static DoubleArrayTrie<Object> buildTrie(List<String> sortedWords) {
+        DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+        trie.build(sortedWords, null);
+        return trie;
+    }
+
+    private static int maxLength(List<String> words) {
+        int maxLength = 1;
+        for (String word : words) maxLength = Math.max(maxLength, word.length());
+        return maxLength;
+    }
+
+    /**
+     * 从文本文件加载词典
+     *
+     * @param path 词典路径
+     * @return 词典，文件不存在时返回null
+     */
+    public static CoreDictionary load(String path) {
+        if (!IOUtil.isFileExisted(path)) {
+            log.error("词典{}不存在", path);
+            return null;
+        }
+        LineIterator lines = IOUtil.readLineIterator(path);
+        CoreDictionary dictionary;
+        try {
+            dictionary = parse(lines);
+        } finally {
+            lines.close();
+        }
+        log.info("加载词典{}完成，共{}个词", path, dictionary.size());
+        return dictionary;
+    }
+
+    /**
+     * 从文本行构建词典，格式错误的行会被跳过
+     *
+     * @param lines 词典的每一行
+     * @return 词典
+     */
+    public static CoreDictionary parse(Iterable<String> lines) {
+        TreeMap<String, long[]> entries = new TreeMap<String, long[]>();
+        for (String line : lines) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens.length == 0 || tokens[0].isEmpty()) continue;
+            long[] entry;
+            try {
+                entry = parseEntry(tokens);
+            } catch (NumberFormatException e) {
+                log.warn("跳过格式错误的词典行：{}", line);
+                continue;
+            }
+            long[] old = entries.get(tokens[0]);
+            if (old == null) {
+                entries.put(tokens[0], entry);
+            } else {
+                // 重复的词：频次累加，主词性取频次更高的一方
+                if (entry[0] > old[0] && entry[1] >= 0) old[1] = entry[1];
+                old[0] += entry[0];
+            }
+        }
+        List<String> words = new ArrayList<String>(entries.size());
+        int[] frequencies = new int[entries.size()];
+        int[] natures = new int[entries.size()];
+        int i = 0;
+        for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+            words.add(entry.getKey());
+            frequencies[i] = (int) Math.min(entry.getValue()[0], Integer.MAX_VALUE);
+            natures[i] = (int) entry.getValue()[1];
+            i++;
+        }
+        return new CoreDictionary(words, frequencies, natures);
+    }
+
+    /**
+     * @return {总频次, 主词性序数}
+     */
+    private static long[] parseEntry(String[] tokens) {
+        if (tokens.length == 1) return new long[]{1, -1};
+        if (isInteger(tokens[1])) {
+            int nature = tokens.length > 2 ? Nature.create(tokens[2]).ordinal() : -1;
+            return new long[]{Long.parseLong(tokens[1]), nature};
+        }
+        long total = 0;
+        long best = -1;
+        int nature = -1;
+        for (int i = 1; i + 1 < tokens.length; i += 2) {
+            long frequency = Long.parseLong(tokens[i + 1]);
+            total += frequency;
+            if (frequency > best) {
+                best = frequency;
+                nature = Nature.create(tokens[i]).ordinal();
+            }
+        }
+        if (nature < 0) throw new NumberFormatException(tokens[0]);
+        return new long[]{total, nature};
+    }
+
+    private static boolean isInteger(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') return false;
+        }
+        return !token.isEmpty();
+    }
+
+    /**
+     * 由语料统计结果构建词典，主词性取频次最高的词性
+     */
+    public static CoreDictionary fromStatistics(CorpusStatistics statistics) {
+        CorpusStatistics.NatureDistribution distribution = statistics.natureDistribution();
+        TreeMap<String, Integer> ids = new TreeMap<String, Integer>();
+        for (int id = 0; id < statistics.wordCount(); id++) {
+            if (statistics.frequency(id) > 0) ids.put(statistics.word(id), id);
+        }
+        List<String> words = new ArrayList<String>(ids.size());
+        int[] frequencies = new int[ids.size()];
+        int[] natures = new int[ids.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            int id = entry.getValue();
+            words.add(entry.getKey());
+            frequencies[i] = statistics.frequency(id);
+            int begin = distribution.offsets[id];
+            natures[i] = begin < distribution.offsets[id + 1] ? distribution.natures[begin] : -1;
+            i++;
+        }
+        return new CoreDictionary(words, frequencies, natures);
+    }
+
+    /**
+     * 保存为二进制格式，由 load(ByteArray) 读取。词性以名称保存，自定义词性在不同进程中的序数可能不同
+     *
+     * @param out 输出流
+     */
+    public void save(DataOutputStream out) throws IOException {
+        out.writeInt(maxWordLength);
+        out.writeInt(Nature.size());
+        for (int i = 0; i < Nature.size(); i++) {
+            ByteUtils.writeString(out, Nature.fromOrdinal(i).toString());
+        }
+        out.writeInt(frequencies.length);
+        for (int i = 0; i < frequencies.length; i++) {
+            out.writeInt(frequencies[i]);
+            out.writeInt(natures[i]);
+        }
+        trie.save(out);
+    }
+
+    /**
+     * 读取 save 输出的二进制词典
+     *
+     * @param byteArray 字节数组，可以是 MappedByteArray
+     * @return 词典，失败时返回null
+     */
+    public static CoreDictionary load(ByteArray byteArray) {
+        if (byteArray == null) return null;
+        try {
+            int maxWordLength = byteArray.nextInt();
+            int[] natureMap = new int[byteArray.nextInt()];
+            for (int i = 0; i < natureMap.length; i++) {
+                natureMap[i] = Nature.create(byteArray.nextString()).ordinal();
+            }
+            int size = byteArray.nextInt();
+            int[] frequencies = new int[size];
+            int[] natures = new int[size];
+            for (int i = 0; i < size; i++) {
+                frequencies[i] = byteArray.nextInt();
+                int nature = byteArray.nextInt();
+                natures[i] = nature < 0 ? -1 : natureMap[nature];
+            }
+            DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+            if (!trie.load(byteArray, null)) return null;
+            return new CoreDictionary(trie, frequencies, natures, maxWordLength);
+        } catch (RuntimeException e) {
+            log.error("读取二进制词典失败，文件可能已损坏", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return 词的下标，不存在时返回-1
+     */
+    public int indexOf(char[] chars, int offset, int length) {
+        return trie.exactMatchSearch(chars, offset, length);
+    }
+
+    /**
+     * @return 词的下标，不存在时返回-1
+     */
+    public int indexOf(String word) {
+        return trie.exactMatchSearch(word);
+    }
+
+    public int frequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * @return 主词性序数，词典中未标注时为-1
+     */
+    public int nature(int index) {
+        return natures[index];
+    }
+
+    /**
+     * @return ln(频次 / 总频次)
+     */
+    public double logProbability(int index) {
+        return logProbabilities[index];
+    }
+
+    public double unknownLogProbability() {
+        return unknownLogProbability;
+    }
+
+    /**
+     * @return 底层的trie树，用于前缀查询
+     */
+    public DoubleArrayTrie<Object> trie() {
+        return trie;
+    }
+
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    public long totalFrequency() {
+        return totalFrequency;
+    }
+
+    public int size() {
+        return frequencies.length;
+    }
+}
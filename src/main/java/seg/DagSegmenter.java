@@ -0,0 +1,230 @@
+package seg;
+
+import collection.trie.DoubleArrayTrie;
+import common.metrics.Metrics;
+import corpus.tag.Nature;
+import utils.CharacterUtils;
+
+import java.util.Arrays;
+
+/**
+ * 基于词典的最大概率分词：
+ * <ol>
+ *     <li>用trie树的前缀查询为每个位置列出所有词典词，构成词图（DAG），单字总是一条边；</li>
+ *     <li>从后向前动态规划，选出对数概率之和最大的路径；</li>
+ *     <li>连续的数字、英文不进入词图，直接按 CharacterUtils 的字符类别整体切出，空白字符被跳过。</li>
+ * </ol>
+ * 结果以 (起始下标, 长度, 词性) 写入 SpanBuffer，整个过程不创建String；词图、路径等中间数组在实例内复用，
+ * 因此实例非线程安全，多线程时每个线程各用一个实例，词典可以共享。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日9:30 下午
+ */
+public class DagSegmenter {
+
+    static final byte TYPE_OTHER = 0;
+    static final byte TYPE_SPACE = 1;
+    static final byte TYPE_LETTER = 2;
+    static final byte TYPE_DIGIT = 3;
+    static final byte TYPE_CJK = 4;
+
+    private static final byte[] CHAR_TYPE = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char ch = CharacterUtils.regularize((char) c);
+            byte type = TYPE_OTHER;
+            if (CharacterUtils.isSpaceLetter(ch) || c == '　') type = TYPE_SPACE;
+            else if (CharacterUtils.isEnglishLetter(ch)) type = TYPE_LETTER;
+            else if (CharacterUtils.isArabicNumber(ch)) type = TYPE_DIGIT;
+            // 全角标点规格化后不再是CJK字符，按标点处理
+            else if (ch == c && CharacterUtils.isCJKCharacter(ch)) type = TYPE_CJK;
+            CHAR_TYPE[c] = type;
+        }
+    }
+
+    private final CoreDictionary dictionary;
+    private final DoubleArrayTrie<Object> trie;
+    private final int maxWordLength;
+
+    // 前缀查询的输出
+    private final int[] prefixLengths;
+    private final int[] prefixIndices;
+
+    // 词图：第k个位置的边位于 [edgeStart[k], edgeStart[k + 1])
+    private int[] edgeStart = new int[256];
+    private int[] edgeLength = new int[1024];
+    private int[] edgeIndex = new int[1024];
+
+    // 动态规划：route[k] 为从k到末尾的最大对数概率，choice[k] 为k处选中的边
+    private double[] route = new double[256];
+    private int[] choice = new int[256];
+
+    public DagSegmenter(CoreDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.trie = dictionary.trie();
+        this.maxWordLength = dictionary.maxWordLength();
+        this.prefixLengths = new int[maxWordLength + 1];
+        this.prefixIndices = new int[maxWordLength + 1];
+    }
+
+    /**
+     * 字符类别：TYPE_OTHER、TYPE_SPACE、TYPE_LETTER、TYPE_DIGIT、TYPE_CJK
+     */
+    static byte charType(char c) {
+        return CHAR_TYPE[c];
+    }
+
+    /**
+     * 分词，结果追加到out的末尾（不会清空out）
+     *
+     * @param text   文本
+     * @param offset 起始下标
+     * @param length 长度
+     * @param out    输出
+     * @return 本次追加的词数
+     */
+    public int segment(char[] text, int offset, int length, SpanBuffer out) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int before = out.size();
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            byte type = CHAR_TYPE[text[i]];
+            int j = i + 1;
+            switch (type) {
+                case TYPE_SPACE:
+                    break;
+                case TYPE_LETTER:
+                    // 字母开头，后续的字母、数字都算一个词，如 iPhone12、MP3
+                    while (j < end && (CHAR_TYPE[text[j]] == TYPE_LETTER || CHAR_TYPE[text[j]] == TYPE_DIGIT)) j++;
+                    out.add(i, j - i, Nature.nx.ordinal());
+                    break;
+                case TYPE_DIGIT:
+                    j = scanNumber(text, i, end);
+                    out.add(i, j - i, Nature.m.ordinal());
+                    break;
+                default:
+                    while (j < end && (CHAR_TYPE[text[j]] == TYPE_CJK || CHAR_TYPE[text[j]] == TYPE_OTHER)) j++;
+                    segmentDag(text, i, j, out);
+            }
+            i = j;
+        }
+        if (Metrics.ENABLED) {
+            Metrics.SEG_CHARS.add(length);
+            Metrics.SEG_LATENCY.record(System.nanoTime() - start);
+        }
+        return out.size() - before;
+    }
+
+    /**
+     * 分词，先清空out
+     *
+     * @param text 文本
+     * @param out  输出
+     * @return 原文的字符数组，用于按下标取词
+     */
+    public char[] segment(String text, SpanBuffer out) {
+        char[] chars = text.toCharArray();
+        out.clear();
+        segment(chars, 0, chars.length, out);
+        return chars;
+    }
+
+    /**
+     * 数字串：数字，中间可以有一个小数点，末尾可以有百分号
+     *
+     * @return 数字串的结束下标
+     */
+    private static int scanNumber(char[] text, int begin, int end) {
+        int j = begin + 1;
+        boolean point = false;
+        while (j < end) {
+            byte type = CHAR_TYPE[text[j]];
+            if (type == TYPE_DIGIT) {
+                j++;
+            } else if (!point && j + 1 < end && CharacterUtils.regularize(text[j]) == '.' && CHAR_TYPE[text[j + 1]] == TYPE_DIGIT) {
+                point = true;
+                j += 2;
+            } else {
+                break;
+            }
+        }
+        if (j < end && (CharacterUtils.regularize(text[j]) == '%' || text[j] == '‰')) j++;
+        return j;
+    }
+
+    /**
+     * 对 [begin, end) 构建词图并选出最大概率路径
+     */
+    private void segmentDag(char[] text, int begin, int end, SpanBuffer out) {
+        int n = end - begin;
+        ensureCapacity(n);
+
+        int edgeCount = 0;
+        for (int k = 0; k < n; k++) {
+            edgeStart[k] = edgeCount;
+            int count = trie.commonPrefixSearch(text, begin + k, Math.min(maxWordLength, n - k), prefixLengths, prefixIndices);
+            if (edgeCount + count + 1 > edgeLength.length) {
+                int capacity = Math.max(edgeLength.length * 2, edgeCount + count + 1);
+                edgeLength = Arrays.copyOf(edgeLength, capacity);
+                edgeIndex = Arrays.copyOf(edgeIndex, capacity);
+            }
+            // 单字不在词典中时补一条未登录边，前缀查询结果按长度升序，单字只可能是第一个
+            if (count == 0 || prefixLengths[0] != 1) {
+                edgeLength[edgeCount] = 1;
+                edgeIndex[edgeCount] = -1;
+                edgeCount++;
+            }
+            for (int c = 0; c < count; c++) {
+                if (prefixLengths[c] == 0) continue;
+                edgeLength[edgeCount] = prefixLengths[c];
+                edgeIndex[edgeCount] = prefixIndices[c];
+                edgeCount++;
+            }
+        }
+        edgeStart[n] = edgeCount;
+
+        double unknown = dictionary.unknownLogProbability();
+        route[n] = 0;
+        for (int k = n - 1; k >= 0; k--) {
+            double best = Double.NEGATIVE_INFINITY;
+            int bestEdge = edgeStart[k];
+            for (int e = edgeStart[k]; e < edgeStart[k + 1]; e++) {
+                int index = edgeIndex[e];
+                double p = (index < 0 ? unknown : dictionary.logProbability(index)) + route[k + edgeLength[e]];
+                // 概率相同时取更长的词
+                if (p >= best) {
+                    best = p;
+                    bestEdge = e;
+                }
+            }
+            route[k] = best;
+            choice[k] = bestEdge;
+        }
+
+        for (int k = 0; k < n; ) {
+            int e = choice[k];
+            int index = edgeIndex[e];
+            int nature = index < 0 ? -1 : dictionary.nature(index);
+            if (nature < 0) {
+                nature = CHAR_TYPE[text[begin + k]] == TYPE_CJK ? Nature.n.ordinal() : Nature.w.ordinal();
+            }
+            out.add(begin + k, edgeLength[e], nature);
+            k += edgeLength[e];
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n + 1 > edgeStart.length) {
+            int capacity = Math.max(edgeStart.length * 2, n + 1);
+            edgeStart = new int[capacity];
+            route = new double[capacity];
+            choice = new int[capacity];
+        }
+    }
+
+    public CoreDictionary getDictionary() {
+        return dictionary;
+    }
+}
@@ -0,0 +1,110 @@
+package seg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一篇文档的分词结果：原文、全部词语的span，以及每个句子在span中的范围。<br>
+ * 由 BatchSegmenter 复用，只在 DocumentHandler 回调期间有效，需要保留时自行复制。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日10:15 下午
+ */
+public class SegmentedDocument {
+
+    private long index;
+    private String text;
+    private char[] chars = new char[256];
+    private int length;
+    private final SpanBuffer spans = new SpanBuffer(128);
+    /**
+     * 第s句的词为 spans[sentenceSpanEnds[s - 1], sentenceSpanEnds[s])
+     */
+    private int[] sentenceSpanEnds = new int[16];
+    private int sentenceCount;
+
+    /**
+     * 装入新文档并清空上一次的结果
+     */
+    void reset(long index, String text) {
+        this.index = index;
+        this.text = text;
+        this.length = text.length();
+        if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+        text.getChars(0, length, chars, 0);
+        spans.clear();
+        sentenceCount = 0;
+    }
+
+    /**
+     * 用给定的分词器按句切分、分词
+     */
+    void segment(DagSegmenter segmenter) {
+        for (int begin = 0, end; begin < length; begin = end) {
+            end = SentenceSplitter.nextSentenceEnd(chars, begin, length);
+            segmenter.segment(chars, begin, end - begin, spans);
+            if (sentenceCount == sentenceSpanEnds.length) {
+                sentenceSpanEnds = Arrays.copyOf(sentenceSpanEnds, sentenceCount * 2);
+            }
+            sentenceSpanEnds[sentenceCount++] = spans.size();
+        }
+    }
+
+    /**
+     * @return 文档在输入中的序号，从0开始
+     */
+    public long index() {
+        return index;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return 原文的字符数组，有效长度为 length()，span的下标基于此数组
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public SpanBuffer spans() {
+        return spans;
+    }
+
+    public int sentenceCount() {
+        return sentenceCount;
+    }
+
+    public int sentenceSpanBegin(int sentence) {
+        return sentence == 0 ? 0 : sentenceSpanEnds[sentence - 1];
+    }
+
+    public int sentenceSpanEnd(int sentence) {
+        return sentenceSpanEnds[sentence];
+    }
+
+    /**
+     * @return 全部词语，会创建String
+     */
+    public List<String> words() {
+        return spans.toWords(chars);
+    }
+
+    /**
+     * @return 第sentence句的词语，会创建String
+     */
+    public List<String> words(int sentence) {
+        int end = sentenceSpanEnd(sentence);
+        List<String> words = new ArrayList<String>(end - sentenceSpanBegin(sentence));
+        for (int i = sentenceSpanBegin(sentence); i < end; i++) {
+            words.add(new String(chars, spans.offset(i), spans.length(i)));
+        }
+        return words;
+    }
+}
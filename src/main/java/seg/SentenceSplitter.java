@@ -0,0 +1,43 @@
+package seg;
+
+/**
+ * 按句末标点切分句子。句末标点（及紧随其后的引号、括号）归入前一句，换行符也作为句子分隔。用法：
+ * <pre>
+ * for (int begin = offset, end; begin &lt; limit; begin = end) {
+ *     end = SentenceSplitter.nextSentenceEnd(text, begin, limit);
+ *     use(text, begin, end - begin);
+ * }
+ * </pre>
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日10:10 下午
+ */
+public class SentenceSplitter {
+
+    private static final boolean[] SENTENCE_END = new boolean[Character.MAX_VALUE + 1];
+    private static final boolean[] CLOSING = new boolean[Character.MAX_VALUE + 1];
+
+    static {
+        for (char c : "。！？!?；;…\n\r".toCharArray()) SENTENCE_END[c] = true;
+        for (char c : "”’\"')）」』】》".toCharArray()) CLOSING[c] = true;
+    }
+
+    /**
+     * 查找从begin开始的句子的结束位置
+     *
+     * @param text  文本
+     * @param begin 句子的起始下标
+     * @param limit 文本的结束下标
+     * @return 句子的结束下标（不含），没有句末标点时为limit
+     */
+    public static int nextSentenceEnd(char[] text, int begin, int limit) {
+        int i = begin;
+        while (i < limit && !SENTENCE_END[text[i]]) i++;
+        while (i < limit && (SENTENCE_END[text[i]] || CLOSING[text[i]])) i++;
+        return i;
+    }
+
+    public static boolean isSentenceEnd(char c) {
+        return SENTENCE_END[c];
+    }
+}
@@ -0,0 +1,121 @@
+package seg;
+
+import corpus.tag.Nature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 分词结果缓冲区，以 (起始下标, 长度, 词性序数) 的形式保存切分出的词语，清空后可以反复使用。非线程安全
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日9:00 下午
+ */
+public class SpanBuffer {
+
+    private int[] offsets;
+    private int[] lengths;
+    private int[] natures;
+    private int size;
+
+    public SpanBuffer() {
+        this(64);
+    }
+
+    /**
+     * @param capacity 初始容量
+     */
+    public SpanBuffer(int capacity) {
+        capacity = Math.max(capacity, 4);
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        natures = new int[capacity];
+    }
+
+    /**
+     * 追加一个词
+     *
+     * @param offset 在原文中的起始下标
+     * @param length 长度
+     * @param nature 词性序数，未知时为 -1
+     */
+    public void add(int offset, int length, int nature) {
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            natures = Arrays.copyOf(natures, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        natures[size] = nature;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int offset(int i) {
+        return offsets[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    public int natureOrdinal(int i) {
+        return natures[i];
+    }
+
+    public Nature nature(int i) {
+        return Nature.fromOrdinal(natures[i]);
+    }
+
+    /**
+     * 修改词性，供词性标注等后续步骤使用
+     */
+    public void setNature(int i, int nature) {
+        natures[i] = nature;
+    }
+
+    /**
+     * @return 起始下标数组，只读，有效长度为 size()
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * @return 长度数组，只读，有效长度为 size()
+     */
+    public int[] lengths() {
+        return lengths;
+    }
+
+    /**
+     * @return 词性序数数组，有效长度为 size()
+     */
+    public int[] natures() {
+        return natures;
+    }
+
+    /**
+     * 转为词语列表，会创建String，主要用于调试和测试
+     *
+     * @param text 分词时的原文
+     * @return 词语列表
+     */
+    public List<String> toWords(char[] text) {
+        List<String> words = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            words.add(new String(text, offsets[i], lengths[i]));
+        }
+        return words;
+    }
+}
@@ -255,6 +255,50 @@ public class ByteUtils {
         out.writeByte((byte) ((uint) & 0xFF));
     }
 
+    /**
+     * 字符串输出，格式为 int长度 + 逐个char，可由 ByteArray.nextString 读取
+     *
+     * @param out 输出流
+     * @param s   字符串
+     * @throws IOException
+     */
+    public static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+    /**
+     * 变长编码输出非负整数：每字节7位，低位在前，最高位为1表示后面还有字节，可由 ByteArray.nextVarLong 读取
+     *
+     * @param out   输出流
+     * @param value 非负整数
+     * @throws IOException
+     */
+    public static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * 变长编码写入字节数组，格式同 writeVarLong(DataOutputStream, long)，调用方保证空间足够（最多10字节）
+     *
+     * @param bytes  字节数组
+     * @param offset 写入位置
+     * @param value  非负整数
+     * @return 写入后的位置
+     */
+    public static int writeVarLong(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
     public static int convertTwoCharToInt(char high, char low) {
         int result = high << 16;
         result |= low;
@@ -0,0 +1,311 @@
+package utils;
+
+/**
+ * 数字与数量词识别器，在判断是否为数字的同时解析出数值和单位。<br>
+ * 支持：<br>
+ * 半角、全角数字：98.1、９８．１、1,000<br>
+ * 中文数字：一九九八、三百二十五、两万、一亿二千万、壹佰贰拾<br>
+ * 混合写法：3百万、1.5万<br>
+ * 百分号千分号：98．1％、5‰、百分之三十<br>
+ * 分数：3/4<br>
+ * 识别器不是线程安全的，每个线程持有一个实例即可反复使用，识别过程中不分配对象。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日10:40 上午
+ */
+public class NumberRecognizer {
+
+    /**
+     * 没有单位
+     */
+    public static final int UNIT_NONE = 0;
+    /**
+     * 百分数，如 98．1％、百分之三十，数值为百分号前的数字
+     */
+    public static final int UNIT_PERCENT = 1;
+    /**
+     * 千分数，如 5‰、千分之五，数值为千分号前的数字
+     */
+    public static final int UNIT_PERMILLE = 2;
+
+    // 字符编码：1~10 表示数字0~9，其余见下
+    private static final byte C_TEN = 11;
+    private static final byte C_HUNDRED = 12;
+    private static final byte C_THOUSAND = 13;
+    private static final byte C_WAN = 14;
+    private static final byte C_YI = 15;
+    private static final byte C_MINUS = 16;
+    private static final byte C_PLUS = 17;
+    private static final byte C_POINT = 18;
+    private static final byte C_GROUP = 19;
+    private static final byte C_PERCENT = 20;
+    private static final byte C_PERMILLE = 21;
+    private static final byte C_SLASH = 22;
+
+    private static final byte[] CODE = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        markDigits("0123456789");
+        markDigits("０１２３４５６７８９");
+        markDigits("零一二三四五六七八九");
+        markDigits("〇壹贰叁肆伍陆柒捌玖");
+        CODE['○'] = 1;
+        CODE['两'] = 3;
+        mark("十拾", C_TEN);
+        mark("百佰", C_HUNDRED);
+        mark("千仟", C_THOUSAND);
+        mark("万萬", C_WAN);
+        mark("亿億", C_YI);
+        mark("-－—负", C_MINUS);
+        mark("+＋±", C_PLUS);
+        mark(".．·点", C_POINT);
+        mark(",，", C_GROUP);
+        mark("%％", C_PERCENT);
+        mark("‰", C_PERMILLE);
+        mark("/／", C_SLASH);
+    }
+
+    private static void markDigits(String digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            CODE[digits.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    private static void mark(String chars, byte code) {
+        for (int i = 0; i < chars.length(); i++) {
+            CODE[chars.charAt(i)] = code;
+        }
+    }
+
+    /**
+     * 获取单个字符代表的数字
+     *
+     * @param c 字符，可以是半角、全角或中文数字
+     * @return 0~9，不是数字时返回-1
+     */
+    public static int digitValue(char c) {
+        int code = CODE[c];
+        return code >= 1 && code <= 10 ? code - 1 : -1;
+    }
+
+    private long longValue;
+    private double doubleValue;
+    private boolean integer;
+    private int unit;
+
+    /**
+     * 识别整个字符序列是否为一个数字，识别成功后可通过 longValue、doubleValue、unit 获取解析结果
+     *
+     * @param text 输入字符序列
+     * @return true 整个字符序列是一个数字
+     */
+    public boolean recognize(CharSequence text) {
+        return recognize(null, text, 0, text.length());
+    }
+
+    /**
+     * 识别字符数组片段是否为一个数字
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true 整个片段是一个数字
+     */
+    public boolean recognize(char[] chars, int offset, int length) {
+        return recognize(chars, null, offset, length);
+    }
+
+    private boolean recognize(char[] chars, CharSequence text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        int unit = UNIT_NONE;
+        boolean negative = false;
+
+        // 百分之三十、千分之五
+        if (length > 3 && charAt(chars, text, i + 1) == '分' && charAt(chars, text, i + 2) == '之') {
+            int code = CODE[charAt(chars, text, i)];
+            if (code == C_HUNDRED) unit = UNIT_PERCENT;
+            else if (code == C_THOUSAND) unit = UNIT_PERMILLE;
+            else return false;
+            i += 3;
+        }
+        if (i < end) {
+            int code = CODE[charAt(chars, text, i)];
+            if (code == C_MINUS) {
+                negative = true;
+                i++;
+            } else if (code == C_PLUS) {
+                i++;
+            }
+        }
+
+        // 亿级、万级、千以内三段累加，num 为当前尚未乘以单位的数字；整数部分用 add、multiply 检查溢出，
+        // 溢出后为-1并一直保持，结果改用double
+        long total = 0, wan = 0, small = 0, num = 0;
+        double dTotal = 0, dWan = 0, dSmall = 0, dNum = 0;
+        double fractionScale = 0;  // 大于0表示正在读取小数部分
+        boolean hasFraction = false;
+        boolean hasDigit = false;     // num 中是否已经有数字
+        boolean hasNumeral = false;   // 整个片段中是否出现过数字或数词
+        boolean overflow = false;
+        double numerator = Double.NaN;
+
+        for (; i < end; i++) {
+            char c = charAt(chars, text, i);
+            int code = CODE[c];
+            if (code >= 1 && code <= 10) {
+                int d = code - 1;
+                if (fractionScale > 0) {
+                    fractionScale /= 10;
+                    dNum += d * fractionScale;
+                } else {
+                    if (num > (Long.MAX_VALUE - 9) / 10) overflow = true;
+                    num = num * 10 + d;
+                    dNum = dNum * 10 + d;
+                }
+                hasDigit = true;
+                hasNumeral = true;
+                continue;
+            }
+            switch (code) {
+                case C_TEN:
+                case C_HUNDRED:
+                case C_THOUSAND: {
+                    long m = code == C_TEN ? 10 : code == C_HUNDRED ? 100 : 1000;
+                    small = add(small, multiply(hasDigit ? num : 1, m));
+                    dSmall += (hasDigit ? dNum : 1) * m;
+                    num = 0;
+                    dNum = 0;
+                    hasDigit = false;
+                    fractionScale = 0;
+                    hasNumeral = true;
+                    break;
+                }
+                case C_WAN:
+                    if (!hasNumeral) return false;
+                    wan = add(wan, multiply(add(small, num), 10000));
+                    dWan += (dSmall + dNum) * 10000;
+                    small = num = 0;
+                    dSmall = dNum = 0;
+                    hasDigit = false;
+                    fractionScale = 0;
+                    break;
+                case C_YI:
+                    if (!hasNumeral) return false;
+                    total = multiply(add(total, add(wan, add(small, num))), 100000000);
+                    dTotal = (dTotal + dWan + dSmall + dNum) * 100000000;
+                    wan = small = num = 0;
+                    dWan = dSmall = dNum = 0;
+                    hasDigit = false;
+                    fractionScale = 0;
+                    break;
+                case C_POINT:
+                    if (!hasDigit || fractionScale > 0) return false;
+                    fractionScale = 1;
+                    hasFraction = true;
+                    break;
+                case C_GROUP:
+                    // 千分位分隔符，后面必须紧跟三位数字
+                    if (!hasDigit || fractionScale > 0 || !isGroupOfThree(chars, text, i + 1, end)) return false;
+                    break;
+                case C_SLASH:
+                    if (!hasDigit || !Double.isNaN(numerator)) return false;
+                    numerator = dTotal + dWan + dSmall + dNum;
+                    total = wan = small = num = 0;
+                    dTotal = dWan = dSmall = dNum = 0;
+                    hasDigit = false;
+                    fractionScale = 0;
+                    break;
+                case C_PERCENT:
+                case C_PERMILLE:
+                    // 只能出现在末尾
+                    if (!hasNumeral || unit != UNIT_NONE || i != end - 1) return false;
+                    unit = code == C_PERCENT ? UNIT_PERCENT : UNIT_PERMILLE;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        if (!hasNumeral) return false;
+
+        double value = dTotal + dWan + dSmall + dNum;
+        long l = add(total, add(wan, add(small, num)));
+        boolean exact = !hasFraction && !overflow && l >= 0;
+        if (!Double.isNaN(numerator)) {
+            if (!hasDigit || value == 0) return false;
+            value = numerator / value;
+            l = (long) value;
+            exact = value == l;
+        }
+        if (negative) {
+            value = -value;
+            l = -l;
+        }
+        this.doubleValue = value;
+        this.integer = exact;
+        this.longValue = exact ? l : (long) value;
+        this.unit = unit;
+        return true;
+    }
+
+    /**
+     * 非负数相加，任一参数为-1或结果溢出时返回-1
+     */
+    private static long add(long a, long b) {
+        if (a < 0 || b < 0) return -1;
+        long sum = a + b;
+        return sum < 0 ? -1 : sum;
+    }
+
+    /**
+     * 非负数相乘，任一参数为-1或结果溢出时返回-1
+     */
+    private static long multiply(long a, long b) {
+        if (a < 0 || b < 0) return -1;
+        if (b != 0 && a > Long.MAX_VALUE / b) return -1;
+        return a * b;
+    }
+
+    private static boolean isGroupOfThree(char[] chars, CharSequence text, int from, int end) {
+        if (from + 3 > end) return false;
+        for (int i = from; i < from + 3; i++) {
+            int code = CODE[charAt(chars, text, i)];
+            if (code < 1 || code > 10) return false;
+        }
+        if (from + 3 == end) return true;
+        int code = CODE[charAt(chars, text, from + 3)];
+        return code < 1 || code > 10;
+    }
+
+    private static char charAt(char[] chars, CharSequence text, int index) {
+        return chars != null ? chars[index] : text.charAt(index);
+    }
+
+    /**
+     * @return 最近一次识别结果的整数值，有小数时为截断后的值
+     */
+    public long longValue() {
+        return longValue;
+    }
+
+    /**
+     * @return 最近一次识别结果的浮点数值
+     */
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    /**
+     * @return 最近一次识别结果是否为精确的整数（没有小数部分且没有溢出）
+     */
+    public boolean isInteger() {
+        return integer;
+    }
+
+    /**
+     * @return 最近一次识别结果的单位，UNIT_NONE、UNIT_PERCENT 或 UNIT_PERMILLE
+     */
+    public int unit() {
+        return unit;
+    }
+}
@@ -1,8 +1,5 @@
 package utils;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
 
 /**
  * 文本工具类
@@ -16,18 +13,90 @@ public class TextUtils {
     /**
      * 将异常转为字符串
      * ①将异常转换成String，以便log日志写入
+     * 记录日志时应优先把异常直接交给 log.error(String, Object, Throwable)，由日志框架负责输出
      *
      * @param e 异常
      * @return
      */
     public static String exceptionToString(Exception e) {
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
-        e.printStackTrace();
-        e.printStackTrace(pw);
-        return sw.toString();
+        return exceptionToString(e, Integer.MAX_VALUE);
     }
 
+    /**
+     * 将异常转为字符串，只保留前 maxDepth 层调用栈
+     *
+     * @param e        异常
+     * @param maxDepth 保留的调用栈层数
+     * @return 异常信息及调用栈
+     */
+    public static String exceptionToString(Throwable e, int maxDepth) {
+        StringBuilder sb = new StringBuilder(256);
+        Throwable cause = e;
+        for (int c = 0; cause != null && c < 8; c++, cause = cause.getCause()) { // 防止cause成环
+            if (c > 0) sb.append("Caused by: ");
+            sb.append(cause).append('\n');
+            StackTraceElement[] trace = cause.getStackTrace();
+            int depth = Math.min(trace.length, maxDepth);
+            for (int i = 0; i < depth; i++) {
+                sb.append("\tat ").append(trace[i]).append('\n');
+            }
+            if (depth < trace.length) {
+                sb.append("\t... ").append(trace.length - depth).append(" more\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 字符类型表中的位标记，每个字符占一个字节，类加载时一次性构建，判断时只需查表
+     */
+    private static final int CT_CHINESE = 1;      // [\u4E00-\u9FA5] 常用汉字
+    private static final int CT_HALF_DIGIT = 2;   // 半角数字 0123456789
+    private static final int CT_FULL_DIGIT = 4;   // 全角数字 ０１２３４５６７８９
+    private static final int CT_SIGN = 8;         // 数字前的符号 ±+-＋－—
+    private static final int CT_DELIMITER = 16;   // 数字中间的分隔符 ·∶:，,．.／/
+    private static final int CT_SUFFIX = 32;      // 数字后缀 百千万亿佰仟%％‰
+    private static final int CT_CJK = 64;         // 中日韩字符，与 CharacterUtils.isCJKCharacter 一致
+
+    private static final byte[] CHAR_TYPE = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            int type = 0;
+            if (c >= '\u4E00' && c <= '\u9FA5') type |= CT_CHINESE;
+            if (CharacterUtils.isCJKCharacter((char) c)) type |= CT_CJK;
+            CHAR_TYPE[c] = (byte) type;
+        }
+        markCharType("0123456789", CT_HALF_DIGIT);
+        markCharType("０１２３４５６７８９", CT_FULL_DIGIT);
+        markCharType("±+-＋－—", CT_SIGN);
+        markCharType("·∶:，,．.／/", CT_DELIMITER);
+        markCharType("百千万亿佰仟%％‰", CT_SUFFIX);
+    }
+
+    private static void markCharType(String chars, int type) {
+        for (int i = 0; i < chars.length(); i++) {
+            CHAR_TYPE[chars.charAt(i)] |= type;
+        }
+    }
+
+    /**
+     * profile 的返回值标记：全部为中文
+     */
+    public static final int PROFILE_ALL_CHINESE = 1;
+    /**
+     * profile 的返回值标记：全部为数字，规则同 isAllNum
+     */
+    public static final int PROFILE_ALL_NUMBER = 2;
+    /**
+     * profile 的返回值标记：全部为单字节字符，规则同 isAllSingleByte
+     */
+    public static final int PROFILE_ALL_SINGLE_BYTE = 4;
+    /**
+     * profile 的返回值标记：包含中日韩字符
+     */
+    public static final int PROFILE_HAS_CJK = 8;
+
     /**
      * 是否全是中文
      *
@@ -35,8 +104,40 @@ public class TextUtils {
      * @return true 字符串全部为中文，false 字符串不全部为中文
      */
     public static boolean isAllChinese(String str) {
-        byte[] b = str.getBytes();
-        return str.matches("[\\u4E00-\\u9FA5]+");
+        return isAllChinese((CharSequence) str);
+    }
+
+    /**
+     * 是否全是中文，空串返回false
+     *
+     * @param str 输入字符序列
+     * @return true 字符串全部为中文，false 字符串不全部为中文
+     */
+    public static boolean isAllChinese(CharSequence str) {
+        int len = str.length();
+        if (len == 0) return false;
+        for (int i = 0; i < len; i++) {
+            if ((CHAR_TYPE[str.charAt(i)] & CT_CHINESE) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 字符数组片段是否全是中文，空片段返回false
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true 片段全部为中文
+     */
+    public static boolean isAllChinese(char[] chars, int offset, int length) {
+        if (length == 0) return false;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if ((CHAR_TYPE[chars[i]] & CT_CHINESE) == 0)
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -46,17 +147,35 @@ public class TextUtils {
      * @return true 字符串中没有中文字符，false 字符串中有中文字符
      */
     public static boolean isAllNonChinese(String str) {
-        byte[] sString = str.getBytes();
-        int nLen = sString.length;
-        int i = 0;
+        return isAllNonChinese((CharSequence) str);
+    }
 
-        while (i < nLen) {
-            if (getUnsigned(sString[i]) < 248 && getUnsigned(sString[i]) > 175)
+    /**
+     * 是否全部不是中文。直接按字符判断，不再依赖平台默认编码下的GBK字节范围
+     *
+     * @param str 输入字符序列
+     * @return true 字符串中没有中文字符，false 字符串中有中文字符
+     */
+    public static boolean isAllNonChinese(CharSequence str) {
+        for (int i = 0, len = str.length(); i < len; i++) {
+            if ((CHAR_TYPE[str.charAt(i)] & CT_CHINESE) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 字符数组片段是否全部不是中文
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true 片段中没有中文字符
+     */
+    public static boolean isAllNonChinese(char[] chars, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if ((CHAR_TYPE[chars[i]] & CT_CHINESE) != 0)
                 return false;
-            if (sString[i] < 0)
-                i += 2;
-            else
-                i += 1;
         }
         return true;
     }
@@ -74,9 +193,40 @@ public class TextUtils {
     public static boolean isAllSingleByte(String str)
     {
         assert str != null;
-        for (int i = 0; i < str.length(); i++)
+        return isAllSingleByte((CharSequence) str);
+    }
+
+    /**
+     * 是否全是单字节
+     *
+     * @param str 输入字符序列
+     * @return true：不包含汉字
+     */
+    public static boolean isAllSingleByte(CharSequence str)
+    {
+        for (int i = 0, len = str.length(); i < len; i++)
+        {
+            if (str.charAt(i) > 128)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字符数组片段是否全是单字节
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true：不包含汉字
+     */
+    public static boolean isAllSingleByte(char[] chars, int offset, int length)
+    {
+        for (int i = offset, end = offset + length; i < end; i++)
         {
-            if (str.charAt(i) >128)
+            if (chars[i] > 128)
             {
                 return false;
             }
@@ -91,55 +241,163 @@ public class TextUtils {
      */
     public static boolean isAllNum(String str)
     {
-
         if (str == null)
             return false;
+        return isAllNum((CharSequence) str);
+    }
 
-        int i = 0;
-        /* 判断开头是否是+-之类的符号 */
-        if ("±+-＋－—".indexOf(str.charAt(0)) != -1)
-            i++;
-        /** 如果是全角的０１２３４５６７８９ 字符* */
-        while (i < str.length() && "０１２３４５６７８９".indexOf(str.charAt(i)) != -1)
-            i++;
-        // Get middle delimiter such as .
-        if (i > 0 && i < str.length())
+    /**
+     * 字符序列是否全是数字，如 98．1％、3百万、-12.5
+     * @param str 输入字符序列
+     * @return  true 字符串全部为数字， false 不全为数字
+     */
+    public static boolean isAllNum(CharSequence str)
+    {
+        int len = str.length();
+        if (len == 0)
+            return false;
+        int state = NUM_BEGIN;
+        for (int i = 0; i < len && state != NUM_REJECT; i++)
         {
-            char ch = str.charAt(i);
-            if ("·∶:，,．.／/".indexOf(ch) != -1)
-            {// 98．1％
-                i++;
-                while (i < str.length() && "０１２３４５６７８９".indexOf(str.charAt(i)) != -1)
-                    i++;
-            }
+            state = nextNumState(state, CHAR_TYPE[str.charAt(i)], i);
         }
-        if (i >= str.length())
-            return true;
+        return state != NUM_REJECT;
+    }
 
-        /** 如果是半角的0123456789字符* */
-        while (i < str.length() && "0123456789".indexOf(str.charAt(i)) != -1)
-            i++;
-        // Get middle delimiter such as .
-        if (i > 0 && i < str.length())
+    /**
+     * 字符数组片段是否全是数字
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true 片段全部为数字
+     */
+    public static boolean isAllNum(char[] chars, int offset, int length)
+    {
+        if (length == 0)
+            return false;
+        int state = NUM_BEGIN;
+        for (int i = 0; i < length && state != NUM_REJECT; i++)
         {
-            char ch = str.charAt(i);
-            if (',' == ch || '.' == ch || '/' == ch  || ':' == ch || "∶·，．／".indexOf(ch) != -1)
-            {// 98．1％
-                i++;
-                while (i < str.length() && "0123456789".indexOf(str.charAt(i)) != -1)
-                    i++;
-            }
+            state = nextNumState(state, CHAR_TYPE[chars[offset + i]], i);
         }
+        return state != NUM_REJECT;
+    }
 
-        if (i < str.length())
+    /**
+     * 一次扫描同时计算多个判断结果，返回 PROFILE_* 标记按位或的结果
+     *
+     * @param str 输入字符序列
+     * @return 标记位，如 (profile(s) &amp; PROFILE_ALL_CHINESE) != 0 表示全部为中文
+     */
+    public static int profile(CharSequence str)
+    {
+        int len = str.length();
+        if (len == 0)
+            return PROFILE_ALL_SINGLE_BYTE;
+        int all = CT_CHINESE;
+        int any = 0;
+        boolean singleByte = true;
+        int state = NUM_BEGIN;
+        for (int i = 0; i < len; i++)
         {
-            if ("百千万亿佰仟%％‰".indexOf(str.charAt(i)) != -1)
-                i++;
+            char c = str.charAt(i);
+            int type = CHAR_TYPE[c];
+            all &= type;
+            any |= type;
+            if (c > 128) singleByte = false;
+            if (state != NUM_REJECT) state = nextNumState(state, type, i);
         }
-        if (i >= str.length())
-            return true;
+        return profileFlags(all, any, singleByte, state);
+    }
 
-        return false;
+    /**
+     * 字符数组片段版本的 profile
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return 标记位
+     */
+    public static int profile(char[] chars, int offset, int length)
+    {
+        if (length == 0)
+            return PROFILE_ALL_SINGLE_BYTE;
+        int all = CT_CHINESE;
+        int any = 0;
+        boolean singleByte = true;
+        int state = NUM_BEGIN;
+        for (int i = 0; i < length; i++)
+        {
+            char c = chars[offset + i];
+            int type = CHAR_TYPE[c];
+            all &= type;
+            any |= type;
+            if (c > 128) singleByte = false;
+            if (state != NUM_REJECT) state = nextNumState(state, type, i);
+        }
+        return profileFlags(all, any, singleByte, state);
+    }
+
+    private static int profileFlags(int all, int any, boolean singleByte, int numState)
+    {
+        int flags = 0;
+        if ((all & CT_CHINESE) != 0) flags |= PROFILE_ALL_CHINESE;
+        if (numState != NUM_REJECT) flags |= PROFILE_ALL_NUMBER;
+        if (singleByte) flags |= PROFILE_ALL_SINGLE_BYTE;
+        if ((any & CT_CJK) != 0) flags |= PROFILE_HAS_CJK;
+        return flags;
+    }
+
+    /**
+     * isAllNum 的状态机：
+     * [符号] 全角数字* [分隔符 全角数字*] 半角数字* [分隔符 半角数字*] [后缀]
+     */
+    private static final int NUM_BEGIN = 0;
+    private static final int NUM_FULL = 1;
+    private static final int NUM_FULL_FRACTION = 2;
+    private static final int NUM_HALF = 3;
+    private static final int NUM_HALF_FRACTION = 4;
+    private static final int NUM_SUFFIX = 5;
+    private static final int NUM_END = 6;
+    private static final int NUM_REJECT = 7;
+
+    /**
+     * 状态转移，当前状态不接受该字符时顺延到下一个状态，与原先逐段 indexOf 的判断等价
+     *
+     * @param state 当前状态
+     * @param type  当前字符在 CHAR_TYPE 中的类型
+     * @param index 当前字符的下标，分隔符不能出现在开头
+     * @return 下一个状态
+     */
+    @SuppressWarnings("fallthrough")
+    private static int nextNumState(int state, int type, int index)
+    {
+        switch (state)
+        {
+            case NUM_BEGIN:
+                if ((type & CT_SIGN) != 0) return NUM_FULL;
+                // fall through
+            case NUM_FULL:
+                if ((type & CT_FULL_DIGIT) != 0) return NUM_FULL;
+                if ((type & CT_DELIMITER) != 0 && index > 0) return NUM_FULL_FRACTION;
+                return nextNumState(NUM_HALF, type, index);
+            case NUM_FULL_FRACTION:
+                if ((type & CT_FULL_DIGIT) != 0) return NUM_FULL_FRACTION;
+                // fall through
+            case NUM_HALF:
+                if ((type & CT_HALF_DIGIT) != 0) return NUM_HALF;
+                if ((type & CT_DELIMITER) != 0 && index > 0) return NUM_HALF_FRACTION;
+                return nextNumState(NUM_SUFFIX, type, index);
+            case NUM_HALF_FRACTION:
+                if ((type & CT_HALF_DIGIT) != 0) return NUM_HALF_FRACTION;
+                // fall through
+            case NUM_SUFFIX:
+                if ((type & CT_SUFFIX) != 0) return NUM_END;
+                // fall through
+            default:
+                return NUM_REJECT;
+        }
     }
 
 
@@ -159,38 +417,81 @@ public class TextUtils {
 
 
     /**
-     * 判断字符串是否是年份
+     * 判断字符串是否是年份，一般用于“年”字之前的部分，如 1992年、98年、１９９８年、一九九八年、二仟零二年、甲子年
      *
-     * @param snum
-     * @return
+     * @param snum 年份部分的字符串
+     * @return true 是年份
      */
-//    public static boolean isYearTime(String snum)
-//    {
-//        if (snum != null)
-//        {
-//            int len = snum.length();
-//            String first = snum.substring(0, 1);
-//
-//            // 1992年, 98年,06年
-//            if (isAllSingleByte(snum)
-//                    && (len == 4 || len == 2 && (cint(first) > 4 || cint(first) == 0)))
-//                return true;
-//            if (isAllNum(snum) && (len >= 3 || len == 2 && "０５６７８９".indexOf(first) != -1))
-//                return true;
-//            if (getCharCount("零○一二三四五六七八九壹贰叁肆伍陆柒捌玖", snum) == len && len >= 2)
-//                return true;
-//            if (len == 4 && getCharCount("千仟零○", snum) == 2)// 二仟零二年
-//                return true;
-//            if (len == 1 && getCharCount("千仟", snum) == 1)
-//                return true;
-//            if (len == 2 && getCharCount("甲乙丙丁戊己庚辛壬癸", snum) == 1
-//                    && getCharCount("子丑寅卯辰巳午未申酉戌亥", snum.substring(1)) == 1)
-//                return true;
-//        }
-//        return false;
-//    }
+    public static boolean isYearTime(CharSequence snum)
+    {
+        if (snum == null)
+            return false;
+        return isYearTime(null, snum, 0, snum.length());
+    }
+
+    /**
+     * 判断字符数组片段是否是年份
+     *
+     * @param chars  字符数组
+     * @param offset 起始下标
+     * @param length 片段长度
+     * @return true 是年份
+     */
+    public static boolean isYearTime(char[] chars, int offset, int length)
+    {
+        return isYearTime(chars, null, offset, length);
+    }
 
+    private static final String YEAR_CHINESE_DIGITS = "零○一二三四五六七八九壹贰叁肆伍陆柒捌玖";
+    private static final String HEAVENLY_STEMS = "甲乙丙丁戊己庚辛壬癸";
+    private static final String EARTHLY_BRANCHES = "子丑寅卯辰巳午未申酉戌亥";
 
+    /**
+     * 规则与原实现相同：全为单字节、isAllNum、中文数字个数、“千仟零○”个数、天干地支
+     */
+    private static boolean isYearTime(char[] chars, CharSequence text, int offset, int length)
+    {
+        if (length == 0)
+            return false;
+        char first = chars != null ? chars[offset] : text.charAt(offset);
+        int chineseDigits = 0, thousands = 0, thousandOrZero = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            char c = chars != null ? chars[i] : text.charAt(i);
+            if (YEAR_CHINESE_DIGITS.indexOf(c) != -1) chineseDigits++;
+            if (c == '千' || c == '仟')
+            {
+                thousands++;
+                thousandOrZero++;
+            }
+            else if (c == '零' || c == '○') thousandOrZero++;
+        }
+
+        // 1992年, 98年, 06年：两位时首字符须为数字0或5-9
+        boolean singleByte = chars != null ? isAllSingleByte(chars, offset, length) : isAllSingleByte(text);
+        if (singleByte && (length == 4 || length == 2 && (first > '4' && first <= '9' || first == '0')))
+            return true;
+        // １９９８年, 123年
+        boolean allNum = chars != null ? isAllNum(chars, offset, length) : isAllNum(text);
+        if (allNum && (length >= 3 || length == 2 && "０５６７８９".indexOf(first) != -1))
+            return true;
+        // 一九九八年
+        if (chineseDigits == length && length >= 2)
+            return true;
+        // 二仟零二年
+        if (length == 4 && thousandOrZero == 2)
+            return true;
+        // 千年
+        if (length == 1 && thousands == 1)
+            return true;
+        // 甲子年
+        if (length == 2 && HEAVENLY_STEMS.indexOf(first) != -1)
+        {
+            char second = chars != null ? chars[offset + 1] : text.charAt(offset + 1);
+            return EARTHLY_BRANCHES.indexOf(second) != -1;
+        }
+        return false;
+    }
 
 
     public static void main(String[] args) {
@@ -0,0 +1,171 @@
+package utils;
+
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对重复错误进行去重和限流的日志包装器。<br>
+ * 同一个key（通常是文件路径）在一个时间窗口内只输出一次日志，其余的只计数，
+ * 在下一个窗口第一次输出时附带被抑制的次数；异常交给SLF4J输出，调用栈过深时输出截断后的副本，原异常不受影响。<br>
+ * 判断是否需要输出只涉及一次哈希表查找和CAS操作，大量重复错误时不会阻塞调用线程。
+ *
+ * @Author lizhen
+ * @Date 2026年10月18日11:30 上午
+ */
+public class ThrottledLogger {
+
+    /**
+     * 默认的时间窗口，10秒
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 10000;
+    /**
+     * 默认保留的调用栈深度
+     */
+    public static final int DEFAULT_MAX_STACK_DEPTH = 16;
+    /**
+     * 最多跟踪的key数量，超过后清空重新计数，避免路径过多时内存无限增长
+     */
+    static final int MAX_KEYS = 4096;
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final int maxStackDepth;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<String, Window>();
+
+    /**
+     * 每个key的时间窗口
+     */
+    private static class Window {
+        final AtomicLong start;
+        final AtomicInteger suppressed = new AtomicInteger();
+
+        Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+
+    public ThrottledLogger(Logger logger) {
+        this(logger, DEFAULT_INTERVAL_MILLIS, DEFAULT_MAX_STACK_DEPTH);
+    }
+
+    /**
+     * @param logger         实际输出日志的SLF4J Logger
+     * @param intervalMillis 同一个key两次输出之间的最小间隔，单位毫秒
+     * @param maxStackDepth  异常调用栈最多保留的层数
+     */
+    public ThrottledLogger(Logger logger, long intervalMillis, int maxStackDepth) {
+        this.logger = logger;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    /**
+     * 输出一条错误日志
+     *
+     * @param key    去重的key，如文件路径
+     * @param format SLF4J格式的消息，如 "文件不存在:{}"
+     * @param arg    消息参数
+     */
+    public void error(String key, String format, Object arg) {
+        error(key, format, arg, null);
+    }
+
+    /**
+     * 输出一条带异常的错误日志
+     *
+     * @param key    去重的key，如文件路径
+     * @param format SLF4J格式的消息，如 "读取{}失败"
+     * @param arg    消息参数
+     * @param t      异常，可以为null
+     */
+    public void error(String key, String format, Object arg, Throwable t) {
+        if (!logger.isErrorEnabled()) return;
+        int suppressed = acquire(key);
+        if (suppressed < 0) return;
+        if (suppressed > 0) {
+            format = format + "（此前" + TimeUnit.NANOSECONDS.toSeconds(intervalNanos) + "秒内重复" + suppressed + "次，已省略）";
+        }
+        if (t == null) {
+            logger.error(format, arg);
+        } else {
+            logger.error(format, arg, capStackDepth(t, maxStackDepth));
+        }
+    }
+
+    /**
+     * 判断当前是否应该输出
+     *
+     * @param key 去重的key
+     * @return 小于0表示应当抑制，否则为上一个窗口内被抑制的次数
+     */
+    private int acquire(String key) {
+        if (key == null) key = "";
+        long now = System.nanoTime();
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= MAX_KEYS) windows.clear();
+            window = windows.putIfAbsent(key, new Window(now));
+            if (window == null) return 0;
+        }
+        long start = window.start.get();
+        if (now - start < intervalNanos || !window.start.compareAndSet(start, now)) {
+            window.suppressed.incrementAndGet();
+            return -1;
+        }
+        return window.suppressed.getAndSet(0);
+    }
+
+    /**
+     * 生成截断了调用栈的副本，异常及其cause本身不做修改，调用方之后重新抛出或再次记录时仍有完整的调用栈
+     *
+     * @param t        异常
+     * @param maxDepth 最多保留的层数
+     * @return 调用栈不超过maxDepth层时返回t本身，否则返回副本
+     */
+    public static Throwable capStackDepth(Throwable t, int maxDepth) {
+        boolean deep = false;
+        Throwable cause = t;
+        for (int i = 0; cause != null && i < MAX_CAUSES; i++, cause = cause.getCause()) {
+            if (cause.getStackTrace().length > maxDepth) deep = true;
+        }
+        return deep ? copy(t, maxDepth, 0) : t;
+    }
+
+    private static final int MAX_CAUSES = 8; // 防止cause成环
+
+    private static Throwable copy(Throwable t, int maxDepth, int depth) {
+        Throwable cause = t.getCause();
+        Throwable causeCopy = cause == null || cause == t || depth + 1 >= MAX_CAUSES ? null : copy(cause, maxDepth, depth + 1);
+        StackTraceElement[] trace = t.getStackTrace();
+        return new TruncatedThrowable(t.toString(), causeCopy, trace.length > maxDepth ? Arrays.copyOf(trace, maxDepth) : trace);
+    }
+
+    /**
+     * 截断后的异常副本，输出时与原异常的类名和消息相同
+     */
+    private static class TruncatedThrowable extends Throwable {
+        private static final long serialVersionUID = 1L;
+        private final String description;
+
+        TruncatedThrowable(String description, Throwable cause, StackTraceElement[] trace) {
+            super(description, cause, false, true);
+            this.description = description;
+            setStackTrace(trace);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package utils;
+
+/**
+ * 直接在UTF-8字节上做字符判断，不解码成String。<br>
+ * UTF-8的首字节决定了字符的字节数：0xxxxxxx 为ASCII，110xxxxx、1110xxxx、11110xxx 分别为2、3、4字节，
+ * 10xxxxxx 为后续字节。中日韩字符都在3字节区，按首字节即可排除绝大部分非中日韩字符。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日2:30 上午
+ */
+public class Utf8Utils {
+
+    /**
+     * 首字节对应的字节数，0表示后续字节或非法首字节
+     */
+    private static final byte[] SEQUENCE_LENGTH = new byte[256];
+
+    static {
+        for (int b = 0; b < 0x80; b++) SEQUENCE_LENGTH[b] = 1;
+        for (int b = 0xC2; b < 0xE0; b++) SEQUENCE_LENGTH[b] = 2;
+        for (int b = 0xE0; b < 0xF0; b++) SEQUENCE_LENGTH[b] = 3;
+        for (int b = 0xF0; b < 0xF5; b++) SEQUENCE_LENGTH[b] = 4;
+    }
+
+    /**
+     * @param lead 首字节
+     * @return 字符的字节数，lead 是后续字节或非法时返回0
+     */
+    public static int sequenceLength(byte lead) {
+        return SEQUENCE_LENGTH[lead & 0xFF];
+    }
+
+    public static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * 解码offset处的一个字符，不检查后续字节是否合法
+     *
+     * @return 码点，offset处不是首字节或字节不够时返回-1
+     */
+    public static int codePointAt(byte[] bytes, int offset, int end) {
+        int lead = bytes[offset] & 0xFF;
+        switch (SEQUENCE_LENGTH[lead]) {
+            case 1:
+                return lead;
+            case 2:
+                if (offset + 2 > end) return -1;
+                return (lead & 0x1F) << 6 | (bytes[offset + 1] & 0x3F);
+            case 3:
+                if (offset + 3 > end) return -1;
+                return (lead & 0x0F) << 12 | (bytes[offset + 1] & 0x3F) << 6 | (bytes[offset + 2] & 0x3F);
+            case 4:
+                if (offset + 4 > end) return -1;
+                return (lead & 0x07) << 18 | (bytes[offset + 1] & 0x3F) << 12 | (bytes[offset + 2] & 0x3F) << 6 | (bytes[offset + 3] & 0x3F);
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return 下一个字符的首字节位置，遇到非法字节时前进1字节
+     */
+    public static int nextCharOffset(byte[] bytes, int offset, int end) {
+        int n = SEQUENCE_LENGTH[bytes[offset] & 0xFF];
+        return n == 0 ? offset + 1 : Math.min(offset + n, end);
+    }
+
+    /**
+     * @return [offset, end)中的字符数
+     */
+    public static int charCount(byte[] bytes, int offset, int end) {
+        int count = 0;
+        for (int i = offset; i < end; i++) {
+            if ((bytes[i] & 0xC0) != 0x80) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 同 CharacterUtils.isSpaceLetter，不间断空格在UTF-8中为 C2 A0
+     */
+    public static boolean isSpaceLetter(byte[] bytes, int offset, int end) {
+        byte b = bytes[offset];
+        if (b == 8 || b == 9 || b == 10 || b == 13 || b == 32) return true;
+        return b == (byte) 0xC2 && offset + 1 < end && bytes[offset + 1] == (byte) 0xA0;
+    }
+
+    public static boolean isEnglishLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    public static boolean isArabicNumber(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * 与 CharacterUtils.isCJKCharacter 的范围相同（中日韩统一表意文字及兼容、扩展A，全角半角形式，谚文，平假名，片假名），
+     * 这些区块都是3字节字符，首字节在 E1-EF 之外的直接返回false
+     */
+    public static boolean isCJKCharacter(byte[] bytes, int offset, int end) {
+        int lead = bytes[offset] & 0xFF;
+        if (lead < 0xE1 || lead > 0xEF || offset + 3 > end) return false;
+        int c = (lead & 0x0F) << 12 | (bytes[offset + 1] & 0x3F) << 6 | (bytes[offset + 2] & 0x3F);
+        return (c >= 0x4E00 && c <= 0x9FFF)
+                || (c >= 0xF900 && c <= 0xFAFF)
+                || (c >= 0x3400 && c <= 0x4DBF)
+                //全角数字字符和日韩字符
+                || (c >= 0xFF00 && c <= 0xFFEF)
+                //韩文字符集
+                || (c >= 0xAC00 && c <= 0xD7AF)
+                || (c >= 0x1100 && c <= 0x11FF)
+                || (c >= 0x3130 && c <= 0x318F)
+                //日文字符集：平假名、片假名、片假名语音扩展
+                || (c >= 0x3040 && c <= 0x30FF)
+                || (c >= 0x31F0 && c <= 0x31FF);
+    }
+}
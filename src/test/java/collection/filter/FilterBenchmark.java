@@ -0,0 +1,74 @@
+package collection.filter;
+
+import collection.trie.DoubleArrayTrie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 过滤器的误判率与查询耗时基准，不在单元测试中运行：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=collection.filter.FilterBenchmark -Dexec.args="1000000"
+ * </pre>
+ * 用同一份有序词表构建双数组trie树和过滤器，比较未命中查询的耗时：单独查trie树、先查过滤器再查trie树。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日9:20 下午
+ */
+public class FilterBenchmark {
+
+    private static String randomWord(Random random) {
+        int length = 2 + random.nextInt(3);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = (char) (0x4E00 + random.nextInt(5000));
+        return new String(chars);
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        Random random = new Random(1);
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < size; i++) words.add(randomWord(random));
+        Collections.sort(words);
+        List<String> sorted = new ArrayList<String>();
+        for (String word : words) if (sorted.isEmpty() || !sorted.get(sorted.size() - 1).equals(word)) sorted.add(word);
+
+        DoubleArrayTrie<Object> trie = new DoubleArrayTrie<Object>();
+        trie.build(sorted, null);
+        IFilter[] filters = {
+                BlockedBloomFilter.build(sorted, sorted.size(), 10),
+                BlockedBloomFilter.build(sorted, sorted.size(), 16),
+                CuckooFilter.build(sorted, sorted.size())
+        };
+        String[] names = {"bloom(10 bits/key)", "bloom(16 bits/key)", "cuckoo(16 bit fp)"};
+
+        // 查询中约90%未命中，接近分词时的情况
+        char[][] probes = new char[1000000][];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = (random.nextInt(10) == 0 ? sorted.get(random.nextInt(sorted.size())) : randomWord(random)).toCharArray();
+        }
+        System.out.printf("%d keys, %d probes%n", sorted.size(), probes.length);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int hits = 0;
+            for (char[] probe : probes) if (trie.exactMatchSearch(probe, 0, probe.length) >= 0) hits++;
+            System.out.printf("trie only: %.1f ns/probe, hits=%d%n", (System.nanoTime() - start) / (double) probes.length, hits);
+            for (int f = 0; f < filters.length; f++) {
+                IFilter filter = filters[f];
+                start = System.nanoTime();
+                hits = 0;
+                int positives = 0;
+                for (char[] probe : probes) {
+                    if (!filter.mightContain(probe, 0, probe.length)) continue;
+                    positives++;
+                    if (trie.exactMatchSearch(probe, 0, probe.length) >= 0) hits++;
+                }
+                double fpr = (double) (positives - hits) / (probes.length - hits);
+                System.out.printf("%s + trie: %.1f ns/probe, hits=%d, fpr=%.5f, %d KB%n", names[f],
+                        (System.nanoTime() - start) / (double) probes.length, hits, fpr, filter.memoryUsage() >> 10);
+            }
+        }
+    }
+}
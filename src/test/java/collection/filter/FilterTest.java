@@ -0,0 +1,83 @@
+package collection.filter;
+
+import common.io.ByteArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日9:10 下午
+ */
+public class FilterTest {
+
+    static List<String> keys(String prefix, int count) {
+        List<String> keys = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) keys.add(prefix + i);
+        return keys;
+    }
+
+    private static double falsePositiveRate(IFilter filter, int probes) {
+        int positives = 0;
+        for (String key : keys("不存在", probes)) if (filter.mightContain(key)) positives++;
+        return (double) positives / probes;
+    }
+
+    private static ByteArray roundTrip(IFilter filter) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Assert.assertTrue(filter.save(new DataOutputStream(bytes)));
+        return new ByteArray(bytes.toByteArray());
+    }
+
+    @Test
+    public void testBloomFilter() {
+        List<String> keys = keys("词", 100000);
+        BlockedBloomFilter filter = BlockedBloomFilter.build(keys, keys.size(), 10);
+        Assert.assertEquals(keys.size(), filter.size());
+        char[] buffer = ("前缀" + keys.get(123) + "后缀").toCharArray();
+        Assert.assertTrue(filter.mightContain(buffer, 2, keys.get(123).length()));
+        for (String key : keys) Assert.assertTrue(filter.mightContain(key));
+        double rate = falsePositiveRate(filter, 100000);
+        Assert.assertTrue("false positive rate " + rate, rate < 0.02);
+
+        BlockedBloomFilter loaded = BlockedBloomFilter.load(roundTrip(filter));
+        for (String key : keys) Assert.assertTrue(loaded.mightContain(key));
+        Assert.assertEquals(rate, falsePositiveRate(loaded, 100000), 0);
+    }
+
+    @Test
+    public void testCuckooFilter() {
+        List<String> keys = keys("词", 100000);
+        CuckooFilter filter = CuckooFilter.build(keys, keys.size());
+        Assert.assertNotNull(filter);
+        Assert.assertTrue(filter.loadFactor() > 0.7);
+        for (String key : keys) Assert.assertTrue(filter.mightContain(key));
+        double rate = falsePositiveRate(filter, 100000);
+        Assert.assertTrue("false positive rate " + rate, rate < 0.001);
+
+        CuckooFilter loaded = CuckooFilter.load(roundTrip(filter));
+        for (String key : keys) Assert.assertTrue(loaded.mightContain(key));
+
+        for (int i = 0; i < keys.size(); i += 2) Assert.assertTrue(filter.remove(keys.get(i)));
+        Assert.assertEquals(keys.size() / 2, filter.size());
+        for (int i = 1; i < keys.size(); i += 2) Assert.assertTrue(filter.mightContain(keys.get(i)));
+    }
+
+    @Test
+    public void testCuckooFilterFull() {
+        CuckooFilter filter = new CuckooFilter(1000);
+        List<String> keys = keys("词", 10000);
+        int added = 0;
+        for (String key : keys) {
+            if (!filter.put(key)) break;
+            added++;
+        }
+        Assert.assertTrue(added < keys.size());
+        // 已满时也不能漏判
+        for (int i = 0; i < added; i++) Assert.assertTrue(filter.mightContain(keys.get(i)));
+    }
+}
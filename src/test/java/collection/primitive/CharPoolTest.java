@@ -0,0 +1,59 @@
+package collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日10:40 上午
+ */
+public class CharPoolTest {
+
+    @Test
+    public void testIntern() {
+        CharPool pool = new CharPool(4);
+        long a = pool.intern("研究");
+        long b = pool.intern("生命");
+        char[] text = "我们研究生命".toCharArray();
+        Assert.assertEquals(a, pool.intern(text, 2, 2));
+        Assert.assertEquals(b, pool.get(text, 4, 2));
+        Assert.assertEquals(CharPool.NOT_FOUND, pool.get("起源"));
+        Assert.assertEquals("研究", pool.toString(a));
+        Assert.assertEquals(2, CharPool.length(b));
+        Assert.assertEquals('命', pool.charAt(b, 1));
+        Assert.assertEquals(2, pool.size());
+
+        long copy = pool.append(text, 2, 2);
+        Assert.assertNotEquals(a, copy);
+        Assert.assertTrue(pool.equals(a, copy));
+        Assert.assertEquals(pool.hash(a), pool.hash(copy));
+        Assert.assertEquals(0, pool.compare(a, copy));
+    }
+
+    @Test
+    public void testManyKeysAndSort() {
+        CharPool pool = new CharPool();
+        Random random = new Random(7);
+        String[] words = new String[200000];
+        long[] handles = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            char[] chars = new char[1 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) chars[j] = (char) ('a' + random.nextInt(26));
+            words[i] = new String(chars);
+            handles[i] = pool.intern(chars, 0, chars.length);
+        }
+        for (int i = 0; i < words.length; i++) {
+            Assert.assertEquals(words[i], pool.toString(handles[i]));
+            Assert.assertEquals(handles[i], pool.get(words[i]));
+        }
+        pool.sort(handles, 0, handles.length);
+        String[] sorted = words.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            Assert.assertEquals(sorted[i], pool.toString(handles[i]));
+        }
+    }
+}
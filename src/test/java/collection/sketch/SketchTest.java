@@ -0,0 +1,162 @@
+package collection.sketch;
+
+import common.io.ByteArray;
+import common.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日10:50 下午
+ */
+public class SketchTest {
+
+    /**
+     * 近似Zipf分布的词流：第i个词的概率约与 1 / (i + 1) 成正比
+     */
+    private static List<String> zipfStream(int vocabulary, int length, long seed) {
+        Random random = new Random(seed);
+        double[] cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int i = 0; i < vocabulary; i++) cumulative[i] = sum += 1.0 / (i + 1);
+        List<String> stream = new ArrayList<String>(length);
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            stream.add("词" + (index >= 0 ? index : -index - 1));
+        }
+        return stream;
+    }
+
+    private static Map<String, Long> exactCounts(List<String> stream) {
+        Map<String, Long> counts = new HashMap<String, Long>();
+        for (String word : stream) {
+            Long count = counts.get(word);
+            counts.put(word, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    private static ByteArray serialize(Object sketch) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (sketch instanceof CountMinSketch) Assert.assertTrue(((CountMinSketch) sketch).save(out));
+        if (sketch instanceof SpaceSaving) Assert.assertTrue(((SpaceSaving) sketch).save(out));
+        if (sketch instanceof HyperLogLog) Assert.assertTrue(((HyperLogLog) sketch).save(out));
+        if (sketch instanceof NgramSketch) Assert.assertTrue(((NgramSketch) sketch).save(out));
+        return new ByteArray(bytes.toByteArray());
+    }
+
+    @Test
+    public void testCountMinSketch() throws Exception {
+        List<String> stream = zipfStream(50000, 200000, 1);
+        Map<String, Long> exact = exactCounts(stream);
+        CountMinSketch left = CountMinSketch.withError(0.0005, 0.01);
+        CountMinSketch right = CountMinSketch.withError(0.0005, 0.01);
+        for (int i = 0; i < stream.size(); i++) (i % 2 == 0 ? left : right).add(stream.get(i), 1);
+        left.merge(right);
+        Assert.assertEquals(stream.size(), left.totalCount());
+        int withinBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = left.estimate(entry.getKey());
+            Assert.assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() <= 0.0005 * stream.size()) withinBound++;
+        }
+        Assert.assertTrue(withinBound >= 0.99 * exact.size());
+        CountMinSketch loaded = CountMinSketch.load(serialize(left));
+        Assert.assertEquals(left.estimate("词0"), loaded.estimate("词0"));
+    }
+
+    @Test
+    public void testSpaceSaving() throws Exception {
+        List<String> stream = zipfStream(50000, 200000, 2);
+        final Map<String, Long> exact = exactCounts(stream);
+        List<String> expected = new ArrayList<String>(exact.keySet());
+        Collections.sort(expected, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Long.compare(exact.get(b), exact.get(a));
+            }
+        });
+        SpaceSaving left = new SpaceSaving(500);
+        SpaceSaving right = new SpaceSaving(500);
+        for (int i = 0; i < stream.size(); i++) (i < stream.size() / 2 ? left : right).offer(stream.get(i), 1);
+        left.merge(right);
+        Assert.assertEquals(stream.size(), left.totalCount());
+        List<SpaceSaving.Entry> top = left.top(10);
+        for (int i = 0; i < 10; i++) {
+            SpaceSaving.Entry entry = top.get(i);
+            long truth = exact.get(entry.getKey());
+            Assert.assertTrue(entry.getCount() >= truth && entry.getGuaranteedCount() <= truth);
+        }
+        for (int i = 0; i < 5; i++) Assert.assertEquals(expected.get(i), top.get(i).getKey());
+
+        SpaceSaving loaded = SpaceSaving.load(serialize(left));
+        Assert.assertEquals(top.toString(), loaded.top(10).toString());
+        loaded.offer("新词", 1);
+        Assert.assertEquals(left.size(), loaded.size());
+    }
+
+    @Test
+    public void testHyperLogLog() throws Exception {
+        HyperLogLog left = new HyperLogLog(14);
+        HyperLogLog right = new HyperLogLog(14);
+        Assert.assertEquals(0, left.cardinality());
+        for (int i = 0; i < 100; i++) left.add("词" + i);
+        Assert.assertEquals(100, left.cardinality(), 3);
+        for (int i = 0; i < 150000; i++) left.add("词" + i);
+        for (int i = 100000; i < 300000; i++) right.add("词" + i);
+        left.merge(right);
+        Assert.assertEquals(300000, left.cardinality(), 300000 * 0.03);
+        Assert.assertEquals(left.cardinality(), HyperLogLog.load(serialize(left)).cardinality());
+    }
+
+    @Test
+    public void testNgramSketch() throws Exception {
+        List<String> paths = new ArrayList<String>();
+        NgramSketch sequential = new NgramSketch(1, 2, 1 << 12, 4, 100, 12);
+        for (int f = 0; f < 3; f++) {
+            File file = File.createTempFile("ngram", ".txt");
+            paths.add(file.getPath());
+            BufferedWriter writer = IOUtil.newBufferedWriter(file.getPath());
+            for (int i = 0; i < 1000; i++) {
+                String line = "今天天气很好 ＡＢ" + (i % 7) + " 文件" + f;
+                writer.write(line);
+                writer.newLine();
+                sequential.add(line);
+            }
+            writer.close();
+        }
+        NgramSketch parallel = sequential.newEmpty();
+        Assert.assertEquals(3000, parallel.addFiles(paths, 3));
+        Assert.assertEquals(sequential.totalCount(), parallel.totalCount());
+        Assert.assertEquals(sequential.distinctCount(), parallel.distinctCount());
+        Assert.assertEquals(sequential.count("天气"), parallel.count("天气"));
+        Assert.assertTrue(parallel.count("天气") >= 3000);
+        Assert.assertTrue(parallel.count("ab") >= 3000);
+        Assert.assertEquals("天", parallel.top(1).get(0).getKey());
+
+        // 线程少于文件时每个线程统计多个文件
+        NgramSketch shared = sequential.newEmpty();
+        Assert.assertEquals(3000, shared.addFiles(paths, 2));
+        Assert.assertEquals(sequential.totalCount(), shared.totalCount());
+        Assert.assertEquals(sequential.count("天气"), shared.count("天气"));
+
+        NgramSketch loaded = NgramSketch.load(serialize(parallel));
+        Assert.assertEquals(parallel.distinctCount(), loaded.distinctCount());
+        Assert.assertEquals(parallel.top(5).toString(), loaded.top(5).toString());
+        for (String path : paths) new File(path).delete();
+    }
+}
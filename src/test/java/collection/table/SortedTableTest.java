@@ -0,0 +1,107 @@
+package collection.table;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日1:40 上午
+ */
+public class SortedTableTest {
+
+    private static TreeMap<String, String> entries(int count) {
+        TreeMap<String, String> entries = new TreeMap<String, String>();
+        Random random = new Random(7);
+        String[] heads = {"中国", "中华", "人民", "北京", "abc", "ＡＢＣ"};
+        while (entries.size() < count) {
+            String key = heads[random.nextInt(heads.length)] + random.nextInt(count * 4);
+            char[] value = new char[random.nextInt(40)];
+            Arrays.fill(value, (char) ('a' + random.nextInt(26)));
+            entries.put(key, "值" + new String(value));
+        }
+        // 超过块大小的值
+        char[] large = new char[10000];
+        Arrays.fill(large, '长');
+        entries.put("中国0大值", new String(large));
+        return entries;
+    }
+
+    private static File build(TreeMap<String, String> entries, int blockSize, int bitsPerKey) throws IOException {
+        File file = File.createTempFile("table", ".sst");
+        file.deleteOnExit();
+        SortedTableBuilder builder = new SortedTableBuilder(file.getPath(), blockSize, entries.size(), bitsPerKey);
+        for (Map.Entry<String, String> entry : entries.entrySet()) builder.add(entry.getKey(), entry.getValue());
+        Assert.assertTrue(builder.finish());
+        return file;
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        TreeMap<String, String> entries = entries(20000);
+        File file = build(entries, 256, 10);
+        SortedTable table = SortedTable.open(file.getPath());
+        Assert.assertNotNull(table);
+        Assert.assertEquals(entries.size(), table.size());
+        Assert.assertTrue(table.blockCount() > 100);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            Assert.assertEquals(entry.getValue(), table.getString(entry.getKey()));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertNull(table.get("不存在" + i));
+            Assert.assertFalse(table.containsKey("中国" + i + "x"));
+        }
+        Assert.assertNull(table.get(""));
+        Assert.assertNull(table.get("￿"));
+        Assert.assertTrue(table.cacheStats().getHits() > 0);
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        TreeMap<String, String> entries = entries(5000);
+        SortedTable table = SortedTable.open(build(entries, 512, 0).getPath(), 0);
+        for (String prefix : new String[]{"中", "中国1", "人民", "abc9", "ＡＢＣ", "不存在", ""}) {
+            final List<String> keys = new ArrayList<String>();
+            int count = table.scan(prefix, new SortedTable.EntryHandler() {
+                @Override
+                public boolean onEntry(String key, byte[] value) {
+                    keys.add(key);
+                    return true;
+                }
+            });
+            List<String> expected = new ArrayList<String>(entries.subMap(prefix, prefix + Character.MAX_VALUE).keySet());
+            Assert.assertEquals(expected, keys);
+            Assert.assertEquals(expected.size(), count);
+        }
+        List<String> first = new ArrayList<String>(entries.subMap("中国", "中国" + Character.MAX_VALUE).keySet()).subList(0, 3);
+        Assert.assertEquals(first, table.keysWithPrefix("中国", 3));
+    }
+
+    @Test
+    public void testRegions() throws IOException {
+        TreeMap<String, String> entries = entries(3000);
+        SortedTable table = SortedTable.open(build(entries, 128, 8).getPath(), 1 << 16, 4096);
+        Assert.assertTrue(table.regionCount() > 10);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            Assert.assertEquals(entry.getValue(), table.getString(entry.getKey()));
+        }
+        Assert.assertEquals(entries.size(), table.keysWithPrefix("", Integer.MAX_VALUE).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() throws IOException {
+        File file = File.createTempFile("table", ".sst");
+        file.deleteOnExit();
+        SortedTableBuilder builder = new SortedTableBuilder(file.getPath(), 4096, 10, 10);
+        builder.add("b", "1");
+        builder.add("a", "2");
+    }
+}
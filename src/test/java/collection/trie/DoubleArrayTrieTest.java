@@ -0,0 +1,96 @@
+package collection.trie;
+
+import common.io.ByteArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日6:50 下午
+ */
+public class DoubleArrayTrieTest {
+
+    private static TreeMap<String, Integer> dictionary() {
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        String[] words = {"中", "中国", "中国人", "中华", "人民", "人民币", "共和国", "a", "ab", "abc"};
+        for (int i = 0; i < words.length; i++) map.put(words[i], i);
+        return map;
+    }
+
+    @Test
+    public void testGet() {
+        TreeMap<String, Integer> map = dictionary();
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(map);
+        Assert.assertEquals(map.size(), trie.size());
+        for (String key : map.keySet()) {
+            Assert.assertEquals(map.get(key), trie.get(key));
+            Assert.assertEquals(map.get(key), trie.get(key.toCharArray()));
+        }
+        Assert.assertNull(trie.get("中国人民"));
+        Assert.assertNull(trie.get(""));
+        Assert.assertFalse(trie.containsKey("人"));
+    }
+
+    @Test
+    public void testCommonPrefixSearch() {
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(dictionary());
+        char[] text = "我是中国人民".toCharArray();
+        int[] lengths = new int[8];
+        int[] indices = new int[8];
+        int n = trie.commonPrefixSearch(text, 2, text.length - 2, lengths, indices);
+        Assert.assertEquals(3, n);
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, new int[]{lengths[0], lengths[1], lengths[2]});
+        Assert.assertEquals(trie.exactMatchSearch("中国人"), indices[2]);
+        Assert.assertEquals(0, trie.commonPrefixSearch(text, 0, 2, lengths, indices));
+    }
+
+    @Test
+    public void testSaveLoadRandom() throws Exception {
+        Random random = new Random(7);
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        for (int i = 0; i < 20000; i++) {
+            char[] chars = new char[1 + random.nextInt(6)];
+            for (int j = 0; j < chars.length; j++) chars[j] = (char) (0x4E00 + random.nextInt(300));
+            map.put(new String(chars), i);
+        }
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(map);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Assert.assertTrue(trie.save(out));
+        out.close();
+
+        DoubleArrayTrie<Integer> loaded = new DoubleArrayTrie<Integer>();
+        Integer[] values = map.values().toArray(new Integer[0]);
+        Assert.assertTrue(loaded.load(new ByteArray(bytes.toByteArray()), values));
+        for (String key : map.keySet()) {
+            Assert.assertEquals(map.get(key), loaded.get(key));
+        }
+        Assert.assertNull(loaded.get("abc"));
+    }
+
+    @Test
+    public void testBuildWithResize() {
+        // 节点数远超初始容量，构建过程中多次扩容
+        Random random = new Random(11);
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        for (int i = 0; i < 400000; i++) {
+            char[] chars = new char[1 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) chars[j] = (char) (0x4E00 + random.nextInt(20));
+            map.put(new String(chars), i);
+        }
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(map);
+        int index = 0;
+        for (String key : map.keySet()) {
+            Assert.assertEquals(key, index++, trie.exactMatchSearch(key));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package collection.trie;
+
+import common.io.IOUtil;
+import common.io.LineIterator;
+import common.io.Utf8LineReader;
+import common.io.Utf8Span;
+import utils.Utf8Utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * 字节路径与字符串路径的词典匹配耗时基准，不在单元测试中运行：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=collection.trie.Utf8TrieBenchmark -Dexec.args="1000000"
+ * </pre>
+ * 对同一个文件：只读取并统计字符数，以及统计所有位置上的词典命中数，分别用 LineIterator + DoubleArrayTrie
+ * 和 Utf8LineReader + Utf8Trie。字节路径省去了解码，但一个汉字要做3次状态转移，匹配越密集优势越小。
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日4:00 上午
+ */
+public class Utf8TrieBenchmark {
+
+    private static String randomWord(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = (char) (0x4E00 + random.nextInt(500));
+        return new String(chars);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        Random random = new Random(1);
+        TreeMap<String, Integer> dictionary = new TreeMap<String, Integer>();
+        for (int i = 0; i < 100000; i++) dictionary.put(randomWord(random, 1 + random.nextInt(3)), i);
+        DoubleArrayTrie<Integer> charTrie = new DoubleArrayTrie<Integer>();
+        charTrie.build(dictionary);
+        Utf8Trie<Integer> byteTrie = new Utf8Trie<Integer>();
+        byteTrie.build(dictionary);
+
+        File file = File.createTempFile("utf8", ".txt");
+        file.deleteOnExit();
+        BufferedWriter writer = IOUtil.newBufferedWriter(file.getPath());
+        for (int i = 0; i < lines; i++) {
+            writer.write(randomWord(random, 10 + random.nextInt(40)));
+            writer.write(i % 7 == 0 ? " abc 123\n" : "\n");
+        }
+        writer.close();
+        System.out.printf("%d lines, %d bytes, %d words%n", lines, file.length(), dictionary.size());
+
+        int[] lengths = new int[16];
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long count = 0;
+            LineIterator lineIterator = IOUtil.readLineIterator(file.getPath());
+            for (String text : lineIterator) count += text.length();
+            System.out.printf("String read: %d chars, %d ms%n", count, (System.nanoTime() - start) / 1000000);
+
+            start = System.nanoTime();
+            count = 0;
+            Utf8LineReader lineReader = IOUtil.readUtf8LineReader(file.getPath());
+            Utf8Span text = new Utf8Span();
+            while (lineReader.next(text)) count += text.charCount();
+            System.out.printf("byte read:   %d chars, %d ms%n", count, (System.nanoTime() - start) / 1000000);
+
+            start = System.nanoTime();
+            long hits = 0;
+            LineIterator iterator = IOUtil.readLineIterator(file.getPath());
+            for (String line : iterator) {
+                char[] chars = line.toCharArray();
+                for (int i = 0; i < chars.length; i++) hits += charTrie.commonPrefixSearch(chars, i, chars.length - i, lengths, null);
+            }
+            System.out.printf("String path: %d hits, %d ms%n", hits, (System.nanoTime() - start) / 1000000);
+
+            start = System.nanoTime();
+            hits = 0;
+            Utf8LineReader reader = IOUtil.readUtf8LineReader(file.getPath());
+            Utf8Span line = new Utf8Span();
+            while (reader.next(line)) {
+                byte[] bytes = line.bytes();
+                int end = line.offset() + line.length();
+                for (int i = line.offset(); i < end; i = Utf8Utils.nextCharOffset(bytes, i, end)) {
+                    hits += byteTrie.commonPrefixSearch(bytes, i, end - i, lengths, null);
+                }
+            }
+            System.out.printf("byte path:   %d hits, %d ms%n", hits, (System.nanoTime() - start) / 1000000);
+        }
+    }
+}
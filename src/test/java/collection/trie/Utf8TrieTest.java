@@ -0,0 +1,109 @@
+package collection.trie;
+
+import common.io.ByteArray;
+import common.io.Utf8Span;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日3:30 上午
+ */
+public class Utf8TrieTest {
+
+    private static TreeMap<String, Integer> dictionary() {
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        // 含增补平面字符和私用区字符，两者的UTF-16序与字节序相反
+        String[] words = {"中", "中国", "中国人", "中华", "人民", "人民币", "共和国", "a", "ab", "abc", "𠀀", "\uE000"};
+        for (int i = 0; i < words.length; i++) map.put(words[i], i);
+        return map;
+    }
+
+    @Test
+    public void testGet() {
+        TreeMap<String, Integer> map = dictionary();
+        Utf8Trie<Integer> trie = new Utf8Trie<Integer>();
+        trie.build(map);
+        Assert.assertEquals(map.size(), trie.size());
+        for (String key : map.keySet()) {
+            Assert.assertEquals(map.get(key), trie.get(key));
+            Assert.assertEquals(map.get(key), trie.get(Utf8Span.of(key)));
+        }
+        Assert.assertNull(trie.get("中国人民"));
+        Assert.assertNull(trie.get(""));
+        Assert.assertFalse(trie.containsKey("人"));
+        // 片段不在数组开头
+        byte[] bytes = "我是中国人".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(map.get("中国人"), trie.get(new Utf8Span(bytes, 6, 9)));
+        Assert.assertEquals(map.get("中国"), trie.get(new Utf8Span(bytes, 6, 6)));
+        Assert.assertNull(trie.get(new Utf8Span(bytes, 6, 5)));
+    }
+
+    @Test
+    public void testCommonPrefixSearch() {
+        TreeMap<String, Integer> map = dictionary();
+        Utf8Trie<Integer> trie = new Utf8Trie<Integer>();
+        trie.build(map);
+        Utf8Span text = Utf8Span.of("中国人民共和国abc");
+        int[] lengths = new int[8];
+        int[] indices = new int[8];
+        Assert.assertEquals(3, trie.commonPrefixSearch(text, 0, lengths, indices));
+        Assert.assertArrayEquals(new int[]{3, 6, 9}, Arrays.copyOf(lengths, 3));
+        Assert.assertEquals(map.get("中国人"), trie.getValue(indices[2]));
+        Assert.assertEquals(1, trie.commonPrefixSearch(text, 6, lengths, indices));
+        Assert.assertEquals(map.get("人民"), trie.getValue(indices[0]));
+        Assert.assertEquals(3, trie.commonPrefixSearch(text, 21, lengths, indices));
+        Assert.assertEquals(0, trie.commonPrefixSearch(text, 3, lengths, indices));
+    }
+
+    @Test
+    public void testSaveLoad() {
+        TreeMap<String, Integer> map = dictionary();
+        Utf8Trie<Integer> trie = new Utf8Trie<Integer>();
+        trie.build(map);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Assert.assertTrue(trie.save(new DataOutputStream(bytes)));
+        Utf8Trie<Integer> loaded = new Utf8Trie<Integer>();
+        Assert.assertTrue(loaded.load(new ByteArray(bytes.toByteArray()), trie.getValueArray(new Integer[0])));
+        for (String key : map.keySet()) Assert.assertEquals(map.get(key), loaded.get(key));
+    }
+
+    @Test
+    public void testLargeDictionary() {
+        // 节点数超过初始容量，构建过程中会扩容
+        Random random = new Random(11);
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        for (int i = 0; i < 100000; i++) {
+            char[] chars = new char[1 + random.nextInt(3)];
+            for (int j = 0; j < chars.length; j++) chars[j] = (char) (0x4E00 + random.nextInt(500));
+            map.put(new String(chars), i);
+        }
+        Utf8Trie<Integer> trie = new Utf8Trie<Integer>();
+        trie.build(map);
+        DoubleArrayTrie<Integer> charTrie = new DoubleArrayTrie<Integer>();
+        charTrie.build(map);
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            Assert.assertEquals(entry.getValue(), trie.get(entry.getKey()));
+        }
+
+        // 与按char匹配的结果一致
+        char[] text = new char[2000];
+        for (int i = 0; i < text.length; i++) text[i] = (char) (0x4E00 + random.nextInt(500));
+        byte[] bytes = new String(text).getBytes(StandardCharsets.UTF_8);
+        int[] lengths = new int[8];
+        int[] byteLengths = new int[8];
+        for (int i = 0; i < text.length; i++) {
+            int n = charTrie.commonPrefixSearch(text, i, text.length - i, lengths, null);
+            Assert.assertEquals(n, trie.commonPrefixSearch(bytes, i * 3, bytes.length - i * 3, byteLengths, null));
+            for (int j = 0; j < n; j++) Assert.assertEquals(lengths[j] * 3, byteLengths[j]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package common.cache;
+
+import config.Config;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日9:50 上午
+ */
+public class TinyLfuCacheTest {
+
+    private static final Weigher<TextKey, String> WEIGHER = new Weigher<TextKey, String>() {
+        @Override
+        public int weigh(TextKey key, String value) {
+            return key.weight() + 40 + 2 * value.length();
+        }
+    };
+
+    @Test
+    public void testGetPutAndSpanKey() {
+        TinyLfuCache<TextKey, String> cache = new TinyLfuCache<TextKey, String>(1 << 20, 0, 4, WEIGHER);
+        cache.put(TextKey.of("研究生命"), "研究/生命");
+        TextKey probe = new TextKey();
+        char[] text = "我们研究生命的起源".toCharArray();
+        Assert.assertEquals("研究/生命", cache.get(probe.set(text, 2, 4)));
+        Assert.assertNull(cache.get(probe.set(text, 2, 3)));
+        final AtomicInteger loads = new AtomicInteger();
+        TinyLfuCache.Loader<TextKey, String> loader = new TinyLfuCache.Loader<TextKey, String>() {
+            @Override
+            public String load(TextKey key) {
+                loads.incrementAndGet();
+                return key.toString();
+            }
+        };
+        Assert.assertEquals("起源", cache.get(TextKey.of("起源"), loader));
+        Assert.assertEquals("起源", cache.get(TextKey.of("起源"), loader));
+        Assert.assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(2, stats.getHits());
+        Assert.assertEquals(2, stats.getMisses());
+        cache.invalidate(TextKey.of("起源"));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testWeightBoundAndFrequency() {
+        int entryWeight = 100;
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>(100 * entryWeight, 0, 1, new Weigher<Integer, Integer>() {
+            @Override
+            public int weigh(Integer key, Integer value) {
+                return 100;
+            }
+        });
+        // 热点反复访问
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get(i) == null) cache.put(i, i);
+            }
+        }
+        // 大量一次性的键
+        for (int i = 1000; i < 11000; i++) {
+            cache.put(i, i);
+        }
+        Assert.assertTrue(cache.weightedSize() <= cache.maximumWeight());
+        Assert.assertTrue(cache.stats().getEvictions() > 0);
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(i) != null) retained++;
+        }
+        Assert.assertTrue("retained " + retained, retained >= 45);
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        TinyLfuCache<TextKey, String> cache = new TinyLfuCache<TextKey, String>(1 << 20, 20, 2, WEIGHER);
+        cache.put(TextKey.of("a"), "a");
+        cache.put(TextKey.of("b"), "b");
+        Thread.sleep(40);
+        Assert.assertNull(cache.get(TextKey.of("a")));
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(2, cache.stats().getExpirations());
+    }
+
+    @Test
+    public void testConfig() {
+        Config config = new Config();
+        config.setProperty(Config.CACHE_PREFIX + "maxBytes", "1000");
+        config.setProperty(Config.CACHE_PREFIX + "seg.maxBytes", "2000");
+        Assert.assertEquals(2000, config.<TextKey, String>newCache("seg", WEIGHER).maximumWeight());
+        Assert.assertEquals(1000, config.<TextKey, String>newCache("tag", WEIGHER).maximumWeight());
+    }
+}
@@ -0,0 +1,81 @@
+package common.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日7:50 下午
+ */
+public class ExternalSorterTest {
+
+    private static List<String> randomLines(int count) {
+        Random random = new Random(9);
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) sb.append(random.nextBoolean() ? (char) ('a' + random.nextInt(4)) : (char) ('一' + random.nextInt(4)));
+            if (random.nextInt(10) == 0) sb.append("\t尾");
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+
+    private static List<String> sortToList(ExternalSorter sorter, List<String> lines) throws Exception {
+        File input = File.createTempFile("sort", ".in");
+        File output = File.createTempFile("sort", ".out");
+        BufferedWriter writer = IOUtil.newBufferedWriter(input.getPath());
+        for (String line : lines) {
+            writer.write(line);
+            writer.newLine();
+        }
+        writer.close();
+        long count = sorter.sort(input.getPath(), output.getPath());
+        List<String> result = new ArrayList<String>();
+        LineIterator iterator = IOUtil.readLineIterator(output.getPath());
+        for (String line : iterator) result.add(line);
+        iterator.close();
+        Assert.assertEquals(result.size(), count);
+        input.delete();
+        output.delete();
+        return result;
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        List<String> lines = randomLines(50000);
+        List<String> expected = new ArrayList<String>(lines);
+        Collections.sort(expected);
+        // 很小的内存预算和扇入，产生多个段并多轮归并
+        Assert.assertEquals(expected, sortToList(new ExternalSorter(1 << 16, 3).setFanIn(3), lines));
+        Assert.assertEquals(expected, sortToList(new ExternalSorter(1 << 16, 2).setCompress(true), lines));
+    }
+
+    @Test
+    public void testUniqueAndCount() throws Exception {
+        List<String> lines = randomLines(50000);
+        TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+        for (String line : lines) {
+            Integer count = counts.get(line);
+            counts.put(line, count == null ? 1 : count + 1);
+        }
+        List<String> unique = sortToList(new ExternalSorter(1 << 16, 2).setMode(ExternalSorter.Mode.UNIQUE).setFanIn(4), lines);
+        Assert.assertEquals(new ArrayList<String>(counts.keySet()), unique);
+
+        List<String> expected = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) expected.add(entry.getKey() + "\t" + entry.getValue());
+        List<String> counted = sortToList(new ExternalSorter(1 << 16, 2).setMode(ExternalSorter.Mode.COUNT)
+                .setCompress(true).setFanIn(4), lines);
+        Assert.assertEquals(expected, counted);
+    }
+}
@@ -0,0 +1,93 @@
+package common.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日6:40 下午
+ */
+public class LineIndexTest {
+
+    private static List<String> writeLines(String path, int count) throws Exception {
+        Random random = new Random(5);
+        List<String> lines = new ArrayList<String>();
+        BufferedWriter writer = IOUtil.newBufferedWriter(path);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(5) == 0 ? 0 : random.nextInt(40);
+            for (int j = 0; j < length; j++) sb.append(random.nextBoolean() ? (char) ('a' + random.nextInt(26)) : '中');
+            String line = sb.toString();
+            lines.add(line);
+            writer.write(line);
+            // 混用 \n 与 \r\n，最后一行没有换行
+            if (i < count - 1) writer.write(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        writer.close();
+        return lines;
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        File file = File.createTempFile("lines", ".txt");
+        List<String> expected = writeLines(file.getPath(), 1000);
+        // 很小的分段，验证跨段的行
+        Assert.assertTrue(LineIndex.build(file.getPath(), 3, 97));
+        Assert.assertFalse(new File(file.getPath() + LineIndex.SUFFIX + ".tmp").exists());
+        Assert.assertFalse(new File(file.getPath() + LineIndex.SUFFIX + ".data.tmp").exists());
+        LineIndex index = LineIndex.open(file.getPath());
+        Assert.assertNotNull(index);
+        Assert.assertEquals(expected.size(), index.lineCount());
+        for (int i = 0; i < expected.size(); i++) Assert.assertEquals(expected.get(i), index.line(i));
+        Assert.assertNull(index.line(expected.size()));
+        Assert.assertEquals(expected.subList(250, 400), index.lines(250, 400));
+        Assert.assertEquals(file.length(), index.offset(expected.size()));
+
+        List<String> all = new ArrayList<String>();
+        for (int shard = 0; shard < 7; shard++) {
+            LineIterator iterator = index.shard(shard, 7);
+            for (String line : iterator) all.add(line);
+            iterator.close();
+        }
+        Assert.assertEquals(expected, all);
+        Assert.assertEquals(20, index.sample(20, new Random(1)).size());
+        index.close();
+
+        // 与默认分段的结果一致
+        Assert.assertTrue(LineIndex.build(file.getPath()));
+        index = LineIndex.open(file.getPath());
+        Assert.assertEquals(expected.subList(0, 300), index.lines(0, 300));
+        index.close();
+
+        // 文件修改后索引失效
+        BufferedWriter writer = IOUtil.newBufferedWriter(file.getPath(), true);
+        writer.write("\n追加");
+        writer.close();
+        file.setLastModified(file.lastModified() + 2000);
+        Assert.assertNull(LineIndex.open(file.getPath()));
+        index = LineIndex.openOrBuild(file.getPath());
+        Assert.assertEquals("追加", index.line(expected.size()));
+        index.close();
+
+        new File(file.getPath() + LineIndex.SUFFIX).delete();
+        file.delete();
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        File file = File.createTempFile("lines", ".txt");
+        LineIndex index = LineIndex.openOrBuild(file.getPath());
+        Assert.assertEquals(0, index.lineCount());
+        Assert.assertNull(index.line(0));
+        Assert.assertTrue(index.lines(0, 10).isEmpty());
+        index.close();
+        new File(file.getPath() + LineIndex.SUFFIX).delete();
+        file.delete();
+    }
+}
@@ -0,0 +1,73 @@
+package common.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日3:20 上午
+ */
+public class Utf8LineReaderTest {
+
+    private static List<String> readAll(Utf8LineReader reader) {
+        List<String> lines = new ArrayList<String>();
+        Utf8Span line = new Utf8Span();
+        while (reader.next(line)) lines.add(line.toString());
+        reader.close();
+        return lines;
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        Random random = new Random(3);
+        List<String> expected = new ArrayList<String>();
+        StringBuilder text = new StringBuilder("﻿");
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            // 偶尔出现比缓冲区长的行
+            int length = random.nextInt(50) == 0 ? 300 : random.nextInt(30);
+            for (int j = 0; j < length; j++) sb.append(random.nextBoolean() ? (char) ('a' + random.nextInt(26)) : '中');
+            expected.add(sb.toString());
+            text.append(sb);
+            if (i < 1999) text.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(expected, readAll(new Utf8LineReader(new ByteArrayInputStream(bytes), 64)));
+
+        File file = File.createTempFile("utf8", ".txt");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.write('\n');
+        out.close();
+        Utf8LineReader reader = IOUtil.readUtf8LineReader(file.getPath());
+        Assert.assertEquals(expected, readAll(reader));
+        Assert.assertEquals(expected.size(), reader.lineNumber());
+
+        Assert.assertTrue(readAll(new Utf8LineReader(new ByteArrayInputStream(new byte[0]))).isEmpty());
+        Assert.assertTrue(readAll(IOUtil.readUtf8LineReader("no/such/file.txt")).isEmpty());
+    }
+
+    @Test
+    public void testSpan() {
+        Utf8Span span = Utf8Span.of("中国人民abc");
+        Assert.assertEquals(15, span.length());
+        Assert.assertEquals(7, span.charCount());
+        Assert.assertEquals("国人", span.subSpan(3, 9).toString());
+        Assert.assertTrue(span.startsWith(Utf8Span.of("中国")));
+        Assert.assertFalse(span.startsWith(Utf8Span.of("中华")));
+        Assert.assertEquals(12, span.indexOf((byte) 'a', 0));
+        Assert.assertEquals(Utf8Span.of("人民"), span.subSpan(6, 12));
+        Assert.assertEquals(Utf8Span.of("人民").hashCode(), span.subSpan(6, 12).copy().hashCode());
+        Assert.assertTrue(Utf8Span.of("").compareTo(Utf8Span.of("𠀀")) < 0);
+        Assert.assertTrue(Utf8Span.of("ab").compareTo(Utf8Span.of("abc")) < 0);
+    }
+}
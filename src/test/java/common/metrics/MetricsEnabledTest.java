@@ -0,0 +1,104 @@
+package common.metrics;
+
+import collection.trie.DoubleArrayTrie;
+import common.io.IOUtil;
+import common.io.LineIterator;
+import config.Config;
+import org.junit.Assert;
+import org.junit.Test;
+import seg.CoreDictionary;
+import seg.DagSegmenter;
+import seg.SpanBuffer;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Metrics.ENABLED 在类加载时确定，因此在单独的JVM中打开指标，检查各处埋点确实计数
+ *
+ * @Author lizhen
+ * @Date 2026年10月20日5:30 上午
+ */
+public class MetricsEnabledTest {
+
+    @Test
+    public void testInstrumentation() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Dohmytools.metrics=true", "-Dfile.encoding=UTF-8",
+                "-cp", System.getProperty("java.class.path"), MetricsEnabledTest.class.getName())
+                .redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InputStream in = process.getInputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) > 0; ) output.write(buffer, 0, n);
+        Assert.assertEquals(output.toString("UTF-8"), 0, process.waitFor());
+    }
+
+    private static void check(String name, long value) {
+        if (value <= 0) {
+            System.out.println(name + "未计数：" + Metrics.snapshot());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 在打开指标的JVM中执行
+     */
+    public static void main(String[] args) throws Exception {
+        if (!Metrics.ENABLED) {
+            System.out.println("指标未打开");
+            System.exit(1);
+        }
+        File file = File.createTempFile("metrics", ".txt");
+        file.deleteOnExit();
+        BufferedWriter writer = IOUtil.newBufferedWriter(file.getPath());
+        writer.write("中国人民\n价格上涨\n");
+        writer.close();
+        LineIterator lines = IOUtil.readLineIterator(file.getPath());
+        for (String ignored : lines) {
+        }
+        IOUtil.readBytes(file.getPath());
+        check("io.lines.read", Metrics.IO_LINES_READ.sum());
+        check("io.bytes.read", Metrics.IO_BYTES_READ.sum());
+
+        TreeMap<String, Integer> map = new TreeMap<String, Integer>();
+        map.put("中国", 1);
+        map.put("人民", 2);
+        DoubleArrayTrie<Integer> trie = new DoubleArrayTrie<Integer>();
+        trie.build(map);
+        trie.exactMatchSearch("中国");
+        trie.exactMatchSearch("美国");
+        check("trie.hits", Metrics.TRIE_HITS.sum());
+        check("trie.misses", Metrics.TRIE_MISSES.sum());
+
+        DagSegmenter segmenter = new DagSegmenter(CoreDictionary.parse(Arrays.asList("中国 ns 1000", "人民 n 800")));
+        segmenter.segment("中国人民", new SpanBuffer());
+        check("seg.chars", Metrics.SEG_CHARS.sum());
+        check("seg.latency.ns", Metrics.SEG_LATENCY.count());
+
+        Config.ResourceLoader<String> loader = new Config.ResourceLoader<String>() {
+            @Override
+            public String load(String path) {
+                return IOUtil.readText(path);
+            }
+        };
+        Config config = new Config();
+        config.setProperty("metrics.text", file.getPath());
+        config.setProperty("metrics.missing", file.getPath() + ".missing");
+        config.getResource("metrics.text", loader);
+        config.getResource("metrics.missing", loader);
+        check("resource.load.ms.metrics.text", Metrics.histogram("resource.load.ms.metrics.text").count());
+        check("resource.load.failures.metrics.missing", Metrics.counter("resource.load.failures.metrics.missing").sum());
+        // 失败的加载不计入耗时，成功的加载不计入失败
+        if (Metrics.histogram("resource.load.ms.metrics.missing").count() != 0
+                || Metrics.counter("resource.load.failures.metrics.text").sum() != 0) {
+            System.out.println("资源加载指标混淆了成功与失败：" + Metrics.snapshot());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
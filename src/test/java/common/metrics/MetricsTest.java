@@ -0,0 +1,72 @@
+package common.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日11:50 上午
+ */
+public class MetricsTest {
+
+    @Test
+    public void testStripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) counter.increment();
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        Assert.assertEquals(400000, counter.sum());
+    }
+
+    @Test
+    public void testHistogram() {
+        for (long v : new long[]{0, 1, 31, 32, 63, 64, 1000, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            Assert.assertTrue(v <= LatencyHistogram.upperBoundOf(bucket));
+            Assert.assertTrue(bucket == 0 || v > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) histogram.record(i * 1000L);
+        Assert.assertEquals(1000, histogram.count());
+        Assert.assertEquals(1000000, histogram.max());
+        long p50 = histogram.percentile(0.5);
+        Assert.assertTrue(p50 >= 500000 && p50 <= 500000 * 17 / 16);
+        Assert.assertEquals(1000000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void testSnapshotAndMBean() throws Exception {
+        Metrics.counter("test.counter").add(5);
+        Metrics.histogram("test.latency").record(100);
+        Metrics.gauge("test.gauge", new Gauge() {
+            @Override
+            public Number value() {
+                return 0.5;
+            }
+        });
+        SortedMap<String, Number> snapshot = Metrics.snapshot();
+        Assert.assertEquals(5L, snapshot.get("test.counter"));
+        Assert.assertEquals(1L, snapshot.get("test.latency.count"));
+        Assert.assertEquals(0.5, snapshot.get("test.gauge"));
+
+        Assert.assertTrue(Metrics.registerMBean());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.MBEAN_NAME);
+        Assert.assertEquals(5L, server.getAttribute(name, "test.counter"));
+        server.invoke(name, "reset", null, null);
+        Assert.assertEquals(0L, server.getAttribute(name, "test.counter"));
+    }
+}
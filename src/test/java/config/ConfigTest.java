@@ -0,0 +1,62 @@
+package config;
+
+import common.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import seg.CoreDictionary;
+import seg.DagSegmenter;
+import seg.SpanBuffer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日11:10 下午
+ */
+public class ConfigTest {
+
+    @Test
+    public void testSharedDictionaryAndCache() throws Exception {
+        File text = File.createTempFile("core", ".txt");
+        File cache = new File(text.getPath() + Config.CACHE_SUFFIX);
+        text.deleteOnExit();
+        cache.deleteOnExit();
+        BufferedWriter writer = IOUtil.newBufferedWriter(text.getPath());
+        writer.write("研究 v 800 vn 200\n研究生 n 100\n生命 n 500\n的 ude1 5000\n起源 n 300\n");
+        writer.close();
+
+        Config config = new Config();
+        config.setProperty(Config.CORE_DICTIONARY_PATH, text.getPath());
+        CoreDictionary dictionary = config.getCoreDictionary();
+        Assert.assertNotNull(dictionary);
+        Config another = new Config();
+        another.setProperty(Config.CORE_DICTIONARY_PATH, text.getPath());
+        Assert.assertSame(dictionary, another.getCoreDictionary());
+        Assert.assertTrue(cache.isFile());
+        Assert.assertTrue(Config.isCacheValid(text.getPath(), cache.getPath()));
+        // 缓存经临时文件写出后重命名，不留下临时文件
+        for (String name : cache.getAbsoluteFile().getParentFile().list()) {
+            Assert.assertFalse(name, name.startsWith(cache.getName()) && name.endsWith(".tmp"));
+        }
+
+        // 清空共享资源后从二进制缓存加载，结果应与文本一致
+        Config.clearShared();
+        CoreDictionary cached = config.getCoreDictionary();
+        Assert.assertNotSame(dictionary, cached);
+        Assert.assertEquals(dictionary.size(), cached.size());
+        Assert.assertEquals(dictionary.totalFrequency(), cached.totalFrequency());
+        Assert.assertEquals(dictionary.nature(dictionary.indexOf("研究")), cached.nature(cached.indexOf("研究")));
+        SpanBuffer buffer = new SpanBuffer();
+        char[] chars = new DagSegmenter(cached).segment("研究生命的起源", buffer);
+        Assert.assertEquals(Arrays.asList("研究", "生命", "的", "起源"), buffer.toWords(chars));
+    }
+
+    @Test
+    public void testMissingResource() {
+        Config config = new Config();
+        config.setProperty(Config.CORE_DICTIONARY_PATH, "no/such/dictionary.txt");
+        Assert.assertNull(config.getCoreDictionary());
+    }
+}
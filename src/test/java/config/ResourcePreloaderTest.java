@@ -0,0 +1,54 @@
+package config;
+
+import common.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import seg.CoreDictionary;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日11:50 下午
+ */
+public class ResourcePreloaderTest {
+
+    @Test
+    public void testPreload() throws Exception {
+        File text = File.createTempFile("preload", ".txt");
+        text.deleteOnExit();
+        new File(text.getPath() + Config.CACHE_SUFFIX).deleteOnExit();
+        BufferedWriter writer = IOUtil.newBufferedWriter(text.getPath());
+        writer.write("商品 n 100\n和 cc 500\n服务 vn 80\n价格 n 60\n");
+        writer.close();
+
+        Config config = new Config();
+        config.setProperty(Config.CORE_DICTIONARY_PATH, text.getPath());
+        config.setProperty(Config.CORE_DICTIONARY_PATH + Config.CHECKSUM_SUFFIX, ResourcePreloader.checksum(text.getPath()));
+        config.setProperty(Config.HMM_MODEL_PATH, "no/such/hmm.bin");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<ResourceTiming> timings = ResourcePreloader.preload(config, executor);
+        Assert.assertEquals(2, timings.size());
+        Assert.assertTrue(timings.get(0).toString(), timings.get(0).isSuccess());
+        Assert.assertTrue(timings.get(0).getBytes() > 0);
+        Assert.assertFalse(timings.get(1).isSuccess());
+        CoreDictionary dictionary = config.getCoreDictionary();
+        Assert.assertEquals(4, dictionary.size());
+
+        // 未配置校验和且缓存有效时只预读缓存，不读文本
+        Config withoutChecksum = new Config();
+        withoutChecksum.setProperty(Config.CORE_DICTIONARY_PATH, text.getPath());
+        timings = ResourcePreloader.preload(withoutChecksum, executor);
+        Assert.assertTrue(timings.get(0).toString(), timings.get(0).isSuccess());
+        Assert.assertEquals(new File(text.getPath() + Config.CACHE_SUFFIX).length(), timings.get(0).getBytes());
+
+        config.setProperty(Config.CORE_DICTIONARY_PATH + Config.CHECKSUM_SUFFIX, "0");
+        timings = ResourcePreloader.preload(config, executor);
+        Assert.assertFalse(timings.get(0).isSuccess());
+        executor.shutdown();
+    }
+}
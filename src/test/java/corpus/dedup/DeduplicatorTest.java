@@ -0,0 +1,110 @@
+package corpus.dedup;
+
+import common.io.IOUtil;
+import common.io.LineIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日5:10 下午
+ */
+public class DeduplicatorTest {
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append((char) (0x4E00 + random.nextInt(3000)));
+        return sb.toString();
+    }
+
+    /**
+     * 每篇原文后面跟一个只改了一个字的副本，每10篇有一篇只是加了标点和空格的副本
+     */
+    private static List<String> corpus() {
+        Random random = new Random(3);
+        List<String> documents = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            String text = randomText(random, 300);
+            documents.add(text);
+            char[] edited = text.toCharArray();
+            edited[random.nextInt(edited.length)] = '的';
+            documents.add(new String(edited));
+            if (i % 10 == 0) documents.add("，" + text.substring(0, 100) + "。 " + text.substring(100) + "！");
+        }
+        return documents;
+    }
+
+    @Test
+    public void testSimHash() {
+        SimHash hasher = new SimHash();
+        long a = hasher.fingerprint("今天天气很好，我们去公园散步吧ＡＢＣ");
+        Assert.assertEquals(a, hasher.fingerprint("今天天气很好 我们去公园散步吧abc！"));
+        Assert.assertEquals(0, hasher.fingerprint("，。！ "));
+        Assert.assertTrue(SimHash.distance(a, hasher.fingerprint("明月几时有，把酒问青天")) > 3);
+    }
+
+    @Test
+    public void testStreamingAndParallel() {
+        List<String> documents = corpus();
+        final long[] streaming = new long[documents.size()];
+        final long[] parallel = new long[documents.size()];
+        Deduplicator deduplicator = new Deduplicator();
+        long duplicates = deduplicator.dedup(documents, new Deduplicator.DuplicateHandler() {
+            @Override
+            public void onDocument(long ordinal, String text, long duplicateOf) {
+                streaming[(int) ordinal] = duplicateOf;
+            }
+        });
+        Deduplicator parallelDeduplicator = new Deduplicator(3, SimHash.DEFAULT_SHINGLE, 4, 64);
+        Assert.assertEquals(duplicates, parallelDeduplicator.dedup(documents, new Deduplicator.DuplicateHandler() {
+            @Override
+            public void onDocument(long ordinal, String text, long duplicateOf) {
+                parallel[(int) ordinal] = duplicateOf;
+            }
+        }));
+        parallelDeduplicator.shutdown();
+        Assert.assertArrayEquals(streaming, parallel);
+
+        // 只加了标点的副本一定重复；300字里改一个字的副本，多数在距离3以内
+        int edited = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            String text = documents.get(i);
+            if (text.startsWith("，")) Assert.assertTrue(streaming[i] >= 0);
+            if (i > 0 && streaming[i] == i - 1 && !text.startsWith("，")) edited++;
+        }
+        Assert.assertTrue("edited duplicates found: " + edited, edited >= 300);
+        Assert.assertEquals(documents.size() - duplicates, deduplicator.index().size());
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        List<String> documents = corpus();
+        File input = File.createTempFile("dedup", ".txt");
+        File output = File.createTempFile("dedup", ".out");
+        BufferedWriter writer = IOUtil.newBufferedWriter(input.getPath());
+        for (String document : documents) {
+            writer.write(document);
+            writer.newLine();
+        }
+        writer.close();
+        Deduplicator deduplicator = new Deduplicator();
+        long duplicates = deduplicator.dedup(input.getPath(), output.getPath());
+        int lines = 0;
+        LineIterator iterator = IOUtil.readLineIterator(output.getPath());
+        while (iterator.hasNext()) {
+            iterator.next();
+            lines++;
+        }
+        iterator.close();
+        Assert.assertEquals(documents.size() - duplicates, lines);
+        Assert.assertEquals(lines, deduplicator.index().size());
+        input.delete();
+        output.delete();
+    }
+}
@@ -0,0 +1,84 @@
+package corpus.index;
+
+import org.junit.Assert;
+import org.junit.Test;
+import seg.CoreDictionary;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日0:10 上午
+ */
+public class InvertedIndexTest {
+
+    private static CoreDictionary dictionary() {
+        return CoreDictionary.parse(Arrays.asList(
+                "中国 ns 1000",
+                "人民 n 800",
+                "价格 n 200",
+                "上涨 v 100",
+                "今天 t 300",
+                "的 ude1 5000"
+        ));
+    }
+
+    /**
+     * 第i行：偶数行含“中国人民”，3的倍数行含“人民中国”，5的倍数行含“价格上涨”
+     */
+    private static List<String> corpus(int size) {
+        List<String> lines = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder sb = new StringBuilder("今天");
+            if (i % 2 == 0) sb.append("中国人民的");
+            if (i % 3 == 0) sb.append("，人民中国");
+            if (i % 5 == 0) sb.append("价格上涨");
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+
+    private static int[] expected(List<String> lines, String... needles) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < lines.size(); i++) {
+            boolean all = true;
+            for (String needle : needles) all &= lines.get(i).contains(needle);
+            if (all) result.add(i);
+        }
+        int[] array = new int[result.size()];
+        for (int i = 0; i < array.length; i++) array[i] = result.get(i);
+        return array;
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        CoreDictionary dictionary = dictionary();
+        List<String> lines = corpus(5000);
+        InvertedIndexBuilder builder = new InvertedIndexBuilder(dictionary, 2);
+        Assert.assertEquals(3000, builder.addAll(lines.subList(0, 3000)));
+        Assert.assertEquals(2000, builder.addAll(lines.subList(3000, 5000)));
+        builder.shutdown();
+        File file = File.createTempFile("inverted", ".idx");
+        Assert.assertTrue(builder.save(file.getPath()));
+
+        InvertedIndex index = InvertedIndex.load(file.getPath(), dictionary);
+        Assert.assertNotNull(index);
+        Assert.assertEquals(5000, index.documentCount());
+        Assert.assertEquals(5000, index.documentFrequency("今天"));
+        Assert.assertEquals(0, index.documentFrequency("，"));
+        Assert.assertArrayEquals(expected(lines, "价格"), index.documents("价格"));
+        Assert.assertArrayEquals(expected(lines, "价格", "中国"), index.and("中国", "价格"));
+        Assert.assertArrayEquals(expected(lines, "价格", "人民"), index.and("人民", "价格", "中国", "今天"));
+        Assert.assertEquals(0, index.and("中国", "不存在").length);
+
+        Assert.assertArrayEquals(expected(lines, "中国人民"), index.phrase("中国人民"));
+        Assert.assertArrayEquals(expected(lines, "人民中国"), index.phrase("人民中国"));
+        // 标点不占位置
+        Assert.assertArrayEquals(expected(lines, "的，人民"), index.phrase("的人民"));
+        Assert.assertArrayEquals(expected(lines, "今天中国"), index.phrase("今天中国"));
+        file.delete();
+    }
+}
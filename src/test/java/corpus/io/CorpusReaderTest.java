@@ -0,0 +1,106 @@
+package corpus.io;
+
+import common.io.IOUtil;
+import common.io.LineIterator;
+import corpus.tag.Nature;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日4:20 下午
+ */
+public class CorpusReaderTest {
+
+    @Test
+    public void testParseLine() {
+        TaggedCorpus corpus = new TaggedCorpus();
+        CorpusReader reader = new CorpusReader();
+        Assert.assertTrue(reader.parseLine("迈向/v  充满/v  希望/n  的/u  新/a  世纪/n", corpus));
+        Assert.assertTrue(reader.parseLine("[中央/n 人民/n 广播/vn 电台/n]nt  １２月/t  ３１日/t  ／/w", corpus));
+        Assert.assertFalse(reader.parseLine("   ", corpus));
+
+        Assert.assertEquals(2, corpus.sentenceCount());
+        Assert.assertEquals(13, corpus.wordCount());
+        Assert.assertEquals("迈向", corpus.word(0));
+        Assert.assertSame(Nature.v, corpus.nature(0));
+        Assert.assertEquals("迈向/v 充满/v 希望/n 的/u 新/a 世纪/n", corpus.sentenceToString(0));
+
+        Assert.assertEquals(1, corpus.compoundCount());
+        Assert.assertEquals(6, corpus.compoundBegin(0));
+        Assert.assertEquals(10, corpus.compoundEnd(0));
+        Assert.assertSame(Nature.nt, Nature.fromOrdinal(corpus.compoundNatureOrdinal(0)));
+        Assert.assertEquals("／", corpus.word(12));
+        Assert.assertSame(Nature.w, corpus.nature(12));
+    }
+
+    @Test
+    public void testStream() {
+        final int[] words = new int[1];
+        int sentences = new CorpusReader().stream(Arrays.asList("迈向/v 充满/v", "", "希望/n"), new CorpusReader.SentenceHandler() {
+            @Override
+            public void onSentence(TaggedCorpus sentence) {
+                Assert.assertEquals(1, sentence.sentenceCount());
+                words[0] += sentence.wordCount();
+            }
+        });
+        Assert.assertEquals(2, sentences);
+        Assert.assertEquals(3, words[0]);
+    }
+
+    @Test
+    public void testAppend() {
+        TaggedCorpus a = new TaggedCorpus();
+        TaggedCorpus b = new TaggedCorpus();
+        CorpusReader reader = new CorpusReader();
+        reader.parseLine("迈向/v 充满/v", a);
+        reader.parseLine("[国家/n 主席/n]nt 江泽民/nr", b);
+        a.append(b);
+        a.trimToSize();
+        Assert.assertEquals(2, a.sentenceCount());
+        Assert.assertEquals(5, a.wordCount());
+        Assert.assertEquals(1, a.compoundCount());
+        Assert.assertEquals(2, a.compoundBegin(0));
+        Assert.assertEquals(4, a.compoundEnd(0));
+        Assert.assertEquals("国家/n 主席/n 江泽民/nr", a.sentenceToString(1));
+    }
+
+    @Test
+    public void testParse2014Compound() {
+        TaggedCorpus corpus = new TaggedCorpus();
+        new CorpusReader().parseLine("[中央/n 人民/n 广播/vn 电台/n]/nt 报道/v", corpus);
+        Assert.assertEquals(5, corpus.wordCount());
+        Assert.assertEquals("电台", corpus.word(3));
+        Assert.assertSame(Nature.n, corpus.nature(3));
+        Assert.assertEquals(1, corpus.compoundCount());
+        Assert.assertEquals(0, corpus.compoundBegin(0));
+        Assert.assertEquals(4, corpus.compoundEnd(0));
+        Assert.assertSame(Nature.nt, Nature.fromOrdinal(corpus.compoundNatureOrdinal(0)));
+        Assert.assertNull(Nature.fromString("/nt"));
+    }
+
+    @Test
+    public void testStreamClosesOnException() throws Exception {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        BufferedWriter writer = IOUtil.newBufferedWriter(file.getPath());
+        writer.write("迈向/v 充满/v\n希望/n\n");
+        writer.close();
+        LineIterator lines = IOUtil.readLineIterator(file.getPath());
+        try {
+            new CorpusReader().stream(lines, new CorpusReader.SentenceHandler() {
+                @Override
+                public void onSentence(TaggedCorpus sentence) {
+                    throw new IllegalStateException("stop");
+                }
+            });
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertFalse(lines.hasNext());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package corpus.statistics;
+
+import corpus.io.CorpusReader;
+import corpus.io.TaggedCorpus;
+import corpus.tag.Nature;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日7:10 下午
+ */
+public class CorpusStatisticsTest {
+
+    private static TaggedCorpus corpus(String... lines) {
+        TaggedCorpus corpus = new TaggedCorpus();
+        CorpusReader reader = new CorpusReader();
+        for (String line : lines) reader.parseLine(line, corpus);
+        return corpus;
+    }
+
+    @Test
+    public void testCountAndMerge() {
+        CorpusStatistics a = new CorpusStatistics();
+        a.add(corpus("迈向/v 充满/v 希望/n 的/u 新/a 世纪/n", "希望/v 和平/n"));
+        CorpusStatistics b = new CorpusStatistics();
+        b.add(corpus("新/a 世纪/n 的/u 希望/n"));
+        a.merge(b);
+
+        Assert.assertEquals(3, a.frequency("希望"));
+        int id = a.wordId("希望");
+        Assert.assertEquals(2, a.frequency(id, Nature.n.ordinal()));
+        Assert.assertEquals(1, a.frequency(id, Nature.v.ordinal()));
+        Assert.assertEquals(2, a.transitionFrequency(Nature.a.ordinal(), Nature.n.ordinal()));
+        Assert.assertEquals(2, a.transitionFrequency(Nature.begin.ordinal(), Nature.v.ordinal()));
+        Assert.assertEquals(3, a.transitionFrequency(Nature.n.ordinal(), Nature.end.ordinal()));
+        Assert.assertEquals(12, a.totalFrequency());
+
+        CorpusStatistics.NatureDistribution distribution = a.natureDistribution();
+        Assert.assertEquals(2, distribution.offsets[id + 1] - distribution.offsets[id]);
+        Assert.assertEquals(Nature.n.ordinal(), distribution.natures[distribution.offsets[id]]);
+
+        Assert.assertEquals(Integer.valueOf(3), a.buildTrie().get("希望"));
+    }
+}
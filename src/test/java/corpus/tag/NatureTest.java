@@ -0,0 +1,121 @@
+package corpus.tag;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日2:10 下午
+ */
+public class NatureTest {
+
+    @Test
+    public void testFromString() {
+        Assert.assertSame(Nature.n, Nature.fromString("n"));
+        Assert.assertSame(Nature.begin, Nature.fromString("begin"));
+        Assert.assertNull(Nature.fromString("not-a-nature"));
+    }
+
+    @Test
+    public void testFromChars() {
+        for (Nature nature : Nature.values()) {
+            String text = "词/" + nature + " ";
+            char[] chars = text.toCharArray();
+            Assert.assertSame(nature, Nature.fromChars(chars, 2, nature.toString().length()));
+            Assert.assertEquals(nature.ordinal(), Nature.ordinalOf(chars, 2, nature.toString().length()));
+            Assert.assertSame(nature, Nature.fromOrdinal(nature.ordinal()));
+        }
+        char[] chars = "迈向/vv".toCharArray();
+        Assert.assertNull(Nature.fromChars(chars, 3, 2));
+        Assert.assertEquals(-1, Nature.ordinalOf(chars, 3, 2));
+        Assert.assertSame(Nature.v, Nature.fromChars(chars, 3, 1));
+
+        Nature custom = Nature.create("custom_tag");
+        chars = "词/custom_tag".toCharArray();
+        Assert.assertSame(custom, Nature.fromChars(chars, 2, chars.length - 2));
+        Assert.assertSame(custom, Nature.fromOrdinal(custom.ordinal()));
+        Assert.assertNull(Nature.fromOrdinal(Nature.size()));
+    }
+
+    @Test
+    public void testConcurrentCreate() throws InterruptedException {
+        final int threads = 8;
+        final int names = 2000;
+        final Nature[][] created = new Nature[threads][names];
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < names; i++) {
+                        created[id][i] = Nature.create("concurrent_" + i);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        Assert.assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        Nature[] values = Nature.values();
+        for (int i = 0; i < names; i++) {
+            Nature nature = created[0][i];
+            for (int t = 1; t < threads; t++) {
+                Assert.assertSame(nature, created[t][i]);
+            }
+            Assert.assertSame(nature, Nature.fromString("concurrent_" + i));
+        }
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertNotNull(values[i]);
+        }
+    }
+
+    @Test
+    public void testFromCharsWhileCreating() throws Exception {
+        final int names = 3000;
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (!done.get()) {
+                            for (int i = 0; i < names; i += 7) {
+                                char[] chars = ("racing_" + i).toCharArray();
+                                Nature nature = Nature.fromChars(chars, 0, chars.length);
+                                if (nature != null) Assert.assertEquals("racing_" + i, nature.toString());
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < names; i++) {
+            Nature nature = Nature.create("racing_" + i);
+            char[] chars = ("racing_" + i).toCharArray();
+            Assert.assertSame(nature, Nature.fromChars(chars, 0, chars.length));
+        }
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+        Assert.assertNull(failure.get());
+    }
+}
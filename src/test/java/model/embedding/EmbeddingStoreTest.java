@@ -0,0 +1,133 @@
+package model.embedding;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日1:50 下午
+ */
+public class EmbeddingStoreTest {
+
+    private static final int ROWS = 3000;
+    private static final int DIM = 13;
+
+    private static float[][] randomVectors() {
+        Random random = new Random(42);
+        float[][] vectors = new float[ROWS][DIM];
+        for (float[] vector : vectors) {
+            for (int d = 0; d < DIM; d++) vector[d] = (float) random.nextGaussian();
+        }
+        return vectors;
+    }
+
+    private static String word(int i) {
+        return i == 0 ? "中国" : "词" + i;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int d = 0; d < a.length; d++) {
+            dot += a[d] * b[d];
+            na += a[d] * a[d];
+            nb += b[d] * b[d];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+
+    private static void check(EmbeddingStore store, float[][] vectors) {
+        Assert.assertEquals(ROWS, store.rows());
+        Assert.assertEquals(DIM, store.dimension());
+        float[] buffer = new float[DIM];
+        for (int i = 0; i < ROWS; i += 97) {
+            int row = store.rowOf(word(i));
+            Assert.assertEquals(word(i), store.word(row));
+            store.vector(row, buffer);
+            for (int d = 0; d < DIM; d++) Assert.assertEquals(vectors[i][d], buffer[d], 1e-4);
+        }
+        Assert.assertEquals(-1, store.rowOf("不存在"));
+
+        // 与暴力计算比较
+        Neighbors neighbors = store.nearest("中国", 5);
+        Assert.assertEquals(5, neighbors.size());
+        double[] best = new double[ROWS];
+        for (int i = 1; i < ROWS; i++) best[i] = cosine(vectors[0], vectors[i]);
+        best[0] = Double.NEGATIVE_INFINITY;
+        for (int n = 0; n < 5; n++) {
+            int argmax = 0;
+            for (int i = 1; i < ROWS; i++) if (best[i] > best[argmax]) argmax = i;
+            Assert.assertEquals(word(argmax), neighbors.word(n));
+            Assert.assertEquals(best[argmax], neighbors.score(n), 1e-4);
+            best[argmax] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    @Test
+    public void testTextFormat() throws Exception {
+        float[][] vectors = randomVectors();
+        File source = File.createTempFile("w2v", ".txt");
+        String base = source.getPath() + ".store";
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(source), StandardCharsets.UTF_8));
+        writer.write(ROWS + " " + DIM + "\n");
+        for (int i = 0; i < ROWS; i++) {
+            writer.write(word(i));
+            for (float v : vectors[i]) writer.write(" " + v);
+            writer.write("\n");
+        }
+        writer.close();
+        Assert.assertTrue(EmbeddingStore.convert(source.getPath(), false, base));
+        check(EmbeddingStore.open(base), vectors);
+        // 很小的分段，验证跨段读取
+        check(EmbeddingStore.open(base, 4 * DIM * 7), vectors);
+        Assert.assertFalse(new File(base + EmbeddingStore.VECTOR_SUFFIX + ".tmp").exists());
+        Assert.assertFalse(new File(base + EmbeddingStore.INDEX_SUFFIX + ".tmp").exists());
+
+        // 截断的文件返回null，不抛出异常
+        truncate(base + EmbeddingStore.VECTOR_SUFFIX, 4);
+        Assert.assertNull(EmbeddingStore.open(base));
+        Assert.assertTrue(EmbeddingStore.convert(source.getPath(), false, base));
+        truncate(base + EmbeddingStore.INDEX_SUFFIX, new File(base + EmbeddingStore.INDEX_SUFFIX).length() / 2);
+        Assert.assertNull(EmbeddingStore.open(base));
+        EmbeddingStore.delete(base);
+        source.delete();
+    }
+
+    private static void truncate(String path, long bytes) throws Exception {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        file.setLength(file.length() - bytes);
+        file.close();
+    }
+
+    @Test
+    public void testBinaryFormat() throws Exception {
+        float[][] vectors = randomVectors();
+        File source = File.createTempFile("w2v", ".bin");
+        String base = source.getPath() + ".store";
+        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(source));
+        out.write((ROWS + " " + DIM + "\n").getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(4 * DIM).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < ROWS; i++) {
+            out.write((word(i) + " ").getBytes(StandardCharsets.UTF_8));
+            buffer.clear();
+            for (float v : vectors[i]) buffer.putFloat(v);
+            out.write(buffer.array());
+            out.write('\n');
+        }
+        out.close();
+        Assert.assertTrue(EmbeddingStore.convert(source.getPath(), true, base));
+        check(EmbeddingStore.open(base), vectors);
+        EmbeddingStore.delete(base);
+        source.delete();
+    }
+}
@@ -0,0 +1,54 @@
+package model.embedding;
+
+import java.io.File;
+
+/**
+ * HNSW 召回率与延迟的基准，不在单元测试中运行：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=model.embedding.HnswBenchmark -Dexec.args="100000 100"
+ * </pre>
+ * 参数依次为向量数、维度，输出不同ef下的 recall@10 与单次查询的平均延迟，并与暴力搜索比较。
+ *
+ * @Author lizhen
+ * @Date 2026年10月19日3:30 下午
+ */
+public class HnswBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int dim = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int queries = 500;
+        File temp = File.createTempFile("hnsw-bench", "");
+        String base = temp.getPath();
+        EmbeddingStore store = HnswIndexTest.randomStore(base, rows, dim, 7);
+
+        long start = System.nanoTime();
+        HnswIndex index = HnswIndex.build(store, 16, 200, Runtime.getRuntime().availableProcessors(), 1);
+        System.out.printf("build: %d rows x %d dims in %.1f s%n", rows, dim, (System.nanoTime() - start) / 1e9);
+
+        float[] query = new float[dim];
+        start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            store.unitVector(q, query);
+            store.nearest(query, 10, q);
+        }
+        System.out.printf("brute force: %.3f ms/query%n", (System.nanoTime() - start) / 1e6 / queries);
+
+        for (int ef : new int[]{10, 20, 50, 100, 200}) {
+            // 先预热一轮再计时
+            HnswIndexTest.recall(store, index, queries, 10, ef);
+            start = System.nanoTime();
+            double recall = HnswIndexTest.recall(store, index, queries, 10, ef);
+            long elapsed = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                store.unitVector(q, query);
+                index.nearest(query, 10, ef, q);
+            }
+            System.out.printf("ef=%3d recall@10=%.4f latency=%.3f ms/query (with brute force check %.3f ms)%n",
+                    ef, recall, (System.nanoTime() - start) / 1e6 / queries, elapsed / 1e6 / queries);
+        }
+        EmbeddingStore.delete(base);
+        temp.delete();
+    }
+}
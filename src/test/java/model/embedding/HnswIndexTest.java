@@ -0,0 +1,136 @@
+package model.embedding;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月19日3:20 下午
+ */
+public class HnswIndexTest {
+
+    /**
+     * 把随机向量写成word2vec文本格式并转换为词向量库
+     */
+    static EmbeddingStore randomStore(String base, int rows, int dim, long seed) throws Exception {
+        Random random = new Random(seed);
+        File source = new File(base + ".txt");
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(source), StandardCharsets.UTF_8));
+        writer.write(rows + " " + dim + "\n");
+        for (int i = 0; i < rows; i++) {
+            writer.write("词" + i);
+            for (int d = 0; d < dim; d++) writer.write(" " + (float) random.nextGaussian());
+            writer.write("\n");
+        }
+        writer.close();
+        Assert.assertTrue(EmbeddingStore.convert(source.getPath(), false, base));
+        source.delete();
+        return EmbeddingStore.open(base);
+    }
+
+    /**
+     * @return 近似结果相对于精确结果的召回率
+     */
+    static double recall(EmbeddingStore store, HnswIndex index, int queries, int k, int ef) {
+        float[] query = new float[store.dimension()];
+        int hit = 0;
+        for (int q = 0; q < queries; q++) {
+            int row = (int) ((long) q * 7919 % store.rows());
+            store.unitVector(row, query);
+            Neighbors exact = store.nearest(query, k, row);
+            Neighbors approximate = index.nearest(query, k, ef, row);
+            Set<Integer> expected = new HashSet<Integer>();
+            for (int i = 0; i < exact.size(); i++) expected.add(exact.row(i));
+            for (int i = 0; i < approximate.size(); i++) if (expected.contains(approximate.row(i))) hit++;
+        }
+        return (double) hit / (queries * k);
+    }
+
+    @Test
+    public void testRecallAndPersistence() throws Exception {
+        File temp = File.createTempFile("hnsw", "");
+        String base = temp.getPath();
+        EmbeddingStore store = randomStore(base, 5000, 16, 7);
+        HnswIndex index = HnswIndex.build(store, 12, 100, 4, 1);
+        Assert.assertEquals(5000, index.size());
+        Assert.assertTrue(recall(store, index, 200, 10, 100) >= 0.9);
+        // ef越大召回率越高
+        Assert.assertTrue(recall(store, index, 200, 10, 200) >= recall(store, index, 200, 10, 10) - 1e-9);
+
+        Neighbors neighbors = index.nearest("词1", 5);
+        Assert.assertEquals(5, neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            Assert.assertNotEquals("词1", neighbors.word(i));
+            if (i > 0) Assert.assertTrue(neighbors.score(i - 1) >= neighbors.score(i));
+        }
+        Assert.assertNull(index.nearest("不存在", 5));
+
+        String path = base + ".hnsw";
+        Assert.assertTrue(index.save(path));
+        HnswIndex loaded = HnswIndex.load(path, store);
+        Assert.assertNotNull(loaded);
+        float[] query = new float[store.dimension()];
+        for (int row = 0; row < store.rows(); row += 250) {
+            store.unitVector(row, query);
+            Neighbors expected = index.nearest(query, 10, 50, -1);
+            Neighbors actual = loaded.nearest(query, 10, 50, -1);
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) Assert.assertEquals(expected.row(i), actual.row(i));
+        }
+
+        // 同一线程交替查询维数、节点数不同的索引，搜索上下文按需扩大，结果不受影响
+        File smallTemp = File.createTempFile("hnsw", "");
+        EmbeddingStore smallStore = randomStore(smallTemp.getPath(), 200, 8, 11);
+        HnswIndex small = HnswIndex.build(smallStore, 4, 20, 1, 1);
+        float[] smallQuery = new float[smallStore.dimension()];
+        smallStore.unitVector(0, smallQuery);
+        Neighbors before = small.nearest(smallQuery, 5, 20, -1);
+        store.unitVector(1, query);
+        Neighbors first = loaded.nearest(query, 10, 50, -1);
+        Neighbors after = small.nearest(smallQuery, 5, 20, -1);
+        for (int i = 0; i < before.size(); i++) Assert.assertEquals(before.row(i), after.row(i));
+        Neighbors second = loaded.nearest(query, 10, 50, -1);
+        for (int i = 0; i < first.size(); i++) Assert.assertEquals(first.row(i), second.row(i));
+        EmbeddingStore.delete(smallTemp.getPath());
+        smallTemp.delete();
+
+        // 截断的索引文件不能读取
+        String truncatedPath = base + ".truncated.hnsw";
+        Assert.assertTrue(index.save(truncatedPath));
+        RandomAccessFile truncated = new RandomAccessFile(truncatedPath, "rw");
+        truncated.setLength(truncated.length() - 4);
+        truncated.close();
+        Assert.assertNull(HnswIndex.load(truncatedPath, store));
+        new File(truncatedPath).delete();
+
+        new File(path).delete();
+        EmbeddingStore.delete(base);
+        temp.delete();
+    }
+
+    @Test
+    public void testInterruptedBuildReturnsNull() throws Exception {
+        File temp = File.createTempFile("hnsw", "");
+        String base = temp.getPath();
+        EmbeddingStore store = randomStore(base, 5000, 32, 3);
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertNull(HnswIndex.build(store, 12, 100, 2, 1));
+            Assert.assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+            EmbeddingStore.delete(base);
+            temp.delete();
+        }
+    }
+}
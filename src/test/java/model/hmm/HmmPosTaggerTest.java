@@ -0,0 +1,53 @@
+package model.hmm;
+
+import common.io.ByteArray;
+import corpus.io.CorpusReader;
+import corpus.io.TaggedCorpus;
+import corpus.tag.Nature;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日8:30 下午
+ */
+public class HmmPosTaggerTest {
+
+    private static HmmPosTagger train() {
+        TaggedCorpus corpus = new TaggedCorpus();
+        CorpusReader reader = new CorpusReader();
+        String[] lines = {
+                "我/r 希望/v 和平/n",
+                "他们/r 希望/v 发展/vn",
+                "人民/n 的/ude1 希望/n",
+                "新/a 的/ude1 希望/n",
+                "我/r 爱/v 和平/n",
+        };
+        for (String line : lines) reader.parseLine(line, corpus);
+        return HmmPosTagger.train(corpus);
+    }
+
+    @Test
+    public void testTag() {
+        HmmPosTagger tagger = train();
+        Assert.assertArrayEquals(new Nature[]{Nature.r, Nature.v, Nature.n}, tagger.tag("我", "希望", "和平"));
+        Assert.assertArrayEquals(new Nature[]{Nature.n, Nature.ude1, Nature.n}, tagger.tag("人民", "的", "希望"));
+        Assert.assertEquals(3, tagger.tag("他们", "热爱", "和平").length);
+    }
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        HmmPosTagger tagger = train();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        tagger.save(out);
+        out.close();
+        HmmPosTagger loaded = HmmPosTagger.load(new ByteArray(bytes.toByteArray()));
+        Assert.assertEquals(tagger.stateCount(), loaded.stateCount());
+        Assert.assertArrayEquals(tagger.tag("新", "的", "希望"), loaded.tag("新", "的", "希望"));
+        Assert.assertArrayEquals(tagger.tag("他们", "热爱", "和平"), loaded.tag("他们", "热爱", "和平"));
+    }
+}
@@ -0,0 +1,48 @@
+package seg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日10:40 下午
+ */
+public class BatchSegmenterTest {
+
+    @Test
+    public void testOrderAndSentences() {
+        CoreDictionary dictionary = DagSegmenterTest.dictionary();
+        List<String> documents = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            documents.add(i % 2 == 0 ? "研究生命的起源。价格上涨" + i + "元！" : "中国人民");
+        }
+        final List<String> results = new ArrayList<String>();
+        final List<Long> indices = new ArrayList<Long>();
+        final int[] sentences = new int[1];
+        BatchSegmenter segmenter = new BatchSegmenter(dictionary, 4, 7);
+        long count = segmenter.segment(documents, new BatchSegmenter.DocumentHandler() {
+            @Override
+            public void onDocument(SegmentedDocument document) {
+                indices.add(document.index());
+                results.add(document.words().toString());
+                if (document.index() == 0) {
+                    sentences[0] = document.sentenceCount();
+                    Assert.assertEquals(Arrays.asList("研究", "生命", "的", "起源", "。"), document.words(0));
+                    Assert.assertEquals(Arrays.asList("价格", "上涨", "0", "元", "！"), document.words(1));
+                }
+            }
+        });
+        segmenter.shutdown();
+        Assert.assertEquals(1000, count);
+        Assert.assertEquals(2, sentences[0]);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, (long) indices.get(i));
+            String expected = i % 2 == 0 ? "[研究, 生命, 的, 起源, 。, 价格, 上涨, " + i + ", 元, ！]" : "[中国, 人民]";
+            Assert.assertEquals(expected, results.get(i));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package seg;
+
+import corpus.tag.Nature;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日9:45 下午
+ */
+public class DagSegmenterTest {
+
+    static CoreDictionary dictionary() {
+        return CoreDictionary.parse(Arrays.asList(
+                "研究 v 800 vn 200",
+                "研究生 n 100",
+                "生命 n 500",
+                "命 n 10",
+                "起源 n 300",
+                "的 ude1 5000",
+                "结婚 v 300",
+                "和 cc 3000",
+                "尚未 d 100",
+                "未 d 200",
+                "和尚 n 100",
+                "尚 d 10",
+                "中国 ns 1000",
+                "人民 n 800",
+                "价格 n 200",
+                "上涨 v 100",
+                "元 q 300"
+        ));
+    }
+
+    private static List<String> segment(DagSegmenter segmenter, SpanBuffer buffer, String text) {
+        char[] chars = segmenter.segment(text, buffer);
+        return buffer.toWords(chars);
+    }
+
+    @Test
+    public void testMaxProbabilityPath() {
+        DagSegmenter segmenter = new DagSegmenter(dictionary());
+        SpanBuffer buffer = new SpanBuffer(4);
+        Assert.assertEquals(Arrays.asList("研究", "生命", "的", "起源"), segment(segmenter, buffer, "研究生命的起源"));
+        Assert.assertEquals(Arrays.asList("结婚", "的", "和", "尚未", "结婚", "的"), segment(segmenter, buffer, "结婚的和尚未结婚的"));
+        Assert.assertEquals(Nature.v, buffer.nature(0));
+        Assert.assertEquals(Nature.cc, buffer.nature(2));
+    }
+
+    @Test
+    public void testNonCjkRuns() {
+        DagSegmenter segmenter = new DagSegmenter(dictionary());
+        SpanBuffer buffer = new SpanBuffer();
+        Assert.assertEquals(Arrays.asList("iPhone12", "价格", "上涨", "3.5%", "，", "为", "６９９９", "元"),
+                segment(segmenter, buffer, "iPhone12 价格上涨3.5%，为６９９９元"));
+        Assert.assertEquals(Nature.nx, buffer.nature(0));
+        Assert.assertEquals(Nature.m, buffer.nature(3));
+        Assert.assertEquals(Nature.w, buffer.nature(4));
+        Assert.assertEquals(Nature.n, buffer.nature(5));
+    }
+
+    @Test
+    public void testOffsetsAndAppend() {
+        DagSegmenter segmenter = new DagSegmenter(dictionary());
+        SpanBuffer buffer = new SpanBuffer();
+        char[] text = "xx中国人民yy".toCharArray();
+        Assert.assertEquals(2, segmenter.segment(text, 2, 4, buffer));
+        Assert.assertEquals(2, buffer.offset(0));
+        Assert.assertEquals(4, buffer.offset(1));
+        Assert.assertEquals(2, buffer.length(1));
+        Assert.assertEquals(1, segmenter.segment(text, 6, 2, buffer));
+        Assert.assertEquals(3, buffer.size());
+        Assert.assertEquals(0, segmenter.segment(text, 0, 0, buffer));
+    }
+}
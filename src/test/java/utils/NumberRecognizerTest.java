@@ -0,0 +1,80 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日11:05 上午
+ */
+public class NumberRecognizerTest {
+
+    private final NumberRecognizer recognizer = new NumberRecognizer();
+
+    private void assertLong(String text, long expected) {
+        Assert.assertTrue(text, recognizer.recognize(text));
+        Assert.assertTrue(text, recognizer.isInteger());
+        Assert.assertEquals(text, expected, recognizer.longValue());
+    }
+
+    private void assertDouble(String text, double expected, int unit) {
+        Assert.assertTrue(text, recognizer.recognize(text));
+        Assert.assertEquals(text, expected, recognizer.doubleValue(), 1e-9);
+        Assert.assertEquals(text, unit, recognizer.unit());
+    }
+
+    private void assertOverflow(String text, double expected) {
+        Assert.assertTrue(text, recognizer.recognize(text));
+        Assert.assertFalse(text, recognizer.isInteger());
+        Assert.assertEquals(text, expected, recognizer.doubleValue(), expected * 1e-12);
+    }
+
+    @Test
+    public void testArabic() {
+        assertLong("2021", 2021);
+        assertLong("２０２１", 2021);
+        assertLong("-15", -15);
+        assertLong("1,000,000", 1000000);
+        assertDouble("98．1％", 98.1, NumberRecognizer.UNIT_PERCENT);
+        assertDouble("5‰", 5, NumberRecognizer.UNIT_PERMILLE);
+        assertDouble("3/4", 0.75, NumberRecognizer.UNIT_NONE);
+        Assert.assertFalse(recognizer.recognize("1,00"));
+        Assert.assertFalse(recognizer.recognize("1.2.3"));
+        Assert.assertFalse(recognizer.recognize("%"));
+        Assert.assertFalse(recognizer.recognize("12ab"));
+    }
+
+    @Test
+    public void testChinese() {
+        assertLong("一九九八", 1998);
+        assertLong("十五", 15);
+        assertLong("三百二十五", 325);
+        assertLong("一百零五", 105);
+        assertLong("两万", 20000);
+        assertLong("一亿二千万", 120000000L);
+        assertLong("壹佰贰拾", 120);
+        assertLong("3百万", 3000000);
+        assertLong("3万亿", 3000000000000L);
+        assertDouble("1.5万", 15000, NumberRecognizer.UNIT_NONE);
+        Assert.assertFalse(recognizer.isInteger());
+        assertDouble("百分之三十", 30, NumberRecognizer.UNIT_PERCENT);
+        assertDouble("三点五", 3.5, NumberRecognizer.UNIT_NONE);
+        Assert.assertFalse(recognizer.recognize("万"));
+
+        // 整数部分溢出时不是精确整数，数值改用浮点数
+        assertLong("922337203685477万", 9223372036854770000L);
+        assertOverflow("9223372036854775807万", 9.223372036854775807E22);
+        assertOverflow("一千亿亿", 1e19);
+        assertOverflow("9万亿亿", 9e20);
+    }
+
+    @Test
+    public void testCharSpan() {
+        char[] chars = "增长了百分之三十五，共3百万元".toCharArray();
+        Assert.assertTrue(recognizer.recognize(chars, 3, 6));
+        Assert.assertEquals(35, recognizer.longValue());
+        Assert.assertEquals(NumberRecognizer.UNIT_PERCENT, recognizer.unit());
+        Assert.assertTrue(recognizer.recognize(chars, 11, 3));
+        Assert.assertEquals(3000000, recognizer.longValue());
+    }
+}
@@ -0,0 +1,85 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月18日10:12 上午
+ */
+public class TextUtilsTest {
+
+    @Test
+    public void testIsAllChinese() {
+        Assert.assertTrue(TextUtils.isAllChinese("中华人民共和国"));
+        Assert.assertFalse(TextUtils.isAllChinese("中国2021"));
+        Assert.assertFalse(TextUtils.isAllChinese(""));
+        char[] chars = "abc中国def".toCharArray();
+        Assert.assertTrue(TextUtils.isAllChinese(chars, 3, 2));
+        Assert.assertFalse(TextUtils.isAllChinese(chars, 2, 2));
+    }
+
+    @Test
+    public void testIsAllNonChinese() {
+        Assert.assertTrue(TextUtils.isAllNonChinese("hello, world"));
+        Assert.assertFalse(TextUtils.isAllNonChinese("hello，世界"));
+    }
+
+    @Test
+    public void testIsAllNum() {
+        Assert.assertTrue(TextUtils.isAllNum("21"));
+        Assert.assertTrue(TextUtils.isAllNum("98．1％"));
+        Assert.assertTrue(TextUtils.isAllNum("３百"));
+        Assert.assertTrue(TextUtils.isAllNum("-12.5"));
+        Assert.assertTrue(TextUtils.isAllNum("１２．５"));
+        Assert.assertFalse(TextUtils.isAllNum("1.2.3"));
+        Assert.assertFalse(TextUtils.isAllNum(".5"));
+        Assert.assertFalse(TextUtils.isAllNum("12ab"));
+        Assert.assertFalse(TextUtils.isAllNum(""));
+        char[] chars = "共计98.1%的人".toCharArray();
+        Assert.assertTrue(TextUtils.isAllNum(chars, 2, 5));
+    }
+
+    @Test
+    public void testProfile() {
+        int flags = TextUtils.profile("中国");
+        Assert.assertTrue((flags & TextUtils.PROFILE_ALL_CHINESE) != 0);
+        Assert.assertTrue((flags & TextUtils.PROFILE_HAS_CJK) != 0);
+        Assert.assertFalse((flags & TextUtils.PROFILE_ALL_NUMBER) != 0);
+        Assert.assertFalse((flags & TextUtils.PROFILE_ALL_SINGLE_BYTE) != 0);
+
+        flags = TextUtils.profile("2021");
+        Assert.assertEquals(TextUtils.PROFILE_ALL_NUMBER | TextUtils.PROFILE_ALL_SINGLE_BYTE, flags);
+
+        String[] samples = {"98．1％", "abc", "中文abc", "３百", "+", "1.2.3"};
+        for (String sample : samples) {
+            flags = TextUtils.profile(sample);
+            Assert.assertEquals(sample, TextUtils.isAllChinese(sample), (flags & TextUtils.PROFILE_ALL_CHINESE) != 0);
+            Assert.assertEquals(sample, TextUtils.isAllNum(sample), (flags & TextUtils.PROFILE_ALL_NUMBER) != 0);
+            Assert.assertEquals(sample, TextUtils.isAllSingleByte(sample), (flags & TextUtils.PROFILE_ALL_SINGLE_BYTE) != 0);
+        }
+    }
+
+    @Test
+    public void testIsYearTime() {
+        Assert.assertTrue(TextUtils.isYearTime("1992"));
+        Assert.assertTrue(TextUtils.isYearTime("98"));
+        Assert.assertTrue(TextUtils.isYearTime("06"));
+        Assert.assertFalse(TextUtils.isYearTime("21"));
+        Assert.assertTrue(TextUtils.isYearTime("１９９８"));
+        Assert.assertTrue(TextUtils.isYearTime("一九九八"));
+        Assert.assertTrue(TextUtils.isYearTime("二仟零二"));
+        Assert.assertTrue(TextUtils.isYearTime("甲子"));
+        Assert.assertFalse(TextUtils.isYearTime("明天"));
+        char[] chars = "生于1992年".toCharArray();
+        Assert.assertTrue(TextUtils.isYearTime(chars, 2, 4));
+        // 与原实现一致：半角数字按 isAllNum 判断，两位时首字符须为0或5-9，〇不算中文数字
+        Assert.assertTrue(TextUtils.isYearTime("123"));
+        Assert.assertTrue(TextUtils.isYearTime("１２３"));
+        Assert.assertFalse(TextUtils.isYearTime("A1"));
+        Assert.assertFalse(TextUtils.isYearTime("〇〇"));
+        Assert.assertTrue(TextUtils.isYearTime("千"));
+        chars = "公元123年".toCharArray();
+        Assert.assertTrue(TextUtils.isYearTime(chars, 2, 3));
+    }
+}
@@ -0,0 +1,109 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日5:00 上午
+ */
+public class ThrottledLoggerTest {
+
+    /**
+     * 记录 error 调用的 Logger，第一个参数为格式，最后一个参数为异常（没有时为null）
+     */
+    private static class RecordingLogger implements InvocationHandler {
+        final List<String> formats = new ArrayList<String>();
+        final List<Throwable> throwables = new ArrayList<Throwable>();
+
+        Logger proxy() {
+            return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("isErrorEnabled")) return true;
+            if (method.getName().equals("error")) {
+                formats.add((String) args[0]);
+                Object last = args[args.length - 1];
+                throwables.add(last instanceof Throwable ? (Throwable) last : null);
+            }
+            return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        }
+    }
+
+    @Test
+    public void testSuppressWithinWindow() throws Exception {
+        RecordingLogger recorder = new RecordingLogger();
+        ThrottledLogger logger = new ThrottledLogger(recorder.proxy(), 200, 16);
+        for (int i = 0; i < 5; i++) logger.error("a.txt", "文件不存在:{}", "a.txt");
+        Assert.assertEquals(1, recorder.formats.size());
+        Assert.assertEquals("文件不存在:{}", recorder.formats.get(0));
+
+        // 窗口重新打开时附带被抑制的次数
+        Thread.sleep(300);
+        logger.error("a.txt", "文件不存在:{}", "a.txt");
+        Assert.assertEquals(2, recorder.formats.size());
+        Assert.assertTrue(recorder.formats.get(1), recorder.formats.get(1).contains("重复4次"));
+        Thread.sleep(300);
+        logger.error("a.txt", "文件不存在:{}", "a.txt");
+        Assert.assertEquals("文件不存在:{}", recorder.formats.get(2));
+    }
+
+    @Test
+    public void testWindowPerKey() {
+        RecordingLogger recorder = new RecordingLogger();
+        ThrottledLogger logger = new ThrottledLogger(recorder.proxy(), 60000, 16);
+        logger.error("a.txt", "读取{}失败", "a.txt");
+        logger.error("b.txt", "读取{}失败", "b.txt");
+        logger.error("a.txt", "读取{}失败", "a.txt");
+        logger.error(null, "读取{}失败", null);
+        logger.error(null, "读取{}失败", null);
+        Assert.assertEquals(3, recorder.formats.size());
+    }
+
+    @Test
+    public void testResetWhenTooManyKeys() {
+        RecordingLogger recorder = new RecordingLogger();
+        ThrottledLogger logger = new ThrottledLogger(recorder.proxy(), 60000, 16);
+        for (int i = 0; i < ThrottledLogger.MAX_KEYS; i++) logger.error("f" + i, "读取{}失败", i);
+        logger.error("f0", "读取{}失败", 0);
+        Assert.assertEquals(ThrottledLogger.MAX_KEYS, recorder.formats.size());
+        // 新key使跟踪的key数超过上限，清空后f0重新开始计时
+        logger.error("new", "读取{}失败", "new");
+        logger.error("f0", "读取{}失败", 0);
+        Assert.assertEquals(ThrottledLogger.MAX_KEYS + 2, recorder.formats.size());
+    }
+
+    private static Exception deepException(int depth) {
+        if (depth == 0) return new IllegalStateException("inner");
+        return deepException(depth - 1);
+    }
+
+    @Test
+    public void testStackTraceNotModified() {
+        RecordingLogger recorder = new RecordingLogger();
+        ThrottledLogger logger = new ThrottledLogger(recorder.proxy(), 60000, 4);
+        Exception cause = deepException(20);
+        Exception e = new RuntimeException("outer", cause);
+        int depth = e.getStackTrace().length;
+        int causeDepth = cause.getStackTrace().length;
+        logger.error("x", "失败:{}", "x", e);
+
+        Assert.assertEquals(depth, e.getStackTrace().length);
+        Assert.assertEquals(causeDepth, cause.getStackTrace().length);
+        Throwable logged = recorder.throwables.get(0);
+        Assert.assertNotSame(e, logged);
+        Assert.assertEquals(e.toString(), logged.toString());
+        Assert.assertEquals(4, logged.getStackTrace().length);
+        Assert.assertEquals(cause.toString(), logged.getCause().toString());
+        Assert.assertEquals(4, logged.getCause().getStackTrace().length);
+    }
+}
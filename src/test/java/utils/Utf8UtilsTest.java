@@ -0,0 +1,43 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Author lizhen
+ * @Date 2026年10月20日3:40 上午
+ */
+public class Utf8UtilsTest {
+
+    @Test
+    public void testClassifyAllBmpCharacters() {
+        for (int c = 0; c < 0x10000; c++) {
+            if (Character.isSurrogate((char) c)) continue;
+            byte[] bytes = String.valueOf((char) c).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(bytes.length, Utf8Utils.sequenceLength(bytes[0]));
+            Assert.assertEquals(c, Utf8Utils.codePointAt(bytes, 0, bytes.length));
+            Assert.assertEquals("U+" + Integer.toHexString(c), CharacterUtils.isCJKCharacter((char) c),
+                    Utf8Utils.isCJKCharacter(bytes, 0, bytes.length));
+            Assert.assertEquals(CharacterUtils.isSpaceLetter((char) c), Utf8Utils.isSpaceLetter(bytes, 0, bytes.length));
+            if (bytes.length == 1) {
+                Assert.assertEquals(CharacterUtils.isEnglishLetter((char) c), Utf8Utils.isEnglishLetter(bytes[0]));
+                Assert.assertEquals(CharacterUtils.isArabicNumber((char) c), Utf8Utils.isArabicNumber(bytes[0]));
+            }
+        }
+    }
+
+    @Test
+    public void testCharCount() {
+        String text = "a中ｂ𠀀é";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(text.codePointCount(0, text.length()), Utf8Utils.charCount(bytes, 0, bytes.length));
+        Assert.assertEquals(0x20000, Utf8Utils.codePointAt(bytes, 7, bytes.length));
+        Assert.assertEquals(0, Utf8Utils.sequenceLength(bytes[2]));
+        Assert.assertEquals(-1, Utf8Utils.codePointAt(bytes, 1, 2));
+        int chars = 0;
+        for (int i = 0; i < bytes.length; i = Utf8Utils.nextCharOffset(bytes, i, bytes.length)) chars++;
+        Assert.assertEquals(5, chars);
+    }
+}